@@ -20,4 +20,16 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Dashboard snapshots are taken one at a time, away from the scheduling thread
+    @Bean
+    public Executor dashboardSnapshotExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("dashboard-snapshot-");
+        executor.initialize();
+        return executor;
+    }
 }
\ No newline at end of file
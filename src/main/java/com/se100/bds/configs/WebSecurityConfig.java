@@ -68,9 +68,10 @@ public class WebSecurityConfig {
                                 "/webhooks/**",
                                 "/ws/**",
                                 "/debug/**",
-                                "/bookings/payment/**"
+                                "/bookings/payment/**",
+                                "/actuator/health"
                         ).permitAll()
-                        .requestMatchers("/admin/**").hasAuthority(Constants.RoleEnum.ADMIN.name())
+                        .requestMatchers("/admin/**", "/actuator/**").hasAuthority(Constants.RoleEnum.ADMIN.name())
                         .anyRequest().authenticated()
                 )
                 .build();
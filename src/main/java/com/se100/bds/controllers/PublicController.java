@@ -3,6 +3,7 @@ package com.se100.bds.controllers;
 import com.se100.bds.controllers.base.AbstractBaseController;
 import com.se100.bds.dtos.requests.auth.LoginRequest;
 import com.se100.bds.dtos.requests.auth.RegisterRequest;
+import com.se100.bds.dtos.responses.CursorPageResponse;
 import com.se100.bds.dtos.responses.PageResponse;
 import com.se100.bds.dtos.responses.SingleResponse;
 import com.se100.bds.dtos.responses.SuccessResponse;
@@ -25,8 +26,11 @@ import com.se100.bds.services.domains.auth.AuthService;
 import com.se100.bds.services.domains.document.DocumentService;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.property.PropertyService;
+import com.se100.bds.services.domains.property.PropertyViewService;
 import com.se100.bds.services.domains.user.UserService;
+import com.se100.bds.services.dtos.results.CursorPage;
 import com.se100.bds.services.dtos.results.PropertyCard;
+import com.se100.bds.services.dtos.results.PropertyDetailsSnapshot;
 import com.se100.bds.utils.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,6 +39,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -45,6 +51,7 @@ import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -57,11 +64,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Tag(name = "000. Public", description = "Public API - All endpoints that don't require authentication")
 @Slf4j
+@Validated
 public class PublicController extends AbstractBaseController {
     private final AuthService authService;
     private final UserService userService;
     private final PropertyMapper propertyMapper;
     private final PropertyService propertyService;
+    private final PropertyViewService propertyViewService;
     private final LocationService locationService;
     private final LocationMapper locationMapper;
     private final DocumentService documentService;
@@ -190,7 +199,7 @@ public class PublicController extends AbstractBaseController {
     @GetMapping("/properties/cards")
     @Operation(
             summary = "Get all property cards with filters and pagination",
-            description = "Retrieve a paginated list of property cards with optional filters for location, price, area, and property features",
+            description = "Retrieve a paginated list of property cards with optional keyword search and filters for location, price, area, and property features",
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -293,7 +302,10 @@ public class PublicController extends AbstractBaseController {
             @RequestParam(required = false) List<Constants.TransactionTypeEnum> transactionType,
 
             @Parameter(description = "Property statuses (e.g., AVAILABLE, SOLD, RENTED, PENDING, APPROVED)")
-            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses
+            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses,
+
+            @Parameter(description = "Keywords searched in title, description, address and amenities; accents are optional and each word matches as a prefix. Results are ranked by relevance unless sorted")
+            @RequestParam(required = false) String keyword
     ) {
         if (!topK)
             sortBy = null;
@@ -323,6 +335,7 @@ public class PublicController extends AbstractBaseController {
                 balconyOrientation,
                 transactionType,
                 statuses,
+                keyword,
                 topK,
                 pageable
         );
@@ -332,6 +345,151 @@ public class PublicController extends AbstractBaseController {
         return responseFactory.successPage(simplePropertyCards, "Property cards retrieved successfully");
     }
 
+    @GetMapping("/properties/cards/cursor")
+    @Operation(
+            summary = "Get property cards with cursor pagination",
+            description = "Keyset paginated variant of the property card listing for infinite scrolling. Pass the returned nextCursor to get the following page; the cursor keeps the sort of the first request",
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Successful operation",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = CursorPageResponse.class)
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid parameters or cursor",
+                            content = @Content(
+                                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ErrorResponse.class)
+                            )
+                    )
+            }
+    )
+    public ResponseEntity<CursorPageResponse<SimplePropertyCard>> getAllCardsWithCursor(
+            @Parameter(description = "Cursor returned by the previous page, omit for the first page")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Number of items per page, between 1 and 100")
+            @RequestParam(defaultValue = "15") @Min(1) @Max(100) int limit,
+
+            @Parameter(description = "Skip the total count, recommended when walking through many pages")
+            @RequestParam(defaultValue = "false") boolean skipCount,
+
+            @Parameter(description = "Sort direction: asc or desc, ignored when a cursor is given")
+            @RequestParam(defaultValue = "desc") String sortType,
+
+            @Parameter(description = "Field to sort by: createdAt, price or area, ignored when a cursor is given")
+            @RequestParam(required = false) String sortBy,
+
+            @Parameter(description = "List of city IDs to filter by")
+            @RequestParam(required = false) List<UUID> cityIds,
+
+            @Parameter(description = "List of district IDs to filter by")
+            @RequestParam(required = false) List<UUID> districtIds,
+
+            @Parameter(description = "List of ward IDs to filter by")
+            @RequestParam(required = false) List<UUID> wardIds,
+
+            @Parameter(description = "List of property type IDs to filter by")
+            @RequestParam(required = false) List<UUID> propertyTypeIds,
+
+            @Parameter(description = "Property owner ID; Note: Use this when get all properties by owner id, if search in the landing page using owner's name and tier, keep this null")
+            @RequestParam(required = false) UUID ownerId,
+
+            @Parameter(description = "Property owner's name")
+            @RequestParam(required = false) String ownerName,
+
+            @Parameter(description = "Property owner's tier")
+            @RequestParam(required = false) List<Constants.ContributionTierEnum> ownerTier,
+
+            @Parameter(description = "The same shit as owner")
+            @RequestParam(required = false) UUID agentId,
+
+            @Parameter(description = "Agent's name")
+            @RequestParam(required = false) String agentName,
+
+            @Parameter(description = "Agent's tier")
+            @RequestParam(required = false) List<Constants.PerformanceTierEnum> agentTier,
+
+            @Parameter(description = "Is the property has agent assigned?")
+            @RequestParam(required = false) Boolean hasAgent,
+
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false) BigDecimal minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false) BigDecimal maxPrice,
+
+            @Parameter(description = "Minimum area (square meters)")
+            @RequestParam(required = false) BigDecimal minArea,
+
+            @Parameter(description = "Maximum area (square meters)")
+            @RequestParam(required = false) BigDecimal maxArea,
+
+            @Parameter(description = "Number of rooms")
+            @RequestParam(required = false) Integer rooms,
+
+            @Parameter(description = "Number of bathrooms")
+            @RequestParam(required = false) Integer bathrooms,
+
+            @Parameter(description = "Number of bedrooms")
+            @RequestParam(required = false) Integer bedrooms,
+
+            @Parameter(description = "Number of floors")
+            @RequestParam(required = false) Integer floors,
+
+            @Parameter(description = "House orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum houseOrientation,
+
+            @Parameter(description = "Balcony orientation (e.g., EAST, WEST, NORTH, SOUTH)")
+            @RequestParam(required = false) Constants.OrientationEnum balconyOrientation,
+
+            @Parameter(description = "List of desire Transaction type (e.g., SALE, RENT)")
+            @RequestParam(required = false) List<Constants.TransactionTypeEnum> transactionType,
+
+            @Parameter(description = "Property statuses (e.g., AVAILABLE, SOLD, RENTED, PENDING, APPROVED)")
+            @RequestParam(required = false) List<Constants.PropertyStatusEnum> statuses
+    ) {
+        CursorPage<PropertyCard> propertyCards = propertyService.getAllCardsWithCursor(
+                cityIds,
+                districtIds,
+                wardIds,
+                propertyTypeIds,
+                ownerId,
+                ownerName,
+                ownerTier,
+                agentId,
+                agentName,
+                agentTier,
+                hasAgent,
+                minPrice,
+                maxPrice,
+                minArea,
+                maxArea,
+                rooms,
+                bathrooms,
+                bedrooms,
+                floors,
+                houseOrientation,
+                balconyOrientation,
+                transactionType,
+                statuses,
+                sortBy,
+                sortType,
+                cursor,
+                limit,
+                skipCount
+        );
+
+        CursorPage<SimplePropertyCard> simplePropertyCards = propertyCards.map(
+                card -> propertyMapper.mapTo(card, SimplePropertyCard.class));
+
+        return responseFactory.successCursorPage(simplePropertyCards, "Property cards retrieved successfully");
+    }
+
     @GetMapping("/properties/{propertyId}")
     @Operation(
             summary = "Get property details by ID",
@@ -345,6 +503,10 @@ public class PublicController extends AbstractBaseController {
                                     schema = @Schema(implementation = SingleResponse.class)
                             )
                     ),
+                    @ApiResponse(
+                            responseCode = "304",
+                            description = "Not modified since the version in If-None-Match"
+                    ),
                     @ApiResponse(
                             responseCode = "404",
                             description = "Property not found",
@@ -357,13 +519,21 @@ public class PublicController extends AbstractBaseController {
     )
     public ResponseEntity<SingleResponse<PropertyDetails>> getPropertyDetails(
             @Parameter(description = "Property ID", required = true)
-            @PathVariable UUID propertyId
+            @PathVariable UUID propertyId,
+            WebRequest webRequest
     ) {
         log.info("Getting property details for ID: {}", propertyId);
 
-        PropertyDetails propertyDetails = propertyService.getPropertyDetailsById(propertyId);
+        PropertyDetailsSnapshot snapshot = propertyService.getPropertyDetailsSnapshot(propertyId);
+        // Counted even when the client revalidates with a 304, it is still a page view
+        propertyViewService.recordView(propertyId);
+
+        // Sets the ETag header and answers 304 when the client already has this version
+        if (webRequest.checkNotModified(snapshot.etag())) {
+            return null;
+        }
 
-        return responseFactory.successSingle(propertyDetails, "Property details retrieved successfully");
+        return responseFactory.successSingle(snapshot.details(), "Property details retrieved successfully");
     }
 
     // ==================== LOCATION ENDPOINTS ====================
@@ -1,19 +1,25 @@
 package com.se100.bds.controllers;
 
 import com.se100.bds.controllers.base.AbstractBaseController;
+import com.se100.bds.dtos.responses.PageResponse;
 import com.se100.bds.dtos.responses.SingleResponse;
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntry;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.utils.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 import static com.se100.bds.utils.Constants.SECURITY_SCHEME_NAME;
@@ -196,5 +202,78 @@ public class RankingController extends AbstractBaseController {
         IndividualPropertyOwnerContributionAll contribution = rankingService.getMyPropertyOwnerAll();
         return responseFactory.successSingle(contribution, "My property owner all-time contribution retrieved successfully");
     }
-}
 
+    // Leaderboard endpoints
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/leaderboard")
+    @Operation(
+            summary = "Get a page of the leaderboard of a role, for a month or all time when no month is given",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<PageResponse<LeaderboardEntry>> getLeaderboard(
+            @Parameter(description = "Role of the leaderboard: SALESAGENT, CUSTOMER or PROPERTY_OWNER", required = true)
+            @RequestParam Constants.RoleEnum role,
+            @Parameter(description = "Month (1-12)")
+            @RequestParam(required = false) Integer month,
+            @Parameter(description = "Year")
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "Page number (1-based)")
+            @RequestParam(defaultValue = "1") int page,
+            @Parameter(description = "Number of items per page")
+            @RequestParam(defaultValue = "20") int limit) {
+        Pageable pageable = createPageable(page, limit, null, null);
+        Page<LeaderboardEntry> leaderboard = rankingService.getLeaderboard(role, month, year, pageable);
+        return responseFactory.successPage(leaderboard, "Leaderboard retrieved successfully");
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/leaderboard/top")
+    @Operation(
+            summary = "Get the top of the leaderboard of a role, for a month or all time when no month is given",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<LeaderboardEntry>>> getLeaderboardTop(
+            @Parameter(description = "Role of the leaderboard: SALESAGENT, CUSTOMER or PROPERTY_OWNER", required = true)
+            @RequestParam Constants.RoleEnum role,
+            @Parameter(description = "Month (1-12)")
+            @RequestParam(required = false) Integer month,
+            @Parameter(description = "Year")
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "Number of entries")
+            @RequestParam(defaultValue = "10") int limit) {
+        List<LeaderboardEntry> top = rankingService.getLeaderboardTop(role, month, year, limit);
+        return responseFactory.successSingle(top, "Leaderboard top retrieved successfully");
+    }
+
+    @PreAuthorize("hasAnyRole('SALESAGENT', 'CUSTOMER', 'PROPERTY_OWNER')")
+    @GetMapping("/leaderboard/me")
+    @Operation(
+            summary = "Get my rank on my role's leaderboard with the neighbours around me",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<List<LeaderboardEntry>>> getMyLeaderboardPosition(
+            @Parameter(description = "Month (1-12)")
+            @RequestParam(required = false) Integer month,
+            @Parameter(description = "Year")
+            @RequestParam(required = false) Integer year,
+            @Parameter(description = "Number of neighbours on each side")
+            @RequestParam(defaultValue = "2") int neighbours) {
+        List<LeaderboardEntry> position = rankingService.getMyLeaderboardPosition(month, year, neighbours);
+        return responseFactory.successSingle(position, "My leaderboard position retrieved successfully");
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/replay")
+    @Operation(
+            summary = "Rebuild the ranking records of a month from the ranking event log, in the background",
+            security = @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    )
+    public ResponseEntity<SingleResponse<Void>> replayRankingEvents(
+            @Parameter(description = "Month (1-12)", required = true)
+            @RequestParam int month,
+            @Parameter(description = "Year", required = true)
+            @RequestParam int year) {
+        rankingService.replayRankingEvents(month, year);
+        return responseFactory.successSingle(null, "Ranking event replay started");
+    }
+}
@@ -1,7 +1,9 @@
 package com.se100.bds.controllers.base;
 
+import com.se100.bds.dtos.responses.CursorPageResponse;
 import com.se100.bds.dtos.responses.PageResponse;
 import com.se100.bds.dtos.responses.SingleResponse;
+import com.se100.bds.services.dtos.results.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -85,4 +87,23 @@ public class ResponseFactory {
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    public <T> ResponseEntity<CursorPageResponse<T>> successCursorPage(
+            CursorPage<T> page,
+            String message
+    ) {
+        CursorPageResponse<T> response = CursorPageResponse.<T>builder()
+                .statusCode(HttpStatus.OK.value())
+                .message(message)
+                .data(page.content())
+                .paging(new CursorPageResponse.CursorPagingResponse(
+                        page.limit(),
+                        page.nextCursor(),
+                        page.hasNext(),
+                        page.total()
+                ))
+                .build();
+
+        return ResponseEntity.ok(response);
+    }
+}
@@ -15,10 +15,13 @@ import com.se100.bds.repositories.domains.location.DistrictRepository;
 import com.se100.bds.repositories.domains.location.WardRepository;
 import com.se100.bds.repositories.domains.mongo.customer.CustomerFavoritePropertyRepository;
 import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
 import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.repositories.domains.property.PropertyTypeRepository;
 import com.se100.bds.repositories.domains.user.UserRepository;
+import com.se100.bds.services.domains.search.SearchService;
+import com.se100.bds.services.domains.search.scheduler.SearchLogRollupScheduler;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,12 +29,12 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -40,6 +43,7 @@ public class SearchLogDummyData {
 
     private final SearchLogRepository searchLogRepository;
     private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
     private final CityRepository cityRepository;
     private final DistrictRepository districtRepository;
     private final WardRepository wardRepository;
@@ -47,6 +51,8 @@ public class SearchLogDummyData {
     private final PropertyTypeRepository propertyTypeRepository;
     private final UserRepository userRepository;
     private final CustomerFavoritePropertyRepository customerFavoritePropertyRepository;
+    private final SearchService searchService;
+    private final SearchLogRollupScheduler searchLogRollupScheduler;
 
     private final Random random = new Random();
 
@@ -318,41 +324,30 @@ public class SearchLogDummyData {
     ) {
         log.info("Generating PropertyStatisticsReport for {}-{}", year, month);
 
-        // Query search logs for this month
-        List<SearchLog> monthLogs = searchLogRepository.findAll().stream()
-            .filter(log -> log.getCreatedAt() != null
-                && !log.getCreatedAt().isBefore(monthStart)
-                && !log.getCreatedAt().isAfter(monthEnd))
-            .toList();
-
-        // Query all search logs up to this month
-        List<SearchLog> allLogsUpToNow = searchLogRepository.findAll().stream()
-            .filter(log -> log.getCreatedAt() != null && !log.getCreatedAt().isAfter(monthEnd))
-            .toList();
+        // Roll up the generated days, the report counts are read from the rollups instead of rescanning every log
+        for (LocalDate day = monthStart.toLocalDate(); !day.isAfter(monthEnd.toLocalDate()); day = day.plusDays(1)) {
+            searchLogRollupScheduler.rollUp(day);
+        }
+        LocalDate upTo = monthEnd.toLocalDate();
 
         // Calculate statistics for cities
-        Map<UUID, Integer> searchedCitiesMonth = countByField(monthLogs, SearchLog::getCityId);
-        Map<UUID, Integer> searchedCities = countByField(allLogsUpToNow, SearchLog::getCityId);
+        Map<UUID, Integer> searchedCities = searchService.countSearches(Constants.SearchTypeEnum.CITY, LocalDate.EPOCH, upTo);
         Map<UUID, Integer> favoriteCities = calculateFavoriteCities();
 
         // Calculate statistics for districts
-        Map<UUID, Integer> searchedDistrictsMonth = countByField(monthLogs, SearchLog::getDistrictId);
-        Map<UUID, Integer> searchedDistricts = countByField(allLogsUpToNow, SearchLog::getDistrictId);
+        Map<UUID, Integer> searchedDistricts = searchService.countSearches(Constants.SearchTypeEnum.DISTRICT, LocalDate.EPOCH, upTo);
         Map<UUID, Integer> favoriteDistricts = calculateFavoriteDistricts();
 
         // Calculate statistics for wards
-        Map<UUID, Integer> searchedWardsMonth = countByField(monthLogs, SearchLog::getWardId);
-        Map<UUID, Integer> searchedWards = countByField(allLogsUpToNow, SearchLog::getWardId);
+        Map<UUID, Integer> searchedWards = searchService.countSearches(Constants.SearchTypeEnum.WARD, LocalDate.EPOCH, upTo);
         Map<UUID, Integer> favoriteWards = calculateFavoriteWards();
 
         // Calculate statistics for property types
-        Map<UUID, Integer> searchedPropertyTypesMonth = countByField(monthLogs, SearchLog::getPropertyTypeId);
-        Map<UUID, Integer> searchedPropertyTypes = countByField(allLogsUpToNow, SearchLog::getPropertyTypeId);
+        Map<UUID, Integer> searchedPropertyTypes = searchService.countSearches(Constants.SearchTypeEnum.PROPERTY_TYPE, LocalDate.EPOCH, upTo);
         Map<UUID, Integer> favoritePropertyTypes = calculateFavoritePropertyTypes();
 
         // Calculate statistics for properties
-        Map<UUID, Integer> searchedPropertiesMonth = countByField(monthLogs, SearchLog::getPropertyId);
-        Map<UUID, Integer> searchedProperties = countByField(allLogsUpToNow, SearchLog::getPropertyId);
+        Map<UUID, Integer> searchedProperties = searchService.countSearches(Constants.SearchTypeEnum.PROPERTY, LocalDate.EPOCH, upTo);
 
         // Calculate property statistics
         List<Property> allProperties = propertyRepository.findAll();
@@ -395,36 +390,30 @@ public class SearchLogDummyData {
             .totalActiveProperties(totalActiveProperties)
             .totalSoldProperties(totalSoldPropertiesCurrentDay)
             .totalRentedProperties(totalRentedPropertiesCurrentDay)
-            .searchedCities(searchedCities)
-            .favoriteCities(favoriteCities)
-            .searchedDistricts(searchedDistricts)
-            .favoriteDistricts(favoriteDistricts)
-            .searchedWards(searchedWards)
-            .favoriteWards(favoriteWards)
-            .searchedPropertyTypes(searchedPropertyTypes)
-            .favoritePropertyTypes(favoritePropertyTypes)
-            .searchedProperties(searchedProperties)
             .build();
 
         report.setBaseReportData(baseReportData);
         report.setCreatedAt(monthEnd);
         report.setUpdatedAt(monthEnd);
 
+        Map<Constants.ReportDimensionEnum, Map<UUID, Integer>> buckets = Map.of(
+            Constants.ReportDimensionEnum.SEARCHED_CITIES, searchedCities,
+            Constants.ReportDimensionEnum.FAVORITE_CITIES, favoriteCities,
+            Constants.ReportDimensionEnum.SEARCHED_DISTRICTS, searchedDistricts,
+            Constants.ReportDimensionEnum.FAVORITE_DISTRICTS, favoriteDistricts,
+            Constants.ReportDimensionEnum.SEARCHED_WARDS, searchedWards,
+            Constants.ReportDimensionEnum.FAVORITE_WARDS, favoriteWards,
+            Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES, searchedPropertyTypes,
+            Constants.ReportDimensionEnum.FAVORITE_PROPERTY_TYPES, favoritePropertyTypes,
+            Constants.ReportDimensionEnum.SEARCHED_PROPERTIES, searchedProperties
+        );
+        buckets.forEach((dimension, values) -> reportBucketRepository.replaceValues(dimension, month, year, values));
+
         propertyStatisticsReportRepository.save(report);
 
         log.info("PropertyStatisticsReport created for {}-{}", year, month);
     }
 
-    private <T> Map<UUID, Integer> countByField(List<SearchLog> logs, java.util.function.Function<SearchLog, UUID> fieldExtractor) {
-        return logs.stream()
-            .map(fieldExtractor)
-            .filter(Objects::nonNull)
-            .collect(Collectors.groupingBy(
-                id -> id,
-                Collectors.collectingAndThen(Collectors.counting(), Long::intValue)
-            ));
-    }
-
     private Map<UUID, Integer> calculateFavoriteCities() {
         List<CustomerFavoriteProperty> favorites = customerFavoritePropertyRepository.findAll();
         Map<UUID, Integer> cityCount = new HashMap<>();
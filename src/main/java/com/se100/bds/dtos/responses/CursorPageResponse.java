@@ -0,0 +1,33 @@
+package com.se100.bds.dtos.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@SuperBuilder
+public class CursorPageResponse<T> extends AbstractBaseResponse {
+    private List<T> data;
+    private CursorPagingResponse paging;
+
+    protected CursorPageResponse() {
+        super();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class CursorPagingResponse {
+        // The maximum number of items per page
+        private int limit;
+        // Opaque cursor to pass back for the next page, null on the last page
+        private String nextCursor;
+        // Whether another page exists after this one
+        private boolean hasNext;
+        // The total number of matching items, null when the count was skipped
+        private Long total;
+    }
+}
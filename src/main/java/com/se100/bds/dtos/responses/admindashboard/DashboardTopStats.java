@@ -6,6 +6,7 @@ import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -17,4 +18,7 @@ public class DashboardTopStats {
     private BigDecimal monthRevenue;
     private Integer totalUsers;
     private Double customerStatisfaction;
+    // When the served snapshot was taken and how old it is
+    private LocalDateTime snapshotAt;
+    private Long snapshotAgeSeconds;
 }
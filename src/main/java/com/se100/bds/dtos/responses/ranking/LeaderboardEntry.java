@@ -0,0 +1,20 @@
+package com.se100.bds.dtos.responses.ranking;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@SuperBuilder
+public class LeaderboardEntry {
+    private UUID userId;
+    private Integer rank;
+    private Long points;
+    // Tier of the month, null on all-time leaderboards
+    private String tier;
+}
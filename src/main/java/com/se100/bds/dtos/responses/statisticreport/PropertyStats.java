@@ -19,6 +19,7 @@ public class PropertyStats {
     private Map<Integer, Integer> totalProperties;
     private Map<Integer, Integer> totalSoldProperties;
     private Map<Integer, Integer> totalRentedProperties;
+    private Map<Integer, Integer> totalViews;
     private Map<String, Map<Integer, Long>> searchedTargets;
     private Map<String, Map<Integer, Long>> favoriteTargets;
 }
@@ -8,7 +8,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "media")
+@Table(name = "media", indexes = {
+        @Index(name = "idx_media_property_id", columnList = "property_id")
+})
 @Builder
 @Getter
 @Setter
@@ -19,7 +19,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "properties")
+@Table(name = "properties", indexes = {
+        @Index(name = "idx_properties_status_ward", columnList = "status, ward_id"),
+        @Index(name = "idx_properties_price_amount", columnList = "price_amount"),
+        @Index(name = "idx_properties_area", columnList = "area")
+})
 @Builder
 @Getter
 @Setter
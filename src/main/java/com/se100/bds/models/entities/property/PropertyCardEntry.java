@@ -0,0 +1,130 @@
+package com.se100.bds.models.entities.property;
+
+import com.se100.bds.utils.Constants;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Denormalized read model of a property card, one row per property.
+ * Kept in sync on write by PropertyCardSyncService so card listings are single table scans.
+ */
+@Entity
+@Table(name = "property_cards", indexes = {
+        @Index(name = "idx_property_cards_status_ward", columnList = "status, ward_id"),
+        @Index(name = "idx_property_cards_district", columnList = "district_id"),
+        @Index(name = "idx_property_cards_city", columnList = "city_id"),
+        @Index(name = "idx_property_cards_owner", columnList = "owner_id"),
+        @Index(name = "idx_property_cards_agent", columnList = "agent_id"),
+        @Index(name = "idx_property_cards_price_amount", columnList = "price_amount"),
+        @Index(name = "idx_property_cards_area", columnList = "area"),
+        @Index(name = "idx_property_cards_created_at", columnList = "created_at")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyCardEntry {
+    @Id
+    @Column(name = "property_id", nullable = false)
+    private UUID id;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "title", length = 200)
+    private String title;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type")
+    private Constants.TransactionTypeEnum transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Constants.PropertyStatusEnum status;
+
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "number_of_images", nullable = false)
+    private int numberOfImages;
+
+    @Column(name = "full_address")
+    private String fullAddress;
+
+    @Column(name = "property_type_id")
+    private UUID propertyTypeId;
+
+    @Column(name = "ward_id")
+    private UUID wardId;
+
+    @Column(name = "ward_name")
+    private String wardName;
+
+    @Column(name = "district_id")
+    private UUID districtId;
+
+    @Column(name = "district_name")
+    private String districtName;
+
+    @Column(name = "city_id")
+    private UUID cityId;
+
+    @Column(name = "city_name")
+    private String cityName;
+
+    @Column(name = "price_amount", precision = 15, scale = 2)
+    private BigDecimal priceAmount;
+
+    @Column(name = "area", precision = 10, scale = 2)
+    private BigDecimal area;
+
+    @Column(name = "rooms")
+    private Integer rooms;
+
+    @Column(name = "bathrooms")
+    private Integer bathrooms;
+
+    @Column(name = "bedrooms")
+    private Integer bedrooms;
+
+    @Column(name = "floors")
+    private Integer floors;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "house_orientation", length = 100)
+    private Constants.OrientationEnum houseOrientation;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "balcony_orientation", length = 100)
+    private Constants.OrientationEnum balconyOrientation;
+
+    @Column(name = "owner_id")
+    private UUID ownerId;
+
+    @Column(name = "owner_first_name")
+    private String ownerFirstName;
+
+    @Column(name = "owner_last_name")
+    private String ownerLastName;
+
+    @Column(name = "agent_id")
+    private UUID agentId;
+
+    @Column(name = "agent_first_name")
+    private String agentFirstName;
+
+    @Column(name = "agent_last_name")
+    private String agentLastName;
+
+    // Title, description, address and amenities with Vietnamese accents folded, written by SQL only
+    @Column(name = "search_vector", columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String searchVector;
+}
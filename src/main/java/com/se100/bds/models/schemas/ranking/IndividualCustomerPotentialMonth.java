@@ -7,13 +7,16 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 @Document(collection = "individual_customer_potential_month")
 @CompoundIndexes({
-        @CompoundIndex(name = "customer_month_year_idx", def = "{'customer_id': 1, 'month': 1, 'year': 1}", unique = true)
+        @CompoundIndex(name = "customer_month_year_idx", def = "{'customer_id': 1, 'month': 1, 'year': 1}", unique = true),
+        // Counted events waiting for the log to flag them applied, released by id after each batch
+        @CompoundIndex(name = "applied_event_ids_idx", def = "{'applied_event_ids': 1}", sparse = true)
 })
 @Builder
 @Getter
@@ -45,7 +48,7 @@ public class IndividualCustomerPotentialMonth extends AbstractBaseMongoSchema {
     @Field("month_viewings_attended")
     private Integer monthViewingAttended;
 
-    @Field("month_spending")
+    @Field(value = "month_spending", targetType = FieldType.DECIMAL128)
     private BigDecimal monthSpending;
 
     @Field("month_purchases")
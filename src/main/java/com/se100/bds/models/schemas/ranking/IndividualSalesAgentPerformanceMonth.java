@@ -7,13 +7,17 @@ import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.UUID;
 
 @Document(collection = "individual_sales_agent_performance_month")
 @CompoundIndexes({
-        @CompoundIndex(name = "agent_month_year_idx", def = "{'agent_id': 1, 'month': 1, 'year': 1}", unique = true)
+        @CompoundIndex(name = "agent_month_year_idx", def = "{'agent_id': 1, 'month': 1, 'year': 1}", unique = true),
+        // Counted events waiting for the log to flag them applied, released by id after each batch
+        @CompoundIndex(name = "applied_event_ids_idx", def = "{'applied_event_ids': 1}", sparse = true)
 })
 @Builder
 @Getter
@@ -62,4 +66,34 @@ public class IndividualSalesAgentPerformanceMonth extends AbstractBaseMongoSchem
 
     @Field("month_customer_satisfaction_avg")
     private BigDecimal monthCustomerSatisfactionAvg;
+
+    // Sum of all ratings of the month, incremented atomically with month_rates
+    @Field(value = "rating_sum", targetType = FieldType.DECIMAL128)
+    private BigDecimal ratingSum;
+
+    // Ratings above 3 stars
+    @Field("satisfied_rates")
+    private Integer satisfiedRates;
+
+    /**
+     * Average rating derived from the stored sum and count, the stored average of records without a sum otherwise
+     */
+    public BigDecimal getAvgRating() {
+        if (ratingSum != null && monthRates != null && monthRates > 0) {
+            return ratingSum.divide(BigDecimal.valueOf(monthRates), 2, RoundingMode.HALF_UP);
+        }
+        return avgRating;
+    }
+
+    /**
+     * Percentage of satisfied ratings derived from the stored counts, the stored average of records without them otherwise
+     */
+    public BigDecimal getMonthCustomerSatisfactionAvg() {
+        if (satisfiedRates != null && monthRates != null && monthRates > 0) {
+            return BigDecimal.valueOf(satisfiedRates)
+                    .multiply(BigDecimal.valueOf(100))
+                    .divide(BigDecimal.valueOf(monthRates), 2, RoundingMode.HALF_UP);
+        }
+        return monthCustomerSatisfactionAvg;
+    }
 }
@@ -0,0 +1,55 @@
+package com.se100.bds.models.schemas.ranking;
+
+import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
+import com.se100.bds.utils.Constants;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One ranking action as it happened. The payload is never changed, only the applied flag is set once
+ * the action has been counted into the monthly ranking record.
+ */
+@Document(collection = "ranking_events")
+@CompoundIndexes({
+        @CompoundIndex(name = "applied_occurred_at_idx", def = "{'applied': 1, 'occurred_at': 1}"),
+        @CompoundIndex(name = "role_year_month_occurred_at_idx", def = "{'role': 1, 'year': 1, 'month': 1, 'occurred_at': 1}")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingEvent extends AbstractBaseMongoSchema {
+    @Field("role")
+    private Constants.RoleEnum role;
+
+    @Field("user_id")
+    private UUID userId;
+
+    // Name of the agent, customer or property owner action enum of the role
+    @Field("action")
+    private String action;
+
+    @Field(value = "amount", targetType = FieldType.DECIMAL128)
+    private BigDecimal amount;
+
+    @Field("month")
+    private Integer month;
+
+    @Field("year")
+    private Integer year;
+
+    @Field("occurred_at")
+    private LocalDateTime occurredAt;
+
+    @Field("applied")
+    private Boolean applied;
+}
@@ -7,6 +7,10 @@ import org.springframework.data.mongodb.core.mapping.Field;
 import java.math.BigDecimal;
 import java.util.List;
 
+/**
+ * Header of the monthly financial report, the total revenue and the revenue per city, district, ward
+ * and property type are kept in {@link ReportBucket}s
+ */
 @Document(collection = "financial_reports")
 @Builder
 @Getter
@@ -14,9 +18,6 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class FinancialReport extends AbstractBaseMongoReport {
-    @Field("total_revenue")
-    private BigDecimal totalRevenue;
-
     @Field("contract_count")
     private Integer contractCount;
 
@@ -35,18 +36,6 @@ public class FinancialReport extends AbstractBaseMongoReport {
     @Field("total_salary")
     private BigDecimal totalSalary;
 
-    @Field("revenue_cities")
-    private List<RankedRevenueItem> revenueCities;
-
-    @Field("revenue_districts")
-    private List<RankedRevenueItem> revenueDistricts;
-
-    @Field("revenue_wards")
-    private List<RankedRevenueItem> revenueWards;
-
-    @Field("revenue_property_types")
-    private List<RankedRevenueItem> revenuePropertyTypes;
-
     @Field("sale_agents_salary_month")
     private List<AgentSalaryItem> saleAgentsSalaryMonth;
 
@@ -5,8 +5,11 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.util.Map;
-import java.util.UUID;
 
+/**
+ * Header of the monthly property statistics, the total views and the search, favorite and view counts
+ * per id are kept in {@link ReportBucket}s
+ */
 @Document(collection = "property_statistic_reports")
 @Builder
 @Getter
@@ -23,30 +26,7 @@ public class PropertyStatisticsReport extends AbstractBaseMongoReport {
     @Field("total_rented_properties")
     private Integer totalRentedProperties;
 
-    @Field("searched_cities")
-    private Map<UUID, Integer> searchedCities;
-
-    @Field("favorite_cities")
-    private Map<UUID, Integer> favoriteCities;
-
-    @Field("searched_districts")
-    private Map<UUID, Integer> searchedDistricts;
-
-    @Field("favorite_districts")
-    private Map<UUID, Integer> favoriteDistricts;
-
-    @Field("searched_wards")
-    private Map<UUID, Integer> searchedWards;
-
-    @Field("favorite_wards")
-    private Map<UUID, Integer> favoriteWards;
-
-    @Field("searched_property_types")
-    private Map<UUID, Integer> searchedPropertyTypes;
-
-    @Field("favorite_property_types")
-    private Map<UUID, Integer> favoritePropertyTypes;
-
-    @Field("searched_properties")
-    private Map<UUID, Integer> searchedProperties;
+    // Detail page views of this month only, added by the buffered view counter
+    @Field("daily_views")
+    private Map<Integer, Integer> dailyViews;
 }
@@ -0,0 +1,52 @@
+package com.se100.bds.models.schemas.report;
+
+import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
+import com.se100.bds.utils.Constants;
+import lombok.*;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * One value of a monthly report dimension, e.g. the revenue of a ward or the searches of a city.
+ * Kept apart from the report header so the header stays small whatever the number of locations,
+ * and a reader loads only the dimension it renders.
+ */
+@Document(collection = "report_buckets")
+@CompoundIndexes({
+        @CompoundIndex(name = "year_month_dimension_item_idx", def = "{'year': 1, 'month': 1, 'dimension': 1, 'item_id': 1}", unique = true),
+        // Top ids of a dimension, read in value order without an in memory sort
+        @CompoundIndex(name = "year_month_dimension_value_idx", def = "{'year': 1, 'month': 1, 'dimension': 1, 'value': -1}")
+})
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportBucket extends AbstractBaseMongoSchema {
+    /**
+     * Item id of the one bucket of the total dimensions, the total of the month
+     */
+    public static final UUID TOTAL_ITEM_ID = new UUID(0L, 0L);
+
+    @Field("dimension")
+    private Constants.ReportDimensionEnum dimension;
+
+    @Field("month")
+    private Integer month;
+
+    @Field("year")
+    private Integer year;
+
+    @Field("item_id")
+    private UUID itemId;
+
+    // Revenue for the financial dimensions, a count for the others
+    @Field(value = "value", targetType = FieldType.DECIMAL128)
+    private BigDecimal value;
+}
@@ -0,0 +1,44 @@
+package com.se100.bds.models.schemas.search;
+
+import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
+import com.se100.bds.utils.Constants;
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saved state of the most searched sketch of one search type, so a restart does not rebuild it from the full report maps
+ */
+@Document(collection = "search_heavy_hitter_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SearchHeavyHitterCheckpoint extends AbstractBaseMongoSchema {
+    @Field("search_type")
+    private Constants.SearchTypeEnum searchType;
+
+    @Field("month")
+    private Integer month;
+
+    @Field("year")
+    private Integer year;
+
+    @Field("total")
+    private Long total;
+
+    @Field("counters")
+    private List<Counter> counters;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Counter {
+        private UUID id;
+        private Long count;
+        private Long error;
+    }
+}
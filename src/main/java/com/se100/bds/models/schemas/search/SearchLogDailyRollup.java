@@ -0,0 +1,32 @@
+package com.se100.bds.models.schemas.search;
+
+import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
+import com.se100.bds.utils.Constants;
+import lombok.*;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Search counts of one day and one search type, compacted from the raw search logs which expire
+ */
+@Document(collection = "search_log_daily_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SearchLogDailyRollup extends AbstractBaseMongoSchema {
+    @Field("date")
+    private LocalDate date;
+
+    @Field("search_type")
+    private Constants.SearchTypeEnum searchType;
+
+    @Field("total")
+    private Integer total;
+
+    @Field("counts")
+    private Map<UUID, Integer> counts;
+}
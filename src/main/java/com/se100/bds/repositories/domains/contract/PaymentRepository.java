@@ -1,6 +1,7 @@
 package com.se100.bds.repositories.domains.contract;
 
 import com.se100.bds.models.entities.contract.Payment;
+import com.se100.bds.repositories.dtos.RevenueBucketProjection;
 import com.se100.bds.utils.Constants.PaymentStatusEnum;
 import com.se100.bds.utils.Constants.PaymentTypeEnum;
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,18 +25,21 @@ public interface PaymentRepository extends JpaRepository<Payment, UUID>, JpaSpec
   @EntityGraph(attributePaths = {"contract", "property"})
 	Page<Payment> findAllByProperty_Id(UUID propertyId, Pageable pageable);
 
-	@Query("SELECT p FROM Payment p " +
-	       "LEFT JOIN FETCH p.property prop " +
-	       "LEFT JOIN FETCH prop.ward w " +
-	       "LEFT JOIN FETCH w.district d " +
-	       "LEFT JOIN FETCH d.city " +
-	       "LEFT JOIN FETCH prop.propertyType " +
-	       "WHERE YEAR(p.paidTime) = :year AND MONTH(p.paidTime) = :month " +
+	@Query("SELECT new com.se100.bds.repositories.dtos.RevenueBucketProjection(" +
+	       "c.id, d.id, w.id, pt.id, SUM(p.amount), COUNT(p)) " +
+	       "FROM Payment p " +
+	       "LEFT JOIN p.property prop " +
+	       "LEFT JOIN prop.ward w " +
+	       "LEFT JOIN w.district d " +
+	       "LEFT JOIN d.city c " +
+	       "LEFT JOIN prop.propertyType pt " +
+	       "WHERE p.paidTime >= :from AND p.paidTime < :to " +
 	       "AND p.status = :successStatus " +
-	       "AND p.paymentType NOT IN :excludedTypes")
-	List<Payment> findRevenuePaymentsInMonth(
-		@Param("month") int month,
-		@Param("year") int year,
+	       "AND p.paymentType NOT IN :excludedTypes " +
+	       "GROUP BY c.id, d.id, w.id, pt.id")
+	List<RevenueBucketProjection> sumRevenueByLocationAndPropertyType(
+		@Param("from") LocalDateTime from,
+		@Param("to") LocalDateTime to,
 		@Param("successStatus") PaymentStatusEnum successStatus,
 		@Param("excludedTypes") List<PaymentTypeEnum> excludedTypes
 	);
@@ -2,8 +2,10 @@ package com.se100.bds.repositories.domains.mongo.customer;
 
 import com.se100.bds.models.schemas.customer.AbstractCustomerPreferenceMongoSchema;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,6 +15,12 @@ public interface BaseCustomerPreferenceRepository<T extends AbstractCustomerPref
 
     List<T> findByCustomerId(UUID customerId);
 
+    /**
+     * Find the preferences of a customer among the given ref IDs, only the ref_id field is loaded
+     */
+    @Query(value = "{ 'customer_id': ?0, 'ref_id': { $in: ?1 } }", fields = "{ 'ref_id': 1 }")
+    List<T> findRefIdsByCustomerIdAndRefIdIn(UUID customerId, Collection<UUID> refIds);
+
     void deleteByCustomerIdAndRefId(UUID customerId, UUID refId);
 }
 
@@ -0,0 +1,71 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class IndividualCustomerPotentialMonthCounterRepositoryImpl implements IndividualCustomerPotentialMonthCounterRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public IndividualCustomerPotentialMonth incrementCounters(UUID customerId, int month, int year, Map<String, Number> increments, Collection<String> eventIds) {
+        return RankingCounterUpdates.increment(mongoTemplate, IndividualCustomerPotentialMonth.class,
+                monthQuery(customerId, month, year), increments, eventIds, defaults());
+    }
+
+    @Override
+    public void decrementCounter(UUID customerId, int month, int year, String field, String eventId) {
+        RankingCounterUpdates.decrement(mongoTemplate, IndividualCustomerPotentialMonth.class,
+                monthQuery(customerId, month, year), field, eventId);
+    }
+
+    @Override
+    public Set<String> findAppliedEventIds(UUID customerId, int month, int year) {
+        return RankingCounterUpdates.appliedEvents(mongoTemplate, IndividualCustomerPotentialMonth.class, monthQuery(customerId, month, year));
+    }
+
+    @Override
+    public void releaseAppliedEvents(Collection<String> eventIds) {
+        RankingCounterUpdates.releaseEvents(mongoTemplate, IndividualCustomerPotentialMonth.class, eventIds);
+    }
+
+    @Override
+    public void replaceCounters(int month, int year, Map<UUID, Map<String, Number>> counters, Map<String, Number> zeros) {
+        RankingCounterUpdates.replaceMonth(mongoTemplate, IndividualCustomerPotentialMonth.class, "customer_id", month, year, counters, zeros, defaults());
+    }
+
+    @Override
+    public void migrateCounters() {
+        RankingCounterUpdates.convertToDecimal(mongoTemplate, IndividualCustomerPotentialMonth.class, "month_spending");
+        RankingCounterUpdates.createIndexes(mongoTemplate, IndividualCustomerPotentialMonth.class, "customer_id");
+    }
+
+    private static Query monthQuery(UUID customerId, int month, int year) {
+        return Query.query(Criteria.where("customer_id").is(customerId).and("month").is(month).and("year").is(year));
+    }
+
+    private static Map<String, Object> defaults() {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("lead_score", 0);
+        defaults.put("customer_tier", Constants.CustomerTierEnum.BRONZE);
+        defaults.put("lead_position", 0);
+        defaults.put("month_viewings_requested", 0);
+        defaults.put("month_viewings_attended", 0);
+        defaults.put("month_spending", BigDecimal.ZERO);
+        defaults.put("month_purchases", 0);
+        defaults.put("month_rentals", 0);
+        defaults.put("month_contracts_signed", 0);
+        return defaults;
+    }
+}
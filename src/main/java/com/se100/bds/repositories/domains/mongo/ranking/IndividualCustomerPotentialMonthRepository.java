@@ -4,11 +4,12 @@ import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface IndividualCustomerPotentialMonthRepository extends MongoRepository<IndividualCustomerPotentialMonth, String> {
+public interface IndividualCustomerPotentialMonthRepository extends MongoRepository<IndividualCustomerPotentialMonth, String>, IndividualCustomerPotentialMonthCounterRepository {
     /**
      * Find customer potential records by customer ID
      */
@@ -19,6 +20,11 @@ public interface IndividualCustomerPotentialMonthRepository extends MongoReposit
      */
     IndividualCustomerPotentialMonth findByCustomerIdAndMonthAndYear(UUID customerId, Integer month, Integer year);
 
+    /**
+     * Find customer potential records of many customers for a specific month and year
+     */
+    List<IndividualCustomerPotentialMonth> findAllByCustomerIdInAndMonthAndYear(Collection<UUID> customerIds, Integer month, Integer year);
+
     /**
      * Find all customer potential records by month and year
      */
@@ -0,0 +1,71 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class IndividualPropertyOwnerContributionMonthCounterRepositoryImpl implements IndividualPropertyOwnerContributionMonthCounterRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public IndividualPropertyOwnerContributionMonth incrementCounters(UUID ownerId, int month, int year, Map<String, Number> increments, Collection<String> eventIds) {
+        return RankingCounterUpdates.increment(mongoTemplate, IndividualPropertyOwnerContributionMonth.class,
+                monthQuery(ownerId, month, year), increments, eventIds, defaults());
+    }
+
+    @Override
+    public void decrementCounter(UUID ownerId, int month, int year, String field, String eventId) {
+        RankingCounterUpdates.decrement(mongoTemplate, IndividualPropertyOwnerContributionMonth.class,
+                monthQuery(ownerId, month, year), field, eventId);
+    }
+
+    @Override
+    public Set<String> findAppliedEventIds(UUID ownerId, int month, int year) {
+        return RankingCounterUpdates.appliedEvents(mongoTemplate, IndividualPropertyOwnerContributionMonth.class, monthQuery(ownerId, month, year));
+    }
+
+    @Override
+    public void releaseAppliedEvents(Collection<String> eventIds) {
+        RankingCounterUpdates.releaseEvents(mongoTemplate, IndividualPropertyOwnerContributionMonth.class, eventIds);
+    }
+
+    @Override
+    public void replaceCounters(int month, int year, Map<UUID, Map<String, Number>> counters, Map<String, Number> zeros) {
+        RankingCounterUpdates.replaceMonth(mongoTemplate, IndividualPropertyOwnerContributionMonth.class, "owner_id", month, year, counters, zeros, defaults());
+    }
+
+    @Override
+    public void migrateCounters() {
+        RankingCounterUpdates.convertToDecimal(mongoTemplate, IndividualPropertyOwnerContributionMonth.class, "month_contribution_value");
+        RankingCounterUpdates.createIndexes(mongoTemplate, IndividualPropertyOwnerContributionMonth.class, "owner_id");
+    }
+
+    private static Query monthQuery(UUID ownerId, int month, int year) {
+        return Query.query(Criteria.where("owner_id").is(ownerId).and("month").is(month).and("year").is(year));
+    }
+
+    private static Map<String, Object> defaults() {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("contribution_point", 0);
+        defaults.put("contribution_tier", Constants.ContributionTierEnum.BRONZE);
+        defaults.put("ranking_position", 0);
+        defaults.put("month_contribution_value", BigDecimal.ZERO);
+        defaults.put("month_total_properties", 0);
+        defaults.put("month_total_for_sales", 0);
+        defaults.put("month_total_for_rents", 0);
+        defaults.put("month_total_properties_sold", 0);
+        defaults.put("month_total_properties_rented", 0);
+        return defaults;
+    }
+}
@@ -1,14 +1,16 @@
 package com.se100.bds.repositories.domains.mongo.ranking;
 
 import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.utils.Constants;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface IndividualPropertyOwnerContributionMonthRepository extends MongoRepository<IndividualPropertyOwnerContributionMonth, String> {
+public interface IndividualPropertyOwnerContributionMonthRepository extends MongoRepository<IndividualPropertyOwnerContributionMonth, String>, IndividualPropertyOwnerContributionMonthCounterRepository {
     /**
      * Find property owner contribution records by owner ID
      */
@@ -19,8 +21,18 @@ public interface IndividualPropertyOwnerContributionMonthRepository extends Mong
      */
     IndividualPropertyOwnerContributionMonth findByOwnerIdAndMonthAndYear(UUID ownerId, Integer month, Integer year);
 
+    /**
+     * Find property owner contribution records of many owners for a specific month and year
+     */
+    List<IndividualPropertyOwnerContributionMonth> findAllByOwnerIdInAndMonthAndYear(Collection<UUID> ownerIds, Integer month, Integer year);
+
     /**
      * Find all property owner contribution records by month and year
      */
     List<IndividualPropertyOwnerContributionMonth> findAllByMonthAndYear(Integer month, Integer year);
+
+    /**
+     * Find property owner contribution records holding one of the given tiers for a specific month and year
+     */
+    List<IndividualPropertyOwnerContributionMonth> findAllByMonthAndYearAndContributionTierIn(Integer month, Integer year, Collection<Constants.ContributionTierEnum> tiers);
 }
@@ -0,0 +1,42 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface IndividualSalesAgentPerformanceMonthCounterRepository {
+    /**
+     * Atomically increment counters of the monthly record, creating it with default values when missing.
+     * Returns null without counting anything when the record has already counted one of the events.
+     */
+    IndividualSalesAgentPerformanceMonth incrementCounters(UUID agentId, int month, int year, Map<String, Number> increments, Collection<String> eventIds);
+
+    /**
+     * Atomically decrement one counter of the monthly record without going below zero, once per event
+     */
+    void decrementCounter(UUID agentId, int month, int year, String field, String eventId);
+
+    /**
+     * Events counted into the monthly record that the log has not flagged applied yet
+     */
+    Set<String> findAppliedEventIds(UUID agentId, int month, int year);
+
+    /**
+     * Forget counted events once the log has flagged them applied
+     */
+    void releaseAppliedEvents(Collection<String> eventIds);
+
+    /**
+     * Overwrite the counters of every record of the month with the given values, zero for users left out
+     */
+    void replaceCounters(int month, int year, Map<UUID, Map<String, Number>> counters, Map<String, Number> zeros);
+
+    /**
+     * Bring records written before the counters were incremented in place to the current layout,
+     * then create the unique record index the upserts rely on
+     */
+    void migrateCounters();
+}
@@ -0,0 +1,95 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class IndividualSalesAgentPerformanceMonthCounterRepositoryImpl implements IndividualSalesAgentPerformanceMonthCounterRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public IndividualSalesAgentPerformanceMonth incrementCounters(UUID agentId, int month, int year, Map<String, Number> increments, Collection<String> eventIds) {
+        return RankingCounterUpdates.increment(mongoTemplate, IndividualSalesAgentPerformanceMonth.class,
+                monthQuery(agentId, month, year), increments, eventIds, defaults());
+    }
+
+    @Override
+    public void decrementCounter(UUID agentId, int month, int year, String field, String eventId) {
+        RankingCounterUpdates.decrement(mongoTemplate, IndividualSalesAgentPerformanceMonth.class,
+                monthQuery(agentId, month, year), field, eventId);
+    }
+
+    @Override
+    public Set<String> findAppliedEventIds(UUID agentId, int month, int year) {
+        return RankingCounterUpdates.appliedEvents(mongoTemplate, IndividualSalesAgentPerformanceMonth.class, monthQuery(agentId, month, year));
+    }
+
+    @Override
+    public void releaseAppliedEvents(Collection<String> eventIds) {
+        RankingCounterUpdates.releaseEvents(mongoTemplate, IndividualSalesAgentPerformanceMonth.class, eventIds);
+    }
+
+    @Override
+    public void replaceCounters(int month, int year, Map<UUID, Map<String, Number>> counters, Map<String, Number> zeros) {
+        RankingCounterUpdates.replaceMonth(mongoTemplate, IndividualSalesAgentPerformanceMonth.class, "agent_id", month, year, counters, zeros, defaults());
+    }
+
+    @Override
+    public void migrateCounters() {
+        // Rebuild the rating sum and satisfied count from the averages the records were saved with
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("rating_sum").exists(false)),
+                AggregationUpdate.from(List.of(context -> new Document("$set", new Document()
+                        .append("rating_sum", new Document("$multiply", List.of(
+                                decimalOrZero("$avg_rating"), new Document("$ifNull", List.of("$month_rates", 0)))))
+                        .append("satisfied_rates", new Document("$toInt", new Document("$round", List.of(
+                                new Document("$divide", List.of(
+                                        new Document("$multiply", List.of(
+                                                decimalOrZero("$month_customer_satisfaction_avg"),
+                                                new Document("$ifNull", List.of("$month_rates", 0)))),
+                                        100)),
+                                0))))))),
+                IndividualSalesAgentPerformanceMonth.class);
+        RankingCounterUpdates.createIndexes(mongoTemplate, IndividualSalesAgentPerformanceMonth.class, "agent_id");
+    }
+
+    private static Document decimalOrZero(String field) {
+        return new Document("$toDecimal", new Document("$ifNull", List.of(field, 0)));
+    }
+
+    private static Query monthQuery(UUID agentId, int month, int year) {
+        return Query.query(Criteria.where("agent_id").is(agentId).and("month").is(month).and("year").is(year));
+    }
+
+    private static Map<String, Object> defaults() {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("performance_point", 0);
+        defaults.put("performance_tier", Constants.PerformanceTierEnum.BRONZE);
+        defaults.put("ranking_position", 0);
+        defaults.put("handling_properties", 0);
+        defaults.put("month_properties_assigned", 0);
+        defaults.put("month_appointments_assigned", 0);
+        defaults.put("month_appointments_completed", 0);
+        defaults.put("month_contracts", 0);
+        defaults.put("month_rates", 0);
+        defaults.put("avg_rating", BigDecimal.ZERO);
+        defaults.put("month_customer_satisfaction_avg", BigDecimal.ZERO);
+        defaults.put("rating_sum", BigDecimal.ZERO);
+        defaults.put("satisfied_rates", 0);
+        return defaults;
+    }
+}
@@ -1,14 +1,16 @@
 package com.se100.bds.repositories.domains.mongo.ranking;
 
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.utils.Constants;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface IndividualSalesAgentPerformanceMonthRepository extends MongoRepository<IndividualSalesAgentPerformanceMonth, String> {
+public interface IndividualSalesAgentPerformanceMonthRepository extends MongoRepository<IndividualSalesAgentPerformanceMonth, String>, IndividualSalesAgentPerformanceMonthCounterRepository {
     /**
      * Find agent performance records by agent ID
      */
@@ -19,11 +21,21 @@ public interface IndividualSalesAgentPerformanceMonthRepository extends MongoRep
      */
     IndividualSalesAgentPerformanceMonth findByAgentIdAndMonthAndYear(UUID agentId, Integer month, Integer year);
 
+    /**
+     * Find agent performance records of many agents for a specific month and year
+     */
+    List<IndividualSalesAgentPerformanceMonth> findAllByAgentIdInAndMonthAndYear(Collection<UUID> agentIds, Integer month, Integer year);
+
     /**
      * Find all agent performance records for a specific month and year
      */
     List<IndividualSalesAgentPerformanceMonth> findByMonthAndYear(Integer month, Integer year);
 
+    /**
+     * Find agent performance records holding one of the given tiers for a specific month and year
+     */
+    List<IndividualSalesAgentPerformanceMonth> findAllByMonthAndYearAndPerformanceTierIn(Integer month, Integer year, Collection<Constants.PerformanceTierEnum> tiers);
+
     Long countByAgentId(UUID agentId);
 
     List<IndividualSalesAgentPerformanceMonth> findAllByMonthAndYear(Integer month, Integer year);
@@ -0,0 +1,186 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shared atomic counter updates of the monthly ranking records
+ */
+@Slf4j
+final class RankingCounterUpdates {
+    private static final int REPLACE_BATCH_SIZE = 1000;
+    private static final String APPLIED_EVENTS_FIELD = "applied_event_ids";
+
+    private RankingCounterUpdates() {
+    }
+
+    /**
+     * Increment the counters of one monthly record in a single findAndModify, creating the record with
+     * the given defaults when it does not exist yet. Defaults of incremented fields are left to $inc,
+     * Mongo rejects an update touching the same path twice. The ids of the counted events are kept on the
+     * record until the log flags them applied; when the record already holds one of them nothing is
+     * counted and null is returned.
+     */
+    static <T> T increment(MongoTemplate mongoTemplate, Class<T> type, Query query,
+                           Map<String, Number> increments, Collection<String> eventIds, Map<String, Object> defaults) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert("_id", UUID.randomUUID().toString())
+                .setOnInsert("createdAt", now)
+                .set("updatedAt", now);
+        defaults.forEach((field, value) -> {
+            if (!increments.containsKey(field)) {
+                update.setOnInsert(field, value);
+            }
+        });
+        increments.forEach(update::inc);
+        update.push(APPLIED_EVENTS_FIELD).each(eventIds.toArray());
+        query.addCriteria(Criteria.where(APPLIED_EVENTS_FIELD).nin(eventIds));
+
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, type);
+        } catch (DuplicateKeyException e) {
+            // Another event inserted the record first, or the record has counted one of the events already.
+            // Either way the unique index turned our insert away, the first case now matches
+            try {
+                return mongoTemplate.findAndModify(query, update, options, type);
+            } catch (DuplicateKeyException again) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Decrement one counter without going below zero, a missing record is left missing. The event is
+     * recorded even when the counter is already zero, so counting it again is a no-op either way.
+     */
+    static void decrement(MongoTemplate mongoTemplate, Class<?> type, Query query, String field, String eventId) {
+        query.addCriteria(Criteria.where(APPLIED_EVENTS_FIELD).ne(eventId));
+        mongoTemplate.updateFirst(query, AggregationUpdate.from(List.of(context -> new Document("$set", new Document()
+                .append(field, new Document("$max", List.of(
+                        new Document("$subtract", List.of(new Document("$ifNull", List.of("$" + field, 0)), 1)), 0)))
+                .append(APPLIED_EVENTS_FIELD, new Document("$concatArrays", List.of(
+                        new Document("$ifNull", List.of("$" + APPLIED_EVENTS_FIELD, List.of())), List.of(eventId))))
+                .append("updatedAt", LocalDateTime.now())))), type);
+    }
+
+    /**
+     * Ids of the events the record has counted that the log has not flagged applied yet
+     */
+    static Set<String> appliedEvents(MongoTemplate mongoTemplate, Class<?> type, Query query) {
+        query.fields().include(APPLIED_EVENTS_FIELD);
+        Document record = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(type));
+        return record != null ? new HashSet<>(record.getList(APPLIED_EVENTS_FIELD, String.class, List.of())) : Set.of();
+    }
+
+    /**
+     * Forget events the log has flagged applied, they are never consumed again
+     */
+    static void releaseEvents(MongoTemplate mongoTemplate, Class<?> type, Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where(APPLIED_EVENTS_FIELD).in(eventIds)),
+                new Update().pullAll(APPLIED_EVENTS_FIELD, eventIds.toArray()),
+                type);
+    }
+
+    /**
+     * Create the declared indexes of a monthly record type, spring.data.mongodb.auto-index-creation is off.
+     * Duplicate records of one user and month, left by the old read-modify-write updates, would fail the
+     * unique index, so only the most recently updated one is kept.
+     */
+    static void createIndexes(MongoTemplate mongoTemplate, Class<?> type, String userField) {
+        Aggregation duplicates = Aggregation.newAggregation(
+                        Aggregation.sort(Sort.Direction.DESC, "updatedAt"),
+                        Aggregation.group(userField, "month", "year").push("_id").as("ids").count().as("count"),
+                        Aggregation.match(Criteria.where("count").gt(1)))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        int removed = 0;
+        for (Document group : mongoTemplate.aggregate(duplicates, mongoTemplate.getCollectionName(type), Document.class)) {
+            List<Object> ids = group.getList("ids", Object.class);
+            removed += (int) mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids.subList(1, ids.size()))), type)
+                    .getDeletedCount();
+        }
+        if (removed > 0) {
+            log.warn("Removed {} duplicate {} records, the most recently updated record of each month was kept",
+                    removed, type.getSimpleName());
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(type)
+                .forEach(indexOps::createIndex);
+    }
+
+    /**
+     * Overwrite the counters of every record of a month: records without counters get the zeros,
+     * the others the given values, missing records are created with the defaults
+     */
+    static void replaceMonth(MongoTemplate mongoTemplate, Class<?> type, String userField, int month, int year,
+                             Map<UUID, Map<String, Number>> counters, Map<String, Number> zeros, Map<String, Object> defaults) {
+        LocalDateTime now = LocalDateTime.now();
+        // Every event of the month is counted by the replay and flagged applied after it
+        Update reset = new Update().set("updatedAt", now).unset(APPLIED_EVENTS_FIELD);
+        zeros.forEach(reset::set);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("month").is(month).and("year").is(year)), reset, type);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        int queued = 0;
+        for (Map.Entry<UUID, Map<String, Number>> entry : counters.entrySet()) {
+            Update update = new Update()
+                    .setOnInsert("_id", UUID.randomUUID().toString())
+                    .setOnInsert("createdAt", now)
+                    .set("updatedAt", now);
+            defaults.forEach((field, value) -> {
+                if (!entry.getValue().containsKey(field)) {
+                    update.setOnInsert(field, value);
+                }
+            });
+            entry.getValue().forEach(update::set);
+            bulk.upsert(Query.query(Criteria.where(userField).is(entry.getKey()).and("month").is(month).and("year").is(year)), update);
+            if (++queued == REPLACE_BATCH_SIZE) {
+                bulk.execute();
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+                queued = 0;
+            }
+        }
+        if (queued > 0) {
+            bulk.execute();
+        }
+    }
+
+    /**
+     * Convert a money field still stored as a string to Decimal128 so it can be incremented
+     */
+    static void convertToDecimal(MongoTemplate mongoTemplate, Class<?> type, String field) {
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where(field).type(2)),
+                AggregationUpdate.from(List.of(context -> new Document("$set",
+                        new Document(field, new Document("$toDecimal", "$" + field))))),
+                type);
+    }
+}
@@ -0,0 +1,23 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RankingEventQueueRepository {
+    /**
+     * Oldest events not counted yet
+     */
+    List<RankingEvent> findPending(int limit);
+
+    /**
+     * Flag the events as counted into the ranking records
+     */
+    void markApplied(Collection<String> ids);
+
+    /**
+     * Create the indexes the pending scan and the replay read through
+     */
+    void ensureIndexes();
+}
@@ -0,0 +1,47 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class RankingEventQueueRepositoryImpl implements RankingEventQueueRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<RankingEvent> findPending(int limit) {
+        Query query = Query.query(Criteria.where("applied").is(false))
+                .with(Sort.by("occurred_at"))
+                .limit(limit);
+        return mongoTemplate.find(query, RankingEvent.class);
+    }
+
+    @Override
+    public void markApplied(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids)),
+                new Update().set("applied", true),
+                RankingEvent.class);
+    }
+
+    @Override
+    public void ensureIndexes() {
+        // The ones declared on RankingEvent, spring.data.mongodb.auto-index-creation is off
+        IndexOperations indexOps = mongoTemplate.indexOps(RankingEvent.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(RankingEvent.class)
+                .forEach(indexOps::createIndex);
+    }
+}
@@ -0,0 +1,21 @@
+package com.se100.bds.repositories.domains.mongo.ranking;
+
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+import com.se100.bds.utils.Constants;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+@Repository
+public interface RankingEventRepository extends MongoRepository<RankingEvent, String>, RankingEventQueueRepository {
+    /**
+     * Stream the events of one role and month in the order they happened
+     */
+    Stream<RankingEvent> streamAllByRoleAndMonthAndYearOrderByOccurredAtAsc(Constants.RoleEnum role, Integer month, Integer year);
+
+    /**
+     * Oldest event of the log
+     */
+    RankingEvent findFirstByOrderByOccurredAtAsc();
+}
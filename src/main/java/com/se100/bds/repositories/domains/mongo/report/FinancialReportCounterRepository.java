@@ -0,0 +1,15 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Atomic revenue increments of the FinancialReport of a month, so concurrent payments never overwrite each other
+ */
+public interface FinancialReportCounterRepository {
+    /**
+     * Add revenue to the total and to the matching city, district, ward and property type buckets,
+     * false when the report of the month does not exist yet
+     */
+    boolean incrementRevenue(int month, int year, BigDecimal value, UUID cityId, UUID districtId, UUID wardId, UUID propertyTypeId);
+}
@@ -0,0 +1,35 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.models.schemas.report.FinancialReport;
+import com.se100.bds.models.schemas.report.ReportBucket;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class FinancialReportCounterRepositoryImpl implements FinancialReportCounterRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean incrementRevenue(int month, int year, BigDecimal value, UUID cityId, UUID districtId, UUID wardId, UUID propertyTypeId) {
+        Query query = Query.query(Criteria.where("base_report_data.month").is(month).and("base_report_data.year").is(year));
+        if (!mongoTemplate.exists(query, FinancialReport.class)) {
+            return false;
+        }
+
+        // The total and the four dimensions in one bulk write, each bucket is a few hundred bytes
+        ReportBucketUpdates.increment(mongoTemplate, month, year, Map.of(
+                Constants.ReportDimensionEnum.TOTAL_REVENUE, Map.of(ReportBucket.TOTAL_ITEM_ID, value),
+                Constants.ReportDimensionEnum.REVENUE_CITIES, Map.of(cityId, value),
+                Constants.ReportDimensionEnum.REVENUE_DISTRICTS, Map.of(districtId, value),
+                Constants.ReportDimensionEnum.REVENUE_WARDS, Map.of(wardId, value),
+                Constants.ReportDimensionEnum.REVENUE_PROPERTY_TYPES, Map.of(propertyTypeId, value)));
+        return true;
+    }
+}
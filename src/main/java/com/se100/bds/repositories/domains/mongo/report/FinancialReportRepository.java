@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface FinancialReportRepository extends MongoRepository<FinancialReport, String> {
+public interface FinancialReportRepository extends MongoRepository<FinancialReport, String>, FinancialReportCounterRepository {
     FinancialReport findByBaseReportData_MonthAndBaseReportData_Year(Integer baseReportDataMonth, Integer baseReportDataYear);
 
     List<FinancialReport> findAllByBaseReportData_Year(Integer baseReportDataYear);
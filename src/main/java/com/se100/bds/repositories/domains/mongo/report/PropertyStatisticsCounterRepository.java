@@ -0,0 +1,20 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Atomic updates of the counters of the PropertyStatisticsReport of a month and its buckets,
+ * so concurrent writers never overwrite each other's counts
+ */
+public interface PropertyStatisticsCounterRepository {
+    /**
+     * Add views to the latest report of the month, false when that report does not exist yet
+     */
+    boolean incrementViews(int month, int year, Map<Integer, Long> viewsByDay, Map<UUID, Long> viewsByPropertyId);
+
+    /**
+     * Add search counts, keyed by report field name then id, to the buckets of the month, false when its report does not exist yet
+     */
+    boolean incrementSearches(int month, int year, Map<String, Map<UUID, Long>> countsByField);
+}
@@ -0,0 +1,60 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
+import com.se100.bds.models.schemas.report.ReportBucket;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class PropertyStatisticsCounterRepositoryImpl implements PropertyStatisticsCounterRepository {
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean incrementViews(int month, int year, Map<Integer, Long> viewsByDay, Map<UUID, Long> viewsByPropertyId) {
+        // The report maps are Integer typed, increment with int so the stored type stays int32
+        Update update = new Update();
+        long totalViews = 0;
+        for (Map.Entry<Integer, Long> day : viewsByDay.entrySet()) {
+            update.inc("daily_views." + day.getKey(), day.getValue().intValue());
+            totalViews += day.getValue();
+        }
+
+        if (!incrementLatest(month, year, update)) {
+            return false;
+        }
+        // The total in the same bulk write as the per property counts
+        ReportBucketUpdates.increment(mongoTemplate, month, year, Map.of(
+                Constants.ReportDimensionEnum.TOTAL_VIEWS, Map.of(ReportBucket.TOTAL_ITEM_ID, totalViews),
+                Constants.ReportDimensionEnum.VIEWED_PROPERTIES, viewsByPropertyId));
+        return true;
+    }
+
+    @Override
+    public boolean incrementSearches(int month, int year, Map<String, Map<UUID, Long>> countsByField) {
+        if (!mongoTemplate.exists(monthQuery(month, year), PropertyStatisticsReport.class)) {
+            return false;
+        }
+        Map<Constants.ReportDimensionEnum, Map<UUID, Long>> increments = new HashMap<>();
+        countsByField.forEach((field, counts) -> increments.put(Constants.ReportDimensionEnum.get(field), counts));
+        ReportBucketUpdates.increment(mongoTemplate, month, year, increments);
+        return true;
+    }
+
+    private boolean incrementLatest(int month, int year, Update update) {
+        Query query = monthQuery(month, year).with(Sort.by(Sort.Direction.DESC, "createdAt"));
+        return mongoTemplate.findAndModify(query, update, PropertyStatisticsReport.class) != null;
+    }
+
+    private Query monthQuery(int month, int year) {
+        return Query.query(Criteria.where("base_report_data.month").is(month).and("base_report_data.year").is(year));
+    }
+}
@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PropertyStatisticsReportRepository extends MongoRepository<PropertyStatisticsReport, String> {
+public interface PropertyStatisticsReportRepository extends MongoRepository<PropertyStatisticsReport, String>, PropertyStatisticsCounterRepository {
     @Query("{ 'base_report_data.year': ?0, 'base_report_data.month': ?1 }")
     Optional<PropertyStatisticsReport> findByYearAndMonth(int year, int month);
 
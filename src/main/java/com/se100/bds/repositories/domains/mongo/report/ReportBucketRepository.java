@@ -0,0 +1,9 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.models.schemas.report.ReportBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReportBucketRepository extends MongoRepository<ReportBucket, String>, ReportBucketValueRepository {
+}
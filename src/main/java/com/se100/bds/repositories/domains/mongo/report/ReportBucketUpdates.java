@@ -0,0 +1,146 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.models.schemas.report.ReportBucket;
+import com.se100.bds.utils.Constants;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shared writes of the report buckets, one bulk upsert per call. Upserts match the unique
+ * (year, month, dimension, item_id) index, so the server retries the ones that race on insert.
+ */
+final class ReportBucketUpdates {
+    private static final int BATCH_SIZE = 1000;
+
+    private ReportBucketUpdates() {
+    }
+
+    static void increment(MongoTemplate mongoTemplate, int month, int year,
+                          Map<Constants.ReportDimensionEnum, ? extends Map<UUID, ? extends Number>> increments) {
+        LocalDateTime now = LocalDateTime.now();
+        Batch batch = new Batch(mongoTemplate);
+        increments.forEach((dimension, values) -> values.forEach((itemId, value) ->
+                batch.upsert(query(dimension, month, year, itemId), newBucket(now).inc("value", decimal(value)))));
+        batch.flush();
+    }
+
+    /**
+     * Overwrite the values of one dimension, buckets of ids left out are removed
+     */
+    static void replace(MongoTemplate mongoTemplate, Constants.ReportDimensionEnum dimension, int month, int year,
+                        Map<UUID, ? extends Number> values) {
+        removeStale(mongoTemplate, dimension, month, year, values.keySet());
+
+        LocalDateTime now = LocalDateTime.now();
+        Batch batch = new Batch(mongoTemplate);
+        values.forEach((itemId, value) ->
+                batch.upsert(query(dimension, month, year, itemId), newBucket(now).set("value", decimal(value))));
+        batch.flush();
+    }
+
+    /**
+     * Create the missing buckets of one dimension with the given values, existing buckets keep theirs
+     */
+    static void seed(MongoTemplate mongoTemplate, Constants.ReportDimensionEnum dimension, int month, int year,
+                     Map<UUID, ? extends Number> values) {
+        LocalDateTime now = LocalDateTime.now();
+        Batch batch = new Batch(mongoTemplate);
+        // $setOnInsert, a bucket created or incremented by a concurrent writer is left as is
+        values.forEach((itemId, value) ->
+                batch.upsert(query(dimension, month, year, itemId), newBucket(now).setOnInsert("value", decimal(value))));
+        batch.flush();
+    }
+
+    /**
+     * Remove buckets of ids that are no longer valid and add missing ones at 0, leaving existing values untouched
+     */
+    static void align(MongoTemplate mongoTemplate, Constants.ReportDimensionEnum dimension, int month, int year,
+                      Collection<UUID> validIds) {
+        Set<UUID> existing = removeStale(mongoTemplate, dimension, month, year, validIds);
+
+        LocalDateTime now = LocalDateTime.now();
+        Batch batch = new Batch(mongoTemplate);
+        for (UUID itemId : validIds) {
+            if (!existing.contains(itemId)) {
+                // $setOnInsert, a bucket created by a concurrent increment keeps its value
+                batch.upsert(query(dimension, month, year, itemId), newBucket(now).setOnInsert("value", new Decimal128(0)));
+            }
+        }
+        batch.flush();
+    }
+
+    static Query query(Constants.ReportDimensionEnum dimension, int month, int year, UUID itemId) {
+        return Query.query(Criteria.where("year").is(year).and("month").is(month)
+                .and("dimension").is(dimension).and("item_id").is(itemId));
+    }
+
+    static Query dimensionQuery(Constants.ReportDimensionEnum dimension, int month, int year) {
+        return Query.query(Criteria.where("year").is(year).and("month").is(month).and("dimension").is(dimension));
+    }
+
+    private static Set<UUID> removeStale(MongoTemplate mongoTemplate, Constants.ReportDimensionEnum dimension, int month, int year,
+                                         Collection<UUID> keep) {
+        Set<UUID> existing = new HashSet<>(mongoTemplate.findDistinct(
+                dimensionQuery(dimension, month, year), "item_id", ReportBucket.class, UUID.class));
+        Set<UUID> stale = new HashSet<>(existing);
+        stale.removeAll(keep instanceof Set<?> ? keep : new HashSet<>(keep));
+        if (!stale.isEmpty()) {
+            mongoTemplate.remove(dimensionQuery(dimension, month, year)
+                    .addCriteria(Criteria.where("item_id").in(stale)), ReportBucket.class);
+            existing.removeAll(stale);
+        }
+        return existing;
+    }
+
+    private static Update newBucket(LocalDateTime now) {
+        return new Update()
+                .setOnInsert("_id", UUID.randomUUID().toString())
+                .setOnInsert("createdAt", now)
+                .set("updatedAt", now);
+    }
+
+    // Decimal128 is passed as is, a BigDecimal would be written as a string by the untyped update
+    private static Decimal128 decimal(Number value) {
+        return value instanceof BigDecimal decimal ? new Decimal128(decimal) : new Decimal128(value.longValue());
+    }
+
+    private static final class Batch {
+        private final MongoTemplate mongoTemplate;
+        private BulkOperations bulk;
+        private int queued = 0;
+
+        private Batch(MongoTemplate mongoTemplate) {
+            this.mongoTemplate = mongoTemplate;
+        }
+
+        private void upsert(Query query, Update update) {
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReportBucket.class);
+            }
+            bulk.upsert(query, update);
+            if (++queued == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (queued > 0) {
+                bulk.execute();
+            }
+            bulk = null;
+            queued = 0;
+        }
+    }
+}
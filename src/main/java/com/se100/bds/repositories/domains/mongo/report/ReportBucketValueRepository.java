@@ -0,0 +1,74 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.utils.Constants;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and bulk writes of the per id values of the monthly reports, one dimension at a time
+ */
+public interface ReportBucketValueRepository {
+    /**
+     * Values of one dimension of a month by id, empty when the month has none
+     */
+    Map<UUID, BigDecimal> findValues(Constants.ReportDimensionEnum dimension, int month, int year);
+
+    /**
+     * Same as {@link #findValues} for the count dimensions
+     */
+    Map<UUID, Integer> findCounts(Constants.ReportDimensionEnum dimension, int month, int year);
+
+    /**
+     * Values of one dimension for every month of a year, keyed by month then id
+     */
+    Map<Integer, Map<UUID, BigDecimal>> findValuesByMonth(Constants.ReportDimensionEnum dimension, int year);
+
+    /**
+     * Total of a month of one of the total dimensions, 0 when the month has none
+     */
+    BigDecimal findTotal(Constants.ReportDimensionEnum dimension, int month, int year);
+
+    /**
+     * Same as {@link #findTotal} for every month of a year, months without a total are left out
+     */
+    Map<Integer, BigDecimal> findTotalsByMonth(Constants.ReportDimensionEnum dimension, int year);
+
+    /**
+     * Ids of one dimension of a month ordered by value, highest first
+     */
+    List<UUID> findTopItemIds(Constants.ReportDimensionEnum dimension, int month, int year, int offset, int limit);
+
+    /**
+     * Overwrite the values of one dimension of a month, ids left out are removed
+     */
+    void replaceValues(Constants.ReportDimensionEnum dimension, int month, int year, Map<UUID, ? extends Number> values);
+
+    /**
+     * Create the missing buckets of one dimension of a month with the given values, existing ones are left untouched
+     */
+    void seedValues(Constants.ReportDimensionEnum dimension, int month, int year, Map<UUID, ? extends Number> values);
+
+    /**
+     * Atomically add to the values of a month, creating missing buckets
+     */
+    void incrementValues(int month, int year, Map<Constants.ReportDimensionEnum, ? extends Map<UUID, ? extends Number>> increments);
+
+    /**
+     * Drop ids that are no longer valid and add missing ones at 0, leaving existing values untouched
+     */
+    void alignItems(int month, int year, Map<Constants.ReportDimensionEnum, ? extends Collection<UUID>> validIdsByDimension);
+
+    /**
+     * Create the indexes declared on {@link com.se100.bds.models.schemas.report.ReportBucket}
+     */
+    void ensureIndexes();
+
+    /**
+     * Move the totals and per id values still embedded in the financial and property statistics reports to buckets
+     */
+    void migrateEmbeddedDimensions();
+}
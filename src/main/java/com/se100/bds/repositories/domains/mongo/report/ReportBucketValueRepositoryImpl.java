@@ -0,0 +1,221 @@
+package com.se100.bds.repositories.domains.mongo.report;
+
+import com.se100.bds.models.schemas.report.FinancialReport;
+import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
+import com.se100.bds.models.schemas.report.ReportBucket;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.IntStream;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ReportBucketValueRepositoryImpl implements ReportBucketValueRepository {
+    private static final List<Constants.ReportDimensionEnum> FINANCIAL_DIMENSIONS = List.of(
+            Constants.ReportDimensionEnum.TOTAL_REVENUE,
+            Constants.ReportDimensionEnum.REVENUE_CITIES,
+            Constants.ReportDimensionEnum.REVENUE_DISTRICTS,
+            Constants.ReportDimensionEnum.REVENUE_WARDS,
+            Constants.ReportDimensionEnum.REVENUE_PROPERTY_TYPES);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<UUID, BigDecimal> findValues(Constants.ReportDimensionEnum dimension, int month, int year) {
+        Map<UUID, BigDecimal> values = new HashMap<>();
+        for (ReportBucket bucket : mongoTemplate.find(withValue(ReportBucketUpdates.dimensionQuery(dimension, month, year)), ReportBucket.class)) {
+            values.put(bucket.getItemId(), bucket.getValue() != null ? bucket.getValue() : BigDecimal.ZERO);
+        }
+        return values;
+    }
+
+    @Override
+    public Map<UUID, Integer> findCounts(Constants.ReportDimensionEnum dimension, int month, int year) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        findValues(dimension, month, year).forEach((itemId, value) -> counts.put(itemId, value.intValue()));
+        return counts;
+    }
+
+    @Override
+    public Map<Integer, Map<UUID, BigDecimal>> findValuesByMonth(Constants.ReportDimensionEnum dimension, int year) {
+        // Every month listed so the index is walked by point ranges instead of the whole year
+        Query query = withValue(Query.query(Criteria.where("year").is(year)
+                .and("month").in(IntStream.rangeClosed(1, 12).boxed().toList())
+                .and("dimension").is(dimension)));
+        query.fields().include("month");
+
+        Map<Integer, Map<UUID, BigDecimal>> values = new HashMap<>();
+        for (ReportBucket bucket : mongoTemplate.find(query, ReportBucket.class)) {
+            values.computeIfAbsent(bucket.getMonth(), month -> new HashMap<>())
+                    .put(bucket.getItemId(), bucket.getValue() != null ? bucket.getValue() : BigDecimal.ZERO);
+        }
+        return values;
+    }
+
+    @Override
+    public BigDecimal findTotal(Constants.ReportDimensionEnum dimension, int month, int year) {
+        return findValues(dimension, month, year).getOrDefault(ReportBucket.TOTAL_ITEM_ID, BigDecimal.ZERO);
+    }
+
+    @Override
+    public Map<Integer, BigDecimal> findTotalsByMonth(Constants.ReportDimensionEnum dimension, int year) {
+        Map<Integer, BigDecimal> totals = new HashMap<>();
+        findValuesByMonth(dimension, year).forEach((month, values) -> {
+            BigDecimal total = values.get(ReportBucket.TOTAL_ITEM_ID);
+            if (total != null) {
+                totals.put(month, total);
+            }
+        });
+        return totals;
+    }
+
+    @Override
+    public List<UUID> findTopItemIds(Constants.ReportDimensionEnum dimension, int month, int year, int offset, int limit) {
+        Query query = ReportBucketUpdates.dimensionQuery(dimension, month, year)
+                .with(Sort.by(Sort.Direction.DESC, "value"))
+                .skip(offset)
+                .limit(limit);
+        query.fields().include("item_id");
+        return mongoTemplate.find(query, ReportBucket.class).stream().map(ReportBucket::getItemId).toList();
+    }
+
+    @Override
+    public void replaceValues(Constants.ReportDimensionEnum dimension, int month, int year, Map<UUID, ? extends Number> values) {
+        ReportBucketUpdates.replace(mongoTemplate, dimension, month, year, values);
+    }
+
+    @Override
+    public void seedValues(Constants.ReportDimensionEnum dimension, int month, int year, Map<UUID, ? extends Number> values) {
+        ReportBucketUpdates.seed(mongoTemplate, dimension, month, year, values);
+    }
+
+    @Override
+    public void incrementValues(int month, int year, Map<Constants.ReportDimensionEnum, ? extends Map<UUID, ? extends Number>> increments) {
+        ReportBucketUpdates.increment(mongoTemplate, month, year, increments);
+    }
+
+    @Override
+    public void alignItems(int month, int year, Map<Constants.ReportDimensionEnum, ? extends Collection<UUID>> validIdsByDimension) {
+        validIdsByDimension.forEach((dimension, validIds) ->
+                ReportBucketUpdates.align(mongoTemplate, dimension, month, year, validIds));
+    }
+
+    @Override
+    public void ensureIndexes() {
+        // The ones declared on ReportBucket, spring.data.mongodb.auto-index-creation is off
+        IndexOperations indexOps = mongoTemplate.indexOps(ReportBucket.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(ReportBucket.class)
+                .forEach(indexOps::createIndex);
+    }
+
+    @Override
+    public void migrateEmbeddedDimensions() {
+        int financial = migrate(mongoTemplate.getCollectionName(FinancialReport.class), FINANCIAL_DIMENSIONS);
+        List<Constants.ReportDimensionEnum> propertyDimensions = Arrays.stream(Constants.ReportDimensionEnum.values())
+                .filter(dimension -> !FINANCIAL_DIMENSIONS.contains(dimension))
+                .toList();
+        int propertyStatistics = migrate(mongoTemplate.getCollectionName(PropertyStatisticsReport.class), propertyDimensions);
+        if (financial + propertyStatistics > 0) {
+            log.info("Moved embedded report dimensions to buckets: {} financial, {} property statistics reports",
+                    financial, propertyStatistics);
+        }
+    }
+
+    /**
+     * Oldest report first, when a month has several reports the latest one wins like it did for the readers.
+     * The embedded fields are unset once copied, so a migration cut short picks up where it stopped.
+     */
+    private int migrate(String collection, List<Constants.ReportDimensionEnum> dimensions) {
+        Query query = Query.query(new Criteria().orOperator(dimensions.stream()
+                        .map(dimension -> Criteria.where(dimension.getValue()).exists(true))
+                        .toArray(Criteria[]::new)))
+                .with(Sort.by("createdAt"));
+
+        int[] migrated = {0};
+        try (var reports = mongoTemplate.stream(query, Document.class, collection)) {
+            reports.forEach(report -> {
+                Document period = report.get("base_report_data", Document.class);
+                if (period == null || period.getInteger("month") == null || period.getInteger("year") == null) {
+                    return;
+                }
+                Update unset = new Update();
+                for (Constants.ReportDimensionEnum dimension : dimensions) {
+                    if (!report.containsKey(dimension.getValue())) {
+                        continue;
+                    }
+                    ReportBucketUpdates.replace(mongoTemplate, dimension, period.getInteger("month"), period.getInteger("year"),
+                            embeddedValues(report.get(dimension.getValue())));
+                    unset.unset(dimension.getValue());
+                }
+                mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(report.get("_id"))), unset, collection);
+                migrated[0]++;
+            });
+        }
+        return migrated[0];
+    }
+
+    // Revenue was a list of {_id, revenue} items, the counts a map keyed by the id string and the totals a plain number
+    private Map<UUID, BigDecimal> embeddedValues(Object embedded) {
+        Map<UUID, BigDecimal> values = new HashMap<>();
+        if (embedded instanceof List<?> items) {
+            for (Object item : items) {
+                if (item instanceof Document document) {
+                    UUID itemId = toUuid(document.containsKey("_id") ? document.get("_id") : document.get("id"));
+                    if (itemId != null) {
+                        values.put(itemId, toDecimal(document.get("revenue")));
+                    }
+                }
+            }
+        } else if (embedded instanceof Document map) {
+            map.forEach((key, value) -> {
+                UUID itemId = toUuid(key);
+                if (itemId != null) {
+                    values.put(itemId, toDecimal(value));
+                }
+            });
+        } else if (embedded != null) {
+            values.put(ReportBucket.TOTAL_ITEM_ID, toDecimal(embedded));
+        }
+        return values;
+    }
+
+    private UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        try {
+            return value != null ? UUID.fromString(value.toString()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private BigDecimal toDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            return decimal.bigDecimalValue();
+        }
+        try {
+            return value != null ? new BigDecimal(value.toString()) : BigDecimal.ZERO;
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private Query withValue(Query query) {
+        query.fields().include("item_id").include("value");
+        return query;
+    }
+}
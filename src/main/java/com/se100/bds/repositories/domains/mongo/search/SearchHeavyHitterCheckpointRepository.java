@@ -0,0 +1,13 @@
+package com.se100.bds.repositories.domains.mongo.search;
+
+import com.se100.bds.models.schemas.search.SearchHeavyHitterCheckpoint;
+import com.se100.bds.utils.Constants;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SearchHeavyHitterCheckpointRepository extends MongoRepository<SearchHeavyHitterCheckpoint, String> {
+    Optional<SearchHeavyHitterCheckpoint> findBySearchType(Constants.SearchTypeEnum searchType);
+}
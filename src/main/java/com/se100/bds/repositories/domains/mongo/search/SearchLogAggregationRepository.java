@@ -0,0 +1,18 @@
+package com.se100.bds.repositories.domains.mongo.search;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+public interface SearchLogAggregationRepository {
+    /**
+     * Number of searches per id of the given field among logs created in [from, to)
+     */
+    Map<UUID, Integer> countByField(String field, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Create or update the TTL index expiring raw search logs once they are older than the retention
+     */
+    void expireAfter(Duration retention);
+}
@@ -0,0 +1,61 @@
+package com.se100.bds.repositories.domains.mongo.search;
+
+import com.se100.bds.models.schemas.search.SearchLog;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.bson.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class SearchLogAggregationRepositoryImpl implements SearchLogAggregationRepository {
+    private static final String CREATED_AT_TTL_INDEX = "created_at_ttl_idx";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<UUID, Integer> countByField(String field, LocalDateTime from, LocalDateTime to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("createdAt").gte(from).lt(to).and(field).ne(null)),
+                Aggregation.group(field).count().as("count")
+        );
+
+        Map<UUID, Integer> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, SearchLog.class, FieldCount.class)
+                .forEach(result -> counts.put(result.getId(), result.getCount()));
+        return counts;
+    }
+
+    @Override
+    public void expireAfter(Duration retention) {
+        try {
+            mongoTemplate.indexOps(SearchLog.class).createIndex(new Index()
+                    .on("createdAt", Sort.Direction.ASC)
+                    .named(CREATED_AT_TTL_INDEX)
+                    .expire(retention));
+        } catch (DataAccessException e) {
+            // The index exists with another retention, createIndex cannot change it but collMod can
+            mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(SearchLog.class))
+                    .append("index", new Document("name", CREATED_AT_TTL_INDEX)
+                            .append("expireAfterSeconds", retention.toSeconds())));
+        }
+    }
+
+    @Getter
+    @Setter
+    static class FieldCount {
+        private UUID id;
+        private Integer count;
+    }
+}
@@ -0,0 +1,16 @@
+package com.se100.bds.repositories.domains.mongo.search;
+
+import com.se100.bds.models.schemas.search.SearchLogDailyRollup;
+import com.se100.bds.utils.Constants;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SearchLogDailyRollupRepository extends MongoRepository<SearchLogDailyRollup, String> {
+    List<SearchLogDailyRollup> findAllBySearchTypeAndDateBetween(Constants.SearchTypeEnum searchType, LocalDate from, LocalDate to);
+
+    List<SearchLogDailyRollup> findAllByDateBetween(LocalDate from, LocalDate to);
+}
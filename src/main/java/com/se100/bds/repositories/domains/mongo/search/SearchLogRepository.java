@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface SearchLogRepository extends MongoRepository<SearchLog, String> {
+public interface SearchLogRepository extends MongoRepository<SearchLog, String>, SearchLogAggregationRepository {
 }
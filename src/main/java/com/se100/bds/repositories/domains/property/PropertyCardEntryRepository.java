@@ -0,0 +1,136 @@
+package com.se100.bds.repositories.domains.property;
+
+import com.se100.bds.models.entities.property.PropertyCardEntry;
+import com.se100.bds.utils.Constants;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PropertyCardEntryRepository extends JpaRepository<PropertyCardEntry, UUID> {
+    // Vietnamese letters and their unaccented forms, folded before indexing and querying
+    String VIETNAMESE_ACCENTS = "àáạảãâầấậẩẫăằắặẳẵèéẹẻẽêềếệểễìíịỉĩòóọỏõôồốộổỗơờớợởỡùúụủũưừứựửữỳýỵỷỹđ";
+    String VIETNAMESE_PLAIN = "aaaaaaaaaaaaaaaaaeeeeeeeeeeeiiiiiooooooooooooooooouuuuuuuuuuuyyyyyd";
+
+    List<PropertyCardEntry> findAllByStatus(Constants.PropertyStatusEnum status);
+
+    boolean existsBySearchVectorIsNull();
+
+    /**
+     * Properties whose card is missing or older than the property, plus cards left without a property.
+     * Every card edit copies the property's updatedAt, so any edit the card missed shows up here.
+     */
+    @Query(value = """
+        SELECT (SELECT COUNT(*) FROM properties p
+                LEFT JOIN property_cards c ON c.property_id = p.property_id
+                WHERE c.property_id IS NULL OR p.updated_at > c.updated_at OR (c.updated_at IS NULL AND p.updated_at IS NOT NULL))
+             + (SELECT COUNT(*) FROM property_cards c
+                WHERE NOT EXISTS (SELECT 1 FROM properties p WHERE p.property_id = c.property_id))
+    """, nativeQuery = true)
+    long countStaleCards();
+
+    /**
+     * Text search helpers used by the card query. They are plain SQL functions so the planner
+     * inlines them and the GIN index on search_vector still serves the match.
+     */
+    @Modifying
+    @Query(value = "CREATE OR REPLACE FUNCTION property_card_search_vector(text) RETURNS tsvector AS $$ "
+            + "SELECT to_tsvector('simple', translate(lower($1), '" + VIETNAMESE_ACCENTS + "', '" + VIETNAMESE_PLAIN + "')) "
+            + "$$ LANGUAGE sql IMMUTABLE", nativeQuery = true)
+    void createSearchVectorFunction();
+
+    @Modifying
+    @Query(value = "CREATE OR REPLACE FUNCTION property_card_search_query(text) RETURNS tsquery AS $$ "
+            + "SELECT to_tsquery('simple', translate(lower($1), '" + VIETNAMESE_ACCENTS + "', '" + VIETNAMESE_PLAIN + "')) "
+            + "$$ LANGUAGE sql IMMUTABLE", nativeQuery = true)
+    void createSearchQueryFunction();
+
+    @Modifying
+    @Query(value = "CREATE OR REPLACE FUNCTION property_card_matches(tsvector, text) RETURNS boolean AS $$ "
+            + "SELECT $1 @@ property_card_search_query($2) "
+            + "$$ LANGUAGE sql IMMUTABLE", nativeQuery = true)
+    void createSearchMatchFunction();
+
+    @Modifying
+    @Query(value = "CREATE INDEX IF NOT EXISTS idx_property_cards_search_vector ON property_cards USING GIN (search_vector)", nativeQuery = true)
+    void createSearchIndex();
+
+    @Modifying
+    @Query(value = "UPDATE property_cards SET search_vector = property_card_search_vector(:text) WHERE property_id = :propertyId", nativeQuery = true)
+    void updateSearchVector(@Param("propertyId") UUID propertyId, @Param("text") String text);
+
+    @Modifying
+    @Query("UPDATE PropertyCardEntry c SET c.cityName = :cityName WHERE c.cityId = :cityId")
+    int updateCity(@Param("cityId") UUID cityId, @Param("cityName") String cityName);
+
+    @Modifying
+    @Query("""
+        UPDATE PropertyCardEntry c
+        SET c.districtName = :districtName, c.cityId = :cityId, c.cityName = :cityName
+        WHERE c.districtId = :districtId
+    """)
+    int updateDistrict(@Param("districtId") UUID districtId, @Param("districtName") String districtName,
+                       @Param("cityId") UUID cityId, @Param("cityName") String cityName);
+
+    @Modifying
+    @Query("""
+        UPDATE PropertyCardEntry c
+        SET c.wardName = :wardName, c.districtId = :districtId, c.districtName = :districtName,
+            c.cityId = :cityId, c.cityName = :cityName
+        WHERE c.wardId = :wardId
+    """)
+    int updateWard(@Param("wardId") UUID wardId, @Param("wardName") String wardName,
+                   @Param("districtId") UUID districtId, @Param("districtName") String districtName,
+                   @Param("cityId") UUID cityId, @Param("cityName") String cityName);
+
+    @Modifying
+    @Query("UPDATE PropertyCardEntry c SET c.ownerFirstName = :firstName, c.ownerLastName = :lastName WHERE c.ownerId = :userId")
+    int updateOwnerName(@Param("userId") UUID userId, @Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    @Modifying
+    @Query("UPDATE PropertyCardEntry c SET c.agentFirstName = :firstName, c.agentLastName = :lastName WHERE c.agentId = :userId")
+    int updateAgentName(@Param("userId") UUID userId, @Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    @Modifying
+    @Query(value = "DELETE FROM property_cards", nativeQuery = true)
+    void deleteAllCards();
+
+    /**
+     * Rebuild every card from the normalized tables in one statement
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO property_cards (
+            property_id, created_at, updated_at, title, transaction_type, status,
+            thumbnail_url, number_of_images, full_address, property_type_id,
+            ward_id, ward_name, district_id, district_name, city_id, city_name,
+            price_amount, area, rooms, bathrooms, bedrooms, floors,
+            house_orientation, balcony_orientation,
+            owner_id, owner_first_name, owner_last_name,
+            agent_id, agent_first_name, agent_last_name, search_vector
+        )
+        SELECT
+            p.property_id, p.created_at, p.updated_at, p.title, p.transaction_type, p.status,
+            (SELECT MIN(m.file_path) FROM media m WHERE m.property_id = p.property_id),
+            (SELECT COUNT(*) FROM media m WHERE m.property_id = p.property_id),
+            p.full_address, p.property_type_id,
+            w.ward_id, w.ward_name, d.district_id, d.district_name, c.city_id, c.city_name,
+            p.price_amount, p.area, p.rooms, p.bathrooms, p.bedrooms, p.floors,
+            p.house_orientation, p.balcony_orientation,
+            p.owner_id, ou.first_name, ou.last_name,
+            p.assigned_agent_id, au.first_name, au.last_name,
+            property_card_search_vector(concat_ws(' ', p.title, p.description, p.full_address, p.amenities))
+        FROM properties p
+        JOIN wards w ON w.ward_id = p.ward_id
+        JOIN districts d ON d.district_id = w.district_id
+        JOIN cities c ON c.city_id = d.city_id
+        JOIN users ou ON ou.user_id = p.owner_id
+        LEFT JOIN users au ON au.user_id = p.assigned_agent_id
+    """, nativeQuery = true)
+    int insertAllCards();
+}
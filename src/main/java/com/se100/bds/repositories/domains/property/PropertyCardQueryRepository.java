@@ -0,0 +1,27 @@
+package com.se100.bds.repositories.domains.property;
+
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
+import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface PropertyCardQueryRepository {
+    /**
+     * Find property cards matching the filter, only the supplied filters end up in the WHERE clause
+     */
+    Page<PropertyCardProtection> findPropertyCards(PropertyCardFilter filter, Pageable pageable);
+
+    /**
+     * Find up to limit property cards ordered by sortField then id, starting right after the cursor (keyset pagination)
+     */
+    List<PropertyCardProtection> findPropertyCardsAfter(PropertyCardFilter filter, String sortField, boolean ascending,
+                                                        PropertyCardCursor after, int limit);
+
+    /**
+     * Count property cards matching the filter
+     */
+    long countPropertyCards(PropertyCardFilter filter);
+}
@@ -0,0 +1,279 @@
+package com.se100.bds.repositories.domains.property;
+
+import com.se100.bds.models.entities.property.PropertyCardEntry;
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
+import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import com.se100.bds.utils.Constants;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Criteria based card search over the property_cards read model. Only the supplied filters are
+ * emitted and enums are compared natively, so each search is a single table index scan with no
+ * joins or media aggregation. Keywords are matched against the GIN indexed search_vector through
+ * the SQL functions installed by PropertyCardSyncService.
+ */
+public class PropertyCardQueryRepositoryImpl implements PropertyCardQueryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PropertyCardProtection> findPropertyCards(PropertyCardFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PropertyCardEntry> root = query.from(PropertyCardEntry.class);
+
+        selectCards(query, root);
+        query.where(buildPredicates(filter, cb, root).toArray(new Predicate[0]));
+
+        String searchQuery = toSearchQuery(filter.keyword());
+        if (pageable.getSort().isSorted()) {
+            List<Order> orders = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+            orders.add(cb.asc(root.get("id")));
+            query.orderBy(orders);
+        } else if (searchQuery != null) {
+            // Without an explicit sort, keyword searches are ranked by relevance
+            Expression<Float> rank = cb.function("ts_rank", Float.class,
+                    root.get("searchVector"), cb.function("property_card_search_query", String.class, cb.literal(searchQuery)));
+            query.orderBy(cb.desc(rank), cb.asc(root.get("id")));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<PropertyCardProtection> content = typedQuery.getResultList().stream()
+                .map(this::toProtection)
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countPropertyCards(filter));
+    }
+
+    @Override
+    public List<PropertyCardProtection> findPropertyCardsAfter(PropertyCardFilter filter, String sortField, boolean ascending,
+                                                               PropertyCardCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PropertyCardEntry> root = query.from(PropertyCardEntry.class);
+        selectCards(query, root);
+
+        List<Predicate> predicates = buildPredicates(filter, cb, root);
+        if (after != null) {
+            predicates.add(isAfter(cb, root, after));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+
+        // The id tiebreaker keeps the order total, so no row is skipped or repeated between pages
+        query.orderBy(ascending
+                ? List.of(cb.asc(root.get(sortField)), cb.asc(root.get("id")))
+                : List.of(cb.desc(root.get(sortField)), cb.desc(root.get("id"))));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(this::toProtection)
+                .toList();
+    }
+
+    @Override
+    public long countPropertyCards(PropertyCardFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<PropertyCardEntry> root = query.from(PropertyCardEntry.class);
+
+        query.select(cb.count(root))
+                .where(buildPredicates(filter, cb, root).toArray(new Predicate[0]));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private void selectCards(CriteriaQuery<Tuple> query, Root<PropertyCardEntry> root) {
+        query.multiselect(
+                root.get("id").alias("id"),
+                root.get("createdAt").alias("createdAt"),
+                root.get("updatedAt").alias("updatedAt"),
+                root.get("transactionType").alias("transactionType"),
+                root.get("title").alias("title"),
+                root.get("thumbnailUrl").alias("thumbnailUrl"),
+                root.get("numberOfImages").alias("numberOfImages"),
+                root.get("fullAddress").alias("address"),
+                root.get("districtName").alias("district"),
+                root.get("cityName").alias("city"),
+                root.get("status").alias("status"),
+                root.get("priceAmount").alias("price"),
+                root.get("area").alias("totalArea"),
+                root.get("ownerId").alias("ownerId"),
+                root.get("ownerFirstName").alias("ownerFirstName"),
+                root.get("ownerLastName").alias("ownerLastName"),
+                root.get("agentId").alias("agentId"),
+                root.get("agentFirstName").alias("agentFirstName"),
+                root.get("agentLastName").alias("agentLastName")
+        );
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate isAfter(CriteriaBuilder cb, Root<PropertyCardEntry> root, PropertyCardCursor cursor) {
+        Expression<Comparable> key = root.get(cursor.sortField());
+        Comparable value = cursor.sortValue();
+        Expression<UUID> id = root.get("id");
+
+        Predicate beyondKey = cursor.ascending() ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate beyondId = cursor.ascending() ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+        return cb.or(beyondKey, cb.and(cb.equal(key, value), beyondId));
+    }
+
+    private List<Predicate> buildPredicates(PropertyCardFilter filter, CriteriaBuilder cb, Root<PropertyCardEntry> root) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        String searchQuery = toSearchQuery(filter.keyword());
+        if (searchQuery != null) {
+            predicates.add(cb.isTrue(cb.function("property_card_matches", Boolean.class,
+                    root.get("searchVector"), cb.literal(searchQuery))));
+        }
+        if (isPresent(filter.propertyIds())) {
+            predicates.add(root.get("id").in(filter.propertyIds()));
+        }
+        if (isPresent(filter.cityIds())) {
+            predicates.add(root.get("cityId").in(filter.cityIds()));
+        }
+        if (isPresent(filter.districtIds())) {
+            predicates.add(root.get("districtId").in(filter.districtIds()));
+        }
+        if (isPresent(filter.wardIds())) {
+            predicates.add(root.get("wardId").in(filter.wardIds()));
+        }
+        if (isPresent(filter.propertyTypeIds())) {
+            predicates.add(root.get("propertyTypeId").in(filter.propertyTypeIds()));
+        }
+        if (isPresent(filter.ownerIds())) {
+            predicates.add(root.get("ownerId").in(filter.ownerIds()));
+        }
+        if (isPresent(filter.agentIds())) {
+            predicates.add(root.get("agentId").in(filter.agentIds()));
+        }
+        if (filter.ownerName() != null) {
+            predicates.add(fullNameLike(cb, root.get("ownerLastName"), root.get("ownerFirstName"), filter.ownerName()));
+        }
+        if (filter.requireAgent()) {
+            predicates.add(cb.isNotNull(root.get("agentId")));
+        }
+        if (filter.agentName() != null) {
+            predicates.add(fullNameLike(cb, root.get("agentLastName"), root.get("agentFirstName"), filter.agentName()));
+        }
+        if (filter.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get("priceAmount"), filter.minPrice()));
+        }
+        if (filter.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<BigDecimal>get("priceAmount"), filter.maxPrice()));
+        }
+        if (filter.minArea() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get("area"), filter.minArea()));
+        }
+        if (filter.maxArea() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.<BigDecimal>get("area"), filter.maxArea()));
+        }
+        if (filter.rooms() != null) {
+            predicates.add(cb.equal(root.get("rooms"), filter.rooms()));
+        }
+        if (filter.bathrooms() != null) {
+            predicates.add(cb.equal(root.get("bathrooms"), filter.bathrooms()));
+        }
+        if (filter.bedrooms() != null) {
+            predicates.add(cb.equal(root.get("bedrooms"), filter.bedrooms()));
+        }
+        if (filter.floors() != null) {
+            predicates.add(cb.equal(root.get("floors"), filter.floors()));
+        }
+        if (filter.houseOrientation() != null) {
+            predicates.add(cb.equal(root.get("houseOrientation"), filter.houseOrientation()));
+        }
+        if (filter.balconyOrientation() != null) {
+            predicates.add(cb.equal(root.get("balconyOrientation"), filter.balconyOrientation()));
+        }
+        if (isPresent(filter.transactionTypes())) {
+            predicates.add(root.get("transactionType").in(filter.transactionTypes()));
+        }
+        if (isPresent(filter.statuses())) {
+            predicates.add(root.get("status").in(filter.statuses()));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Turn free text into a tsquery where every word is prefix matched, e.g. "nha quan 1" becomes "nha:* & quan:* & 1:*"
+     */
+    private static String toSearchQuery(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        String[] words = Normalizer.normalize(keyword, Normalizer.Form.NFC).split("[^\\p{L}\\p{N}]+");
+        String searchQuery = Arrays.stream(words)
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        return searchQuery.isEmpty() ? null : searchQuery;
+    }
+
+    private Predicate fullNameLike(CriteriaBuilder cb, Expression<String> lastName, Expression<String> firstName, String name) {
+        Expression<String> fullName = cb.concat(cb.concat(lastName, " "), firstName);
+        return cb.like(cb.lower(fullName), "%" + name.toLowerCase() + "%");
+    }
+
+    private PropertyCardProtection toProtection(Tuple tuple) {
+        Integer numberOfImages = tuple.get("numberOfImages", Integer.class);
+        Constants.PropertyStatusEnum status = tuple.get("status", Constants.PropertyStatusEnum.class);
+        return new PropertyCardProtection(
+                tuple.get("id", UUID.class),
+                tuple.get("createdAt", LocalDateTime.class),
+                tuple.get("updatedAt", LocalDateTime.class),
+                tuple.get("transactionType", Constants.TransactionTypeEnum.class),
+                tuple.get("title", String.class),
+                tuple.get("thumbnailUrl", String.class),
+                false,
+                numberOfImages != null ? numberOfImages : 0,
+                tuple.get("address", String.class),
+                tuple.get("district", String.class),
+                tuple.get("city", String.class),
+                status != null ? status.name() : null,
+                tuple.get("price", BigDecimal.class),
+                tuple.get("totalArea", BigDecimal.class),
+                tuple.get("ownerId", UUID.class),
+                tuple.get("ownerFirstName", String.class),
+                tuple.get("ownerLastName", String.class),
+                tuple.get("agentId", UUID.class),
+                tuple.get("agentFirstName", String.class),
+                tuple.get("agentLastName", String.class)
+        );
+    }
+
+    private boolean isPresent(List<?> values) {
+        return values != null && !values.isEmpty();
+    }
+}
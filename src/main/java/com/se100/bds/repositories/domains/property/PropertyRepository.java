@@ -24,157 +24,38 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property> {
+public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property>, PropertyCardQueryRepository, PropertyViewCountRepository {
 
     @Query("""
     SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
-        p.id,
-        p.createdAt,
-        p.updatedAt,
-        p.transactionType,
-        p.title,
-        MIN(m.filePath),
+        c.id,
+        c.createdAt,
+        c.updatedAt,
+        c.transactionType,
+        c.title,
+        c.thumbnailUrl,
         true,
-        COALESCE(CAST(COUNT(DISTINCT m.id) AS int), 0),
-        p.fullAddress,
-        d.districtName,
+        c.numberOfImages,
+        c.fullAddress,
+        c.districtName,
         c.cityName,
-        CAST(p.status AS string),
-        p.priceAmount,
-        p.area,
-        po.id,
-        po.user.firstName,
-        po.user.lastName,
-        sa.id,
-        sa.user.firstName,
-        sa.user.lastName
+        CAST(c.status AS string),
+        c.priceAmount,
+        c.area,
+        c.ownerId,
+        c.ownerFirstName,
+        c.ownerLastName,
+        c.agentId,
+        c.agentFirstName,
+        c.agentLastName
     )
-    FROM Property p
-    JOIN Ward w ON p.ward.id = w.id
-    JOIN District d ON w.district.id = d.id
-    JOIN City c ON d.city.id = c.id
-    LEFT JOIN PropertyOwner po ON p.owner.id = po.id
-    LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
-    LEFT JOIN User u ON po.user.id = u.id
-    LEFT JOIN Media m ON m.property.id = p.id
-    WHERE p.id IN :propertyIds
-    GROUP BY
-        p.id,
-        p.createdAt,
-        p.updatedAt,
-        p.transactionType,
-        p.title,
-        p.fullAddress,
-        d.districtName,
-        c.cityName,
-        p.status,
-        p.priceAmount,
-        p.area,
-        po.id,
-        po.user.firstName,
-        po.user.lastName,
-        sa.id,
-        sa.user.firstName,
-        sa.user.lastName
+    FROM PropertyCardEntry c
+    WHERE c.id IN :propertyIds
     """)
     Page<PropertyCardProtection> findFavoritePropertyCards(
             Pageable pageable,
             @Param("propertyIds") List<UUID> propertyIds);
 
-    @Query("""
-    SELECT new com.se100.bds.repositories.dtos.PropertyCardProtection (
-        p.id,
-        p.createdAt,
-        p.updatedAt,
-        p.transactionType,
-        p.title,
-        MIN(m.filePath),
-        false,
-        COALESCE(CAST(COUNT(DISTINCT m.id) AS int), 0),
-        p.fullAddress,
-        d.districtName,
-        c.cityName,
-        CAST(p.status AS string),
-        p.priceAmount,
-        p.area,
-        po.id,
-        po.user.firstName,
-        po.user.lastName,
-        sa.id,
-        sa.user.firstName,
-        sa.user.lastName
-    )
-    FROM Property p
-    JOIN Ward w ON p.ward.id = w.id
-    JOIN District d ON w.district.id = d.id
-    JOIN City c ON d.city.id = c.id
-    LEFT JOIN PropertyOwner po ON p.owner.id = po.id
-    LEFT JOIN SaleAgent sa ON p.assignedAgent.id = sa.id
-    LEFT JOIN User u ON po.user.id = u.id
-    LEFT JOIN Media m ON m.property.id = p.id
-    WHERE
-        (COALESCE(:propertyIds, NULL) IS NULL OR p.id IN :propertyIds)
-        AND (COALESCE(:cityIds, NULL) IS NULL OR c.id IN :cityIds)
-        AND (COALESCE(:districtIds, NULL) IS NULL OR d.id IN :districtIds)
-        AND (COALESCE(:wardIds, NULL) IS NULL OR w.id IN :wardIds)
-        AND (COALESCE(:propertyTypeIds, NULL) IS NULL OR p.propertyType.id IN :propertyTypeIds)
-        AND (COALESCE(:ownerIds, NULL) IS NULL OR po.id IN :ownerIds)
-        AND (COALESCE(:agentIds, NULL) IS NULL OR sa.id IN :agentIds)
-        AND (:minPrice IS NULL OR p.priceAmount >= :minPrice)
-        AND (:maxPrice IS NULL OR p.priceAmount <= :maxPrice)
-        AND (:minArea IS NULL OR p.area >= :minArea)
-        AND (:maxArea IS NULL OR p.area <= :maxArea)
-        AND (:rooms IS NULL OR p.rooms = :rooms)
-        AND (:bathrooms IS NULL OR p.bathrooms = :bathrooms)
-        AND (:bedrooms IS NULL OR p.bedrooms = :bedrooms)
-        AND (:floors IS NULL OR p.floors = :floors)
-        AND (:houseOrientation IS NULL OR CAST(p.houseOrientation AS string) = :houseOrientation)
-        AND (:balconyOrientation IS NULL OR CAST(p.balconyOrientation AS string) = :balconyOrientation)
-        AND (COALESCE(:transactionType, NULL) IS NULL OR CAST(p.transactionType AS string) IN :transactionType)
-        AND (:statuses IS NULL OR CAST(p.status AS string) IN :statuses)
-    GROUP BY 
-        p.id, 
-        p.createdAt, 
-        p.updatedAt, 
-        p.transactionType, 
-        p.title, 
-        p.fullAddress, 
-        d.districtName, 
-        c.cityName, 
-        p.status, 
-        p.priceAmount, 
-        p.area, 
-        po.id,
-        po.user.firstName,
-        po.user.lastName,
-        sa.id,
-        sa.user.firstName,
-        sa.user.lastName
-    """)
-    Page<PropertyCardProtection> findAllPropertyCardsWithFilter(
-            Pageable pageable,
-            @Param("propertyIds") List<UUID> propertyIds,
-            @Param("cityIds") List<UUID> cityIds,
-            @Param("districtIds") List<UUID> districtIds,
-            @Param("wardIds") List<UUID> wardIds,
-            @Param("propertyTypeIds") List<UUID> propertyTypeIds,
-            @Param("ownerIds") List<UUID> ownerIds,
-            @Param("agentIds") List<UUID> agentIds,
-            @Param("minPrice") BigDecimal minPrice,
-            @Param("maxPrice") BigDecimal maxPrice,
-            @Param("minArea") BigDecimal minArea,
-            @Param("maxArea") BigDecimal maxArea,
-            @Param("rooms") Integer rooms,
-            @Param("bathrooms") Integer bathrooms,
-            @Param("bedrooms") Integer bedrooms,
-            @Param("floors") Integer floors,
-            @Param("houseOrientation") String houseOrientation,
-            @Param("balconyOrientation") String balconyOrientation,
-            @Param("transactionType") List<String> transactionType,
-            @Param("statuses") List<String> statuses,
-            @Param("userId") UUID userId
-    );
-
     @Query("""
         SELECT
             p.id AS id,
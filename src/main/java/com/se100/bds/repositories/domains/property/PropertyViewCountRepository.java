@@ -0,0 +1,11 @@
+package com.se100.bds.repositories.domains.property;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface PropertyViewCountRepository {
+    /**
+     * Add buffered views to properties.view_count, one UPDATE ... FROM (VALUES ...) statement per chunk of properties
+     */
+    int addViewCounts(Map<UUID, Long> viewsByPropertyId);
+}
@@ -0,0 +1,52 @@
+package com.se100.bds.repositories.domains.property;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class PropertyViewCountRepositoryImpl implements PropertyViewCountRepository {
+    // Two parameters per row, well below the 65535 bind parameter limit of Postgres
+    private static final int CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int addViewCounts(Map<UUID, Long> viewsByPropertyId) {
+        List<Map.Entry<UUID, Long>> rows = new ArrayList<>(viewsByPropertyId.entrySet());
+        int updated = 0;
+        for (int from = 0; from < rows.size(); from += CHUNK_SIZE) {
+            updated += addViewCountsChunk(rows.subList(from, Math.min(from + CHUNK_SIZE, rows.size())));
+        }
+        return updated;
+    }
+
+    private int addViewCountsChunk(List<Map.Entry<UUID, Long>> rows) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append("(CAST(?").append(2 * i + 1).append(" AS uuid), CAST(?").append(2 * i + 2).append(" AS integer))");
+        }
+
+        Query query = entityManager.createNativeQuery("""
+                UPDATE properties p
+                SET view_count = COALESCE(p.view_count, 0) + v.views
+                FROM (VALUES %s) AS v(property_id, views)
+                WHERE p.property_id = v.property_id
+                """.formatted(values));
+        for (int i = 0; i < rows.size(); i++) {
+            query.setParameter(2 * i + 1, rows.get(i).getKey());
+            query.setParameter(2 * i + 2, rows.get(i).getValue().intValue());
+        }
+        return query.executeUpdate();
+    }
+}
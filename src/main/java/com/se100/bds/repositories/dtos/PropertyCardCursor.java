@@ -0,0 +1,81 @@
+package com.se100.bds.repositories.dtos;
+
+import com.se100.bds.exceptions.BadRequestException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keyset position in the property card listing: the sort key and id of the last card returned.
+ * Clients only see it as an opaque string.
+ */
+public record PropertyCardCursor(
+    String sortField,
+    boolean ascending,
+    Comparable<?> sortValue,
+    UUID id
+) {
+    public static final String DEFAULT_SORT_FIELD = "createdAt";
+
+    // API sort names mapped to the Property attributes usable as keyset keys
+    private static final Map<String, String> SORT_FIELDS = Map.of(
+            "createdAt", "createdAt",
+            "price", "priceAmount",
+            "priceAmount", "priceAmount",
+            "area", "area"
+    );
+
+    private static final String SEPARATOR = "|";
+
+    public static String resolveSortField(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return DEFAULT_SORT_FIELD;
+        }
+        String sortField = SORT_FIELDS.get(sortBy);
+        if (sortField == null) {
+            throw new BadRequestException("Unsupported sort field for cursor pagination: " + sortBy);
+        }
+        return sortField;
+    }
+
+    public static PropertyCardCursor of(String sortField, boolean ascending, PropertyCardProtection card) {
+        Comparable<?> sortValue = switch (sortField) {
+            case "priceAmount" -> card.price();
+            case "area" -> card.totalArea();
+            default -> card.createdAt();
+        };
+        return new PropertyCardCursor(sortField, ascending, sortValue, card.id());
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                sortField,
+                ascending ? "asc" : "desc",
+                String.valueOf(sortValue),
+                id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PropertyCardCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !SORT_FIELDS.containsValue(parts[0])) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            Comparable<?> sortValue = switch (parts[0]) {
+                case "priceAmount", "area" -> new BigDecimal(parts[2]);
+                default -> LocalDateTime.parse(parts[2]);
+            };
+            return new PropertyCardCursor(parts[0], "asc".equals(parts[1]), sortValue, UUID.fromString(parts[3]));
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.se100.bds.repositories.dtos;
+
+import com.se100.bds.utils.Constants;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters for the property card search, null or empty values are not applied
+ */
+@Builder
+public record PropertyCardFilter(
+    String keyword,
+    List<UUID> propertyIds,
+    List<UUID> cityIds,
+    List<UUID> districtIds,
+    List<UUID> wardIds,
+    List<UUID> propertyTypeIds,
+    List<UUID> ownerIds,
+    List<UUID> agentIds,
+    String ownerName,
+    String agentName,
+    boolean requireAgent,
+    BigDecimal minPrice,
+    BigDecimal maxPrice,
+    BigDecimal minArea,
+    BigDecimal maxArea,
+    Integer rooms,
+    Integer bathrooms,
+    Integer bedrooms,
+    Integer floors,
+    Constants.OrientationEnum houseOrientation,
+    Constants.OrientationEnum balconyOrientation,
+    List<Constants.TransactionTypeEnum> transactionTypes,
+    List<Constants.PropertyStatusEnum> statuses
+) {}
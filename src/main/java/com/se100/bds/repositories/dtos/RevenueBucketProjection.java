@@ -0,0 +1,17 @@
+package com.se100.bds.repositories.dtos;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Revenue of one month grouped by the location and property type of the paid property,
+ * ids are null for payments without a property
+ */
+public record RevenueBucketProjection(
+    UUID cityId,
+    UUID districtId,
+    UUID wardId,
+    UUID propertyTypeId,
+    BigDecimal revenue,
+    Long paymentCount
+) {}
@@ -18,8 +18,11 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -124,6 +127,28 @@ public class CustomerFavoriteServiceImpl implements CustomerFavoriteService {
         }
     }
 
+    @Override
+    public Set<UUID> getLikedRefIds(Collection<UUID> refIds, UUID customerId, Constants.LikeTypeEnum likeType) {
+        if (customerId == null || refIds == null || refIds.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        BaseCustomerPreferenceRepository<? extends AbstractCustomerPreferenceMongoSchema> repository = getRepository(likeType);
+        if (repository == null) {
+            log.error("Invalid like type: {}", likeType);
+            return new HashSet<>();
+        }
+
+        try {
+            return repository.findRefIdsByCustomerIdAndRefIdIn(customerId, refIds).stream()
+                    .map(AbstractCustomerPreferenceMongoSchema::getRefId)
+                    .collect(Collectors.toSet());
+        } catch (Exception e) {
+            log.error("Error checking like status for type {} and {} ids: {}", likeType, refIds.size(), e.getMessage());
+            return new HashSet<>();
+        }
+    }
+
     @Override
     public Page<SimplePropertyCard> getFavoritePropertyCards(Pageable pageable) {
         UUID customerId = userService.getUserId();
@@ -8,6 +8,7 @@ import com.se100.bds.mappers.DocumentMapper;
 import com.se100.bds.models.entities.document.DocumentType;
 import com.se100.bds.repositories.domains.document.DocumentTypeRepository;
 import com.se100.bds.services.domains.document.DocumentService;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -22,6 +23,7 @@ public class DocumentServiceImpl implements DocumentService {
 
     private final DocumentTypeRepository documentTypeRepository;
     private final DocumentMapper documentMapper;
+    private final PropertyDetailsCache propertyDetailsCache;
 
     @Override
     public Page<DocumentTypeListItemResponse> getAllWithFilter(Pageable pageable, Boolean isCompulsory) {
@@ -74,6 +76,8 @@ public class DocumentServiceImpl implements DocumentService {
         }
 
         DocumentType savedDocumentType = documentTypeRepository.save(documentType);
+        // Document type names are part of the cached property details
+        propertyDetailsCache.invalidateAll();
         return documentMapper.mapTo(savedDocumentType, DocumentTypeDetailsResponse.class);
     }
 
@@ -13,6 +13,7 @@ import com.se100.bds.repositories.domains.location.DistrictRepository;
 import com.se100.bds.repositories.domains.location.WardRepository;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.services.domains.location.LocationService;
+import com.se100.bds.services.domains.property.PropertyCardSyncService;
 import com.se100.bds.services.domains.search.SearchService;
 import com.se100.bds.services.fileupload.CloudinaryService;
 import com.se100.bds.utils.Constants;
@@ -42,6 +43,7 @@ public class LocationServiceImpl implements LocationService {
     private final SearchService searchService;
     private final LocationMapper locationMapper;
     private final CloudinaryService cloudinaryService;
+    private final PropertyCardSyncService propertyCardSyncService;
 
 
     @Override
@@ -288,6 +290,9 @@ public class LocationServiceImpl implements LocationService {
                 }
 
                 City savedCity = cityRepository.save(city);
+                if (updateLocationRequest.getName() != null) {
+                    propertyCardSyncService.syncCity(savedCity);
+                }
                 locationDetailsResponse = locationMapper.mapTo(savedCity, LocationDetailsResponse.class);
                 locationDetailsResponse.setActiveProperties(propertyRepository.countActivePropertiesByCityId(savedCity.getId()));
                 locationDetailsResponse.setDistrictCount(cityRepository.countDistrictsByCityId(savedCity.getId()));
@@ -333,6 +338,9 @@ public class LocationServiceImpl implements LocationService {
                 }
 
                 District savedDistrict = districtRepository.save(district);
+                if (updateLocationRequest.getName() != null || updateLocationRequest.getParentId() != null) {
+                    propertyCardSyncService.syncDistrict(savedDistrict);
+                }
                 locationDetailsResponse = locationMapper.mapTo(savedDistrict, LocationDetailsResponse.class);
                 locationDetailsResponse.setActiveProperties(propertyRepository.countActivePropertiesByDistrictId(savedDistrict.getId()));
                 locationDetailsResponse.setDistrictCount(0);
@@ -378,6 +386,9 @@ public class LocationServiceImpl implements LocationService {
                 }
 
                 Ward savedWard = wardRepository.save(ward);
+                if (updateLocationRequest.getName() != null || updateLocationRequest.getParentId() != null) {
+                    propertyCardSyncService.syncWard(savedWard);
+                }
                 locationDetailsResponse = locationMapper.mapTo(savedWard, LocationDetailsResponse.class);
                 locationDetailsResponse.setActiveProperties(propertyRepository.countActivePropertiesByWardId(savedWard.getId()));
                 locationDetailsResponse.setDistrictCount(0);
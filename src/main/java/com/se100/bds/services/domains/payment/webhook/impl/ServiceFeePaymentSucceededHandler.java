@@ -4,6 +4,7 @@ import com.se100.bds.models.entities.contract.Payment;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.services.domains.payment.webhook.PaymentGatewayWebhookEvent;
 import com.se100.bds.services.domains.payment.webhook.PaymentSucceededSideEffectHandler;
+import com.se100.bds.services.domains.property.PropertyCardSyncService;
 import com.se100.bds.services.domains.report.FinancialUpdateService;
 import com.se100.bds.utils.Constants;
 import com.se100.bds.utils.Constants.PaymentTypeEnum;
@@ -23,6 +24,7 @@ public class ServiceFeePaymentSucceededHandler implements PaymentSucceededSideEf
 
     private final FinancialUpdateService financialUpdateService;
     private final PropertyRepository propertyRepository;
+    private final PropertyCardSyncService propertyCardSyncService;
 
     @Override
     public boolean supports(Payment payment) {
@@ -49,6 +51,7 @@ public class ServiceFeePaymentSucceededHandler implements PaymentSucceededSideEf
             property.setStatus(Constants.PropertyStatusEnum.AVAILABLE);
         }
         propertyRepository.save(property);
+        propertyCardSyncService.sync(property.getId());
 
         log.info("SERVICE_FEE succeeded for paymentId={}, contractId={}, propertyId={}, gatewayEventId={}",
                 payment.getId(),
@@ -0,0 +1,17 @@
+package com.se100.bds.services.domains.property;
+
+import com.se100.bds.models.entities.location.City;
+import com.se100.bds.models.entities.location.District;
+import com.se100.bds.models.entities.location.Ward;
+import com.se100.bds.models.entities.user.User;
+
+import java.util.UUID;
+
+public interface PropertyCardSyncService {
+    void sync(UUID propertyId);
+    void syncCity(City city);
+    void syncDistrict(District district);
+    void syncWard(Ward ward);
+    void syncUserName(User user);
+    int rebuildAll();
+}
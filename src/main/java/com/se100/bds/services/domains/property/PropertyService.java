@@ -11,6 +11,8 @@ import com.se100.bds.dtos.responses.property.PropertyTypeResponse;
 import com.se100.bds.dtos.responses.property.SimplePropertyCard;
 import com.se100.bds.models.entities.property.Property;
 import com.se100.bds.models.entities.property.PropertyType;
+import com.se100.bds.services.dtos.results.CursorPage;
+import com.se100.bds.services.dtos.results.PropertyDetailsSnapshot;
 import com.se100.bds.services.dtos.results.PropertyCard;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
@@ -34,10 +36,20 @@ public interface PropertyService {
                                               List<Constants.PerformanceTierEnum> agentTier, Boolean hasAgent,
                                               BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
                                               Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
-                                              List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses, boolean topK,
-                                              Pageable pageable);
+                                              List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses,
+                                              String keyword, boolean topK, Pageable pageable);
+    CursorPage<PropertyCard> getAllCardsWithCursor(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                                   List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                                   List<Constants.ContributionTierEnum> ownerTier,
+                                                   UUID agentId, String agentName,
+                                                   List<Constants.PerformanceTierEnum> agentTier, Boolean hasAgent,
+                                                   BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                                   Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors, Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                                   List<Constants.TransactionTypeEnum> transactionType, List<Constants.PropertyStatusEnum> statuses,
+                                                   String sortBy, String sortType, String cursor, int limit, boolean skipCount);
     Page<PropertyType> getAllTypes(Pageable pageable);
     PropertyDetails getPropertyDetailsById(UUID propertyId);
+    PropertyDetailsSnapshot getPropertyDetailsSnapshot(UUID propertyId);
     List<Property> getAllByUserIdAndStatus(UUID ownerId, UUID customerId, UUID salesAgentId, List<Constants.PropertyStatusEnum> statuses);
     PropertyDetails createProperty(CreatePropertyRequest request, MultipartFile[] mediaFiles, MultipartFile[] documents);
     PropertyDetails updateProperty(UUID propertyId, UpdatePropertyRequest request, MultipartFile[] mediaFiles, MultipartFile[] documents);
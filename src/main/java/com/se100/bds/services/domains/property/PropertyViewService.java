@@ -0,0 +1,8 @@
+package com.se100.bds.services.domains.property;
+
+import java.util.UUID;
+
+public interface PropertyViewService {
+    void recordView(UUID propertyId);
+    void flush();
+}
@@ -0,0 +1,123 @@
+package com.se100.bds.services.domains.property.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.services.dtos.results.PropertyDetailsSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * LRU cache of assembled property details, bounded by the serialized size of the entries.
+ * The serialized form also gives the ETag, so it is computed once per load instead of per request.
+ */
+@Component
+public class PropertyDetailsCache {
+    private final long maxBytes;
+    private final ObjectMapper objectMapper;
+
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+    // Bumped on every invalidation, a load that raced with one is returned but not cached
+    private long generation = 0;
+
+    public PropertyDetailsCache(@Value("${app.property-details-cache.max-bytes:33554432}") long maxBytes,
+                                ObjectMapper objectMapper) {
+        this.maxBytes = maxBytes;
+        this.objectMapper = objectMapper;
+    }
+
+    public PropertyDetailsSnapshot get(UUID propertyId, Function<UUID, PropertyDetails> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry cached = entries.get(propertyId);
+            if (cached != null) {
+                return cached.snapshot();
+            }
+            loadGeneration = generation;
+        }
+
+        // Load outside the lock so a slow query does not block hits on other properties
+        PropertyDetails details = loader.apply(propertyId);
+        byte[] json = serialize(details);
+        PropertyDetailsSnapshot snapshot = new PropertyDetailsSnapshot(details, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+
+        synchronized (this) {
+            if (loadGeneration == generation && json.length <= maxBytes) {
+                Entry previous = entries.put(propertyId, new Entry(snapshot, json.length));
+                if (previous != null) {
+                    totalBytes -= previous.bytes();
+                }
+                totalBytes += json.length;
+                evictOverflow();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drop one property now and again once the surrounding transaction commits,
+     * so a load that read the old rows in between is not kept
+     */
+    public void invalidate(UUID propertyId) {
+        evict(propertyId);
+        afterCommit(() -> evict(propertyId));
+    }
+
+    public void invalidateAll() {
+        clear();
+        afterCommit(this::clear);
+    }
+
+    private synchronized void evict(UUID propertyId) {
+        generation++;
+        Entry removed = entries.remove(propertyId);
+        if (removed != null) {
+            totalBytes -= removed.bytes();
+        }
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<UUID, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+        }
+    }
+
+    private byte[] serialize(PropertyDetails details) {
+        try {
+            return objectMapper.writeValueAsBytes(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize property details " + details.getId(), e);
+        }
+    }
+
+    private record Entry(PropertyDetailsSnapshot snapshot, long bytes) {}
+}
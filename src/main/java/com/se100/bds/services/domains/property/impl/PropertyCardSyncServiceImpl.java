@@ -0,0 +1,217 @@
+package com.se100.bds.services.domains.property.impl;
+
+import com.se100.bds.models.entities.location.City;
+import com.se100.bds.models.entities.location.District;
+import com.se100.bds.models.entities.location.Ward;
+import com.se100.bds.models.entities.property.Media;
+import com.se100.bds.models.entities.property.Property;
+import com.se100.bds.models.entities.property.PropertyCardEntry;
+import com.se100.bds.models.entities.user.User;
+import com.se100.bds.repositories.domains.property.PropertyCardEntryRepository;
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.services.domains.property.PropertyCardSyncService;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.index.AvailablePropertyIndex;
+import com.se100.bds.utils.Constants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PropertyCardSyncServiceImpl implements PropertyCardSyncService {
+    private final PropertyCardEntryRepository propertyCardEntryRepository;
+    private final PropertyRepository propertyRepository;
+    private final AvailablePropertyIndex availablePropertyIndex;
+    private final PropertyDetailsCache propertyDetailsCache;
+
+    @Override
+    @Transactional
+    public void sync(UUID propertyId) {
+        // Every property write passes through here, so it also drops the cached details
+        propertyDetailsCache.invalidate(propertyId);
+
+        // Load inside this transaction so lazy associations resolve even when the caller has none;
+        // within a caller's transaction this returns the same managed instance with its pending changes,
+        // flushed first so the card copies the updatedAt the row gets and the startup drift check lines up
+        propertyRepository.flush();
+        Property property = propertyRepository.findById(propertyId).orElse(null);
+        if (property == null) {
+            propertyCardEntryRepository.deleteById(propertyId);
+            afterCommit(() -> availablePropertyIndex.remove(propertyId));
+            return;
+        }
+
+        Ward ward = property.getWard();
+        District district = ward.getDistrict();
+        City city = district.getCity();
+        User owner = property.getOwner().getUser();
+        User agent = property.getAssignedAgent() != null ? property.getAssignedAgent().getUser() : null;
+
+        List<Media> mediaList = property.getMediaList() != null ? property.getMediaList() : List.of();
+        String thumbnailUrl = mediaList.stream()
+                .map(Media::getFilePath)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+
+        PropertyCardEntry entry = PropertyCardEntry.builder()
+                .id(property.getId())
+                .createdAt(property.getCreatedAt())
+                .updatedAt(property.getUpdatedAt())
+                .title(property.getTitle())
+                .transactionType(property.getTransactionType())
+                .status(property.getStatus())
+                .thumbnailUrl(thumbnailUrl)
+                .numberOfImages(mediaList.size())
+                .fullAddress(property.getFullAddress())
+                .propertyTypeId(property.getPropertyType().getId())
+                .wardId(ward.getId())
+                .wardName(ward.getWardName())
+                .districtId(district.getId())
+                .districtName(district.getDistrictName())
+                .cityId(city.getId())
+                .cityName(city.getCityName())
+                .priceAmount(property.getPriceAmount())
+                .area(property.getArea())
+                .rooms(property.getRooms())
+                .bathrooms(property.getBathrooms())
+                .bedrooms(property.getBedrooms())
+                .floors(property.getFloors())
+                .houseOrientation(property.getHouseOrientation())
+                .balconyOrientation(property.getBalconyOrientation())
+                .ownerId(owner.getId())
+                .ownerFirstName(owner.getFirstName())
+                .ownerLastName(owner.getLastName())
+                .agentId(agent != null ? agent.getId() : null)
+                .agentFirstName(agent != null ? agent.getFirstName() : null)
+                .agentLastName(agent != null ? agent.getLastName() : null)
+                .build();
+
+        propertyCardEntryRepository.save(entry);
+        propertyCardEntryRepository.updateSearchVector(property.getId(), searchText(property));
+        afterCommit(() -> availablePropertyIndex.upsert(entry));
+    }
+
+    @Override
+    @Transactional
+    public void syncCity(City city) {
+        int updated = propertyCardEntryRepository.updateCity(city.getId(), city.getCityName());
+        log.debug("Synced city {} on {} property cards", city.getId(), updated);
+        afterCommit(this::reloadIndex);
+        propertyDetailsCache.invalidateAll();
+    }
+
+    @Override
+    @Transactional
+    public void syncDistrict(District district) {
+        City city = district.getCity();
+        int updated = propertyCardEntryRepository.updateDistrict(
+                district.getId(), district.getDistrictName(), city.getId(), city.getCityName());
+        log.debug("Synced district {} on {} property cards", district.getId(), updated);
+        afterCommit(this::reloadIndex);
+        propertyDetailsCache.invalidateAll();
+    }
+
+    @Override
+    @Transactional
+    public void syncWard(Ward ward) {
+        District district = ward.getDistrict();
+        City city = district.getCity();
+        int updated = propertyCardEntryRepository.updateWard(
+                ward.getId(), ward.getWardName(),
+                district.getId(), district.getDistrictName(),
+                city.getId(), city.getCityName());
+        log.debug("Synced ward {} on {} property cards", ward.getId(), updated);
+        afterCommit(this::reloadIndex);
+        propertyDetailsCache.invalidateAll();
+    }
+
+    @Override
+    @Transactional
+    public void syncUserName(User user) {
+        int updated = propertyCardEntryRepository.updateOwnerName(user.getId(), user.getFirstName(), user.getLastName())
+                + propertyCardEntryRepository.updateAgentName(user.getId(), user.getFirstName(), user.getLastName());
+        if (updated > 0) {
+            afterCommit(this::reloadIndex);
+            propertyDetailsCache.invalidateAll();
+        }
+    }
+
+    @Override
+    @Transactional
+    public int rebuildAll() {
+        propertyCardEntryRepository.deleteAllCards();
+        int inserted = propertyCardEntryRepository.insertAllCards();
+        log.info("Rebuilt {} property cards", inserted);
+        afterCommit(this::reloadIndex);
+        return inserted;
+    }
+
+    /**
+     * Install the text search functions and GIN index before the dummy data runner and the backfill use them
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    @Transactional
+    public void installSearchSupport() {
+        propertyCardEntryRepository.createSearchVectorFunction();
+        propertyCardEntryRepository.createSearchQueryFunction();
+        propertyCardEntryRepository.createSearchMatchFunction();
+        propertyCardEntryRepository.createSearchIndex();
+    }
+
+    /**
+     * Backfill the read model after startup (and after the dummy data runner) when it is out of step with properties,
+     * then load the available property index from it.
+     * Cards are matched to their property row by row, so a missed edit is caught wherever it happened.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfOutOfSync() {
+        long staleCards = propertyCardEntryRepository.countStaleCards();
+        if (staleCards > 0 || propertyCardEntryRepository.existsBySearchVectorIsNull()) {
+            log.info("Property cards out of sync ({} missing, stale or orphaned), rebuilding", staleCards);
+            rebuildAll();
+        } else {
+            afterCommit(this::reloadIndex);
+        }
+    }
+
+    private String searchText(Property property) {
+        return Stream.of(property.getTitle(), property.getDescription(), property.getFullAddress(), property.getAmenities())
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(" "));
+    }
+
+    private void reloadIndex() {
+        availablePropertyIndex.load(propertyCardEntryRepository.findAllByStatus(Constants.PropertyStatusEnum.AVAILABLE));
+    }
+
+    // The index must only see committed cards; without a transaction the change is already visible
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
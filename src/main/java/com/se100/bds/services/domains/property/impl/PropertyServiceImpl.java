@@ -30,15 +30,22 @@ import com.se100.bds.repositories.domains.property.PropertyTypeRepository;
 import com.se100.bds.repositories.domains.user.PropertyOwnerRepository;
 import com.se100.bds.repositories.dtos.DocumentProjection;
 import com.se100.bds.repositories.dtos.MediaProjection;
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
 import com.se100.bds.repositories.dtos.PropertyCardProtection;
 import com.se100.bds.repositories.dtos.PropertyDetailsProjection;
 import com.se100.bds.services.domains.notification.NotificationService;
 import com.se100.bds.services.domains.payment.PaymentService;
 import com.se100.bds.services.domains.customer.CustomerFavoriteService;
+import com.se100.bds.services.domains.property.PropertyCardSyncService;
 import com.se100.bds.services.domains.property.PropertyService;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.property.index.AvailablePropertyIndex;
 import com.se100.bds.services.domains.ranking.RankingService;
 import com.se100.bds.services.domains.search.SearchService;
 import com.se100.bds.services.domains.user.UserService;
+import com.se100.bds.services.dtos.results.CursorPage;
+import com.se100.bds.services.dtos.results.PropertyDetailsSnapshot;
 import com.se100.bds.services.dtos.results.PropertyCard;
 import com.se100.bds.services.fileupload.CloudinaryService;
 import com.se100.bds.utils.Constants;
@@ -47,6 +54,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -67,6 +75,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -103,6 +112,9 @@ public class PropertyServiceImpl implements PropertyService {
     private final NotificationService notificationService;
     private final CustomerFavoriteService customerFavoriteService;
     private final ContractRepository contractRepository;
+    private final PropertyCardSyncService propertyCardSyncService;
+    private final AvailablePropertyIndex availablePropertyIndex;
+    private final PropertyDetailsCache propertyDetailsCache;
 
     @Override
     public Page<Property> getAll(Pageable pageable) {
@@ -124,16 +136,108 @@ public class PropertyServiceImpl implements PropertyService {
                                                      Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
                                                      Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
                                                      List<Constants.TransactionTypeEnum> transactionType,
-                                                     List<Constants.PropertyStatusEnum> statuses, boolean topK,
-                                                     Pageable pageable) {
+                                                     List<Constants.PropertyStatusEnum> statuses,
+                                                     String keyword, boolean topK, Pageable pageable) {
 
-        User currentUser = null;
-        try {
-            currentUser = userService.getUser();
+        User currentUser = getCurrentUserAndLogSearch(cityIds, districtIds, wardIds, propertyTypeIds);
+
+        PropertyCardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds, ownerId, ownerName, ownerTier,
+                agentId, agentName, agentTier, hasAgent, minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, keyword, topK);
+        if (filter == null) {
+            return Page.empty(pageable);
+        }
+
+        // Public AVAILABLE listings are served from memory, anything else goes to SQL
+        Page<PropertyCardProtection> cardProtections = availablePropertyIndex.canAnswer(filter, pageable.getSort())
+                ? availablePropertyIndex.findPropertyCards(filter, pageable)
+                : propertyRepository.findPropertyCards(filter, pageable);
+        Page<PropertyCard> propertyCardsPage = propertyMapper.mapToPage(cardProtections, PropertyCard.class);
+        enrichCards(cardProtections.getContent(), propertyCardsPage.getContent(), currentUser);
+
+        return propertyCardsPage;
+    }
+
+    @Override
+    public CursorPage<PropertyCard> getAllCardsWithCursor(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                                          List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                                          List<Constants.ContributionTierEnum> ownerTier,
+                                                          UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier, Boolean hasAgent,
+                                                          BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                                          Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                                          Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                                          List<Constants.TransactionTypeEnum> transactionType,
+                                                          List<Constants.PropertyStatusEnum> statuses,
+                                                          String sortBy, String sortType, String cursor, int limit, boolean skipCount) {
+        PropertyCardCursor after = (cursor != null && !cursor.isBlank()) ? PropertyCardCursor.decode(cursor) : null;
+
+        // Only the first page counts as a search, following pages are the same search scrolled further
+        User currentUser = after == null
+                ? getCurrentUserAndLogSearch(cityIds, districtIds, wardIds, propertyTypeIds)
+                : getCurrentUserOrNull();
+
+        // The cursor carries its own ordering so every page of a walk is consistent
+        String sortField = after != null ? after.sortField() : PropertyCardCursor.resolveSortField(sortBy);
+        boolean ascending = after != null ? after.ascending() : "asc".equalsIgnoreCase(sortType);
+
+        PropertyCardFilter filter = buildCardFilter(cityIds, districtIds, wardIds, propertyTypeIds, ownerId, ownerName, ownerTier,
+                agentId, agentName, agentTier, hasAgent, minPrice, maxPrice, minArea, maxArea, rooms, bathrooms, bedrooms, floors,
+                houseOrientation, balconyOrientation, transactionType, statuses, null, false);
+        if (filter == null) {
+            return new CursorPage<>(List.of(), limit, null, false, skipCount ? null : 0L);
+        }
+
+        boolean fromIndex = availablePropertyIndex.canAnswer(filter, Sort.by(sortField));
+
+        // Fetch one extra row to know whether another page exists without counting
+        List<PropertyCardProtection> protections = fromIndex
+                ? availablePropertyIndex.findPropertyCardsAfter(filter, sortField, ascending, after, limit + 1)
+                : propertyRepository.findPropertyCardsAfter(filter, sortField, ascending, after, limit + 1);
+        boolean hasNext = protections.size() > limit;
+        if (hasNext) {
+            protections = protections.subList(0, limit);
+        }
+        String nextCursor = hasNext
+                ? PropertyCardCursor.of(sortField, ascending, protections.get(protections.size() - 1)).encode()
+                : null;
+        Long total = skipCount ? null
+                : fromIndex ? availablePropertyIndex.countPropertyCards(filter) : propertyRepository.countPropertyCards(filter);
+
+        List<PropertyCard> cards = propertyMapper.mapToList(protections, PropertyCard.class);
+        enrichCards(protections, cards, currentUser);
+
+        return new CursorPage<>(cards, limit, nextCursor, hasNext, total);
+    }
+
+    private User getCurrentUserAndLogSearch(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds, List<UUID> propertyTypeIds) {
+        User currentUser = getCurrentUserOrNull();
+        if (currentUser != null) {
             searchService.addSearchList(currentUser.getId(), cityIds, districtIds, wardIds, propertyTypeIds);
+        }
+        return currentUser;
+    }
+
+    private User getCurrentUserOrNull() {
+        try {
+            return userService.getUser();
         } catch (Exception ignored) {
+            return null;
         }
+    }
 
+    /**
+     * Resolve the request filters into a card query filter, returns null when a tier filter matches nobody
+     */
+    private PropertyCardFilter buildCardFilter(List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds,
+                                               List<UUID> propertyTypeIds, UUID ownerId, String ownerName,
+                                               List<Constants.ContributionTierEnum> ownerTier,
+                                               UUID agentId, String agentName, List<Constants.PerformanceTierEnum> agentTier, Boolean hasAgent,
+                                               BigDecimal minPrice, BigDecimal maxPrice, BigDecimal minArea, BigDecimal maxArea,
+                                               Integer rooms, Integer bathrooms, Integer bedrooms, Integer floors,
+                                               Constants.OrientationEnum houseOrientation, Constants.OrientationEnum balconyOrientation,
+                                               List<Constants.TransactionTypeEnum> transactionType,
+                                               List<Constants.PropertyStatusEnum> statuses,
+                                               String keyword, boolean topK) {
         List<UUID> propertyIds = null;
         if (topK) {
             // Lấy tháng và năm hiện tại
@@ -144,128 +248,107 @@ public class PropertyServiceImpl implements PropertyService {
             log.info("Found {} most searched properties", propertyIds.size());
         }
 
-        List<String> transactionTypeStrings = (transactionType != null && !transactionType.isEmpty())
-                ? transactionType.stream().map(Enum::name).toList()
-                : null;
-
-        List<UUID> ownerIds;
+        // Name filters are matched inside the card query; tiers live in Mongo, so they are
+        // resolved to the users holding them and only when a tier filter is requested
+        List<UUID> ownerIds = null;
+        String ownerNameFilter = null;
         if (ownerId != null) {
             ownerIds = List.of(ownerId);
         } else {
-            String searchName = ownerName != null ? ownerName : "";
-            List<User> owners = userService.getAllByName(searchName);
-
+            ownerNameFilter = (ownerName != null && !ownerName.isBlank()) ? ownerName : null;
             if (ownerTier != null && !ownerTier.isEmpty()) {
-                int currentMonth = LocalDateTime.now().getMonthValue();
-                int currentYear = LocalDateTime.now().getYear();
-
-                ownerIds = owners.stream()
-                        .map(User::getId)
-                        .filter(id -> {
-                            String tier = rankingService.getTier(id, Constants.RoleEnum.PROPERTY_OWNER, currentMonth, currentYear);
-                            return tier != null && ownerTier.stream().anyMatch(filter -> filter.name().equals(tier));
-                        })
-                        .toList();
-            } else {
-                ownerIds = owners.stream()
-                        .map(User::getId)
-                        .toList();
+                ownerIds = rankingService.getCurrentOwnerIdsByTiers(ownerTier);
+                if (ownerIds.isEmpty()) {
+                    return null;
+                }
             }
         }
 
-        List<UUID> agentIds;
-        if (hasAgent) {
+        boolean requireAgent = Boolean.TRUE.equals(hasAgent);
+        List<UUID> agentIds = null;
+        String agentNameFilter = null;
+        if (requireAgent) {
             if (agentId != null) {
                 agentIds = List.of(agentId);
             } else {
-                String searchName = agentName != null ? agentName : "";
-                List<User> agents = userService.getAllByName(searchName);
+                agentNameFilter = (agentName != null && !agentName.isBlank()) ? agentName : null;
                 if (agentTier != null && !agentTier.isEmpty()) {
-                    int currentMonth = LocalDateTime.now().getMonthValue();
-                    int currentYear = LocalDateTime.now().getYear();
-
-                    agentIds = agents.stream()
-                            .map(User::getId)
-                            .filter(id -> {
-                                String tier = rankingService.getTier(id, Constants.RoleEnum.SALESAGENT, currentMonth, currentYear);
-                                return tier != null && agentTier.stream().anyMatch(filter -> filter.name().equals(tier));
-                            })
-                            .toList();
-                } else {
-                    agentIds = agents.stream()
-                            .map(User::getId)
-                            .toList();
+                    agentIds = rankingService.getCurrentAgentIdsByTiers(agentTier);
+                    if (agentIds.isEmpty()) {
+                        return null;
+                    }
                 }
             }
-        } else {
-            agentIds = null;
         }
 
-        List<String> statusStrings = (statuses != null && !statuses.isEmpty())
-                ? statuses.stream().map(Enum::name).toList()
-                : null;
-
-        String houseOrientationValue = houseOrientation != null ? houseOrientation.getValue() : null;
-        String balconyOrientationValue = balconyOrientation != null ? balconyOrientation.getValue() : null;
-
-        Page<PropertyCardProtection> cardProtections = propertyRepository.findAllPropertyCardsWithFilter(
-                pageable,
-                propertyIds,
-                cityIds,
-                districtIds,
-                wardIds,
-                propertyTypeIds,
-                ownerIds,
-                agentIds,
-                minPrice,
-                maxPrice,
-                minArea,
-                maxArea,
-                rooms,
-                bathrooms,
-                bedrooms,
-                floors,
-                houseOrientationValue,
-                balconyOrientationValue,
-                transactionTypeStrings,
-                statusStrings,
-                currentUser != null ? currentUser.getId() : null
-        );
+        return PropertyCardFilter.builder()
+                .keyword((keyword != null && !keyword.isBlank()) ? keyword : null)
+                .propertyIds(propertyIds)
+                .cityIds(cityIds)
+                .districtIds(districtIds)
+                .wardIds(wardIds)
+                .propertyTypeIds(propertyTypeIds)
+                .ownerIds(ownerIds)
+                .agentIds(agentIds)
+                .ownerName(ownerNameFilter)
+                .agentName(agentNameFilter)
+                .requireAgent(requireAgent)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minArea(minArea)
+                .maxArea(maxArea)
+                .rooms(rooms)
+                .bathrooms(bathrooms)
+                .bedrooms(bedrooms)
+                .floors(floors)
+                .houseOrientation(houseOrientation)
+                .balconyOrientation(balconyOrientation)
+                .transactionTypes(transactionType)
+                .statuses(statuses)
+                .build();
+    }
 
+    private void enrichCards(List<PropertyCardProtection> protections, List<PropertyCard> cards, User currentUser) {
         // Create a map of ID to transactionType for quick lookup
         Map<UUID, String> transactionTypeMap = new HashMap<>();
-        for (PropertyCardProtection protection : cardProtections) {
+        for (PropertyCardProtection protection : protections) {
             if (protection.transactionType() != null) {
                 transactionTypeMap.put(protection.id(), protection.transactionType().name());
             }
         }
 
-        Page<PropertyCard> propertyCardsPage = propertyMapper.mapToPage(cardProtections, PropertyCard.class);
+        // Resolve tiers for the whole page at once
+        Map<UUID, String> ownerTiers = rankingService.getCurrentTiers(
+                collectIds(cards, PropertyCard::getOwnerId),
+                Constants.RoleEnum.PROPERTY_OWNER
+        );
+        Map<UUID, String> agentTiers = rankingService.getCurrentTiers(
+                collectIds(cards, PropertyCard::getAgentId),
+                Constants.RoleEnum.SALESAGENT
+        );
+        Set<UUID> likedPropertyIds = currentUser == null
+                ? Set.of()
+                : customerFavoriteService.getLikedRefIds(
+                        collectIds(cards, PropertyCard::getId),
+                        currentUser.getId(),
+                        Constants.LikeTypeEnum.PROPERTY
+                );
 
-        for (PropertyCard propertyCard : propertyCardsPage) {
+        for (PropertyCard propertyCard : cards) {
             // Set transactionType from the protection record
             propertyCard.setTransactionType(transactionTypeMap.get(propertyCard.getId()));
 
             if (propertyCard.getOwnerId() != null) {
-                propertyCard.setOwnerTier(rankingService.getCurrentTier(
-                        propertyCard.getOwnerId(),
-                        Constants.RoleEnum.PROPERTY_OWNER
-                ));
+                propertyCard.setOwnerTier(ownerTiers.get(propertyCard.getOwnerId()));
             }
             if (propertyCard.getAgentId() != null) {
-                propertyCard.setAgentTier(rankingService.getCurrentTier(
-                        propertyCard.getAgentId(),
-                        Constants.RoleEnum.SALESAGENT
-                ));
+                propertyCard.setAgentTier(agentTiers.get(propertyCard.getAgentId()));
             }
             // mark favorite if current user liked this property
-            if (currentUser != null && customerFavoriteService.isLike(
-                    propertyCard.getId(), currentUser.getId(), Constants.LikeTypeEnum.PROPERTY)) {
+            if (likedPropertyIds.contains(propertyCard.getId())) {
                 propertyCard.setFavorite(true);
             }
         }
-
-        return propertyCardsPage;
     }
 
     @Override
@@ -275,8 +358,17 @@ public class PropertyServiceImpl implements PropertyService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public PropertyDetails getPropertyDetailsById(UUID propertyId) {
+        return getPropertyDetailsSnapshot(propertyId).details();
+    }
+
+    @Override
+    public PropertyDetailsSnapshot getPropertyDetailsSnapshot(UUID propertyId) {
+        // No surrounding transaction, so cache hits do not take a connection
+        return propertyDetailsCache.get(propertyId, this::loadPropertyDetails);
+    }
+
+    private PropertyDetails loadPropertyDetails(UUID propertyId) {
         PropertyDetailsProjection projection = propertyRepository.findPropertyDetailsById(propertyId);
         if (projection == null) {
             throw new RuntimeException("Property not found with id: " + propertyId);
@@ -376,6 +468,7 @@ public class PropertyServiceImpl implements PropertyService {
         addDocumentFiles(persisted, documents, request.getDocumentMetadata());
 
         Property saved = propertyRepository.save(persisted);
+        propertyCardSyncService.sync(saved.getId());
         if (isAdmin) {
             log.info("Admin created property {} for owner {}", saved.getId(), owner.getId());
         } else {
@@ -442,6 +535,7 @@ public class PropertyServiceImpl implements PropertyService {
         validatePropertyHasCompulsoryDocuments(property, isAdmin);
 
         Property saved = propertyRepository.save(property);
+        propertyCardSyncService.sync(saved.getId());
         return propertyMapper.mapTo(saved, PropertyDetails.class);
     }
 
@@ -479,6 +573,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setStatus(targetStatus);
         Property saved = propertyRepository.save(property);
+        propertyCardSyncService.sync(saved.getId());
         log.info("Owner {} updated property {} status to {}", currentUser.getId(), saved.getId(), targetStatus);
 
         // Track property status change action for ranking
@@ -545,6 +640,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setStatus(targetStatus);
         Property saved = propertyRepository.save(property);
+        propertyCardSyncService.sync(saved.getId());
         log.info("Admin updated property {} status to {}", saved.getId(), targetStatus);
         return propertyMapper.mapTo(saved, PropertyDetails.class);
     }
@@ -576,6 +672,7 @@ public class PropertyServiceImpl implements PropertyService {
         property.setApprovedAt(null);
         property.setAssignedAgent(null);
         propertyRepository.save(property);
+        propertyCardSyncService.sync(property.getId());
         log.info("Soft deleted property {}", propertyId);
     }
 
@@ -586,6 +683,7 @@ public class PropertyServiceImpl implements PropertyService {
         Property assignedProperty = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new NotFoundException("Property not found with id: " + propertyId));
         assignedProperty.setAssignedAgent(salesAgent);
+        propertyCardSyncService.sync(assignedProperty.getId());
     }
 
     @Override
@@ -648,6 +746,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         PropertyType updatedPropertyType = propertyTypeRepository.save(propertyType);
         log.info("Updated property type with id: {}", updatedPropertyType.getId());
+        propertyDetailsCache.invalidateAll();
 
         return propertyMapper.mapTo(updatedPropertyType, PropertyTypeResponse.class);
     }
@@ -689,6 +788,7 @@ public class PropertyServiceImpl implements PropertyService {
             if (property.getAssignedAgent() != null) {
                 property.setAssignedAgent(null);
                 propertyRepository.save(property);
+                propertyCardSyncService.sync(property.getId());
                 log.info("Removed agent from property: {}", propertyId);
                 return true;
             }
@@ -709,6 +809,7 @@ public class PropertyServiceImpl implements PropertyService {
 
         property.setAssignedAgent(agentUser.getSaleAgent());
         propertyRepository.save(property);
+        propertyCardSyncService.sync(property.getId());
         log.info("Assigned agent {} to property: {}", agentId, propertyId);
 
         // Track property assignment action for agent ranking
@@ -740,18 +841,20 @@ public class PropertyServiceImpl implements PropertyService {
         Page<SimplePropertyCard> propertyCards = propertyMapper.mapToPage(properties, SimplePropertyCard.class);
 
         // Enrich with owner and agent tiers
+        Map<UUID, String> ownerTiers = rankingService.getCurrentTiers(
+                collectIds(propertyCards.getContent(), SimplePropertyCard::getOwnerId),
+                Constants.RoleEnum.PROPERTY_OWNER
+        );
+        Map<UUID, String> agentTiers = rankingService.getCurrentTiers(
+                collectIds(propertyCards.getContent(), SimplePropertyCard::getAgentId),
+                Constants.RoleEnum.SALESAGENT
+        );
         propertyCards.forEach(card -> {
             if (card.getOwnerId() != null) {
-                card.setOwnerTier(rankingService.getCurrentTier(
-                        card.getOwnerId(),
-                        Constants.RoleEnum.PROPERTY_OWNER
-                ));
+                card.setOwnerTier(ownerTiers.get(card.getOwnerId()));
             }
             if (card.getAgentId() != null) {
-                card.setAgentTier(rankingService.getCurrentTier(
-                        card.getAgentId(),
-                        Constants.RoleEnum.SALESAGENT
-                ));
+                card.setAgentTier(agentTiers.get(card.getAgentId()));
             }
         });
 
@@ -1053,6 +1156,13 @@ public class PropertyServiceImpl implements PropertyService {
         return documentTypeRepository.save(defaultType);
     }
 
+    private <T> Set<UUID> collectIds(List<T> cards, Function<T, UUID> idExtractor) {
+        return cards.stream()
+                .map(idExtractor)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
     private boolean isAdmin(User user) {
         return user != null && user.getRole() == Constants.RoleEnum.ADMIN;
     }
@@ -1090,13 +1200,18 @@ public class PropertyServiceImpl implements PropertyService {
         Page<PropertyCardProtection> protections = propertyRepository.findFavoritePropertyCards(pageable, propertyIds);
         Page<PropertyCard> cards = propertyMapper.mapToPage(protections, PropertyCard.class);
 
+        Map<UUID, String> ownerTiers = rankingService.getCurrentTiers(
+                collectIds(cards.getContent(), PropertyCard::getOwnerId), Constants.RoleEnum.PROPERTY_OWNER);
+        Map<UUID, String> agentTiers = rankingService.getCurrentTiers(
+                collectIds(cards.getContent(), PropertyCard::getAgentId), Constants.RoleEnum.SALESAGENT);
+
         cards.forEach(card -> {
             card.setFavorite(true);
             if (card.getOwnerId() != null) {
-                card.setOwnerTier(rankingService.getCurrentTier(card.getOwnerId(), Constants.RoleEnum.PROPERTY_OWNER));
+                card.setOwnerTier(ownerTiers.get(card.getOwnerId()));
             }
             if (card.getAgentId() != null) {
-                card.setAgentTier(rankingService.getCurrentTier(card.getAgentId(), Constants.RoleEnum.SALESAGENT));
+                card.setAgentTier(agentTiers.get(card.getAgentId()));
             }
         });
 
@@ -0,0 +1,112 @@
+package com.se100.bds.services.domains.property.impl;
+
+import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.property.PropertyRepository;
+import com.se100.bds.services.domains.property.PropertyViewService;
+import com.se100.bds.services.domains.report.scheduler.PropertyStatisticsReportScheduler;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts detail page views in memory and applies them in batches, so a popular listing
+ * does not turn every view into an UPDATE on the same row
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PropertyViewServiceImpl implements PropertyViewService {
+    private final PropertyRepository propertyRepository;
+    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final PropertyStatisticsReportScheduler propertyStatisticsReportScheduler;
+
+    // Keyed by day as well so views buffered over midnight land in the right day and month
+    private final ConcurrentHashMap<ViewKey, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordView(UUID propertyId) {
+        pendingViews.computeIfAbsent(new ViewKey(LocalDate.now(), propertyId), key -> new LongAdder()).increment();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.property-views.flush-interval-ms:30000}")
+    public synchronized void flush() {
+        Map<ViewKey, Long> views = drain();
+        if (views.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Long> viewsByPropertyId = new HashMap<>();
+        views.forEach((key, count) -> viewsByPropertyId.merge(key.propertyId(), count, Long::sum));
+        try {
+            int updated = propertyRepository.addViewCounts(viewsByPropertyId);
+            log.debug("Flushed views of {} properties", updated);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush property views, keeping them for the next run", e);
+            views.forEach(this::restore);
+            return;
+        }
+
+        // The view counts are already stored, a failing report update only costs the statistics
+        try {
+            addToReports(views);
+        } catch (RuntimeException e) {
+            log.error("Failed to add property views to the statistics report", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Map<ViewKey, Long> drain() {
+        LocalDate today = LocalDate.now();
+        Map<ViewKey, Long> views = new HashMap<>();
+        pendingViews.forEach((key, adder) -> {
+            long count = adder.sumThenReset();
+            if (count > 0) {
+                views.put(key, count);
+            } else if (key.day().isBefore(today)) {
+                // Past days get no new views, drop their idle counters
+                pendingViews.remove(key, adder);
+            }
+        });
+        return views;
+    }
+
+    private void restore(ViewKey key, long count) {
+        pendingViews.computeIfAbsent(key, k -> new LongAdder()).add(count);
+    }
+
+    private void addToReports(Map<ViewKey, Long> views) {
+        Map<YearMonth, Map<Integer, Long>> viewsByDay = new HashMap<>();
+        Map<YearMonth, Map<UUID, Long>> viewsByProperty = new HashMap<>();
+        views.forEach((key, count) -> {
+            YearMonth month = YearMonth.from(key.day());
+            viewsByDay.computeIfAbsent(month, m -> new HashMap<>()).merge(key.day().getDayOfMonth(), count, Long::sum);
+            viewsByProperty.computeIfAbsent(month, m -> new HashMap<>()).merge(key.propertyId(), count, Long::sum);
+        });
+
+        viewsByDay.forEach((month, days) -> {
+            Map<UUID, Long> properties = viewsByProperty.get(month);
+            if (!propertyStatisticsReportRepository.incrementViews(month.getMonthValue(), month.getYear(), days, properties)) {
+                // First flush of a month can run before the monthly report is created
+                propertyStatisticsReportScheduler.initPropertyStatisticsReportData(month.getMonthValue(), month.getYear()).join();
+                propertyStatisticsReportRepository.incrementViews(month.getMonthValue(), month.getYear(), days, properties);
+            }
+        });
+    }
+
+    private record ViewKey(LocalDate day, UUID propertyId) {}
+}
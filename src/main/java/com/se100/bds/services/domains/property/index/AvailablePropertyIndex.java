@@ -0,0 +1,605 @@
+package com.se100.bds.services.domains.property.index;
+
+import com.se100.bds.models.entities.property.PropertyCardEntry;
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
+import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import com.se100.bds.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process index of AVAILABLE property cards, the bulk of public search traffic.
+ * Categorical filters are answered by bitmap intersection, price and area ranges by binary
+ * search over sorted columns, the rest by checking the remaining candidates.
+ * Pages are read by walking the sorted column of the sort field, so matches are never re-sorted.
+ * Searches that need other statuses or sorts fall back to the SQL path.
+ */
+@Slf4j
+@Component
+public class AvailablePropertyIndex {
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "priceAmount", "area");
+
+    // Postgres orders uuids bytewise, compare the same way so SQL and index pages agree
+    private static final Comparator<UUID> UUID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<PropertyCardEntry> docs = new ArrayList<>();
+    private final Map<UUID, Integer> docIdByPropertyId = new HashMap<>();
+    private final Deque<Integer> freeDocIds = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    private final Map<UUID, BitSet> byCity = new HashMap<>();
+    private final Map<UUID, BitSet> byDistrict = new HashMap<>();
+    private final Map<UUID, BitSet> byWard = new HashMap<>();
+    private final Map<UUID, BitSet> byPropertyType = new HashMap<>();
+    private final Map<Constants.TransactionTypeEnum, BitSet> byTransactionType = new EnumMap<>(Constants.TransactionTypeEnum.class);
+
+    private final SortedColumn createdAts = new SortedColumn(PropertyCardEntry::getCreatedAt);
+    private final SortedColumn prices = new SortedColumn(PropertyCardEntry::getPriceAmount);
+    private final SortedColumn areas = new SortedColumn(PropertyCardEntry::getArea);
+    private volatile boolean loaded = false;
+
+    public AvailablePropertyIndex(@Value("${app.property-index.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Whether the search can be served from the index instead of SQL, keyword searches always need SQL
+     */
+    public boolean canAnswer(PropertyCardFilter filter, Sort sort) {
+        if (!enabled || !loaded || filter.keyword() != null) {
+            return false;
+        }
+        if (filter.statuses() == null || filter.statuses().isEmpty()
+                || !filter.statuses().stream().allMatch(status -> status == Constants.PropertyStatusEnum.AVAILABLE)) {
+            return false;
+        }
+        return sort.stream().allMatch(order -> SORTABLE_FIELDS.contains(order.getProperty()));
+    }
+
+    public Page<PropertyCardProtection> findPropertyCards(PropertyCardFilter filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(filter);
+            int total = matches.cardinality();
+            long skip = pageable.isUnpaged() ? 0 : pageable.getOffset();
+            int limit = pageable.isUnpaged() ? total : pageable.getPageSize();
+
+            List<PropertyCardEntry> page;
+            List<Sort.Order> orders = pageable.getSort().toList();
+            if (orders.isEmpty()) {
+                page = inDocOrder(matches, skip, limit);
+            } else if (orders.size() == 1) {
+                // Offset pages break ties by ascending id in both directions, like the SQL path
+                Sort.Order order = orders.get(0);
+                page = entries(column(order.getProperty()).page(matches, order.isAscending(), false, null, null, skip, limit));
+            } else {
+                List<PropertyCardEntry> sorted = inDocOrder(matches, 0, total);
+                sorted.sort(comparator(pageable.getSort(), false));
+                int from = (int) Math.min(skip, sorted.size());
+                page = sorted.subList(from, Math.min(from + limit, sorted.size()));
+            }
+            return new PageImpl<>(page.stream().map(this::toProtection).toList(), pageable, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<PropertyCardProtection> findPropertyCardsAfter(PropertyCardFilter filter, String sortField, boolean ascending,
+                                                               PropertyCardCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            // Keyset pages break ties by id following the sort, so descending is the exact reverse of ascending
+            List<Integer> page = column(sortField).page(match(filter), ascending, !ascending,
+                    after != null ? after.sortValue() : null, after != null ? after.id() : null, 0, limit);
+            return entries(page).stream()
+                    .map(this::toProtection)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countPropertyCards(PropertyCardFilter filter) {
+        lock.readLock().lock();
+        try {
+            return match(filter).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index content, entries that are not AVAILABLE are ignored
+     */
+    public void load(Collection<PropertyCardEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            docIdByPropertyId.clear();
+            freeDocIds.clear();
+            live.clear();
+            byCity.clear();
+            byDistrict.clear();
+            byWard.clear();
+            byPropertyType.clear();
+            byTransactionType.clear();
+
+            for (PropertyCardEntry entry : entries) {
+                if (entry.getStatus() == Constants.PropertyStatusEnum.AVAILABLE) {
+                    add(entry);
+                }
+            }
+            // Sorted once here, single changes are then placed incrementally
+            createdAts.load(docs, live);
+            prices.load(docs, live);
+            areas.load(docs, live);
+            loaded = true;
+            log.info("Loaded {} available properties into the search index", live.cardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a single card change, the card leaves the index when it is no longer AVAILABLE
+     */
+    public void upsert(PropertyCardEntry entry) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByPropertyId.get(entry.getId());
+            if (docId != null) {
+                remove(docId.intValue());
+            }
+            if (entry.getStatus() == Constants.PropertyStatusEnum.AVAILABLE) {
+                int added = add(entry);
+                createdAts.insert(entry, added);
+                prices.insert(entry, added);
+                areas.insert(entry, added);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID propertyId) {
+        lock.writeLock().lock();
+        try {
+            Integer docId = docIdByPropertyId.get(propertyId);
+            if (docId != null) {
+                remove(docId.intValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int add(PropertyCardEntry entry) {
+        int docId;
+        if (freeDocIds.isEmpty()) {
+            docId = docs.size();
+            docs.add(entry);
+        } else {
+            docId = freeDocIds.pop();
+            docs.set(docId, entry);
+        }
+        docIdByPropertyId.put(entry.getId(), docId);
+        live.set(docId);
+
+        addPosting(byCity, entry.getCityId(), docId);
+        addPosting(byDistrict, entry.getDistrictId(), docId);
+        addPosting(byWard, entry.getWardId(), docId);
+        addPosting(byPropertyType, entry.getPropertyTypeId(), docId);
+        if (entry.getTransactionType() != null) {
+            byTransactionType.computeIfAbsent(entry.getTransactionType(), key -> new BitSet()).set(docId);
+        }
+        return docId;
+    }
+
+    private void remove(int docId) {
+        PropertyCardEntry entry = docs.get(docId);
+        removePosting(byCity, entry.getCityId(), docId);
+        removePosting(byDistrict, entry.getDistrictId(), docId);
+        removePosting(byWard, entry.getWardId(), docId);
+        removePosting(byPropertyType, entry.getPropertyTypeId(), docId);
+        if (entry.getTransactionType() != null) {
+            removePosting(byTransactionType, entry.getTransactionType(), docId);
+        }
+        createdAts.remove(entry, docId);
+        prices.remove(entry, docId);
+        areas.remove(entry, docId);
+
+        live.clear(docId);
+        docIdByPropertyId.remove(entry.getId());
+        docs.set(docId, null);
+        freeDocIds.push(docId);
+    }
+
+    private static <K> void addPosting(Map<K, BitSet> postings, K key, int docId) {
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new BitSet()).set(docId);
+        }
+    }
+
+    private static <K> void removePosting(Map<K, BitSet> postings, K key, int docId) {
+        if (key == null) {
+            return;
+        }
+        BitSet bits = postings.get(key);
+        if (bits != null) {
+            bits.clear(docId);
+            if (bits.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private SortedColumn column(String sortField) {
+        return switch (sortField) {
+            case "priceAmount" -> prices;
+            case "area" -> areas;
+            default -> createdAts;
+        };
+    }
+
+    private BitSet match(PropertyCardFilter filter) {
+        BitSet candidates = (BitSet) live.clone();
+
+        if (isPresent(filter.propertyIds())) {
+            BitSet ids = new BitSet();
+            for (UUID propertyId : filter.propertyIds()) {
+                Integer docId = docIdByPropertyId.get(propertyId);
+                if (docId != null) {
+                    ids.set(docId);
+                }
+            }
+            candidates.and(ids);
+        }
+        intersect(candidates, byCity, filter.cityIds());
+        intersect(candidates, byDistrict, filter.districtIds());
+        intersect(candidates, byWard, filter.wardIds());
+        intersect(candidates, byPropertyType, filter.propertyTypeIds());
+        intersect(candidates, byTransactionType, filter.transactionTypes());
+
+        if (filter.minPrice() != null || filter.maxPrice() != null) {
+            candidates.and(prices.range(filter.minPrice(), filter.maxPrice()));
+        }
+        if (filter.minArea() != null || filter.maxArea() != null) {
+            candidates.and(areas.range(filter.minArea(), filter.maxArea()));
+        }
+
+        for (int docId = candidates.nextSetBit(0); docId >= 0; docId = candidates.nextSetBit(docId + 1)) {
+            if (!matchesResidual(docs.get(docId), filter)) {
+                candidates.clear(docId);
+            }
+        }
+        return candidates;
+    }
+
+    private List<PropertyCardEntry> inDocOrder(BitSet matches, long skip, int limit) {
+        List<PropertyCardEntry> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int docId = matches.nextSetBit(0); docId >= 0 && page.size() < limit; docId = matches.nextSetBit(docId + 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                page.add(docs.get(docId));
+            }
+        }
+        return page;
+    }
+
+    private static <K> void intersect(BitSet candidates, Map<K, BitSet> postings, List<K> keys) {
+        if (!isPresent(keys)) {
+            return;
+        }
+        BitSet union = new BitSet();
+        for (K key : keys) {
+            BitSet bits = postings.get(key);
+            if (bits != null) {
+                union.or(bits);
+            }
+        }
+        candidates.and(union);
+    }
+
+    // Filters without a posting list, checked on the candidates left after the bitmap intersection
+    private boolean matchesResidual(PropertyCardEntry entry, PropertyCardFilter filter) {
+        if (isPresent(filter.ownerIds()) && !filter.ownerIds().contains(entry.getOwnerId())) {
+            return false;
+        }
+        if (isPresent(filter.agentIds()) && !filter.agentIds().contains(entry.getAgentId())) {
+            return false;
+        }
+        if (filter.requireAgent() && entry.getAgentId() == null) {
+            return false;
+        }
+        if (filter.ownerName() != null && !fullNameContains(entry.getOwnerLastName(), entry.getOwnerFirstName(), filter.ownerName())) {
+            return false;
+        }
+        if (filter.agentName() != null && !fullNameContains(entry.getAgentLastName(), entry.getAgentFirstName(), filter.agentName())) {
+            return false;
+        }
+        if (filter.rooms() != null && !filter.rooms().equals(entry.getRooms())) {
+            return false;
+        }
+        if (filter.bathrooms() != null && !filter.bathrooms().equals(entry.getBathrooms())) {
+            return false;
+        }
+        if (filter.bedrooms() != null && !filter.bedrooms().equals(entry.getBedrooms())) {
+            return false;
+        }
+        if (filter.floors() != null && !filter.floors().equals(entry.getFloors())) {
+            return false;
+        }
+        if (filter.houseOrientation() != null && filter.houseOrientation() != entry.getHouseOrientation()) {
+            return false;
+        }
+        return filter.balconyOrientation() == null || filter.balconyOrientation() == entry.getBalconyOrientation();
+    }
+
+    private static boolean fullNameContains(String lastName, String firstName, String name) {
+        // Matches the SQL concat, which is null when either part is
+        if (lastName == null || firstName == null) {
+            return false;
+        }
+        String fullName = (lastName + " " + firstName).toLowerCase();
+        return fullName.contains(name.toLowerCase());
+    }
+
+    private Comparator<PropertyCardEntry> comparator(Sort sort, boolean descendingId) {
+        Comparator<PropertyCardEntry> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<PropertyCardEntry> next = switch (order.getProperty()) {
+                case "priceAmount" -> Comparator.comparing(PropertyCardEntry::getPriceAmount, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "area" -> Comparator.comparing(PropertyCardEntry::getArea, Comparator.nullsLast(Comparator.naturalOrder()));
+                default -> Comparator.comparing(PropertyCardEntry::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+            };
+            // Postgres puts nulls last ascending and first descending, reversing keeps that
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+
+        // Same id tiebreaker as the SQL path: ascending for offset pages, following the sort for keyset pages
+        Comparator<PropertyCardEntry> byId = Comparator.comparing(PropertyCardEntry::getId, UUID_ORDER);
+        return comparator.thenComparing(descendingId ? byId.reversed() : byId);
+    }
+
+    private List<PropertyCardEntry> entries(List<Integer> docIds) {
+        return docIds.stream().map(docs::get).toList();
+    }
+
+    private PropertyCardProtection toProtection(PropertyCardEntry entry) {
+        return new PropertyCardProtection(
+                entry.getId(),
+                entry.getCreatedAt(),
+                entry.getUpdatedAt(),
+                entry.getTransactionType(),
+                entry.getTitle(),
+                entry.getThumbnailUrl(),
+                false,
+                entry.getNumberOfImages(),
+                entry.getFullAddress(),
+                entry.getDistrictName(),
+                entry.getCityName(),
+                entry.getStatus() != null ? entry.getStatus().name() : null,
+                entry.getPriceAmount(),
+                entry.getArea(),
+                entry.getOwnerId(),
+                entry.getOwnerFirstName(),
+                entry.getOwnerLastName(),
+                entry.getAgentId(),
+                entry.getAgentFirstName(),
+                entry.getAgentLastName()
+        );
+    }
+
+    private static boolean isPresent(List<?> values) {
+        return values != null && !values.isEmpty();
+    }
+
+    // Nulls last like Postgres ascending, then the id tiebreaker
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object key, UUID id, Object otherKey, UUID otherId) {
+        if (key == null || otherKey == null) {
+            if (key != otherKey) {
+                return key == null ? 1 : -1;
+            }
+        } else {
+            int byKey = ((Comparable) key).compareTo(otherKey);
+            if (byKey != 0) {
+                return byKey;
+            }
+        }
+        return UUID_ORDER.compare(id, otherId);
+    }
+
+    /**
+     * Live doc ids ordered by one column ascending, nulls last, ties by ascending id.
+     * Changes are placed by binary search and an array shift instead of a re-sort.
+     */
+    private static final class SortedColumn {
+        private final Function<PropertyCardEntry, ?> column;
+        private Object[] keys = new Object[16];
+        private UUID[] ids = new UUID[16];
+        private int[] docIds = new int[16];
+        private int size = 0;
+
+        // Key each doc was inserted with, the entry may have been changed in place since
+        private final Map<Integer, Object> keyByDocId = new HashMap<>();
+
+        private SortedColumn(Function<PropertyCardEntry, ?> column) {
+            this.column = column;
+        }
+
+        private void load(List<PropertyCardEntry> docs, BitSet live) {
+            Integer[] order = live.stream().boxed().toArray(Integer[]::new);
+            Object[] keyOf = new Object[docs.size()];
+            for (Integer docId : order) {
+                keyOf[docId] = column.apply(docs.get(docId));
+            }
+            Arrays.sort(order, (a, b) -> compare(keyOf[a], docs.get(a).getId(), keyOf[b], docs.get(b).getId()));
+
+            int capacity = Math.max(16, order.length);
+            keys = new Object[capacity];
+            ids = new UUID[capacity];
+            docIds = new int[capacity];
+            keyByDocId.clear();
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyOf[order[i]];
+                ids[i] = docs.get(order[i]).getId();
+                docIds[i] = order[i];
+                keyByDocId.put(order[i], keys[i]);
+            }
+            size = order.length;
+        }
+
+        private void insert(PropertyCardEntry entry, int docId) {
+            Object key = column.apply(entry);
+            int at = lowerBound(key, entry.getId());
+            if (size == docIds.length) {
+                int capacity = size * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                docIds = Arrays.copyOf(docIds, capacity);
+            }
+            System.arraycopy(keys, at, keys, at + 1, size - at);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(docIds, at, docIds, at + 1, size - at);
+            keys[at] = key;
+            ids[at] = entry.getId();
+            docIds[at] = docId;
+            keyByDocId.put(docId, key);
+            size++;
+        }
+
+        private void remove(PropertyCardEntry entry, int docId) {
+            int at = lowerBound(keyByDocId.remove(docId), entry.getId());
+            if (at == size || docIds[at] != docId) {
+                return;
+            }
+            System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(docIds, at + 1, docIds, at, size - at - 1);
+            size--;
+            keys[size] = null;
+            ids[size] = null;
+        }
+
+        private BitSet range(BigDecimal min, BigDecimal max) {
+            int firstNull = partition(i -> keys[i] != null);
+            int from = min != null ? partition(i -> keys[i] != null && ((BigDecimal) keys[i]).compareTo(min) < 0) : 0;
+            int to = max != null ? partition(i -> keys[i] != null && ((BigDecimal) keys[i]).compareTo(max) <= 0) : firstNull;
+            BitSet bits = new BitSet();
+            for (int i = from; i < to; i++) {
+                bits.set(docIds[i]);
+            }
+            return bits;
+        }
+
+        /**
+         * Matching docs of one page in column order, starting after the (key, id) position when one is given.
+         * Descending with descendingId is the exact reverse of the ascending order,
+         * without it equal keys stay in ascending id order.
+         */
+        private List<Integer> page(BitSet matches, boolean ascending, boolean descendingId,
+                                             Object afterKey, UUID afterId, long skip, int limit) {
+            List<Integer> page = new ArrayList<>(Math.min(limit, 64));
+            if (ascending) {
+                int from = afterId != null ? upperBound(afterKey, afterId) : 0;
+                for (int i = from; i < size && page.size() < limit; i++) {
+                    skip = take(matches, docIds[i], skip, page);
+                }
+            } else if (descendingId) {
+                int to = afterId != null ? lowerBound(afterKey, afterId) : size;
+                for (int i = to - 1; i >= 0 && page.size() < limit; i--) {
+                    skip = take(matches, docIds[i], skip, page);
+                }
+            } else {
+                // Walk runs of equal keys from the end, each run front to back
+                int end = size;
+                while (end > 0 && page.size() < limit) {
+                    int start = end - 1;
+                    while (start > 0 && sameKey(keys[start - 1], keys[end - 1])) {
+                        start--;
+                    }
+                    for (int i = start; i < end && page.size() < limit; i++) {
+                        skip = take(matches, docIds[i], skip, page);
+                    }
+                    end = start;
+                }
+            }
+            return page;
+        }
+
+        private static long take(BitSet matches, int docId, long skip, List<Integer> page) {
+            if (!matches.get(docId)) {
+                return skip;
+            }
+            if (skip > 0) {
+                return skip - 1;
+            }
+            page.add(docId);
+            return 0;
+        }
+
+        // First index at or after the (key, id) position
+        private int lowerBound(Object key, UUID id) {
+            return partition(i -> compare(keys[i], ids[i], key, id) < 0);
+        }
+
+        // First index strictly after the (key, id) position
+        private int upperBound(Object key, UUID id) {
+            return partition(i -> compare(keys[i], ids[i], key, id) <= 0);
+        }
+
+        // First index for which the predicate, true on a prefix of the column, turns false
+        private int partition(IntPredicate before) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (before.test(mid)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static boolean sameKey(Object key, Object otherKey) {
+            return key == null || otherKey == null ? key == otherKey : ((Comparable) key).compareTo(otherKey) == 0;
+        }
+    }
+}
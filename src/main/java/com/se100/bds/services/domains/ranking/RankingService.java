@@ -1,11 +1,15 @@
 package com.se100.bds.services.domains.ranking;
 
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntry;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.utils.Constants;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface RankingService {
@@ -13,6 +17,10 @@ public interface RankingService {
     ///  Internal
     String getTier(UUID userId, Constants.RoleEnum role, int month, int year);
     String getCurrentTier(UUID userId, Constants.RoleEnum role);
+    Map<UUID, String> getTiers(Collection<UUID> userIds, Constants.RoleEnum role, int month, int year);
+    Map<UUID, String> getCurrentTiers(Collection<UUID> userIds, Constants.RoleEnum role);
+    List<UUID> getCurrentOwnerIdsByTiers(Collection<Constants.ContributionTierEnum> tiers);
+    List<UUID> getCurrentAgentIdsByTiers(Collection<Constants.PerformanceTierEnum> tiers);
     IndividualSalesAgentPerformanceMonth getSaleAgentCurrentMonth(UUID agentId);
     IndividualCustomerPotentialMonth getCustomerCurrentMonth(UUID customerId);
     IndividualPropertyOwnerContributionMonth getPropertyOwnerCurrentMonth(UUID propertyOwnerId);
@@ -30,9 +38,13 @@ public interface RankingService {
     IndividualCustomerPotentialAll getMyCustomerAll();
     IndividualPropertyOwnerContributionMonth getMyPropertyOwnerMonth(int month, int year);
     IndividualPropertyOwnerContributionAll getMyPropertyOwnerAll();
+    Page<LeaderboardEntry> getLeaderboard(Constants.RoleEnum role, Integer month, Integer year, Pageable pageable);
+    List<LeaderboardEntry> getLeaderboardTop(Constants.RoleEnum role, Integer month, Integer year, int limit);
+    List<LeaderboardEntry> getMyLeaderboardPosition(Integer month, Integer year, int neighbours);
 
     /// Action methods
     void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount);
     void customerAction(UUID customerId, Constants.CustomerActionEnum actionType, BigDecimal amount);
     void propertyOwnerAction(UUID ownerId, Constants.PropertyOwnerActionEnum actionType, BigDecimal amount);
+    void replayRankingEvents(int month, int year);
 }
@@ -0,0 +1,198 @@
+package com.se100.bds.services.domains.ranking.cache;
+
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport;
+import com.se100.bds.utils.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.monthCriteria;
+
+/**
+ * Near-cache of the current month tiers of every ranked user, one table per role.
+ * Tables are bulk-loaded after each ranking run, reloaded in the background before they expire,
+ * and tiers written by ranking actions in between are kept as patches on top of the table.
+ */
+@Slf4j
+@Component
+public class TierCache {
+    private static final Set<Constants.RoleEnum> ROLES =
+            Set.of(Constants.RoleEnum.CUSTOMER, Constants.RoleEnum.SALESAGENT, Constants.RoleEnum.PROPERTY_OWNER);
+
+    private final RankingBatchSupport rankingBatchSupport;
+    private final boolean enabled;
+    private final long ttlMs;
+    private final long refreshAheadMs;
+
+    private final Map<Constants.RoleEnum, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Constants.RoleEnum, Map<UUID, Patch>> patches = new EnumMap<>(Constants.RoleEnum.class);
+    private final Map<Constants.RoleEnum, Object> loadLocks = new EnumMap<>(Constants.RoleEnum.class);
+    private final Map<Constants.RoleEnum, Counter> hits = new EnumMap<>(Constants.RoleEnum.class);
+    private final Map<Constants.RoleEnum, Counter> misses = new EnumMap<>(Constants.RoleEnum.class);
+
+    public TierCache(RankingBatchSupport rankingBatchSupport,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.tier-cache.enabled:true}") boolean enabled,
+                     @Value("${app.tier-cache.ttl-ms:3600000}") long ttlMs,
+                     @Value("${app.tier-cache.refresh-ahead-ms:3000000}") long refreshAheadMs) {
+        this.rankingBatchSupport = rankingBatchSupport;
+        this.enabled = enabled;
+        this.ttlMs = ttlMs;
+        this.refreshAheadMs = refreshAheadMs;
+
+        for (Constants.RoleEnum role : ROLES) {
+            String roleTag = role.name().toLowerCase();
+            patches.put(role, new ConcurrentHashMap<>());
+            loadLocks.put(role, new Object());
+            hits.put(role, Counter.builder("ranking.tier_cache.requests").tag("role", roleTag).tag("result", "hit").register(meterRegistry));
+            misses.put(role, Counter.builder("ranking.tier_cache.requests").tag("role", roleTag).tag("result", "miss").register(meterRegistry));
+            Gauge.builder("ranking.tier_cache.size", snapshots, s -> s.containsKey(role) ? s.get(role).table().size() : 0)
+                    .tag("role", roleTag)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Whether lookups of the role for the given month are answered by the cache
+     */
+    public boolean covers(Constants.RoleEnum role, int month, int year) {
+        return enabled && ROLES.contains(role) && YearMonth.now().equals(YearMonth.of(year, month));
+    }
+
+    /**
+     * Current month tier of the user, null when the user is not ranked
+     */
+    public String get(UUID userId, Constants.RoleEnum role) {
+        Snapshot snapshot = snapshot(role, 1);
+        Patch patch = patches.get(role).get(userId);
+        if (patch != null && patch.writtenAt() >= snapshot.loadStartedAt()) {
+            return patch.tier();
+        }
+        return snapshot.table().get(userId);
+    }
+
+    /**
+     * Current month tiers of the users, users that are not ranked are left out
+     */
+    public Map<UUID, String> getAll(Collection<UUID> userIds, Constants.RoleEnum role) {
+        Snapshot snapshot = snapshot(role, userIds.size());
+        Map<UUID, Patch> rolePatches = patches.get(role);
+        Map<UUID, String> tiers = new HashMap<>();
+        for (UUID userId : userIds) {
+            Patch patch = rolePatches.get(userId);
+            String tier = patch != null && patch.writtenAt() >= snapshot.loadStartedAt()
+                    ? patch.tier()
+                    : snapshot.table().get(userId);
+            if (tier != null) {
+                tiers.put(userId, tier);
+            }
+        }
+        return tiers;
+    }
+
+    /**
+     * Record the tier a ranking write left on the user's current month record
+     */
+    public void put(UUID userId, Constants.RoleEnum role, String tier) {
+        if (enabled && ROLES.contains(role)) {
+            patches.get(role).put(userId, new Patch(tier, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Replace the table of the role with a fresh read, called once a ranking run has written new tiers
+     */
+    public void reload(Constants.RoleEnum role) {
+        if (enabled && ROLES.contains(role)) {
+            synchronized (loadLocks.get(role)) {
+                load(role, YearMonth.now());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tier-cache.refresh-check-ms:60000}")
+    public void refreshAhead() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Constants.RoleEnum, Snapshot> entry : snapshots.entrySet()) {
+            if (now - entry.getValue().loadStartedAt() >= refreshAheadMs) {
+                try {
+                    reload(entry.getKey());
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh {} tiers, serving the loaded table until it expires: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Snapshot snapshot(Constants.RoleEnum role, int lookups) {
+        Snapshot snapshot = snapshots.get(role);
+        if (isFresh(snapshot)) {
+            hits.get(role).increment(lookups);
+            return snapshot;
+        }
+
+        misses.get(role).increment(lookups);
+        synchronized (loadLocks.get(role)) {
+            // Another request may have loaded it while this one waited
+            snapshot = snapshots.get(role);
+            return isFresh(snapshot) ? snapshot : load(role, YearMonth.now());
+        }
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null
+                && snapshot.month().equals(YearMonth.now())
+                && System.currentTimeMillis() - snapshot.loadStartedAt() < ttlMs;
+    }
+
+    private Snapshot load(Constants.RoleEnum role, YearMonth month) {
+        long startedAt = System.currentTimeMillis();
+        Map<UUID, String> tiers = new HashMap<>();
+        switch (role) {
+            case CUSTOMER -> rankingBatchSupport.forEachPage(IndividualCustomerPotentialMonth.class, monthCriteria(month),
+                    page -> page.forEach(ranking -> {
+                        if (ranking.getCustomerTier() != null)
+                            tiers.put(ranking.getCustomerId(), ranking.getCustomerTier().name());
+                    }));
+            case SALESAGENT -> rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceMonth.class, monthCriteria(month),
+                    page -> page.forEach(ranking -> {
+                        if (ranking.getPerformanceTier() != null)
+                            tiers.put(ranking.getAgentId(), ranking.getPerformanceTier().name());
+                    }));
+            case PROPERTY_OWNER -> rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionMonth.class, monthCriteria(month),
+                    page -> page.forEach(ranking -> {
+                        if (ranking.getContributionTier() != null)
+                            tiers.put(ranking.getOwnerId(), ranking.getContributionTier().name());
+                    }));
+            default -> {
+            }
+        }
+
+        Snapshot snapshot = new Snapshot(month, UuidTierTable.of(tiers), startedAt);
+        snapshots.put(role, snapshot);
+        // Patches written before the read started are part of the table now
+        patches.get(role).values().removeIf(patch -> patch.writtenAt() < startedAt);
+        log.info("Loaded {} {} tiers of {} in {} ms", tiers.size(), role, month, System.currentTimeMillis() - startedAt);
+        return snapshot;
+    }
+
+    private record Snapshot(YearMonth month, UuidTierTable table, long loadStartedAt) {}
+
+    private record Patch(String tier, long writtenAt) {}
+}
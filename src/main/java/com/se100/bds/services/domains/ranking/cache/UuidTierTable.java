@@ -0,0 +1,96 @@
+package com.se100.bds.services.domains.ranking.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read-only open addressing table from user id to tier name. Ids are kept as two long arrays and tiers
+ * as a byte index into the few distinct names, so a month of tiers costs about 17 bytes per user
+ * instead of a boxed map entry, and lookups never allocate.
+ */
+final class UuidTierTable {
+    private static final UuidTierTable EMPTY = of(Map.of());
+
+    private final long[] mostSignificant;
+    private final long[] leastSignificant;
+    // 0 marks a free slot, tier i is stored as i + 1
+    private final byte[] tierIndexes;
+    private final String[] tierNames;
+    private final int mask;
+    private final int size;
+
+    private UuidTierTable(long[] mostSignificant, long[] leastSignificant, byte[] tierIndexes, String[] tierNames, int size) {
+        this.mostSignificant = mostSignificant;
+        this.leastSignificant = leastSignificant;
+        this.tierIndexes = tierIndexes;
+        this.tierNames = tierNames;
+        this.mask = tierIndexes.length - 1;
+        this.size = size;
+    }
+
+    static UuidTierTable empty() {
+        return EMPTY;
+    }
+
+    static UuidTierTable of(Map<UUID, String> tiers) {
+        // Load factor of at most one half keeps probe chains short
+        int capacity = Integer.highestOneBit(Math.max(2, tiers.size() * 2 - 1)) << 1;
+        long[] mostSignificant = new long[capacity];
+        long[] leastSignificant = new long[capacity];
+        byte[] tierIndexes = new byte[capacity];
+        List<String> names = new ArrayList<>();
+
+        int size = 0;
+        for (Map.Entry<UUID, String> entry : tiers.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            int nameIndex = names.indexOf(entry.getValue());
+            if (nameIndex < 0) {
+                if (names.size() == Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("Too many distinct tiers");
+                }
+                names.add(entry.getValue());
+                nameIndex = names.size() - 1;
+            }
+            long most = entry.getKey().getMostSignificantBits();
+            long least = entry.getKey().getLeastSignificantBits();
+            int slot = hash(most, least) & (capacity - 1);
+            while (tierIndexes[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            mostSignificant[slot] = most;
+            leastSignificant[slot] = least;
+            tierIndexes[slot] = (byte) (nameIndex + 1);
+            size++;
+        }
+        return new UuidTierTable(mostSignificant, leastSignificant, tierIndexes, names.toArray(String[]::new), size);
+    }
+
+    /**
+     * Tier of the user, null when the user has no ranking record
+     */
+    String get(UUID userId) {
+        long most = userId.getMostSignificantBits();
+        long least = userId.getLeastSignificantBits();
+        int slot = hash(most, least) & mask;
+        while (tierIndexes[slot] != 0) {
+            if (mostSignificant[slot] == most && leastSignificant[slot] == least) {
+                return tierNames[tierIndexes[slot] - 1];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int hash(long most, long least) {
+        long mixed = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,140 @@
+package com.se100.bds.services.domains.ranking.events;
+
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+import com.se100.bds.utils.Constants;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What each ranking action does to the counters of the monthly record. Shared by the live consumer and
+ * the replay so both count an event the same way.
+ */
+final class RankingEventEffects {
+    private RankingEventEffects() {
+    }
+
+    /**
+     * Counters to add to, or the one counter to decrement without going below zero
+     */
+    record Effect(Map<String, Number> increments, String decrement) {}
+
+    static Effect of(RankingEvent event) {
+        Map<String, Number> increments = new HashMap<>();
+        BigDecimal amount = event.getAmount() != null ? event.getAmount() : BigDecimal.ZERO;
+        switch (event.getRole()) {
+            case SALESAGENT -> {
+                switch (Constants.AgentActionEnum.valueOf(event.getAction())) {
+                    case PROPERTY_ASSIGNED -> {
+                        increments.put("month_properties_assigned", 1);
+                        increments.put("handling_properties", 1);
+                    }
+                    case APPOINTMENT_ASSIGNED -> {
+                        increments.put("month_appointments_assigned", 1);
+                        increments.put("handling_properties", 1);
+                    }
+                    case APPOINTMENT_COMPLETED -> increments.put("month_appointments_completed", 1);
+                    case APPOINTMENT_CANCELLED -> {
+                        return new Effect(increments, "handling_properties");
+                    }
+                    case CONTRACT_SIGNED -> increments.put("month_contracts", 1);
+                    case RATED -> {
+                        // Averages are derived from the sum and counts on read, ratings > 3 stars are satisfied
+                        increments.put("month_rates", 1);
+                        increments.put("rating_sum", amount);
+                        increments.put("satisfied_rates", amount.compareTo(BigDecimal.valueOf(3)) > 0 ? 1 : 0);
+                    }
+                }
+            }
+            case CUSTOMER -> {
+                switch (Constants.CustomerActionEnum.valueOf(event.getAction())) {
+                    case VIEWING_REQUESTED -> increments.put("month_viewings_requested", 1);
+                    case VIEWING_ATTENDED -> increments.put("month_viewings_attended", 1);
+                    case VIEWING_CANCELLED -> {
+                        return new Effect(increments, "month_viewings_requested");
+                    }
+                    case PURCHASE_MADE -> increments.put("month_purchases", 1);
+                    case SPENDING_MADE -> increments.put("month_spending", amount);
+                    case RENTAL_MADE -> increments.put("month_rentals", 1);
+                    case CONTRACT_SIGNED -> increments.put("month_contracts_signed", 1);
+                }
+            }
+            case PROPERTY_OWNER -> {
+                switch (Constants.PropertyOwnerActionEnum.valueOf(event.getAction())) {
+                    case PROPERTY_FOR_SALE_LISTED -> {
+                        increments.put("month_total_properties", 1);
+                        increments.put("month_total_for_sales", 1);
+                    }
+                    case PROPERTY_FOR_RENT_LISTED -> {
+                        increments.put("month_total_properties", 1);
+                        increments.put("month_total_for_rents", 1);
+                    }
+                    case PROPERTY_SOLD -> increments.put("month_total_properties_sold", 1);
+                    case PROPERTY_RENTED -> increments.put("month_total_properties_rented", 1);
+                    case MONEY_RECEIVED -> increments.put("month_contribution_value", amount);
+                }
+            }
+            default -> throw new IllegalArgumentException("No ranking counters for role " + event.getRole());
+        }
+        return new Effect(increments, null);
+    }
+
+    /**
+     * Every counter the events of the role drive, at zero. Agents also get their stored averages cleared,
+     * they are only read back when there are no ratings.
+     */
+    static Map<String, Number> zeros(Constants.RoleEnum role) {
+        Map<String, Number> zeros = new LinkedHashMap<>();
+        switch (role) {
+            case SALESAGENT -> {
+                zeros.put("handling_properties", 0);
+                zeros.put("month_properties_assigned", 0);
+                zeros.put("month_appointments_assigned", 0);
+                zeros.put("month_appointments_completed", 0);
+                zeros.put("month_contracts", 0);
+                zeros.put("month_rates", 0);
+                zeros.put("rating_sum", BigDecimal.ZERO);
+                zeros.put("satisfied_rates", 0);
+                zeros.put("avg_rating", BigDecimal.ZERO);
+                zeros.put("month_customer_satisfaction_avg", BigDecimal.ZERO);
+            }
+            case CUSTOMER -> {
+                zeros.put("month_viewings_requested", 0);
+                zeros.put("month_viewings_attended", 0);
+                zeros.put("month_spending", BigDecimal.ZERO);
+                zeros.put("month_purchases", 0);
+                zeros.put("month_rentals", 0);
+                zeros.put("month_contracts_signed", 0);
+            }
+            case PROPERTY_OWNER -> {
+                zeros.put("month_total_properties", 0);
+                zeros.put("month_total_for_sales", 0);
+                zeros.put("month_total_for_rents", 0);
+                zeros.put("month_total_properties_sold", 0);
+                zeros.put("month_total_properties_rented", 0);
+                zeros.put("month_contribution_value", BigDecimal.ZERO);
+            }
+            default -> throw new IllegalArgumentException("No ranking counters for role " + role);
+        }
+        return zeros;
+    }
+
+    /**
+     * Fold the effect into running counters the way the live updates would change the record
+     */
+    static void apply(Effect effect, Map<String, Number> counters) {
+        effect.increments().forEach((field, value) -> counters.merge(field, value, RankingEventEffects::add));
+        if (effect.decrement() != null) {
+            counters.computeIfPresent(effect.decrement(), (field, value) -> value.intValue() > 0 ? value.intValue() - 1 : 0);
+        }
+    }
+
+    static Number add(Number left, Number right) {
+        if (left instanceof BigDecimal || right instanceof BigDecimal) {
+            return new BigDecimal(left.toString()).add(new BigDecimal(right.toString()));
+        }
+        return left.intValue() + right.intValue();
+    }
+}
@@ -0,0 +1,335 @@
+package com.se100.bds.services.domains.ranking.events;
+
+import com.se100.bds.exceptions.BadRequestException;
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialMonthRepository;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionMonthRepository;
+import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceMonthRepository;
+import com.se100.bds.repositories.domains.mongo.ranking.RankingEventRepository;
+import com.se100.bds.services.domains.ranking.cache.TierCache;
+import com.se100.bds.services.domains.report.dashboard.DashboardDataChangedEvent;
+import com.se100.bds.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Counts the ranking event log into the monthly ranking records. Pending events are consumed in batches,
+ * and a month can be rebuilt from its events, for instance after the counting rules change.
+ */
+@Slf4j
+@Component
+public class RankingEventProcessor {
+    private static final List<Constants.RoleEnum> ROLES =
+            List.of(Constants.RoleEnum.SALESAGENT, Constants.RoleEnum.CUSTOMER, Constants.RoleEnum.PROPERTY_OWNER);
+
+    private final RankingEventRepository rankingEventRepository;
+    private final IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository;
+    private final IndividualCustomerPotentialMonthRepository individualCustomerPotentialMonthRepository;
+    private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
+    private final TierCache tierCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    // Consuming and replaying must not count the same pending events twice
+    private final Object processingLock = new Object();
+
+    public RankingEventProcessor(RankingEventRepository rankingEventRepository,
+                                 IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository,
+                                 IndividualCustomerPotentialMonthRepository individualCustomerPotentialMonthRepository,
+                                 IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository,
+                                 TierCache tierCache,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${app.ranking-events.batch-size:500}") int batchSize) {
+        this.rankingEventRepository = rankingEventRepository;
+        this.individualSalesAgentPerformanceMonthRepository = individualSalesAgentPerformanceMonthRepository;
+        this.individualCustomerPotentialMonthRepository = individualCustomerPotentialMonthRepository;
+        this.individualPropertyOwnerContributionMonthRepository = individualPropertyOwnerContributionMonthRepository;
+        this.tierCache = tierCache;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Append an action to the log, it is counted by the next consume run
+     */
+    public void append(Constants.RoleEnum role, UUID userId, Enum<?> action, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        rankingEventRepository.insert(RankingEvent.builder()
+                .role(role)
+                .userId(userId)
+                .action(action.name())
+                .amount(amount)
+                .month(now.getMonthValue())
+                .year(now.getYear())
+                .occurredAt(now)
+                .applied(false)
+                .build());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        rankingEventRepository.ensureIndexes();
+    }
+
+    /**
+     * Count pending events, oldest first, one batch at a time. A batch is flagged applied after its counters
+     * are written. Each record keeps the ids of the events it counted until then, so a batch consumed again
+     * after a crash, or by a second instance, does not count any event twice.
+     */
+    @Scheduled(fixedDelayString = "${app.ranking-events.consume-interval-ms:1000}")
+    public void consume() {
+        int counted = 0;
+        synchronized (processingLock) {
+            while (true) {
+                List<RankingEvent> batch = rankingEventRepository.findPending(batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    applyBatch(batch);
+                } catch (RuntimeException e) {
+                    log.error("Could not count {} ranking events, retrying on the next run: {}", batch.size(), e.getMessage());
+                    break;
+                }
+                rankingEventRepository.markApplied(batch.stream().map(RankingEvent::getId).toList());
+                try {
+                    releaseApplied(batch);
+                } catch (RuntimeException e) {
+                    // Only leaves a few ids on the records, the events are flagged and never consumed again
+                    log.warn("Could not release {} applied ranking events: {}", batch.size(), e.getMessage());
+                }
+                counted += batch.size();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        }
+        if (counted > 0) {
+            // Listings, contracts, payments and ratings all arrive here, the dashboard counts them too.
+            // Once per run, however many batches it took
+            eventPublisher.publishEvent(new DashboardDataChangedEvent("ranking_events"));
+        }
+    }
+
+    /**
+     * Rebuild the counters of every ranking record of the month from its events, the roles in parallel
+     */
+    public void replay(YearMonth month) {
+        requireCovered(month);
+
+        synchronized (processingLock) {
+            long start = System.currentTimeMillis();
+            List<CompletableFuture<Void>> replays = ROLES.stream()
+                    .map(role -> CompletableFuture.runAsync(() -> replay(role, month)))
+                    .toList();
+            CompletableFuture.allOf(replays.toArray(new CompletableFuture[0])).join();
+            log.info("Replayed ranking events of {} in {} ms", month, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * A month can only be rebuilt when the log holds its events from the first day
+     */
+    public void requireCovered(YearMonth month) {
+        RankingEvent oldest = rankingEventRepository.findFirstByOrderByOccurredAtAsc();
+        if (oldest == null || oldest.getOccurredAt().isAfter(month.atDay(1).atStartOfDay())) {
+            throw new BadRequestException("The ranking event log does not cover " + month + " from its first day");
+        }
+    }
+
+    private void replay(Constants.RoleEnum role, YearMonth month) {
+        Map<String, Number> zeros = RankingEventEffects.zeros(role);
+        Map<UUID, Map<String, Number>> counters = new HashMap<>();
+        List<String> pending = new ArrayList<>();
+        try (Stream<RankingEvent> events = rankingEventRepository.streamAllByRoleAndMonthAndYearOrderByOccurredAtAsc(
+                role, month.getMonthValue(), month.getYear())) {
+            events.forEach(event -> {
+                try {
+                    RankingEventEffects.apply(RankingEventEffects.of(event),
+                            counters.computeIfAbsent(event.getUserId(), userId -> new LinkedHashMap<>(zeros)));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping ranking event {} that cannot be counted: {}", event.getId(), e.getMessage());
+                }
+                if (!Boolean.TRUE.equals(event.getApplied())) {
+                    pending.add(event.getId());
+                }
+            });
+        }
+
+        switch (role) {
+            case SALESAGENT -> individualSalesAgentPerformanceMonthRepository
+                    .replaceCounters(month.getMonthValue(), month.getYear(), counters, zeros);
+            case CUSTOMER -> individualCustomerPotentialMonthRepository
+                    .replaceCounters(month.getMonthValue(), month.getYear(), counters, zeros);
+            case PROPERTY_OWNER -> individualPropertyOwnerContributionMonthRepository
+                    .replaceCounters(month.getMonthValue(), month.getYear(), counters, zeros);
+            default -> {
+            }
+        }
+        // The replay has counted them, the consumer must not count them again
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            rankingEventRepository.markApplied(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+        }
+        log.info("Replayed {} {} records of {}", counters.size(), role, month);
+    }
+
+    private void applyBatch(List<RankingEvent> batch) {
+        // Events of one record keep their order, replay folds them the same way
+        Map<RecordKey, List<RankingEvent>> byRecord = new LinkedHashMap<>();
+        for (RankingEvent event : batch) {
+            try {
+                RankingEventEffects.of(event);
+            } catch (IllegalArgumentException e) {
+                // Skipped rather than retried forever, it is kept in the log
+                log.warn("Skipping ranking event {} that cannot be counted: {}", event.getId(), e.getMessage());
+                continue;
+            }
+            byRecord.computeIfAbsent(new RecordKey(event.getRole(), event.getUserId(), event.getMonth(), event.getYear()),
+                    key -> new ArrayList<>()).add(event);
+        }
+
+        byRecord.forEach((key, events) -> {
+            if (apply(key, events)) {
+                return;
+            }
+            // The record counted some of these events before, in a run that stopped before flagging them applied
+            // or in another instance. Only the rest is counted, in the same order.
+            Set<String> counted = appliedEventIds(key);
+            if (!apply(key, events.stream().filter(event -> !counted.contains(event.getId())).toList())) {
+                throw new IllegalStateException("Ranking events of " + key + " are being counted elsewhere");
+            }
+        });
+    }
+
+    /**
+     * Increments between two decrements are summed into one update, a decrement keeps its place after the
+     * increments before it. False when the record turned an update away as already counted.
+     */
+    private boolean apply(RecordKey key, List<RankingEvent> events) {
+        Map<String, Number> increments = new HashMap<>();
+        List<String> incrementIds = new ArrayList<>();
+        for (RankingEvent event : events) {
+            RankingEventEffects.Effect effect = RankingEventEffects.of(event);
+            if (effect.decrement() != null) {
+                if (!increment(key, increments, incrementIds)) {
+                    return false;
+                }
+                increments.clear();
+                incrementIds.clear();
+                decrement(key, effect.decrement(), event.getId());
+            } else if (!effect.increments().isEmpty()) {
+                effect.increments().forEach((field, value) -> increments.merge(field, value, RankingEventEffects::add));
+                incrementIds.add(event.getId());
+            }
+        }
+        return increment(key, increments, incrementIds);
+    }
+
+    private boolean increment(RecordKey key, Map<String, Number> increments, List<String> eventIds) {
+        if (increments.isEmpty()) {
+            return true;
+        }
+        Enum<?> tier;
+        switch (key.role()) {
+            case SALESAGENT -> {
+                IndividualSalesAgentPerformanceMonth performance = individualSalesAgentPerformanceMonthRepository
+                        .incrementCounters(key.userId(), key.month(), key.year(), increments, eventIds);
+                if (performance == null) {
+                    return false;
+                }
+                tier = performance.getPerformanceTier();
+            }
+            case CUSTOMER -> {
+                IndividualCustomerPotentialMonth potential = individualCustomerPotentialMonthRepository
+                        .incrementCounters(key.userId(), key.month(), key.year(), increments, eventIds);
+                if (potential == null) {
+                    return false;
+                }
+                tier = potential.getCustomerTier();
+            }
+            case PROPERTY_OWNER -> {
+                IndividualPropertyOwnerContributionMonth contribution = individualPropertyOwnerContributionMonthRepository
+                        .incrementCounters(key.userId(), key.month(), key.year(), increments, eventIds);
+                if (contribution == null) {
+                    return false;
+                }
+                tier = contribution.getContributionTier();
+            }
+            default -> {
+                return true;
+            }
+        }
+        putTier(key, tier);
+        return true;
+    }
+
+    private void decrement(RecordKey key, String field, String eventId) {
+        switch (key.role()) {
+            case SALESAGENT -> individualSalesAgentPerformanceMonthRepository
+                    .decrementCounter(key.userId(), key.month(), key.year(), field, eventId);
+            case CUSTOMER -> individualCustomerPotentialMonthRepository
+                    .decrementCounter(key.userId(), key.month(), key.year(), field, eventId);
+            case PROPERTY_OWNER -> individualPropertyOwnerContributionMonthRepository
+                    .decrementCounter(key.userId(), key.month(), key.year(), field, eventId);
+            default -> {
+            }
+        }
+    }
+
+    private Set<String> appliedEventIds(RecordKey key) {
+        return switch (key.role()) {
+            case SALESAGENT -> individualSalesAgentPerformanceMonthRepository.findAppliedEventIds(key.userId(), key.month(), key.year());
+            case CUSTOMER -> individualCustomerPotentialMonthRepository.findAppliedEventIds(key.userId(), key.month(), key.year());
+            case PROPERTY_OWNER -> individualPropertyOwnerContributionMonthRepository.findAppliedEventIds(key.userId(), key.month(), key.year());
+            default -> Set.of();
+        };
+    }
+
+    /**
+     * The log has flagged the events applied, the records no longer need to remember them
+     */
+    private void releaseApplied(List<RankingEvent> batch) {
+        Map<Constants.RoleEnum, List<String>> idsByRole = batch.stream()
+                .collect(Collectors.groupingBy(RankingEvent::getRole, Collectors.mapping(RankingEvent::getId, Collectors.toList())));
+        idsByRole.forEach((role, ids) -> {
+            switch (role) {
+                case SALESAGENT -> individualSalesAgentPerformanceMonthRepository.releaseAppliedEvents(ids);
+                case CUSTOMER -> individualCustomerPotentialMonthRepository.releaseAppliedEvents(ids);
+                case PROPERTY_OWNER -> individualPropertyOwnerContributionMonthRepository.releaseAppliedEvents(ids);
+                default -> {
+                }
+            }
+        });
+    }
+
+    private void putTier(RecordKey key, Enum<?> tier) {
+        // The cache only holds current month tiers, events of a past month consumed late do not touch it
+        if (tierCache.covers(key.role(), key.month(), key.year())) {
+            tierCache.put(key.userId(), key.role(), tier != null ? tier.name() : null);
+        }
+    }
+
+    private record RecordKey(Constants.RoleEnum role, UUID userId, int month, int year) {}
+}
@@ -1,18 +1,32 @@
 package com.se100.bds.services.domains.ranking.impl;
 
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntry;
+import com.se100.bds.exceptions.BadRequestException;
+import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.*;
 import com.se100.bds.repositories.domains.mongo.ranking.*;
 import com.se100.bds.services.domains.ranking.RankingService;
+import com.se100.bds.services.domains.ranking.cache.TierCache;
+import com.se100.bds.services.domains.ranking.events.RankingEventProcessor;
+import com.se100.bds.services.domains.ranking.leaderboard.Leaderboards;
+import com.se100.bds.services.domains.ranking.scheduler.RankingReplayJob;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
@@ -26,9 +40,16 @@ public class RankingServiceImpl implements RankingService {
     private final IndividualPropertyOwnerContributionAllRepository individualPropertyOwnerContributionAllRepository;
     private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
     private final UserService userService;
+    private final TierCache tierCache;
+    private final Leaderboards leaderboards;
+    private final RankingEventProcessor rankingEventProcessor;
+    private final RankingReplayJob rankingReplayJob;
 
     @Override
     public String getTier(UUID userId, Constants.RoleEnum role, int month, int year) {
+        if (tierCache.covers(role, month, year)) {
+            return tierCache.get(userId, role);
+        }
         switch(role){
             case CUSTOMER -> {
                 var ranking = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
@@ -67,6 +88,69 @@ public class RankingServiceImpl implements RankingService {
         return getTier(userId, role, month, year);
     }
 
+    @Override
+    public Map<UUID, String> getTiers(Collection<UUID> userIds, Constants.RoleEnum role, int month, int year) {
+        Map<UUID, String> tiers = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return tiers;
+        }
+        if (tierCache.covers(role, month, year)) {
+            return tierCache.getAll(userIds, role);
+        }
+
+        // One $in query per role instead of one lookup per user
+        switch (role) {
+            case CUSTOMER -> individualCustomerPotentialMonthRepository
+                    .findAllByCustomerIdInAndMonthAndYear(userIds, month, year)
+                    .forEach(ranking -> {
+                        if (ranking.getCustomerTier() != null)
+                            tiers.put(ranking.getCustomerId(), ranking.getCustomerTier().name());
+                    });
+            case SALESAGENT -> individualSalesAgentPerformanceMonthRepository
+                    .findAllByAgentIdInAndMonthAndYear(userIds, month, year)
+                    .forEach(ranking -> {
+                        if (ranking.getPerformanceTier() != null)
+                            tiers.put(ranking.getAgentId(), ranking.getPerformanceTier().name());
+                    });
+            case PROPERTY_OWNER -> individualPropertyOwnerContributionMonthRepository
+                    .findAllByOwnerIdInAndMonthAndYear(userIds, month, year)
+                    .forEach(ranking -> {
+                        if (ranking.getContributionTier() != null)
+                            tiers.put(ranking.getOwnerId(), ranking.getContributionTier().name());
+                    });
+            default -> {
+            }
+        }
+        return tiers;
+    }
+
+    @Override
+    public Map<UUID, String> getCurrentTiers(Collection<UUID> userIds, Constants.RoleEnum role) {
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+        return getTiers(userIds, role, month, year);
+    }
+
+    @Override
+    public List<UUID> getCurrentOwnerIdsByTiers(Collection<Constants.ContributionTierEnum> tiers) {
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+        return individualPropertyOwnerContributionMonthRepository
+                .findAllByMonthAndYearAndContributionTierIn(month, year, tiers).stream()
+                .map(IndividualPropertyOwnerContributionMonth::getOwnerId)
+                .toList();
+    }
+
+    @Override
+    public List<UUID> getCurrentAgentIdsByTiers(Collection<Constants.PerformanceTierEnum> tiers) {
+        int month = LocalDateTime.now().getMonthValue();
+        int year = LocalDateTime.now().getYear();
+        return individualSalesAgentPerformanceMonthRepository
+                .findAllByMonthAndYearAndPerformanceTierIn(month, year, tiers).stream()
+                .map(IndividualSalesAgentPerformanceMonth::getAgentId)
+                .toList();
+    }
+
     @Override
     public IndividualSalesAgentPerformanceMonth getSaleAgentMonth(UUID agentId, int month, int year) {
         return individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
@@ -157,216 +241,85 @@ public class RankingServiceImpl implements RankingService {
     }
 
     @Override
-    @Async
-    public void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
-
-        IndividualSalesAgentPerformanceMonth performance =
-            individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(agentId, month, year);
-
-        if (performance == null) {
-            // Create new record if not exists
-            performance = IndividualSalesAgentPerformanceMonth.builder()
-                .agentId(agentId)
-                .month(month)
-                .year(year)
-                .monthPropertiesAssigned(0)
-                .monthAppointmentsAssigned(0)
-                .monthAppointmentsCompleted(0)
-                .monthContracts(0)
-                .monthRates(0)
-                .build();
-        }
-
-        switch (actionType) {
-            case PROPERTY_ASSIGNED -> {
-                performance.setMonthPropertiesAssigned(
-                    (performance.getMonthPropertiesAssigned() != null ? performance.getMonthPropertiesAssigned() : 0) + 1
-                );
-                performance.setHandlingProperties(
-                    (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) + 1
-                );
-            }
-            case APPOINTMENT_ASSIGNED -> {
-                performance.setMonthAppointmentsAssigned(
-                    (performance.getMonthAppointmentsAssigned() != null ? performance.getMonthAppointmentsAssigned() : 0) + 1
-                );
-                performance.setHandlingProperties(
-                    (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) + 1
-                );
-            }
-            case APPOINTMENT_COMPLETED ->
-                performance.setMonthAppointmentsCompleted(
-                    (performance.getMonthAppointmentsCompleted() != null ? performance.getMonthAppointmentsCompleted() : 0) + 1
-                );
-            case APPOINTMENT_CANCELLED -> {
-                performance.setHandlingProperties(
-                    Math.max(0, (performance.getHandlingProperties() != null ? performance.getHandlingProperties() : 0) - 1)
-                );
-            }
-            case CONTRACT_SIGNED ->
-                performance.setMonthContracts(
-                    (performance.getMonthContracts() != null ? performance.getMonthContracts() : 0) + 1
-                );
-            case RATED -> {
-                int currentRates = (performance.getMonthRates() != null ? performance.getMonthRates() : 0);
-                BigDecimal currentAvgRating = (performance.getAvgRating() != null ? performance.getAvgRating() : BigDecimal.ZERO);
-
-                // Calculate new average rating
-                BigDecimal totalRating = currentAvgRating.multiply(BigDecimal.valueOf(currentRates));
-                totalRating = totalRating.add(amount);
-                int newRatesCount = currentRates + 1;
-                BigDecimal newAvgRating = totalRating.divide(BigDecimal.valueOf(newRatesCount), 2, RoundingMode.HALF_UP);
-
-                performance.setMonthRates(newRatesCount);
-                performance.setAvgRating(newAvgRating);
-
-                // Calculate customer satisfaction percentage (ratings > 3 stars are satisfied)
-                BigDecimal currentSatisfactionAvg = (performance.getMonthCustomerSatisfactionAvg() != null
-                    ? performance.getMonthCustomerSatisfactionAvg()
-                    : BigDecimal.ZERO);
+    public Page<LeaderboardEntry> getLeaderboard(Constants.RoleEnum role, Integer month, Integer year, Pageable pageable) {
+        return leaderboards.page(leaderboardRole(role), period(month, year), pageable);
+    }
 
-                int satisfiedCount = currentSatisfactionAvg.multiply(BigDecimal.valueOf(currentRates))
-                    .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP)
-                    .intValue();
+    @Override
+    public List<LeaderboardEntry> getLeaderboardTop(Constants.RoleEnum role, Integer month, Integer year, int limit) {
+        return leaderboards.top(leaderboardRole(role), period(month, year), limit);
+    }
 
-                if (amount.compareTo(BigDecimal.valueOf(3)) > 0) {
-                    satisfiedCount++;
-                }
+    @Override
+    public List<LeaderboardEntry> getMyLeaderboardPosition(Integer month, Integer year, int neighbours) {
+        User user = userService.getUser();
+        return leaderboards.around(leaderboardRole(user.getRole()), period(month, year), user.getId(), neighbours);
+    }
 
-                BigDecimal newSatisfactionAvg = BigDecimal.valueOf(satisfiedCount)
-                    .multiply(BigDecimal.valueOf(100))
-                    .divide(BigDecimal.valueOf(newRatesCount), 2, RoundingMode.HALF_UP);
+    private Constants.RoleEnum leaderboardRole(Constants.RoleEnum role) {
+        if (!leaderboards.supports(role)) {
+            throw new BadRequestException("No leaderboard for role " + role);
+        }
+        return role;
+    }
 
-                performance.setMonthCustomerSatisfactionAvg(newSatisfactionAvg);
-            }
+    // All time when no month is given
+    private static YearMonth period(Integer month, Integer year) {
+        if (month == null && year == null) {
+            return null;
         }
+        if (month == null || year == null) {
+            throw new BadRequestException("Month and year must be given together");
+        }
+        if (month < 1 || month > 12) {
+            throw new BadRequestException("Month must be between 1 and 12");
+        }
+        return YearMonth.of(year, month);
+    }
 
-        individualSalesAgentPerformanceMonthRepository.save(performance);
+    /**
+     * Convert records saved before the counters were incremented in place, they must be numeric for $inc.
+     * Runs before requests are served, the first upserts of a month need the unique record index.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void migrateCounters() {
+        individualSalesAgentPerformanceMonthRepository.migrateCounters();
+        individualCustomerPotentialMonthRepository.migrateCounters();
+        individualPropertyOwnerContributionMonthRepository.migrateCounters();
     }
 
     @Override
-    @Async
-    public void customerAction(UUID customerId, Constants.CustomerActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
-
-        IndividualCustomerPotentialMonth potential =
-            individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(customerId, month, year);
-
-        if (potential == null) {
-            // Create new record if not exists
-            potential = IndividualCustomerPotentialMonth.builder()
-                .customerId(customerId)
-                .month(month)
-                .year(year)
-                .monthViewingsRequested(0)
-                .monthViewingAttended(0)
-                .monthPurchases(0)
-                .monthRentals(0)
-                .monthContractsSigned(0)
-                .build();
-        }
-
-        switch (actionType) {
-            case VIEWING_REQUESTED -> {
-                potential.setMonthViewingsRequested(
-                    (potential.getMonthViewingsRequested() != null ? potential.getMonthViewingsRequested() : 0) + 1
-                );
-            }
-            case VIEWING_ATTENDED -> {
-                potential.setMonthViewingAttended(
-                    (potential.getMonthViewingAttended() != null ? potential.getMonthViewingAttended() : 0) + 1
-                );
-            }
-            case VIEWING_CANCELLED -> {
-                potential.setMonthViewingsRequested(
-                    Math.max(0, (potential.getMonthViewingsRequested() != null ? potential.getMonthViewingsRequested() : 0) - 1)
-                );
-            }
-            case PURCHASE_MADE -> {
-                potential.setMonthPurchases(
-                    (potential.getMonthPurchases() != null ? potential.getMonthPurchases() : 0) + 1
-                );
-            }
-            case SPENDING_MADE -> {
-                BigDecimal currentSpending = (potential.getMonthSpending() != null ? potential.getMonthSpending() : BigDecimal.ZERO);
-                potential.setMonthSpending(currentSpending.add(amount));
-            }
-            case RENTAL_MADE -> {
-                potential.setMonthRentals(
-                    (potential.getMonthRentals() != null ? potential.getMonthRentals() : 0) + 1
-                );
-            }
-            case CONTRACT_SIGNED -> {
-                potential.setMonthContractsSigned(
-                    (potential.getMonthContractsSigned() != null ? potential.getMonthContractsSigned() : 0) + 1
-                );
-            }
-        }
+    public void agentAction(UUID agentId, Constants.AgentActionEnum actionType, BigDecimal amount) {
+        appendEvent(Constants.RoleEnum.SALESAGENT, agentId, actionType, amount);
+    }
 
-        individualCustomerPotentialMonthRepository.save(potential);
+    @Override
+    public void customerAction(UUID customerId, Constants.CustomerActionEnum actionType, BigDecimal amount) {
+        appendEvent(Constants.RoleEnum.CUSTOMER, customerId, actionType, amount);
     }
 
     @Override
-    @Async
     public void propertyOwnerAction(UUID ownerId, Constants.PropertyOwnerActionEnum actionType, BigDecimal amount) {
-        int month = LocalDateTime.now().getMonthValue();
-        int year = LocalDateTime.now().getYear();
+        appendEvent(Constants.RoleEnum.PROPERTY_OWNER, ownerId, actionType, amount);
+    }
 
-        IndividualPropertyOwnerContributionMonth contribution =
-            individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(ownerId, month, year);
-
-        if (contribution == null) {
-            // Create new record if not exists
-            contribution = IndividualPropertyOwnerContributionMonth.builder()
-                .ownerId(ownerId)
-                .month(month)
-                .year(year)
-                .monthTotalProperties(0)
-                .monthTotalForSales(0)
-                .monthTotalForRents(0)
-                .monthTotalPropertiesSold(0)
-                .monthTotalPropertiesRented(0)
-                .build();
-        }
+    @Override
+    public void replayRankingEvents(int month, int year) {
+        YearMonth period = period(month, year);
+        // Checked before going async, so a month the log does not cover is refused to the caller
+        rankingEventProcessor.requireCovered(period);
+        rankingReplayJob.replay(period);
+    }
 
-        switch (actionType) {
-            case PROPERTY_FOR_SALE_LISTED -> {
-                contribution.setMonthTotalProperties(
-                    (contribution.getMonthTotalProperties() != null ? contribution.getMonthTotalProperties() : 0) + 1
-                );
-                contribution.setMonthTotalForSales(
-                    (contribution.getMonthTotalForSales() != null ? contribution.getMonthTotalForSales() : 0) + 1
-                );
-            }
-            case PROPERTY_FOR_RENT_LISTED -> {
-                contribution.setMonthTotalProperties(
-                    (contribution.getMonthTotalProperties() != null ? contribution.getMonthTotalProperties() : 0) + 1
-                );
-                contribution.setMonthTotalForRents(
-                    (contribution.getMonthTotalForRents() != null ? contribution.getMonthTotalForRents() : 0) + 1
-                );
-            }
-            case PROPERTY_SOLD -> {
-                contribution.setMonthTotalPropertiesSold(
-                    (contribution.getMonthTotalPropertiesSold() != null ? contribution.getMonthTotalPropertiesSold() : 0) + 1
-                );
-            }
-            case PROPERTY_RENTED -> {
-                contribution.setMonthTotalPropertiesRented(
-                    (contribution.getMonthTotalPropertiesRented() != null ? contribution.getMonthTotalPropertiesRented() : 0) + 1
-                );
-            }
-            case MONEY_RECEIVED -> {
-                BigDecimal currentContribution = (contribution.getMonthContributionValue() != null
-                    ? contribution.getMonthContributionValue()
-                    : BigDecimal.ZERO);
-                contribution.setMonthContributionValue(currentContribution.add(amount));
-            }
+    /**
+     * Appended in the caller's thread so the action is stored before the call returns, counting it happens
+     * later in batches. A failing append must not fail the business operation that triggered it.
+     */
+    private void appendEvent(Constants.RoleEnum role, UUID userId, Enum<?> actionType, BigDecimal amount) {
+        try {
+            rankingEventProcessor.append(role, userId, actionType, amount);
+        } catch (RuntimeException e) {
+            log.error("Could not log {} ranking action {} of {}: {}", role, actionType, userId, e.getMessage());
         }
-
-        individualPropertyOwnerContributionMonthRepository.save(contribution);
     }
 }
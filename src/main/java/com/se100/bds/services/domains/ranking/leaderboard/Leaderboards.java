@@ -0,0 +1,240 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntry;
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialAll;
+import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionAll;
+import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceCareer;
+import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
+import com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport;
+import com.se100.bds.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.monthCriteria;
+
+/**
+ * In-memory leaderboards per role and period, a month or all time when the month is null.
+ * A board is read from Mongo on first use and rebuilt after each ranking run, queries then take O(log n)
+ * plus the size of the page instead of loading and sorting every record.
+ */
+@Slf4j
+@Component
+public class Leaderboards {
+    private static final Set<Constants.RoleEnum> ROLES =
+            Set.of(Constants.RoleEnum.CUSTOMER, Constants.RoleEnum.SALESAGENT, Constants.RoleEnum.PROPERTY_OWNER);
+
+    private final RankingBatchSupport rankingBatchSupport;
+    private final Map<BoardKey, Board> boards;
+
+    public Leaderboards(RankingBatchSupport rankingBatchSupport,
+                        @Value("${app.leaderboard.max-boards:24}") int maxBoards) {
+        this.rankingBatchSupport = rankingBatchSupport;
+        // Least recently read boards of old months are dropped first
+        this.boards = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BoardKey, Board> eldest) {
+                return size() > maxBoards;
+            }
+        };
+    }
+
+    public boolean supports(Constants.RoleEnum role) {
+        return ROLES.contains(role);
+    }
+
+    public Page<LeaderboardEntry> page(Constants.RoleEnum role, YearMonth month, Pageable pageable) {
+        Board board = board(role, month);
+        board.lock.readLock().lock();
+        try {
+            List<LeaderboardEntry> entries = board.toEntries(board.points.range((int) pageable.getOffset(), pageable.getPageSize()));
+            return new PageImpl<>(entries, pageable, board.points.size());
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntry> top(Constants.RoleEnum role, YearMonth month, int limit) {
+        Board board = board(role, month);
+        board.lock.readLock().lock();
+        try {
+            return board.toEntries(board.points.range(0, limit));
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The user with up to the given number of neighbours on each side, empty when the user is not ranked
+     */
+    public List<LeaderboardEntry> around(Constants.RoleEnum role, YearMonth month, UUID userId, int neighbours) {
+        Board board = board(role, month);
+        board.lock.readLock().lock();
+        try {
+            int index = board.points.indexOf(userId);
+            if (index < 0) {
+                return List.of();
+            }
+            int from = Math.max(0, index - neighbours);
+            return board.toEntries(board.points.range(from, index - from + neighbours + 1));
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the loaded boards of the role from the points a ranking run just wrote
+     */
+    public void reload(Constants.RoleEnum role) {
+        List<Board> loaded;
+        synchronized (boards) {
+            loaded = boards.entrySet().stream()
+                    .filter(entry -> entry.getKey().role() == role)
+                    .map(Map.Entry::getValue)
+                    .toList();
+        }
+        for (Board board : loaded) {
+            board.load();
+        }
+    }
+
+    private Board board(Constants.RoleEnum role, YearMonth month) {
+        if (!supports(role)) {
+            throw new IllegalArgumentException("No leaderboard for role " + role);
+        }
+        Board board;
+        synchronized (boards) {
+            board = boards.computeIfAbsent(new BoardKey(role, month), Board::new);
+        }
+        board.ensureLoaded();
+        return board;
+    }
+
+    private record BoardKey(Constants.RoleEnum role, YearMonth month) {}
+
+    private final class Board {
+        private final BoardKey key;
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private OrderStatisticSkipList points = new OrderStatisticSkipList();
+        private Map<UUID, String> tiers = Map.of();
+        private volatile boolean loaded;
+
+        private Board(BoardKey key) {
+            this.key = key;
+        }
+
+        private void ensureLoaded() {
+            if (!loaded) {
+                synchronized (this) {
+                    if (!loaded) {
+                        load();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Build the new ordering aside and swap it in, readers keep the previous one meanwhile
+         */
+        private synchronized void load() {
+            long start = System.currentTimeMillis();
+            OrderStatisticSkipList freshPoints = new OrderStatisticSkipList();
+            Map<UUID, String> freshTiers = new HashMap<>();
+            read(freshPoints, freshTiers);
+
+            lock.writeLock().lock();
+            try {
+                points = freshPoints;
+                tiers = freshTiers;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Loaded {} {} leaderboard of {} in {} ms", freshPoints.size(), key.role(),
+                    key.month() != null ? key.month() : "all time", System.currentTimeMillis() - start);
+        }
+
+        private void read(OrderStatisticSkipList freshPoints, Map<UUID, String> freshTiers) {
+            YearMonth month = key.month();
+            switch (key.role()) {
+                case SALESAGENT -> {
+                    if (month != null) {
+                        rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceMonth.class, monthCriteria(month),
+                                page -> page.forEach(ranking -> {
+                                    add(freshPoints, ranking.getAgentId(), ranking.getPerformancePoint());
+                                    addTier(freshTiers, ranking.getAgentId(), ranking.getPerformanceTier());
+                                }));
+                    } else {
+                        rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceCareer.class, new Criteria(),
+                                page -> page.forEach(ranking -> add(freshPoints, ranking.getAgentId(), ranking.getPerformancePoint())));
+                    }
+                }
+                case CUSTOMER -> {
+                    if (month != null) {
+                        rankingBatchSupport.forEachPage(IndividualCustomerPotentialMonth.class, monthCriteria(month),
+                                page -> page.forEach(ranking -> {
+                                    add(freshPoints, ranking.getCustomerId(), ranking.getLeadScore());
+                                    addTier(freshTiers, ranking.getCustomerId(), ranking.getCustomerTier());
+                                }));
+                    } else {
+                        rankingBatchSupport.forEachPage(IndividualCustomerPotentialAll.class, new Criteria(),
+                                page -> page.forEach(ranking -> add(freshPoints, ranking.getCustomerId(), ranking.getLeadScore())));
+                    }
+                }
+                case PROPERTY_OWNER -> {
+                    if (month != null) {
+                        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionMonth.class, monthCriteria(month),
+                                page -> page.forEach(ranking -> {
+                                    add(freshPoints, ranking.getOwnerId(), ranking.getContributionPoint());
+                                    addTier(freshTiers, ranking.getOwnerId(), ranking.getContributionTier());
+                                }));
+                    } else {
+                        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionAll.class, new Criteria(),
+                                page -> page.forEach(ranking -> add(freshPoints, ranking.getOwnerId(), ranking.getContributionPoint())));
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private List<LeaderboardEntry> toEntries(List<OrderStatisticSkipList.Entry> entries) {
+            return entries.stream()
+                    .<LeaderboardEntry>map(entry -> LeaderboardEntry.builder()
+                            .userId(entry.userId())
+                            .rank(entry.rank())
+                            .points(entry.points())
+                            .tier(tiers.get(entry.userId()))
+                            .build())
+                    .toList();
+        }
+    }
+
+    private static void add(OrderStatisticSkipList points, UUID userId, Integer point) {
+        if (userId != null) {
+            points.put(userId, point != null ? point : 0);
+        }
+    }
+
+    private static void addTier(Map<UUID, String> tiers, UUID userId, Enum<?> tier) {
+        if (userId != null && tier != null) {
+            tiers.put(userId, tier.name());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Skip list of users ordered by points, highest first, ties broken by id. Every forward link also stores
+ * how many entries it skips, so the position of an entry and the entry at a position are both found in
+ * O(log n). Ranks follow competition ranking like the stored ranking positions: tied users share a rank
+ * and the next rank skips ahead. Not thread safe.
+ */
+public class OrderStatisticSkipList {
+    private static final int MAX_LEVEL = 32;
+
+    private final Node head = new Node(null, Long.MAX_VALUE, MAX_LEVEL);
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    public record Entry(UUID userId, long points, int rank) {}
+
+    /**
+     * Insert the user or move it to its new points
+     */
+    public void put(UUID userId, long points) {
+        Node existing = nodes.get(userId);
+        if (existing != null) {
+            if (existing.points == points) {
+                return;
+            }
+            remove(userId);
+        }
+
+        int nodeLevel = randomLevel();
+        Node[] update = new Node[MAX_LEVEL];
+        int[] position = new int[MAX_LEVEL];
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            position[i] = i == level - 1 ? 0 : position[i + 1];
+            while (current.next[i] != null && before(current.next[i], points, userId)) {
+                position[i] += current.span[i];
+                current = current.next[i];
+            }
+            update[i] = current;
+        }
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                position[i] = 0;
+                update[i] = head;
+                update[i].span[i] = nodes.size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(userId, points, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (position[0] - position[i]);
+            update[i].span[i] = position[0] - position[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        nodes.put(userId, node);
+    }
+
+    public boolean remove(UUID userId) {
+        Node node = nodes.remove(userId);
+        if (node == null) {
+            return false;
+        }
+
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && before(current.next[i], node.points, node.userId)) {
+                current = current.next[i];
+            }
+            if (current.next[i] == node) {
+                current.span[i] += node.span[i] - 1;
+                current.next[i] = node.next[i];
+            } else {
+                current.span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        return true;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(UUID userId) {
+        return nodes.containsKey(userId);
+    }
+
+    /**
+     * Zero based position of the user in the ordering, -1 when absent
+     */
+    public int indexOf(UUID userId) {
+        Node node = nodes.get(userId);
+        if (node == null) {
+            return -1;
+        }
+        int position = 0;
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && before(current.next[i], node.points, node.userId)) {
+                position += current.span[i];
+                current = current.next[i];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Competition rank of the user, null when absent
+     */
+    public Integer rankOf(UUID userId) {
+        Node node = nodes.get(userId);
+        return node == null ? null : countAbove(node.points) + 1;
+    }
+
+    /**
+     * Entries from the zero based offset on, at most limit of them
+     */
+    public List<Entry> range(int offset, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, nodes.size() - offset)));
+        if (offset < 0 || offset >= nodes.size() || limit <= 0) {
+            return entries;
+        }
+
+        Node node = nodeAt(offset);
+        int rank = countAbove(node.points) + 1;
+        long previousPoints = node.points;
+        for (int index = offset; node != null && entries.size() < limit; index++, node = node.next[0]) {
+            if (node.points != previousPoints) {
+                // Everything before this entry has more points
+                rank = index + 1;
+                previousPoints = node.points;
+            }
+            entries.add(new Entry(node.userId, node.points, rank));
+        }
+        return entries;
+    }
+
+    private Node nodeAt(int index) {
+        int traversed = -1;
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && traversed + current.span[i] <= index) {
+                traversed += current.span[i];
+                current = current.next[i];
+            }
+        }
+        return current;
+    }
+
+    private int countAbove(long points) {
+        int count = 0;
+        Node current = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (current.next[i] != null && current.next[i].points > points) {
+                count += current.span[i];
+                current = current.next[i];
+            }
+        }
+        return count;
+    }
+
+    private static boolean before(Node node, long points, UUID userId) {
+        return node.points > points || (node.points == points && node.userId.compareTo(userId) < 0);
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    private static final class Node {
+        private final UUID userId;
+        private final long points;
+        private final Node[] next;
+        // Number of level 0 steps each forward link covers
+        private final int[] span;
+
+        private Node(UUID userId, long points, int level) {
+            this.userId = userId;
+            this.points = points;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
@@ -3,85 +3,135 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialAll;
 import com.se100.bds.models.schemas.ranking.IndividualCustomerPotentialMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialAllRepository;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualCustomerPotentialMonthRepository;
+import com.se100.bds.services.domains.ranking.cache.TierCache;
+import com.se100.bds.services.domains.ranking.leaderboard.Leaderboards;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.byId;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.monthCriteria;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.newRecord;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.orZero;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CustomerRankingScheduler {
-    private final IndividualCustomerPotentialMonthRepository individualCustomerPotentialMonthRepository;
-    private final IndividualCustomerPotentialAllRepository individualCustomerPotentialAllRepository;
+    private static final String JOB = "customer";
+
+    private final RankingBatchSupport rankingBatchSupport;
+    private final TierCache tierCache;
+    private final Leaderboards leaderboards;
     private final UserService userService;
 
     // Run every day at 00:00 AM (midnight)
-     @Scheduled(cron = "0 0 0 * * ?")
-     protected void calculateRanking() {
-        createIfNotExist();
+    @Scheduled(cron = "0 0 0 * * ?")
+    protected void calculateRanking() {
+        rankingBatchSupport.exclusively(() -> {
+            YearMonth currentMonth = YearMonth.now();
+
+            rankingBatchSupport.timed(JOB, "create", () -> createIfNotExist(currentMonth));
+            // Newest month first, so the previous month read for the extra point still holds its stored tier
+            rankingBatchSupport.timed(JOB, "month", () -> rankingBatchSupport.months(IndividualCustomerPotentialMonth.class)
+                    .forEach(this::calculateRankingMonth));
+            rankingBatchSupport.timed(JOB, "all", this::calculateRankingAll);
+            rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(currentMonth));
+
+            reloadCaches();
+        });
+    }
 
-        calculateRankingMonth();
-        calculateRankingAll();
-        calculateRankingPosition();
+    /**
+     * Scores, tiers and positions of one month whose counters were rebuilt, all time records are summed again
+     * from the months. The caller holds the ranking lock.
+     */
+    void recalculateMonth(YearMonth month) {
+        rankingBatchSupport.timed(JOB, "month", () -> calculateRankingMonth(month));
+        rankingBatchSupport.timed(JOB, "all", this::calculateRankingAll);
+        rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(month));
+
+        reloadCaches();
     }
-    
-    private void calculateRankingMonth() {
 
-        List<IndividualCustomerPotentialMonth> customerPerformanceMonthList = individualCustomerPotentialMonthRepository.findAll();
-        for (IndividualCustomerPotentialMonth customerPerformanceMonth : customerPerformanceMonthList) {
-            updatePointMonth(customerPerformanceMonth);
-        }
+    private void reloadCaches() {
+        tierCache.reload(Constants.RoleEnum.CUSTOMER);
+        leaderboards.reload(Constants.RoleEnum.CUSTOMER);
+    }
 
-        individualCustomerPotentialMonthRepository.saveAll(customerPerformanceMonthList);
+    private void calculateRankingMonth(YearMonth month) {
+        // Average spending of all customers in the month, computed once per month instead of once per customer
+        BigDecimal avgSpendingBenchmark = rankingBatchSupport.average(IndividualCustomerPotentialMonth.class,
+                monthCriteria(month), "month_spending");
+
+        RankingBatchSupport.BulkWriter<IndividualCustomerPotentialMonth> writer =
+                rankingBatchSupport.bulkWriter(IndividualCustomerPotentialMonth.class);
+
+        rankingBatchSupport.forEachPage(IndividualCustomerPotentialMonth.class, monthCriteria(month), page -> {
+            Map<UUID, IndividualCustomerPotentialMonth> previousMonth = rankingBatchSupport.prefetch(
+                    IndividualCustomerPotentialMonth.class, "customer_id",
+                    page.stream().map(IndividualCustomerPotentialMonth::getCustomerId).toList(),
+                    monthCriteria(month.minusMonths(1)),
+                    IndividualCustomerPotentialMonth::getCustomerId);
+
+            for (IndividualCustomerPotentialMonth customerPotentialMonth : page) {
+                IndividualCustomerPotentialMonth previousMonthData = previousMonth.get(customerPotentialMonth.getCustomerId());
+                updatePointMonth(customerPotentialMonth, avgSpendingBenchmark,
+                        previousMonthData != null ? previousMonthData.getCustomerTier() : null);
+                writer.update(byId(customerPotentialMonth.getId()), new Update()
+                        .set("lead_score", customerPotentialMonth.getLeadScore())
+                        .set("customer_tier", customerPotentialMonth.getCustomerTier()));
+            }
+        });
+        writer.flush();
     }
 
+    /**
+     * All time records are the sum of the month records, so rerunning a month or replaying a past one never counts it twice
+     */
     private void calculateRankingAll() {
-        List<IndividualCustomerPotentialAll> customerPerformanceCareerList = individualCustomerPotentialAllRepository.findAll();
-        for (IndividualCustomerPotentialAll customerPerformanceCareer : customerPerformanceCareerList) {
-            updatePointAll(customerPerformanceCareer);
-        }
-
-        individualCustomerPotentialAllRepository.saveAll(customerPerformanceCareerList);
+        Map<UUID, AllTotals> totals = new HashMap<>();
+        rankingBatchSupport.forEachPage(IndividualCustomerPotentialMonth.class, new Criteria(), page -> {
+            for (IndividualCustomerPotentialMonth customerPotentialMonth : page) {
+                totals.computeIfAbsent(customerPotentialMonth.getCustomerId(), customerId -> new AllTotals()).add(customerPotentialMonth);
+            }
+        });
+
+        RankingBatchSupport.BulkWriter<IndividualCustomerPotentialAll> writer =
+                rankingBatchSupport.bulkWriter(IndividualCustomerPotentialAll.class);
+        rankingBatchSupport.forEachPage(IndividualCustomerPotentialAll.class, new Criteria(), page -> {
+            for (IndividualCustomerPotentialAll customerPotentialAll : page) {
+                AllTotals allTotals = totals.getOrDefault(customerPotentialAll.getCustomerId(), new AllTotals());
+                writer.update(byId(customerPotentialAll.getId()), allTotals.toUpdate());
+            }
+        });
+        writer.flush();
     }
-    
-    private void updatePointMonth(IndividualCustomerPotentialMonth individualCustomerPotentialMonth) {
-        // Get previous month data for ExtraPoint
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualCustomerPotentialMonth.getMonth(),
-                individualCustomerPotentialMonth.getYear()
-        );
-        IndividualCustomerPotentialMonth previousMonthData = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                individualCustomerPotentialMonth.getCustomerId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
+
+    private void updatePointMonth(IndividualCustomerPotentialMonth individualCustomerPotentialMonth,
+                                  BigDecimal avgSpendingBenchmark,
+                                  Constants.CustomerTierEnum previousMonthTier) {
+        // Extra point from the previous month's tier
         int extraPoint = 0;
-        if (previousMonthData != null) {
-            extraPoint = RankingUtil.getExtraPoint(previousMonthData.getCustomerTier().getValue());
+        if (previousMonthTier != null) {
+            extraPoint = RankingUtil.getExtraPoint(previousMonthTier.getValue());
         }
 
-        // Calculate avg_spending_benchmark
-        List<IndividualCustomerPotentialMonth> allMonthData = individualCustomerPotentialMonthRepository.findAll().stream()
-                .filter(m -> m.getMonth().equals(individualCustomerPotentialMonth.getMonth()) && m.getYear().equals(individualCustomerPotentialMonth.getYear()))
-                .toList();
-        BigDecimal totalSpending = allMonthData.stream()
-                .map(IndividualCustomerPotentialMonth::getMonthSpending)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        int totalCustomers = allMonthData.size();
-        BigDecimal avgSpendingBenchmark = totalCustomers > 0 ? totalSpending.divide(BigDecimal.valueOf(totalCustomers), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
-
         // Calculate scores
         int leadScore = calculateLeadScore(individualCustomerPotentialMonth, avgSpendingBenchmark, extraPoint);
 
@@ -111,159 +161,97 @@ public class CustomerRankingScheduler {
         return (int) leadScoreDouble;
     }
 
-    private void updatePointAll(IndividualCustomerPotentialAll individualCustomerPotentialAll) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        IndividualCustomerPotentialMonth currentMonthData = individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                individualCustomerPotentialAll.getCustomerId(),
-                month, year
-        );
-
-        if (currentMonthData != null) {
-            individualCustomerPotentialAll.setLeadScore(
-                    individualCustomerPotentialAll.getLeadScore() +
-                    currentMonthData.getLeadScore());
-            individualCustomerPotentialAll.setViewingsRequested(
-                    individualCustomerPotentialAll.getViewingsRequested() +
-                    currentMonthData.getMonthViewingsRequested()
-            );
-            individualCustomerPotentialAll.setViewingsAttended(
-                    individualCustomerPotentialAll.getViewingsAttended() +
-                    currentMonthData.getMonthViewingAttended()
-            );
-            individualCustomerPotentialAll.setSpending(
-                    individualCustomerPotentialAll.getSpending().add(
-                            currentMonthData.getMonthSpending()
-                    )
-            );
-            individualCustomerPotentialAll.setTotalPurchases(
-                    individualCustomerPotentialAll.getTotalPurchases() +
-                    currentMonthData.getMonthPurchases()
-            );
-            individualCustomerPotentialAll.setTotalRentals(
-                    individualCustomerPotentialAll.getTotalRentals() +
-                    currentMonthData.getMonthRentals()
-            );
-            individualCustomerPotentialAll.setTotalContractsSigned(
-                    individualCustomerPotentialAll.getTotalContractsSigned() +
-                    currentMonthData.getMonthPurchases() + currentMonthData.getMonthRentals() // assuming contracts signed = purchases + rentals
-            );
-        }
-    }
-    
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        // Calculate ranking for current month
+    private void calculateRankingPosition(YearMonth month) {
+        // Calculate ranking for the month
         try {
-            List<IndividualCustomerPotentialMonth> customerPotentialMonthList = individualCustomerPotentialMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year))
-                    .collect(Collectors.toList());
-
-            // Sort by leadScore descending
-            customerPotentialMonthList.sort((c1, c2) -> c2.getLeadScore().compareTo(c1.getLeadScore()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualCustomerPotentialMonth customerPotential : customerPotentialMonthList) {
-                if (previousPoint != null && !previousPoint.equals(customerPotential.getLeadScore())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                customerPotential.setLeadPosition(ranking);
-                previousPoint = customerPotential.getLeadScore();
-                currentPosition++;
-            }
-
-            // Save all
-            individualCustomerPotentialMonthRepository.saveAll(customerPotentialMonthList);
+            rankingBatchSupport.assignPositions(IndividualCustomerPotentialMonth.class, monthCriteria(month),
+                    "lead_score", "lead_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualCustomerPotentialAll> customerPotentialAllList = individualCustomerPotentialAllRepository.findAll();
-
-            // Sort by leadScore descending
-            customerPotentialAllList.sort((c1, c2) -> c2.getLeadScore().compareTo(c1.getLeadScore()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualCustomerPotentialAll customerPotential : customerPotentialAllList) {
-                if (previousPoint != null && !previousPoint.equals(customerPotential.getLeadScore())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                customerPotential.setLeadPosition(ranking);
-                previousPoint = customerPotential.getLeadScore();
-                currentPosition++;
-            }
-
-            // Save all
-            individualCustomerPotentialAllRepository.saveAll(customerPotentialAllList);
+            rankingBatchSupport.assignPositions(IndividualCustomerPotentialAll.class, new Criteria(), "lead_score", "lead_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
 
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
+    private void createIfNotExist(YearMonth currentMonth) {
         List<User> availableCustomers = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.CUSTOMER);
 
+        // Upserts that only write on insert, so existing records are left as they are without looking them up first
+        RankingBatchSupport.BulkWriter<IndividualCustomerPotentialAll> allWriter =
+                rankingBatchSupport.bulkWriter(IndividualCustomerPotentialAll.class);
+        RankingBatchSupport.BulkWriter<IndividualCustomerPotentialMonth> monthWriter =
+                rankingBatchSupport.bulkWriter(IndividualCustomerPotentialMonth.class);
 
         for (User availableCustomer : availableCustomers) {
+            // Data for all history tracking
+            allWriter.upsert(
+                    Query.query(Criteria.where("customer_id").is(availableCustomer.getId())),
+                    newRecord()
+                            .setOnInsert("lead_score", 0)
+                            .setOnInsert("lead_position", 0)
+                            .setOnInsert("viewings_requested", 0)
+                            .setOnInsert("viewings_attended", 0)
+                            .setOnInsert("spending", BigDecimal.ZERO)
+                            .setOnInsert("total_purchases", 0)
+                            .setOnInsert("total_rentals", 0)
+                            .setOnInsert("total_contracts_signed", 0)
+            );
 
-            // Check if data exists for all history tracking
-            if (individualCustomerPotentialAllRepository.findByCustomerId(
-                    availableCustomer.getId()
-            ) == null) {
-                individualCustomerPotentialAllRepository.save(
-                    IndividualCustomerPotentialAll.builder()
-                            .customerId(availableCustomer.getId())
-                            .leadScore(0)
-                            .leadPosition(0)
-                            .viewingsRequested(0)
-                            .viewingsAttended(0)
-                            .spending(BigDecimal.ZERO)
-                            .totalPurchases(0)
-                            .totalRentals(0)
-                            .totalContractsSigned(0)
-                            .build()
-                );
-            }
+            // Data for current month tracking
+            monthWriter.upsert(
+                    Query.query(Criteria.where("customer_id").is(availableCustomer.getId())
+                            .and("month").is(currentMonth.getMonthValue())
+                            .and("year").is(currentMonth.getYear())),
+                    newRecord()
+                            .setOnInsert("lead_score", 0)
+                            .setOnInsert("customer_tier", Constants.CustomerTierEnum.BRONZE)
+                            .setOnInsert("lead_position", 0)
+                            .setOnInsert("month_viewings_requested", 0)
+                            .setOnInsert("month_viewings_attended", 0)
+                            .setOnInsert("month_spending", BigDecimal.ZERO)
+                            .setOnInsert("month_purchases", 0)
+                            .setOnInsert("month_rentals", 0)
+            );
+        }
 
-            // Check if data exists for current month tracking
-            if (individualCustomerPotentialMonthRepository.findByCustomerIdAndMonthAndYear(
-                    availableCustomer.getId(),
-                    month, year
-            ) == null) {
-                individualCustomerPotentialMonthRepository.save(
-                        IndividualCustomerPotentialMonth.builder()
-                                .customerId(availableCustomer.getId())
-                                .month(month)
-                                .year(year)
-                                .leadScore(0)
-                                .customerTier(Constants.CustomerTierEnum.BRONZE)
-                                .leadPosition(0)
-                                .monthViewingsRequested(0)
-                                .monthViewingAttended(0)
-                                .monthSpending(BigDecimal.ZERO)
-                                .monthPurchases(0)
-                                .monthRentals(0)
-                                .build()
-                );
-            }
+        allWriter.flush();
+        monthWriter.flush();
+    }
+
+    /**
+     * Running sums of one customer's months
+     */
+    private static final class AllTotals {
+        private int leadScore;
+        private int viewingsRequested;
+        private int viewingsAttended;
+        private BigDecimal spending = BigDecimal.ZERO;
+        private int totalPurchases;
+        private int totalRentals;
+
+        private void add(IndividualCustomerPotentialMonth monthData) {
+            leadScore += orZero(monthData.getLeadScore());
+            viewingsRequested += orZero(monthData.getMonthViewingsRequested());
+            viewingsAttended += orZero(monthData.getMonthViewingAttended());
+            spending = spending.add(orZero(monthData.getMonthSpending()));
+            totalPurchases += orZero(monthData.getMonthPurchases());
+            totalRentals += orZero(monthData.getMonthRentals());
+        }
+
+        private Update toUpdate() {
+            return new Update()
+                    .set("lead_score", leadScore)
+                    .set("viewings_requested", viewingsRequested)
+                    .set("viewings_attended", viewingsAttended)
+                    .set("spending", spending)
+                    .set("total_purchases", totalPurchases)
+                    .set("total_rentals", totalRentals)
+                    .set("total_contracts_signed", totalPurchases + totalRentals); // assuming contracts signed = purchases + rentals
         }
     }
 }
@@ -3,91 +3,158 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionAll;
 import com.se100.bds.models.schemas.ranking.IndividualPropertyOwnerContributionMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionAllRepository;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerContributionMonthRepository;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
 
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.ranking.cache.TierCache;
+import com.se100.bds.services.domains.ranking.leaderboard.Leaderboards;
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.byId;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.monthCriteria;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.newRecord;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.orZero;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PropertyOwnerRankingScheduler {
-    private final IndividualPropertyOwnerContributionMonthRepository individualPropertyOwnerContributionMonthRepository;
-    private final IndividualPropertyOwnerContributionAllRepository individualPropertyOwnerContributionAllRepository;
+    private static final String JOB = "property_owner";
+
+    private final RankingBatchSupport rankingBatchSupport;
+    private final TierCache tierCache;
+    private final Leaderboards leaderboards;
     private final UserService userService;
+    private final PropertyDetailsCache propertyDetailsCache;
 
     // Run every day at 00:00 AM (midnight)
     @Scheduled(cron = "0 0 0 * * ?")
     protected void calculateRanking() {
-        createIfNotExist();
-
-        calculateRankingMonth();
-        calculateRankingAll();
-        calculateRankingPosition();
+        rankingBatchSupport.exclusively(() -> {
+            YearMonth currentMonth = YearMonth.now();
+
+            rankingBatchSupport.timed(JOB, "create", () -> createIfNotExist(currentMonth));
+            // Newest month first, so the previous month read for the extra point still holds its stored tier
+            rankingBatchSupport.timed(JOB, "month", () -> rankingBatchSupport.months(IndividualPropertyOwnerContributionMonth.class)
+                    .forEach(this::calculateRankingMonth));
+            rankingBatchSupport.timed(JOB, "all", this::calculateRankingAll);
+            rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(currentMonth));
+
+            reloadCaches();
+        });
     }
 
-    private void calculateRankingMonth() {
+    /**
+     * Points, tiers and positions of one month whose counters were rebuilt, all time records are summed again
+     * from the months. The caller holds the ranking lock.
+     */
+    void recalculateMonth(YearMonth month) {
+        rankingBatchSupport.timed(JOB, "month", () -> calculateRankingMonth(month));
+        rankingBatchSupport.timed(JOB, "all", this::calculateRankingAll);
+        rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(month));
 
-        List<IndividualPropertyOwnerContributionMonth> propertyOwnerContributionMonthList = individualPropertyOwnerContributionMonthRepository.findAll();
-        for (IndividualPropertyOwnerContributionMonth propertyOwnerContributionMonth : propertyOwnerContributionMonthList) {
-            updatePointMonth(propertyOwnerContributionMonth);
-        }
+        reloadCaches();
+    }
 
-        individualPropertyOwnerContributionMonthRepository.saveAll(propertyOwnerContributionMonthList);
+    private void reloadCaches() {
+        tierCache.reload(Constants.RoleEnum.PROPERTY_OWNER);
+        leaderboards.reload(Constants.RoleEnum.PROPERTY_OWNER);
+        // Property details show the new tiers
+        propertyDetailsCache.invalidateAll();
     }
 
+    private void calculateRankingMonth(YearMonth month) {
+        Benchmark benchmark = calculateBenchmark(month);
+        RankingBatchSupport.BulkWriter<IndividualPropertyOwnerContributionMonth> writer =
+                rankingBatchSupport.bulkWriter(IndividualPropertyOwnerContributionMonth.class);
+
+        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionMonth.class, monthCriteria(month), page -> {
+            Map<UUID, IndividualPropertyOwnerContributionMonth> previousMonth = rankingBatchSupport.prefetch(
+                    IndividualPropertyOwnerContributionMonth.class, "owner_id",
+                    page.stream().map(IndividualPropertyOwnerContributionMonth::getOwnerId).toList(),
+                    monthCriteria(month.minusMonths(1)),
+                    IndividualPropertyOwnerContributionMonth::getOwnerId);
+
+            for (IndividualPropertyOwnerContributionMonth propertyOwnerContributionMonth : page) {
+                updatePointMonth(propertyOwnerContributionMonth, benchmark, previousMonth.get(propertyOwnerContributionMonth.getOwnerId()));
+                writer.update(byId(propertyOwnerContributionMonth.getId()), new Update()
+                        .set("contribution_point", propertyOwnerContributionMonth.getContributionPoint())
+                        .set("contribution_tier", propertyOwnerContributionMonth.getContributionTier()));
+            }
+        });
+        writer.flush();
+    }
+
+    /**
+     * All time records are the sum of the month records, so rerunning a month or replaying a past one never counts it twice
+     */
     private void calculateRankingAll() {
-        List<IndividualPropertyOwnerContributionAll> propertyOwnerContributionAllList = individualPropertyOwnerContributionAllRepository.findAll();
-        for (IndividualPropertyOwnerContributionAll propertyOwnerContributionAll : propertyOwnerContributionAllList) {
-            updatePointAll(propertyOwnerContributionAll);
-        }
+        Map<UUID, AllTotals> totals = new HashMap<>();
+        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionMonth.class, new Criteria(), page -> {
+            for (IndividualPropertyOwnerContributionMonth propertyOwnerContributionMonth : page) {
+                totals.computeIfAbsent(propertyOwnerContributionMonth.getOwnerId(), ownerId -> new AllTotals()).add(propertyOwnerContributionMonth);
+            }
+        });
+
+        RankingBatchSupport.BulkWriter<IndividualPropertyOwnerContributionAll> writer =
+                rankingBatchSupport.bulkWriter(IndividualPropertyOwnerContributionAll.class);
+        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionAll.class, new Criteria(), page -> {
+            for (IndividualPropertyOwnerContributionAll propertyOwnerContributionAll : page) {
+                AllTotals allTotals = totals.getOrDefault(propertyOwnerContributionAll.getOwnerId(), new AllTotals());
+                writer.update(byId(propertyOwnerContributionAll.getId()), allTotals.toUpdate());
+            }
+        });
+        writer.flush();
+    }
+
+    /**
+     * avg_transaction_benchmark and avg_revenue_benchmark of one month, in one pass over its records
+     */
+    private Benchmark calculateBenchmark(YearMonth month) {
+        int[] totals = new int[2];
+        BigDecimal[] totalRevenue = {BigDecimal.ZERO};
+        rankingBatchSupport.forEachPage(IndividualPropertyOwnerContributionMonth.class, monthCriteria(month), page -> {
+            for (IndividualPropertyOwnerContributionMonth m : page) {
+                totals[0] += m.getMonthTotalPropertiesSold() + (m.getMonthTotalForRents() != null ? m.getMonthTotalForRents() : 0);
+                totals[1]++;
+                totalRevenue[0] = totalRevenue[0].add(m.getMonthContributionValue());
+            }
+        });
 
-        individualPropertyOwnerContributionAllRepository.saveAll(propertyOwnerContributionAllList);
+        int totalTransactions = totals[0];
+        int totalOwners = totals[1];
+        double avgTransactionBenchmark = totalOwners > 0 ? (double) totalTransactions / totalOwners : 0;
+        BigDecimal avgRevenueBenchmark = totalOwners > 0 ? totalRevenue[0].divide(BigDecimal.valueOf(totalOwners), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        return new Benchmark(avgTransactionBenchmark, avgRevenueBenchmark);
     }
 
-    private void updatePointMonth(IndividualPropertyOwnerContributionMonth individualPropertyOwnerContributionMonth) {
-        // Get previous month data for ExtraPoint
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualPropertyOwnerContributionMonth.getMonth(),
-                individualPropertyOwnerContributionMonth.getYear()
-        );
-        IndividualPropertyOwnerContributionMonth previousMonthData = individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                individualPropertyOwnerContributionMonth.getOwnerId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
+    private void updatePointMonth(IndividualPropertyOwnerContributionMonth individualPropertyOwnerContributionMonth,
+                                  Benchmark benchmark,
+                                  IndividualPropertyOwnerContributionMonth previousMonthData) {
+        // ExtraPoint from the previous month's tier
         int extraPoint = 0;
         if (previousMonthData != null) {
             extraPoint = RankingUtil.getExtraPoint(previousMonthData.getContributionTier().getValue());
         }
 
-        // Calculate avg_transaction_benchmark and avg_revenue_benchmark
-        List<IndividualPropertyOwnerContributionMonth> allMonthData = individualPropertyOwnerContributionMonthRepository.findAll().stream()
-                .filter(m -> m.getMonth().equals(individualPropertyOwnerContributionMonth.getMonth()) && m.getYear().equals(individualPropertyOwnerContributionMonth.getYear()))
-                .toList();
-
-        int totalTransactions = allMonthData.stream()
-                .mapToInt(m -> m.getMonthTotalPropertiesSold() + (m.getMonthTotalForRents() != null ? m.getMonthTotalForRents() : 0))
-                .sum();
-        int totalOwners = allMonthData.size();
-        double avgTransactionBenchmark = totalOwners > 0 ? (double) totalTransactions / totalOwners : 0;
-
-        BigDecimal totalRevenue = allMonthData.stream()
-                .map(IndividualPropertyOwnerContributionMonth::getMonthContributionValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal avgRevenueBenchmark = totalOwners > 0 ? totalRevenue.divide(BigDecimal.valueOf(totalOwners), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+        double avgTransactionBenchmark = benchmark.avgTransaction();
+        BigDecimal avgRevenueBenchmark = benchmark.avgRevenue();
 
         // Calculate scores
         double propertyUtilizationScore = individualPropertyOwnerContributionMonth.getMonthTotalProperties() > 0 ?
@@ -112,149 +179,95 @@ public class PropertyOwnerRankingScheduler {
         individualPropertyOwnerContributionMonth.setContributionTier(newTier);
     }
 
-    private void updatePointAll(IndividualPropertyOwnerContributionAll individualPropertyOwnerContributionAll) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        IndividualPropertyOwnerContributionMonth currentMonthData = individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                individualPropertyOwnerContributionAll.getOwnerId(),
-                month, year
-        );
-
-        if (currentMonthData != null) {
-            individualPropertyOwnerContributionAll.setContributionPoint(
-                    individualPropertyOwnerContributionAll.getContributionPoint() +
-                            currentMonthData.getContributionPoint());
-            individualPropertyOwnerContributionAll.setContributionValue(
-                    individualPropertyOwnerContributionAll.getContributionValue().add(
-                            currentMonthData.getMonthContributionValue()
-                    )
-            );
-            individualPropertyOwnerContributionAll.setTotalProperties(
-                    individualPropertyOwnerContributionAll.getTotalProperties() +
-                            currentMonthData.getMonthTotalProperties()
-            );
-            individualPropertyOwnerContributionAll.setTotalPropertiesSold(
-                    individualPropertyOwnerContributionAll.getTotalPropertiesSold() +
-                            currentMonthData.getMonthTotalForSales()
-            );
-            individualPropertyOwnerContributionAll.setTotalPropertiesRented(
-                    individualPropertyOwnerContributionAll.getTotalPropertiesRented() +
-                            currentMonthData.getMonthTotalForRents()
-            );
-        }
-    }
-
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        // Calculate ranking for current month
+    private void calculateRankingPosition(YearMonth month) {
+        // Calculate ranking for the month
         try {
-            List<IndividualPropertyOwnerContributionMonth> propertyOwnerContributionMonthList = individualPropertyOwnerContributionMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year))
-                    .collect(Collectors.toList());
-
-            // Sort by contributionPoint descending
-            propertyOwnerContributionMonthList.sort((p1, p2) -> p2.getContributionPoint().compareTo(p1.getContributionPoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualPropertyOwnerContributionMonth propertyOwnerContribution : propertyOwnerContributionMonthList) {
-                if (previousPoint != null && !previousPoint.equals(propertyOwnerContribution.getContributionPoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                propertyOwnerContribution.setRankingPosition(ranking);
-                previousPoint = propertyOwnerContribution.getContributionPoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualPropertyOwnerContributionMonthRepository.saveAll(propertyOwnerContributionMonthList);
+            rankingBatchSupport.assignPositions(IndividualPropertyOwnerContributionMonth.class, monthCriteria(month),
+                    "contribution_point", "ranking_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualPropertyOwnerContributionAll> propertyOwnerContributionAllList = individualPropertyOwnerContributionAllRepository.findAll();
-
-            // Sort by contributionPoint descending
-            propertyOwnerContributionAllList.sort((p1, p2) -> p2.getContributionPoint().compareTo(p1.getContributionPoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualPropertyOwnerContributionAll propertyOwnerContribution : propertyOwnerContributionAllList) {
-                if (previousPoint != null && !previousPoint.equals(propertyOwnerContribution.getContributionPoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                propertyOwnerContribution.setRankingPosition(ranking);
-                previousPoint = propertyOwnerContribution.getContributionPoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualPropertyOwnerContributionAllRepository.saveAll(propertyOwnerContributionAllList);
+            rankingBatchSupport.assignPositions(IndividualPropertyOwnerContributionAll.class, new Criteria(),
+                    "contribution_point", "ranking_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
 
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
+    private void createIfNotExist(YearMonth currentMonth) {
         List<User> availablePropertyOwners = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.PROPERTY_OWNER);
 
+        // Upserts that only write on insert, so existing records are left as they are without looking them up first
+        RankingBatchSupport.BulkWriter<IndividualPropertyOwnerContributionAll> allWriter =
+                rankingBatchSupport.bulkWriter(IndividualPropertyOwnerContributionAll.class);
+        RankingBatchSupport.BulkWriter<IndividualPropertyOwnerContributionMonth> monthWriter =
+                rankingBatchSupport.bulkWriter(IndividualPropertyOwnerContributionMonth.class);
 
         for (User availablePropertyOwner : availablePropertyOwners) {
+            // Data for all history tracking
+            allWriter.upsert(
+                    Query.query(Criteria.where("owner_id").is(availablePropertyOwner.getId())),
+                    newRecord()
+                            .setOnInsert("contribution_point", 0)
+                            .setOnInsert("ranking_position", 0)
+                            .setOnInsert("contribution_value", BigDecimal.ZERO)
+                            .setOnInsert("total_properties", 0)
+                            .setOnInsert("total_properties_sold", 0)
+                            .setOnInsert("total_properties_rented", 0)
+            );
 
-            // Check if data exists for all history tracking
-            if (individualPropertyOwnerContributionAllRepository.findByOwnerId(
-                    availablePropertyOwner.getId()
-            ) == null) {
-                individualPropertyOwnerContributionAllRepository.save(
-                    IndividualPropertyOwnerContributionAll.builder()
-                            .ownerId(availablePropertyOwner.getId())
-                            .contributionPoint(0)
-                            .rankingPosition(0)
-                            .contributionValue(BigDecimal.ZERO)
-                            .totalProperties(0)
-                            .totalPropertiesSold(0)
-                            .totalPropertiesRented(0)
-                            .build()
-                );
-            }
+            // Data for current month tracking
+            monthWriter.upsert(
+                    Query.query(Criteria.where("owner_id").is(availablePropertyOwner.getId())
+                            .and("month").is(currentMonth.getMonthValue())
+                            .and("year").is(currentMonth.getYear())),
+                    newRecord()
+                            .setOnInsert("contribution_point", 0)
+                            .setOnInsert("contribution_tier", Constants.ContributionTierEnum.BRONZE)
+                            .setOnInsert("ranking_position", 0)
+                            .setOnInsert("month_contribution_value", BigDecimal.ZERO)
+                            .setOnInsert("month_total_properties", 0)
+                            .setOnInsert("month_total_for_sales", 0)
+                            .setOnInsert("month_total_for_rents", 0)
+                            .setOnInsert("month_total_properties_sold", 0)
+            );
+        }
 
-            // Check if data exists for current month tracking
-            if (individualPropertyOwnerContributionMonthRepository.findByOwnerIdAndMonthAndYear(
-                    availablePropertyOwner.getId(),
-                    month, year
-            ) == null) {
-                individualPropertyOwnerContributionMonthRepository.save(
-                        IndividualPropertyOwnerContributionMonth.builder()
-                                .ownerId(availablePropertyOwner.getId())
-                                .month(month)
-                                .year(year)
-                                .contributionPoint(0)
-                                .contributionTier(Constants.ContributionTierEnum.BRONZE)
-                                .rankingPosition(0)
-                                .monthContributionValue(BigDecimal.ZERO)
-                                .monthTotalProperties(0)
-                                .monthTotalForSales(0)
-                                .monthTotalForRents(0)
-                                .monthTotalPropertiesSold(0)
-                                .build()
-                );
-            }
+        allWriter.flush();
+        monthWriter.flush();
+    }
+
+
+    private record Benchmark(double avgTransaction, BigDecimal avgRevenue) {}
+
+    /**
+     * Running sums of one owner's months
+     */
+    private static final class AllTotals {
+        private int contributionPoint;
+        private BigDecimal contributionValue = BigDecimal.ZERO;
+        private int totalProperties;
+        private int totalPropertiesSold;
+        private int totalPropertiesRented;
+
+        private void add(IndividualPropertyOwnerContributionMonth monthData) {
+            contributionPoint += orZero(monthData.getContributionPoint());
+            contributionValue = contributionValue.add(orZero(monthData.getMonthContributionValue()));
+            totalProperties += orZero(monthData.getMonthTotalProperties());
+            totalPropertiesSold += orZero(monthData.getMonthTotalForSales());
+            totalPropertiesRented += orZero(monthData.getMonthTotalForRents());
+        }
+
+        private Update toUpdate() {
+            return new Update()
+                    .set("contribution_point", contributionPoint)
+                    .set("contribution_value", contributionValue)
+                    .set("total_properties", totalProperties)
+                    .set("total_properties_sold", totalPropertiesSold)
+                    .set("total_properties_rented", totalPropertiesRented);
         }
     }
 }
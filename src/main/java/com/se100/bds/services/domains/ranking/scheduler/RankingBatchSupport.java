@@ -0,0 +1,278 @@
+package com.se100.bds.services.domains.ranking.scheduler;
+
+import com.se100.bds.models.schemas.AbstractBaseMongoSchema;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Batch plumbing shared by the ranking schedulers: documents are streamed in keyset pages, related records
+ * of a page are prefetched with one query, writes go out as unordered bulks and positions are ranked
+ * inside Mongo. Every phase is timed
+ * under ranking.batch.phase with the job and phase as tags.
+ */
+@Slf4j
+@Component
+public class RankingBatchSupport {
+    private static final String RANK_POINT_FIELD = "rank_point";
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+
+    // The midnight runs and a month replay rewrite the same records, they take turns
+    private final ReentrantLock rankingLock = new ReentrantLock();
+
+    public RankingBatchSupport(MongoTemplate mongoTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.ranking.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Run the work holding the ranking lock, waiting for a ranking run or replay in progress to finish first
+     */
+    public void exclusively(Runnable work) {
+        rankingLock.lock();
+        try {
+            work.run();
+        } finally {
+            rankingLock.unlock();
+        }
+    }
+
+    public void timed(String job, String phase, Runnable work) {
+        long start = System.nanoTime();
+        Timer.builder("ranking.batch.phase")
+                .tag("job", job)
+                .tag("phase", phase)
+                .register(meterRegistry)
+                .record(work);
+        log.info("{} ranking {} phase took {} ms", job, phase, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Months having at least one record, newest first
+     */
+    public List<YearMonth> months(Class<?> type) {
+        Aggregation aggregation = Aggregation.newAggregation(Aggregation.group("month", "year"));
+        List<YearMonth> months = new ArrayList<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, type, Document.class)) {
+            Document id = result.get("_id", Document.class);
+            months.add(YearMonth.of(id.getInteger("year"), id.getInteger("month")));
+        }
+        months.sort(Comparator.reverseOrder());
+        return months;
+    }
+
+    public static Criteria monthCriteria(YearMonth month) {
+        return Criteria.where("month").is(month.getMonthValue()).and("year").is(month.getYear());
+    }
+
+    /**
+     * Hand every matching record to the consumer, one page at a time, paging on _id so each page is an index range
+     */
+    public <T extends AbstractBaseMongoSchema> void forEachPage(Class<T> type, Criteria criteria, Consumer<List<T>> pageConsumer) {
+        String lastId = null;
+        while (true) {
+            Criteria pageCriteria = lastId == null ? criteria : new Criteria().andOperator(criteria, Criteria.where("_id").gt(lastId));
+            List<T> page = mongoTemplate.find(Query.query(pageCriteria).with(Sort.by("_id")).limit(batchSize), type);
+            if (page.isEmpty()) {
+                return;
+            }
+            pageConsumer.accept(page);
+            if (page.size() < batchSize) {
+                return;
+            }
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Records matching the criteria whose key field is one of the keys, in one query
+     */
+    public <T, K> Map<K, T> prefetch(Class<T> type, String keyField, Collection<K> keys, Criteria criteria, Function<T, K> keyOf) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Map<K, T> records = new HashMap<>();
+        Query query = Query.query(new Criteria().andOperator(criteria, Criteria.where(keyField).in(keys)));
+        for (T record : mongoTemplate.find(query, type)) {
+            records.putIfAbsent(keyOf.apply(record), record);
+        }
+        return records;
+    }
+
+    /**
+     * Number of records per key among the given keys, in one aggregation
+     */
+    public Map<UUID, Long> countBy(Class<?> type, String keyField, Collection<UUID> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(keyField).in(keys)),
+                Aggregation.group(keyField).count().as("count")
+        );
+        Map<UUID, Long> counts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, type, KeyCount.class)
+                .forEach(result -> counts.put(result.getId(), result.getCount()));
+        return counts;
+    }
+
+    /**
+     * Sum of a decimal field over the matching records divided by their number, in one aggregation.
+     * A missing value counts as 0, zero when nothing matches.
+     */
+    public BigDecimal average(Class<?> type, Criteria criteria, String field) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group().sum(field).as("total").count().as("count")
+        );
+        TotalCount result = mongoTemplate.aggregate(aggregation, type, TotalCount.class).getUniqueMappedResult();
+        if (result == null || result.getCount() == null || result.getCount() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return orZero(result.getTotal()).divide(BigDecimal.valueOf(result.getCount()), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Competition ranking (1, 1, 3) of all matching records by a point descending, computed with $rank and
+     * merged back into the collection by Mongo, so the leaderboard never goes through the application.
+     * A missing point ranks as 0, like the Java ranking did, instead of after every other record.
+     */
+    public void assignPositions(Class<?> type, Criteria criteria, String pointField, String positionField) {
+        String collection = mongoTemplate.getCollectionName(type);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                // sortBy only takes a field, so the defaulted point is staged first and dropped by the $project
+                context -> new Document("$set", new Document(RANK_POINT_FIELD, new Document("$ifNull", List.of("$" + pointField, 0)))),
+                context -> new Document("$setWindowFields", new Document("sortBy", new Document(RANK_POINT_FIELD, -1))
+                        .append("output", new Document(positionField, new Document("$rank", new Document())))),
+                context -> new Document("$project", new Document(positionField, 1)),
+                context -> new Document("$merge", new Document("into", collection)
+                        .append("on", "_id")
+                        .append("whenMatched", "merge")
+                        .append("whenNotMatched", "discard"))
+        );
+        mongoTemplate.aggregate(aggregation, collection, Document.class);
+    }
+
+    public static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    public static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    public static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    /**
+     * Update for an upsert that creates a missing record and leaves an existing one untouched
+     */
+    public static Update newRecord() {
+        LocalDateTime now = LocalDateTime.now();
+        return new Update()
+                .setOnInsert("_id", UUID.randomUUID().toString())
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now);
+    }
+
+    public <T> BulkWriter<T> bulkWriter(Class<T> type) {
+        return new BulkWriter<>(type);
+    }
+
+    /**
+     * Buffers updates and upserts, sent as one unordered bulk per batch size
+     */
+    public class BulkWriter<T> {
+        private final Class<T> type;
+        private BulkOperations bulk;
+        private int pending = 0;
+
+        private BulkWriter(Class<T> type) {
+            this.type = type;
+        }
+
+        public void update(Query query, Update update) {
+            operations().updateOne(query, update);
+            afterAdd();
+        }
+
+        public void upsert(Query query, Update update) {
+            operations().upsert(query, update);
+            afterAdd();
+        }
+
+        public void flush() {
+            if (pending > 0) {
+                bulk.execute();
+            }
+            bulk = null;
+            pending = 0;
+        }
+
+        private BulkOperations operations() {
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+            }
+            return bulk;
+        }
+
+        private void afterAdd() {
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+    }
+
+    @Getter
+    @Setter
+    static class KeyCount {
+        private UUID id;
+        private Long count;
+    }
+
+    @Getter
+    @Setter
+    static class TotalCount {
+        private BigDecimal total;
+        private Long count;
+    }
+}
@@ -0,0 +1,40 @@
+package com.se100.bds.services.domains.ranking.scheduler;
+
+import com.se100.bds.services.domains.ranking.events.RankingEventProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+/**
+ * Rebuilds one month from the ranking event log outside the request, holding the same lock as the midnight
+ * ranking runs so the two never rewrite the same records at once
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RankingReplayJob {
+    private final RankingEventProcessor rankingEventProcessor;
+    private final RankingBatchSupport rankingBatchSupport;
+    private final SaleAgentRankingScheduler saleAgentRankingScheduler;
+    private final CustomerRankingScheduler customerRankingScheduler;
+    private final PropertyOwnerRankingScheduler propertyOwnerRankingScheduler;
+
+    @Async
+    public void replay(YearMonth month) {
+        rankingBatchSupport.exclusively(() -> {
+            try {
+                rankingEventProcessor.replay(month);
+
+                // Only the replayed month is scored again, the careers are summed from all months
+                saleAgentRankingScheduler.recalculateMonth(month);
+                customerRankingScheduler.recalculateMonth(month);
+                propertyOwnerRankingScheduler.recalculateMonth(month);
+            } catch (RuntimeException e) {
+                log.error("Could not replay the ranking events of {}: {}", month, e.getMessage());
+            }
+        });
+    }
+}
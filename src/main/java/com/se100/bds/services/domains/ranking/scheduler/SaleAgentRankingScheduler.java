@@ -3,73 +3,132 @@ package com.se100.bds.services.domains.ranking.scheduler;
 import com.se100.bds.models.entities.user.User;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceCareer;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceCareerRepository;
-import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceMonthRepository;
+import com.se100.bds.services.domains.property.cache.PropertyDetailsCache;
+import com.se100.bds.services.domains.ranking.cache.TierCache;
+import com.se100.bds.services.domains.ranking.leaderboard.Leaderboards;
 import com.se100.bds.services.domains.ranking.utils.RankingUtil;
 import com.se100.bds.services.domains.user.UserService;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.byId;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.monthCriteria;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.newRecord;
+import static com.se100.bds.services.domains.ranking.scheduler.RankingBatchSupport.orZero;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SaleAgentRankingScheduler {
-    private final IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository;
-    private final IndividualSalesAgentPerformanceCareerRepository individualSalesAgentPerformanceCareerRepository;
+    private static final String JOB = "sale_agent";
+
+    private final RankingBatchSupport rankingBatchSupport;
+    private final TierCache tierCache;
+    private final Leaderboards leaderboards;
     private final UserService userService;
+    private final PropertyDetailsCache propertyDetailsCache;
 
     // Run every day at 00:00 AM (midnight)
     @Scheduled(cron = "0 0 0 * * ?")
     protected void calculateRanking() {
-        createIfNotExist();
-
-        calculateRankingMonth();
-        calculateRankingAll();
-        calculateRankingPosition();
+        rankingBatchSupport.exclusively(() -> {
+            YearMonth currentMonth = YearMonth.now();
+
+            rankingBatchSupport.timed(JOB, "create", () -> createIfNotExist(currentMonth));
+            // Newest month first, so the previous month read for the extra point still holds its stored tier
+            rankingBatchSupport.timed(JOB, "month", () -> rankingBatchSupport.months(IndividualSalesAgentPerformanceMonth.class)
+                    .forEach(this::calculateRankingMonth));
+            rankingBatchSupport.timed(JOB, "career", this::calculateRankingAll);
+            rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(currentMonth));
+
+            reloadCaches();
+        });
     }
 
-    private void calculateRankingMonth() {
+    /**
+     * Points, tiers and positions of one month whose counters were rebuilt, careers are summed again from the
+     * months. The caller holds the ranking lock.
+     */
+    void recalculateMonth(YearMonth month) {
+        rankingBatchSupport.timed(JOB, "month", () -> calculateRankingMonth(month));
+        rankingBatchSupport.timed(JOB, "career", this::calculateRankingAll);
+        rankingBatchSupport.timed(JOB, "position", () -> calculateRankingPosition(month));
 
-        List<IndividualSalesAgentPerformanceMonth> agentPerformanceMonthList = individualSalesAgentPerformanceMonthRepository.findAll();
-        for (IndividualSalesAgentPerformanceMonth agentPerformanceMonth : agentPerformanceMonthList) {
-            updatePointMonth(agentPerformanceMonth);
-        }
+        reloadCaches();
+    }
 
-        individualSalesAgentPerformanceMonthRepository.saveAll(agentPerformanceMonthList);
+    private void reloadCaches() {
+        tierCache.reload(Constants.RoleEnum.SALESAGENT);
+        leaderboards.reload(Constants.RoleEnum.SALESAGENT);
+        // Property details show the new tiers
+        propertyDetailsCache.invalidateAll();
     }
 
-    private void calculateRankingAll() {
-        List<IndividualSalesAgentPerformanceCareer> agentPerformanceCareerList = individualSalesAgentPerformanceCareerRepository.findAll();
-        for (IndividualSalesAgentPerformanceCareer agentPerformanceCareer : agentPerformanceCareerList) {
-            updatePointAll(agentPerformanceCareer);
-        }
+    private void calculateRankingMonth(YearMonth month) {
+        RankingBatchSupport.BulkWriter<IndividualSalesAgentPerformanceMonth> writer =
+                rankingBatchSupport.bulkWriter(IndividualSalesAgentPerformanceMonth.class);
+
+        rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceMonth.class, monthCriteria(month), page -> {
+            Map<UUID, IndividualSalesAgentPerformanceMonth> previousMonth = rankingBatchSupport.prefetch(
+                    IndividualSalesAgentPerformanceMonth.class, "agent_id",
+                    page.stream().map(IndividualSalesAgentPerformanceMonth::getAgentId).toList(),
+                    monthCriteria(month.minusMonths(1)),
+                    IndividualSalesAgentPerformanceMonth::getAgentId);
+
+            for (IndividualSalesAgentPerformanceMonth agentPerformanceMonth : page) {
+                updatePointMonth(agentPerformanceMonth, previousMonth.get(agentPerformanceMonth.getAgentId()));
+                writer.update(byId(agentPerformanceMonth.getId()), new Update()
+                        .set("performance_point", agentPerformanceMonth.getPerformancePoint())
+                        .set("performance_tier", agentPerformanceMonth.getPerformanceTier()));
+            }
+        });
+        writer.flush();
+    }
 
-        individualSalesAgentPerformanceCareerRepository.saveAll(agentPerformanceCareerList);
+    /**
+     * Careers are the sum of the month records, so rerunning a month or replaying a past one never counts it twice
+     */
+    private void calculateRankingAll() {
+        Map<UUID, CareerTotals> totals = new HashMap<>();
+        rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceMonth.class, new Criteria(), page -> {
+            for (IndividualSalesAgentPerformanceMonth agentPerformanceMonth : page) {
+                totals.computeIfAbsent(agentPerformanceMonth.getAgentId(), agentId -> new CareerTotals()).add(agentPerformanceMonth);
+            }
+        });
+
+        RankingBatchSupport.BulkWriter<IndividualSalesAgentPerformanceCareer> writer =
+                rankingBatchSupport.bulkWriter(IndividualSalesAgentPerformanceCareer.class);
+        rankingBatchSupport.forEachPage(IndividualSalesAgentPerformanceCareer.class, new Criteria(), page -> {
+            for (IndividualSalesAgentPerformanceCareer agentPerformanceCareer : page) {
+                CareerTotals careerTotals = totals.getOrDefault(agentPerformanceCareer.getAgentId(), new CareerTotals());
+                writer.update(byId(agentPerformanceCareer.getId()), careerTotals.toUpdate());
+            }
+        });
+        writer.flush();
     }
 
-    private void updatePointMonth(IndividualSalesAgentPerformanceMonth individualSalesAgentPerformanceMonth) {
-        int conversionScore = (individualSalesAgentPerformanceMonth.getMonthContracts() / individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted()) * 100;
-        int completionScore = (individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted() / individualSalesAgentPerformanceMonth.getMonthAppointmentsAssigned()) * 100;
+    private void updatePointMonth(IndividualSalesAgentPerformanceMonth individualSalesAgentPerformanceMonth,
+                                  IndividualSalesAgentPerformanceMonth previousMonthDataRanking) {
+        int conversionScore = individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted() > 0 ?
+                (individualSalesAgentPerformanceMonth.getMonthContracts() / individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted()) * 100 : 0;
+        int completionScore = individualSalesAgentPerformanceMonth.getMonthAppointmentsAssigned() > 0 ?
+                (individualSalesAgentPerformanceMonth.getMonthAppointmentsCompleted() / individualSalesAgentPerformanceMonth.getMonthAppointmentsAssigned()) * 100 : 0;
         int satisfactionScore = individualSalesAgentPerformanceMonth.getMonthCustomerSatisfactionAvg().intValue();
 
-        LocalDateTime previousMonthTime = RankingUtil.getPreviousMonth(
-                individualSalesAgentPerformanceMonth.getMonth(),
-                individualSalesAgentPerformanceMonth.getYear()
-        );
-        IndividualSalesAgentPerformanceMonth previousMonthDataRanking = individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                individualSalesAgentPerformanceMonth.getAgentId(),
-                previousMonthTime.getMonthValue(), previousMonthTime.getYear()
-        );
         int extraPoint = 0;
         if (previousMonthDataRanking != null) {
             extraPoint = RankingUtil.getExtraPoint(previousMonthDataRanking.getPerformanceTier().getValue());
@@ -89,173 +148,112 @@ public class SaleAgentRankingScheduler {
         individualSalesAgentPerformanceMonth.setPerformanceTier(newPerformanceTier);
     }
 
-    private void updatePointAll(IndividualSalesAgentPerformanceCareer individualSalesAgentPerformanceCareer) {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        IndividualSalesAgentPerformanceMonth currentMonthData = individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                individualSalesAgentPerformanceCareer.getAgentId(),
-                month, year
-        );
-
-        if (currentMonthData != null) {
-            individualSalesAgentPerformanceCareer.setPerformancePoint(
-                    individualSalesAgentPerformanceCareer.getPerformancePoint() +
-                    currentMonthData.getPerformancePoint());
-            individualSalesAgentPerformanceCareer.setPropertiesAssigned(
-                    individualSalesAgentPerformanceCareer.getPropertiesAssigned() +
-                    currentMonthData.getMonthPropertiesAssigned()
-            );
-            individualSalesAgentPerformanceCareer.setAppointmentAssigned(
-                    individualSalesAgentPerformanceCareer.getAppointmentAssigned() +
-                    currentMonthData.getMonthAppointmentsAssigned()
-            );
-            individualSalesAgentPerformanceCareer.setAppointmentCompleted(
-                    individualSalesAgentPerformanceCareer.getAppointmentCompleted() +
-                    currentMonthData.getMonthAppointmentsCompleted()
-            );
-            individualSalesAgentPerformanceCareer.setTotalContracts(
-                    individualSalesAgentPerformanceCareer.getTotalContracts() +
-                    currentMonthData.getMonthContracts()
-            );
-            individualSalesAgentPerformanceCareer.setTotalRates(
-                    individualSalesAgentPerformanceCareer.getTotalRates() +
-                    currentMonthData.getMonthRates()
-            );
-
-            // Calculate average rating and customer satisfaction
-            Long monthCount = individualSalesAgentPerformanceMonthRepository.countByAgentId(individualSalesAgentPerformanceCareer.getAgentId());
-
-            if (monthCount > 0) {
-                BigDecimal newAvgRating = (individualSalesAgentPerformanceCareer.getAvgRating()
-                        .multiply(BigDecimal.valueOf(monthCount - 1))
-                        .add(currentMonthData.getAvgRating()))
-                        .divide(BigDecimal.valueOf(monthCount), 2, RoundingMode.HALF_UP);
-                individualSalesAgentPerformanceCareer.setAvgRating(newAvgRating);
-
-                BigDecimal newCustomerSatisfactionAvg = (individualSalesAgentPerformanceCareer.getCustomerSatisfactionAvg()
-                        .multiply(BigDecimal.valueOf(monthCount - 1))
-                        .add(currentMonthData.getMonthCustomerSatisfactionAvg()))
-                        .divide(BigDecimal.valueOf(monthCount), 2, RoundingMode.HALF_UP);
-                individualSalesAgentPerformanceCareer.setCustomerSatisfactionAvg(newCustomerSatisfactionAvg);
-            }
-        }
-    }
-
-    private void calculateRankingPosition() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
-        // Calculate ranking for current month
+    private void calculateRankingPosition(YearMonth month) {
+        // Calculate ranking for the month
         try {
-            List<IndividualSalesAgentPerformanceMonth> agentPerformanceMonthList = individualSalesAgentPerformanceMonthRepository.findAll().stream()
-                    .filter(m -> m.getMonth().equals(month) && m.getYear().equals(year)).sorted((a1, a2) -> a2.getPerformancePoint().compareTo(a1.getPerformancePoint())).collect(Collectors.toList());
-
-            // Sort by performancePoint descending
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualSalesAgentPerformanceMonth agentPerformance : agentPerformanceMonthList) {
-                if (previousPoint != null && !previousPoint.equals(agentPerformance.getPerformancePoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                agentPerformance.setRankingPosition(ranking);
-                previousPoint = agentPerformance.getPerformancePoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualSalesAgentPerformanceMonthRepository.saveAll(agentPerformanceMonthList);
+            rankingBatchSupport.assignPositions(IndividualSalesAgentPerformanceMonth.class, monthCriteria(month),
+                    "performance_point", "ranking_position");
         } catch (Exception e) {
             log.error("calculateRankingPosition for month - {}", e.getMessage());
         }
 
         // Calculate ranking for all time
         try {
-            List<IndividualSalesAgentPerformanceCareer> agentPerformanceCareerList = individualSalesAgentPerformanceCareerRepository.findAll();
-
-            // Sort by performancePoint descending
-            agentPerformanceCareerList.sort((a1, a2) -> a2.getPerformancePoint().compareTo(a1.getPerformancePoint()));
-
-            // Update ranking with handling for same points
-            int ranking = 1;
-            Integer previousPoint = null;
-            int currentPosition = 1;
-
-            for (IndividualSalesAgentPerformanceCareer agentPerformance : agentPerformanceCareerList) {
-                if (previousPoint != null && !previousPoint.equals(agentPerformance.getPerformancePoint())) {
-                    // Different point, update ranking to current position
-                    ranking = currentPosition;
-                }
-                agentPerformance.setCareerRanking(ranking);
-                previousPoint = agentPerformance.getPerformancePoint();
-                currentPosition++;
-            }
-
-            // Save all
-            individualSalesAgentPerformanceCareerRepository.saveAll(agentPerformanceCareerList);
+            rankingBatchSupport.assignPositions(IndividualSalesAgentPerformanceCareer.class, new Criteria(),
+                    "performance_point", "career_ranking");
         } catch (Exception e) {
             log.error("calculateRankingPosition for all - {}", e.getMessage());
         }
     }
 
-    private void createIfNotExist() {
-        int month = LocalDate.now().getMonthValue();
-        int year = LocalDate.now().getYear();
-
+    private void createIfNotExist(YearMonth currentMonth) {
         List<User> availableAgents = userService.findAllByRoleAndStillAvailable(Constants.RoleEnum.SALESAGENT);
 
+        // Upserts that only write on insert, so existing records are left as they are without looking them up first
+        RankingBatchSupport.BulkWriter<IndividualSalesAgentPerformanceCareer> careerWriter =
+                rankingBatchSupport.bulkWriter(IndividualSalesAgentPerformanceCareer.class);
+        RankingBatchSupport.BulkWriter<IndividualSalesAgentPerformanceMonth> monthWriter =
+                rankingBatchSupport.bulkWriter(IndividualSalesAgentPerformanceMonth.class);
 
         for (User availableAgent : availableAgents) {
+            // Data for all history tracking
+            careerWriter.upsert(
+                    Query.query(Criteria.where("agent_id").is(availableAgent.getId())),
+                    newRecord()
+                            .setOnInsert("performance_point", 0)
+                            .setOnInsert("career_ranking", 0)
+                            .setOnInsert("properties_assigned", 0)
+                            .setOnInsert("appointment_assigned", 0)
+                            .setOnInsert("appointment_completed", 0)
+                            .setOnInsert("total_contracts", 0)
+                            .setOnInsert("total_rates", 0)
+                            .setOnInsert("avg_rating", BigDecimal.ZERO)
+                            .setOnInsert("customer_satisfaction_avg", BigDecimal.ZERO)
+            );
 
-            // Check if data exists for all history tracking
-            if (individualSalesAgentPerformanceCareerRepository.findByAgentId(
-                    availableAgent.getId()
-            ) != null) {
-                individualSalesAgentPerformanceCareerRepository.save(
-                    IndividualSalesAgentPerformanceCareer.builder()
-                            .agentId(availableAgent.getId())
-                            .performancePoint(0)
-                            .careerRanking(0)
-                            .propertiesAssigned(0)
-                            .appointmentAssigned(0)
-                            .appointmentCompleted(0)
-                            .totalContracts(0)
-                            .totalRates(0)
-                            .avgRating(BigDecimal.ZERO)
-                            .customerSatisfactionAvg(BigDecimal.ZERO)
-                            .build()
-                );
-            }
+            // Data for current month tracking
+            monthWriter.upsert(
+                    Query.query(Criteria.where("agent_id").is(availableAgent.getId())
+                            .and("month").is(currentMonth.getMonthValue())
+                            .and("year").is(currentMonth.getYear())),
+                    newRecord()
+                            .setOnInsert("performance_point", 0)
+                            .setOnInsert("performance_tier", Constants.PerformanceTierEnum.BRONZE)
+                            .setOnInsert("ranking_position", 0)
+                            .setOnInsert("handling_properties", 0)
+                            .setOnInsert("month_properties_assigned", 0)
+                            .setOnInsert("month_appointments_assigned", 0)
+                            .setOnInsert("month_appointments_completed", 0)
+                            .setOnInsert("month_contracts", 0)
+                            .setOnInsert("month_rates", 0)
+                            .setOnInsert("avg_rating", BigDecimal.ZERO)
+                            .setOnInsert("month_customer_satisfaction_avg", BigDecimal.ZERO)
+                            .setOnInsert("rating_sum", BigDecimal.ZERO)
+                            .setOnInsert("satisfied_rates", 0)
+            );
+        }
 
-            // Check if data exists for current month tracking
-            if (individualSalesAgentPerformanceMonthRepository.findByAgentIdAndMonthAndYear(
-                    availableAgent.getId(),
-                    month, year
-            ) != null) {
-                individualSalesAgentPerformanceMonthRepository.save(
-                        IndividualSalesAgentPerformanceMonth.builder()
-                                .agentId(availableAgent.getId())
-                                .month(month)
-                                .year(year)
-                                .performancePoint(0)
-                                .performanceTier(Constants.PerformanceTierEnum.BRONZE)
-                                .rankingPosition(0)
-                                .handlingProperties(0)
-                                .monthPropertiesAssigned(0)
-                                .monthAppointmentsAssigned(0)
-                                .monthAppointmentsCompleted(0)
-                                .monthContracts(0)
-                                .monthRates(0)
-                                .avgRating(BigDecimal.ZERO)
-                                .monthCustomerSatisfactionAvg(BigDecimal.ZERO)
-                                .build()
-                );
-            }
+        careerWriter.flush();
+        monthWriter.flush();
+    }
+
+    /**
+     * Running sums of one agent's months, the averages are the mean of the monthly averages
+     */
+    private static final class CareerTotals {
+        private int performancePoint;
+        private int propertiesAssigned;
+        private int appointmentAssigned;
+        private int appointmentCompleted;
+        private int totalContracts;
+        private int totalRates;
+        private BigDecimal ratingSum = BigDecimal.ZERO;
+        private BigDecimal satisfactionSum = BigDecimal.ZERO;
+        private int months;
+
+        private void add(IndividualSalesAgentPerformanceMonth monthData) {
+            performancePoint += orZero(monthData.getPerformancePoint());
+            propertiesAssigned += orZero(monthData.getMonthPropertiesAssigned());
+            appointmentAssigned += orZero(monthData.getMonthAppointmentsAssigned());
+            appointmentCompleted += orZero(monthData.getMonthAppointmentsCompleted());
+            totalContracts += orZero(monthData.getMonthContracts());
+            totalRates += orZero(monthData.getMonthRates());
+            ratingSum = ratingSum.add(orZero(monthData.getAvgRating()));
+            satisfactionSum = satisfactionSum.add(orZero(monthData.getMonthCustomerSatisfactionAvg()));
+            months++;
+        }
+
+        private Update toUpdate() {
+            BigDecimal monthCount = BigDecimal.valueOf(Math.max(months, 1));
+            return new Update()
+                    .set("performance_point", performancePoint)
+                    .set("properties_assigned", propertiesAssigned)
+                    .set("appointment_assigned", appointmentAssigned)
+                    .set("appointment_completed", appointmentCompleted)
+                    .set("total_contracts", totalContracts)
+                    .set("total_rates", totalRates)
+                    .set("avg_rating", ratingSum.divide(monthCount, 2, RoundingMode.HALF_UP))
+                    .set("customer_satisfaction_avg", satisfactionSum.divide(monthCount, 2, RoundingMode.HALF_UP));
         }
     }
 }
@@ -0,0 +1,6 @@
+package com.se100.bds.services.domains.report.dashboard;
+
+/**
+ * Published when data behind the admin dashboard changed, the snapshot is refreshed on the next tick
+ */
+public record DashboardDataChangedEvent(String source) {}
@@ -0,0 +1,244 @@
+package com.se100.bds.services.domains.report.dashboard;
+
+import com.se100.bds.dtos.responses.admindashboard.DashboardTopStats;
+import com.se100.bds.models.schemas.report.AgentPerformanceReport;
+import com.se100.bds.models.schemas.report.CustomerAnalyticsReport;
+import com.se100.bds.models.schemas.report.FinancialReport;
+import com.se100.bds.models.schemas.report.PropertyOwnerContributionReport;
+import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
+import com.se100.bds.repositories.domains.mongo.report.AgentPerformanceReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.CustomerAnalyticsReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.FinancialReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.PropertyOwnerContributionReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
+import com.se100.bds.services.domains.report.scheduler.FinancialReportScheduler;
+import com.se100.bds.services.domains.report.scheduler.PropertyStatisticsReportScheduler;
+import com.se100.bds.services.domains.report.scheduler.UserReportScheduler;
+import com.se100.bds.utils.Constants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Serves the admin dashboard top stats from the latest snapshot instead of rebuilding the reports behind
+ * them on every load. Snapshots are refreshed in the background on a cadence, or sooner after a
+ * {@link DashboardDataChangedEvent} but never more often than the minimum gap, and concurrent refreshes
+ * share one run.
+ */
+@Slf4j
+@Service
+public class DashboardSnapshotService {
+    private final PropertyStatisticsReportScheduler propertyStatisticsReportScheduler;
+    private final FinancialReportScheduler financialReportScheduler;
+    private final UserReportScheduler userReportScheduler;
+    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final FinancialReportRepository financialReportRepository;
+    private final CustomerAnalyticsReportRepository customerAnalyticsReportRepository;
+    private final AgentPerformanceReportRepository agentPerformanceReportRepository;
+    private final PropertyOwnerContributionReportRepository propertyOwnerContributionReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
+    private final Executor snapshotExecutor;
+    private final long refreshIntervalMs;
+    private final long minRefreshGapMs;
+
+    private volatile Snapshot latest;
+    private volatile boolean dirty;
+    private final AtomicReference<CompletableFuture<Snapshot>> refreshing = new AtomicReference<>();
+
+    public DashboardSnapshotService(PropertyStatisticsReportScheduler propertyStatisticsReportScheduler,
+                                    FinancialReportScheduler financialReportScheduler,
+                                    UserReportScheduler userReportScheduler,
+                                    PropertyStatisticsReportRepository propertyStatisticsReportRepository,
+                                    FinancialReportRepository financialReportRepository,
+                                    CustomerAnalyticsReportRepository customerAnalyticsReportRepository,
+                                    AgentPerformanceReportRepository agentPerformanceReportRepository,
+                                    PropertyOwnerContributionReportRepository propertyOwnerContributionReportRepository,
+                                    ReportBucketRepository reportBucketRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Qualifier("dashboardSnapshotExecutor") Executor snapshotExecutor,
+                                    @Value("${app.dashboard-snapshot.refresh-interval-ms:300000}") long refreshIntervalMs,
+                                    @Value("${app.dashboard-snapshot.min-refresh-gap-ms:60000}") long minRefreshGapMs) {
+        this.propertyStatisticsReportScheduler = propertyStatisticsReportScheduler;
+        this.financialReportScheduler = financialReportScheduler;
+        this.userReportScheduler = userReportScheduler;
+        this.propertyStatisticsReportRepository = propertyStatisticsReportRepository;
+        this.financialReportRepository = financialReportRepository;
+        this.customerAnalyticsReportRepository = customerAnalyticsReportRepository;
+        this.agentPerformanceReportRepository = agentPerformanceReportRepository;
+        this.propertyOwnerContributionReportRepository = propertyOwnerContributionReportRepository;
+        this.reportBucketRepository = reportBucketRepository;
+        this.snapshotExecutor = snapshotExecutor;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.minRefreshGapMs = minRefreshGapMs;
+
+        Gauge.builder("dashboard.snapshot.age_seconds", this, service -> {
+                    Snapshot snapshot = service.latest;
+                    return snapshot != null ? Duration.between(snapshot.takenAt(), LocalDateTime.now()).toSeconds() : -1;
+                })
+                .register(meterRegistry);
+    }
+
+    /**
+     * Top stats of the latest snapshot with its age, only the very first read waits for a refresh
+     */
+    public DashboardTopStats getTopStats() {
+        Snapshot snapshot = latest;
+        if (snapshot == null) {
+            snapshot = refresh().join();
+        }
+        DashboardTopStats stats = snapshot.stats();
+        return DashboardTopStats.builder()
+                .totalProperties(stats.getTotalProperties())
+                .totalContracts(stats.getTotalContracts())
+                .monthRevenue(stats.getMonthRevenue())
+                .totalUsers(stats.getTotalUsers())
+                .customerStatisfaction(stats.getCustomerStatisfaction())
+                .snapshotAt(snapshot.takenAt())
+                .snapshotAgeSeconds(Duration.between(snapshot.takenAt(), LocalDateTime.now()).toSeconds())
+                .build();
+    }
+
+    @EventListener
+    public void onDashboardDataChanged(DashboardDataChangedEvent event) {
+        dirty = true;
+    }
+
+    /**
+     * Refresh when the snapshot reached the refresh interval, or when the data changed and the snapshot is at
+     * least the minimum gap old, so a steady stream of changes costs one refresh per gap. The refresh runs on
+     * its own executor, the scheduling thread only starts it.
+     */
+    @Scheduled(fixedDelayString = "${app.dashboard-snapshot.check-interval-ms:15000}")
+    public void refreshIfNeeded() {
+        Snapshot snapshot = latest;
+        long ageMs = snapshot != null ? Duration.between(snapshot.takenAt(), LocalDateTime.now()).toMillis() : Long.MAX_VALUE;
+        boolean expired = ageMs >= refreshIntervalMs;
+        boolean changed = dirty && ageMs >= minRefreshGapMs;
+        if ((!expired && !changed) || refreshing.get() != null) {
+            return;
+        }
+        try {
+            snapshotExecutor.execute(() -> {
+                try {
+                    refresh().join();
+                } catch (RuntimeException e) {
+                    log.error("Could not refresh the dashboard snapshot, serving the previous one: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // A refresh is already queued, it covers this one
+            log.debug("Dashboard snapshot refresh already queued");
+        }
+    }
+
+    /**
+     * Take a new snapshot, or join the one being taken
+     */
+    public CompletableFuture<Snapshot> refresh() {
+        CompletableFuture<Snapshot> created = new CompletableFuture<>();
+        CompletableFuture<Snapshot> running = refreshing.compareAndExchange(null, created);
+        if (running != null) {
+            return running;
+        }
+
+        // Changes from here on are not guaranteed to be in this snapshot, they mark the next one
+        dirty = false;
+        try {
+            long start = System.currentTimeMillis();
+            Snapshot snapshot = new Snapshot(compute(), LocalDateTime.now());
+            latest = snapshot;
+            created.complete(snapshot);
+            log.info("Dashboard snapshot refreshed in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            dirty = true;
+            created.completeExceptionally(e);
+        } finally {
+            refreshing.set(null);
+        }
+        return created;
+    }
+
+    private DashboardTopStats compute() {
+        int currentMonth = LocalDate.now().getMonthValue();
+        int currentYear = LocalDate.now().getYear();
+
+        // Run init schedulers in parallel for latest data
+        CompletableFuture<Void> propertyStatsFuture = propertyStatisticsReportScheduler.initPropertyStatisticsReportData(currentMonth, currentYear);
+        CompletableFuture<Void> financialFuture = financialReportScheduler.initFinancialReportData(currentMonth, currentYear);
+        CompletableFuture<Void> customerFuture = userReportScheduler.generateCustomerAnalyticsReport(currentMonth, currentYear);
+        CompletableFuture<Void> agentFuture = userReportScheduler.generateAgentPerformanceReport(currentMonth, currentYear);
+        CompletableFuture<Void> ownerFuture = userReportScheduler.generatePropertyOwnerContributionReport(currentMonth, currentYear);
+
+        // Wait for property stats and financial to complete first (needed for totalProperties and totalContracts)
+        CompletableFuture.allOf(propertyStatsFuture, financialFuture).join();
+
+        // Get totalProperties from property statistics report
+        PropertyStatisticsReport propertyReport = propertyStatisticsReportRepository
+                .findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(currentMonth, currentYear);
+        Integer totalProperties = propertyReport != null ? propertyReport.getTotalActiveProperties() : 0;
+
+        // Get totalContracts and calculate monthRevenue from financial report
+        FinancialReport currentFinancialReport = financialReportRepository
+                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
+        Integer totalContracts = currentFinancialReport != null ? currentFinancialReport.getContractCount() : 0;
+
+        // Calculate monthRevenue = current month revenue - previous month revenue
+        BigDecimal monthRevenue = BigDecimal.ZERO;
+        if (currentFinancialReport != null) {
+            BigDecimal currentRevenue = reportBucketRepository.findTotal(
+                    Constants.ReportDimensionEnum.TOTAL_REVENUE, currentMonth, currentYear);
+
+            // A month without a report has no total bucket either, so it reads as 0
+            BigDecimal previousRevenue = currentMonth == 1
+                    ? reportBucketRepository.findTotal(Constants.ReportDimensionEnum.TOTAL_REVENUE, 12, currentYear - 1)
+                    : reportBucketRepository.findTotal(Constants.ReportDimensionEnum.TOTAL_REVENUE, currentMonth - 1, currentYear);
+
+            monthRevenue = currentRevenue.subtract(previousRevenue);
+        }
+
+        // Wait for user reports to complete
+        CompletableFuture.allOf(customerFuture, agentFuture, ownerFuture).join();
+
+        // Get totalUsers from all user reports
+        CustomerAnalyticsReport customerReport = customerAnalyticsReportRepository
+                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
+        AgentPerformanceReport agentReport = agentPerformanceReportRepository
+                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
+        PropertyOwnerContributionReport ownerReport = propertyOwnerContributionReportRepository
+                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
+
+        int totalCustomers = customerReport != null && customerReport.getTotalCustomers() != null ? customerReport.getTotalCustomers() : 0;
+        int totalAgents = agentReport != null && agentReport.getTotalAgents() != null ? agentReport.getTotalAgents() : 0;
+        int totalOwners = ownerReport != null && ownerReport.getTotalOwners() != null ? ownerReport.getTotalOwners() : 0;
+        Integer totalUsers = totalCustomers + totalAgents + totalOwners;
+
+        // Get customerSatisfaction from customer analytics report
+        Double customerSatisfaction = customerReport != null && customerReport.getCustomerSatisfactionScore() != null
+                ? customerReport.getCustomerSatisfactionScore().doubleValue() : 0.0;
+
+        return DashboardTopStats.builder()
+                .totalProperties(totalProperties)
+                .totalContracts(totalContracts)
+                .monthRevenue(monthRevenue)
+                .totalUsers(totalUsers)
+                .customerStatisfaction(customerSatisfaction)
+                .build();
+    }
+
+    public record Snapshot(DashboardTopStats stats, LocalDateTime takenAt) {}
+}
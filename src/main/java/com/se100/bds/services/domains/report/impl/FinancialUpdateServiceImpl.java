@@ -1,8 +1,6 @@
 package com.se100.bds.services.domains.report.impl;
 
 import com.se100.bds.models.entities.property.Property;
-import com.se100.bds.models.schemas.report.FinancialReport;
-import com.se100.bds.models.schemas.report.RankedRevenueItem;
 import com.se100.bds.repositories.domains.mongo.report.FinancialReportRepository;
 import com.se100.bds.repositories.domains.property.PropertyRepository;
 import com.se100.bds.services.domains.report.FinancialUpdateService;
@@ -13,7 +11,6 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
@@ -33,44 +30,10 @@ public class FinancialUpdateServiceImpl implements FinancialUpdateService {
         UUID districtId = property.getWard().getDistrict().getId();
         UUID cityId = property.getWard().getDistrict().getCity().getId();
 
-        FinancialReport financialReport = financialReportRepository.findByBaseReportData_MonthAndBaseReportData_Year(month, year);
-        if (financialReport == null) return;
-
-        CompletableFuture<Void> cityFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem city : financialReport.getRevenueCities()) {
-                if (cityId.equals(city.getId())) {
-                    city.setRevenue(city.getRevenue().add(value));
-                }
-            }
-        });
-
-        CompletableFuture<Void> districtFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem district : financialReport.getRevenueDistricts()) {
-                if (districtId.equals(district.getId())) {
-                    district.setRevenue(district.getRevenue().add(value));
-                }
-            }
-        });
-
-        CompletableFuture<Void> wardFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem ward : financialReport.getRevenueWards()) {
-                if (wardId.equals(ward.getId())) {
-                    ward.setRevenue(ward.getRevenue().add(value));
-                }
-            }
-        });
-
-        CompletableFuture<Void> propertyTypeFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem propertyType : financialReport.getRevenuePropertyTypes()) {
-                if (propertyTypeId.equals(propertyType.getId())) {
-                    propertyType.setRevenue(propertyType.getRevenue().add(value));
-                }
-            }
-        });
-
-        CompletableFuture.allOf(cityFuture, districtFuture, wardFuture, propertyTypeFuture).join();
-
-        financialReport.setTotalRevenue(financialReport.getTotalRevenue().add(value));
-        financialReportRepository.save(financialReport);
+        // Increments of the total and the matching buckets instead of saving the whole report, concurrent payments both count
+        boolean updated = financialReportRepository.incrementRevenue(month, year, value, cityId, districtId, wardId, propertyTypeId);
+        if (!updated) {
+            log.debug("No financial report for month {} year {}, revenue of property {} not recorded", month, year, propertyId);
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.se100.bds.services.domains.report.impl;
 
 import com.se100.bds.dtos.responses.admindashboard.*;
+import com.se100.bds.dtos.responses.ranking.LeaderboardEntry;
 import com.se100.bds.dtos.responses.statisticreport.*;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
 import com.se100.bds.models.schemas.report.*;
@@ -13,7 +14,9 @@ import com.se100.bds.repositories.domains.mongo.ranking.IndividualPropertyOwnerC
 import com.se100.bds.repositories.domains.violation.ViolationRepository;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.property.PropertyService;
+import com.se100.bds.services.domains.ranking.leaderboard.Leaderboards;
 import com.se100.bds.services.domains.report.ReportService;
+import com.se100.bds.services.domains.report.dashboard.DashboardSnapshotService;
 import com.se100.bds.services.domains.report.scheduler.FinancialReportScheduler;
 import com.se100.bds.services.domains.report.scheduler.PropertyStatisticsReportScheduler;
 import com.se100.bds.services.domains.report.scheduler.UserReportScheduler;
@@ -27,8 +30,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +42,8 @@ import java.util.stream.Collectors;
 public class ReportServiceImpl implements ReportService {
 
     private final UserService userService;
+    private final Leaderboards leaderboards;
+    private final DashboardSnapshotService dashboardSnapshotService;
     private final UserReportScheduler userReportScheduler;
     private final PropertyStatisticsReportScheduler propertyStatisticsReportScheduler;
     private final FinancialReportScheduler financialReportScheduler;
@@ -53,6 +60,7 @@ public class ReportServiceImpl implements ReportService {
     private final LocationService locationService;
     private final PropertyService propertyService;
     private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
     private final ViolationReportDetailsRepository violationReportDetailsRepository;
     private final ViolationRepository violationRepository;
 
@@ -228,13 +236,14 @@ public class ReportServiceImpl implements ReportService {
         );
 
         FinancialStats financialStats = new FinancialStats();
-        financialStats.setTotalRevenue(financialReport.getTotalRevenue());
+        financialStats.setTotalRevenue(reportBucketRepository.findTotal(Constants.ReportDimensionEnum.TOTAL_REVENUE, month, year));
         financialStats.setTax(financialReport.getTax());
         financialStats.setNetProfit(financialReport.getNetProfit());
         financialStats.setAvgRating(financialStats.getAvgRating());
         financialStats.setTotalRates(financialReport.getTotalRates());
 
         List<FinancialReport> financialReportList = financialReportRepository.findAllByBaseReportData_Year(year);
+        Map<Integer, BigDecimal> revenueTotals = reportBucketRepository.findTotalsByMonth(Constants.ReportDimensionEnum.TOTAL_REVENUE, year);
         Map<Integer, BigDecimal> totalRevenueChart = new HashMap<>();
         Map<Integer, Integer> totalContractsChart = new HashMap<>();
         Map<Integer, BigDecimal> agentSalaryChart = new HashMap<>();
@@ -245,63 +254,25 @@ public class ReportServiceImpl implements ReportService {
         for (FinancialReport financialReportItem : financialReportList) {
             int monthI = financialReportItem.getBaseReportData().getMonth();
 
-            totalRevenueChart.put(monthI, financialReportItem.getTotalRevenue());
+            totalRevenueChart.put(monthI, revenueTotals.getOrDefault(monthI, BigDecimal.ZERO));
             totalContractsChart.put(monthI, financialReportItem.getContractCount());
             agentSalaryChart.put(monthI, financialReportItem.getTotalSalary());
-
-            for (RankedRevenueItem city : financialReportItem.getRevenueCities()) {
-                futures.add(CompletableFuture.supplyAsync(() ->
-                    locationService.getLocationName(city.getId(), Constants.LocationEnum.CITY)
-                ).thenAccept(cityName -> {
-                    synchronized (targetRevenueChart) {
-                        if (!targetRevenueChart.containsKey(cityName)) {
-                            targetRevenueChart.put(cityName, new HashMap<>());
-                        }
-                        targetRevenueChart.get(cityName).put(monthI, city.getRevenue());
-                    }
-                }));
-            }
-
-            for (RankedRevenueItem district : financialReportItem.getRevenueDistricts()) {
-                futures.add(CompletableFuture.supplyAsync(() ->
-                    locationService.getLocationName(district.getId(), Constants.LocationEnum.DISTRICT)
-                ).thenAccept(districtName -> {
-                    synchronized (targetRevenueChart) {
-                        if (!targetRevenueChart.containsKey(districtName)) {
-                            targetRevenueChart.put(districtName, new HashMap<>());
-                        }
-                        targetRevenueChart.get(districtName).put(monthI, district.getRevenue());
-                    }
-                }));
-            }
-
-            for (RankedRevenueItem ward :  financialReportItem.getRevenueWards()) {
-                futures.add(CompletableFuture.supplyAsync(() ->
-                    locationService.getLocationName(ward.getId(), Constants.LocationEnum.WARD)
-                ).thenAccept(wardName -> {
-                    synchronized (targetRevenueChart) {
-                        if (!targetRevenueChart.containsKey(wardName)) {
-                            targetRevenueChart.put(wardName, new HashMap<>());
-                        }
-                        targetRevenueChart.get(wardName).put(monthI, ward.getRevenue());
-                    }
-                }));
-            }
-
-            for (RankedRevenueItem propertyType :  financialReportItem.getRevenuePropertyTypes()) {
-                futures.add(CompletableFuture.supplyAsync(() ->
-                    propertyService.getPropertyTypeName(propertyType.getId())
-                ).thenAccept(propertyTypeName -> {
-                    synchronized (targetRevenueChart) {
-                        if (!targetRevenueChart.containsKey(propertyTypeName)) {
-                            targetRevenueChart.put(propertyTypeName, new HashMap<>());
-                        }
-                        targetRevenueChart.get(propertyTypeName).put(monthI, propertyType.getRevenue());
-                    }
-                }));
-            }
         }
 
+        // One dimension at a time, the headers above carry none of the per id revenue
+        addTargetChart(targetRevenueChart, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.REVENUE_CITIES, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.CITY), Function.identity());
+        addTargetChart(targetRevenueChart, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.REVENUE_DISTRICTS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.DISTRICT), Function.identity());
+        addTargetChart(targetRevenueChart, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.REVENUE_WARDS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.WARD), Function.identity());
+        addTargetChart(targetRevenueChart, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.REVENUE_PROPERTY_TYPES, year),
+                propertyService::getPropertyTypeName, Function.identity());
+
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
         financialStats.setTotalRevenueChart(totalRevenueChart);
@@ -344,6 +315,8 @@ public class ReportServiceImpl implements ReportService {
         Map<Integer, Integer> totalProperties = new HashMap<>();
         Map<Integer, Integer> totalSoldProperties = new HashMap<>();
         Map<Integer, Integer> totalRentedProperties = new HashMap<>();
+        Map<Integer, Integer> totalViews = new HashMap<>();
+        Map<Integer, BigDecimal> viewTotals = reportBucketRepository.findTotalsByMonth(Constants.ReportDimensionEnum.TOTAL_VIEWS, year);
         Map<String, Map<Integer, Long>> searchedTargets = new HashMap<>();
         Map<String, Map<Integer, Long>> favoriteTargets = new HashMap<>();
 
@@ -355,149 +328,62 @@ public class ReportServiceImpl implements ReportService {
             totalProperties.put(monthI, propertyStatisticsReportItem.getTotalActiveProperties());
             totalSoldProperties.put(monthI, propertyStatisticsReportItem.getTotalSoldProperties());
             totalRentedProperties.put(monthI, propertyStatisticsReportItem.getTotalRentedProperties());
-
-            // Process searched targets
-            if (propertyStatisticsReportItem.getSearchedCities() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getSearchedCities().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.CITY)
-                    ).thenAccept(cityName -> {
-                        synchronized (searchedTargets) {
-                            if (!searchedTargets.containsKey(cityName)) {
-                                searchedTargets.put(cityName, new HashMap<>());
-                            }
-                            searchedTargets.get(cityName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getSearchedDistricts() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getSearchedDistricts().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.DISTRICT)
-                    ).thenAccept(districtName -> {
-                        synchronized (searchedTargets) {
-                            if (!searchedTargets.containsKey(districtName)) {
-                                searchedTargets.put(districtName, new HashMap<>());
-                            }
-                            searchedTargets.get(districtName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getSearchedWards() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getSearchedWards().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.WARD)
-                    ).thenAccept(wardName -> {
-                        synchronized (searchedTargets) {
-                            if (!searchedTargets.containsKey(wardName)) {
-                                searchedTargets.put(wardName, new HashMap<>());
-                            }
-                            searchedTargets.get(wardName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getSearchedPropertyTypes() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getSearchedPropertyTypes().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        propertyService.getPropertyTypeName(entry.getKey())
-                    ).thenAccept(propertyTypeName -> {
-                        synchronized (searchedTargets) {
-                            if (!searchedTargets.containsKey(propertyTypeName)) {
-                                searchedTargets.put(propertyTypeName, new HashMap<>());
-                            }
-                            searchedTargets.get(propertyTypeName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            // Process favorite targets
-            if (propertyStatisticsReportItem.getFavoriteCities() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getFavoriteCities().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.CITY)
-                    ).thenAccept(cityName -> {
-                        synchronized (favoriteTargets) {
-                            if (!favoriteTargets.containsKey(cityName)) {
-                                favoriteTargets.put(cityName, new HashMap<>());
-                            }
-                            favoriteTargets.get(cityName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getFavoriteDistricts() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getFavoriteDistricts().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.DISTRICT)
-                    ).thenAccept(districtName -> {
-                        synchronized (favoriteTargets) {
-                            if (!favoriteTargets.containsKey(districtName)) {
-                                favoriteTargets.put(districtName, new HashMap<>());
-                            }
-                            favoriteTargets.get(districtName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getFavoriteWards() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getFavoriteWards().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        locationService.getLocationName(entry.getKey(), Constants.LocationEnum.WARD)
-                    ).thenAccept(wardName -> {
-                        synchronized (favoriteTargets) {
-                            if (!favoriteTargets.containsKey(wardName)) {
-                                favoriteTargets.put(wardName, new HashMap<>());
-                            }
-                            favoriteTargets.get(wardName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
-
-            if (propertyStatisticsReportItem.getFavoritePropertyTypes() != null) {
-                for (Map.Entry<UUID, Integer> entry : propertyStatisticsReportItem.getFavoritePropertyTypes().entrySet()) {
-                    Long count = entry.getValue().longValue();
-                    futures.add(CompletableFuture.supplyAsync(() ->
-                        propertyService.getPropertyTypeName(entry.getKey())
-                    ).thenAccept(propertyTypeName -> {
-                        synchronized (favoriteTargets) {
-                            if (!favoriteTargets.containsKey(propertyTypeName)) {
-                                favoriteTargets.put(propertyTypeName, new HashMap<>());
-                            }
-                            favoriteTargets.get(propertyTypeName).put(monthI, count);
-                        }
-                    }));
-                }
-            }
+            totalViews.put(monthI, viewTotals.getOrDefault(monthI, BigDecimal.ZERO).intValue());
         }
 
+        // Process searched and favorite targets, one dimension at a time
+        addTargetChart(searchedTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.SEARCHED_CITIES, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.CITY), BigDecimal::longValue);
+        addTargetChart(searchedTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.SEARCHED_DISTRICTS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.DISTRICT), BigDecimal::longValue);
+        addTargetChart(searchedTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.SEARCHED_WARDS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.WARD), BigDecimal::longValue);
+        addTargetChart(searchedTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES, year),
+                propertyService::getPropertyTypeName, BigDecimal::longValue);
+
+        addTargetChart(favoriteTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.FAVORITE_CITIES, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.CITY), BigDecimal::longValue);
+        addTargetChart(favoriteTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.FAVORITE_DISTRICTS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.DISTRICT), BigDecimal::longValue);
+        addTargetChart(favoriteTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.FAVORITE_WARDS, year),
+                id -> locationService.getLocationName(id, Constants.LocationEnum.WARD), BigDecimal::longValue);
+        addTargetChart(favoriteTargets, futures,
+                reportBucketRepository.findValuesByMonth(Constants.ReportDimensionEnum.FAVORITE_PROPERTY_TYPES, year),
+                propertyService::getPropertyTypeName, BigDecimal::longValue);
+
         CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
         propertyStats.setTotalProperties(totalProperties);
         propertyStats.setTotalSoldProperties(totalSoldProperties);
         propertyStats.setTotalRentedProperties(totalRentedProperties);
+        propertyStats.setTotalViews(totalViews);
         propertyStats.setSearchedTargets(searchedTargets);
         propertyStats.setFavoriteTargets(favoriteTargets);
 
         return propertyStats;
     }
 
+    /**
+     * Resolve the name of every id of one dimension and put its value of each month under that name
+     */
+    private <V> void addTargetChart(Map<String, Map<Integer, V>> chart, List<CompletableFuture<Void>> futures,
+                                    Map<Integer, Map<UUID, BigDecimal>> valuesByMonth, Function<UUID, String> nameOf,
+                                    Function<BigDecimal, V> toValue) {
+        valuesByMonth.forEach((monthI, values) -> values.forEach((id, value) ->
+                futures.add(CompletableFuture.supplyAsync(() -> nameOf.apply(id)).thenAccept(name -> {
+                    synchronized (chart) {
+                        chart.computeIfAbsent(name, k -> new HashMap<>()).put(monthI, toValue.apply(value));
+                    }
+                }))));
+    }
+
     @Override
     public ViolationReportStats getViolationStats(int year) {
         int month;
@@ -595,77 +481,7 @@ public class ReportServiceImpl implements ReportService {
 
     @Override
     public DashboardTopStats getDashboardTopStats() {
-        int currentMonth = LocalDate.now().getMonthValue();
-        int currentYear = LocalDate.now().getYear();
-
-        // Run init schedulers in parallel for latest data
-        CompletableFuture<Void> propertyStatsFuture = propertyStatisticsReportScheduler.initPropertyStatisticsReportData(currentMonth, currentYear);
-        CompletableFuture<Void> financialFuture = financialReportScheduler.initFinancialReportData(currentMonth, currentYear);
-        CompletableFuture<Void> customerFuture = userReportScheduler.generateCustomerAnalyticsReport(currentMonth, currentYear);
-        CompletableFuture<Void> agentFuture = userReportScheduler.generateAgentPerformanceReport(currentMonth, currentYear);
-        CompletableFuture<Void> ownerFuture = userReportScheduler.generatePropertyOwnerContributionReport(currentMonth, currentYear);
-
-        // Wait for property stats and financial to complete first (needed for totalProperties and totalContracts)
-        CompletableFuture.allOf(propertyStatsFuture, financialFuture).join();
-
-        // Get totalProperties from property statistics report
-        PropertyStatisticsReport propertyReport = propertyStatisticsReportRepository
-                .findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(currentMonth, currentYear);
-        Integer totalProperties = propertyReport != null ? propertyReport.getTotalActiveProperties() : 0;
-
-        // Get totalContracts and calculate monthRevenue from financial report
-        FinancialReport currentFinancialReport = financialReportRepository
-                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
-        Integer totalContracts = currentFinancialReport != null ? currentFinancialReport.getContractCount() : 0;
-
-        // Calculate monthRevenue = current month revenue - previous month revenue
-        BigDecimal monthRevenue = BigDecimal.ZERO;
-        if (currentFinancialReport != null) {
-            BigDecimal currentRevenue = currentFinancialReport.getTotalRevenue() != null
-                    ? currentFinancialReport.getTotalRevenue() : BigDecimal.ZERO;
-
-            FinancialReport previousFinancialReport;
-            if (currentMonth == 1) {
-                previousFinancialReport = financialReportRepository
-                        .findByBaseReportData_MonthAndBaseReportData_Year(12, currentYear - 1);
-            } else {
-                previousFinancialReport = financialReportRepository
-                        .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth - 1, currentYear);
-            }
-
-            BigDecimal previousRevenue = (previousFinancialReport != null && previousFinancialReport.getTotalRevenue() != null)
-                    ? previousFinancialReport.getTotalRevenue() : BigDecimal.ZERO;
-
-            monthRevenue = currentRevenue.subtract(previousRevenue);
-        }
-
-        // Wait for user reports to complete
-        CompletableFuture.allOf(customerFuture, agentFuture, ownerFuture).join();
-
-        // Get totalUsers from all user reports
-        CustomerAnalyticsReport customerReport = customerAnalyticsReportRepository
-                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
-        AgentPerformanceReport agentReport = agentPerformanceReportRepository
-                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
-        PropertyOwnerContributionReport ownerReport = propertyOwnerContributionReportRepository
-                .findByBaseReportData_MonthAndBaseReportData_Year(currentMonth, currentYear);
-
-        int totalCustomers = customerReport != null && customerReport.getTotalCustomers() != null ? customerReport.getTotalCustomers() : 0;
-        int totalAgents = agentReport != null && agentReport.getTotalAgents() != null ? agentReport.getTotalAgents() : 0;
-        int totalOwners = ownerReport != null && ownerReport.getTotalOwners() != null ? ownerReport.getTotalOwners() : 0;
-        Integer totalUsers = totalCustomers + totalAgents + totalOwners;
-
-        // Get customerSatisfaction from customer analytics report
-        Double customerSatisfaction = customerReport != null && customerReport.getCustomerSatisfactionScore() != null
-                ? customerReport.getCustomerSatisfactionScore().doubleValue() : 0.0;
-
-        return DashboardTopStats.builder()
-                .totalProperties(totalProperties)
-                .totalContracts(totalContracts)
-                .monthRevenue(monthRevenue)
-                .totalUsers(totalUsers)
-                .customerStatisfaction(customerSatisfaction)
-                .build();
+        return dashboardSnapshotService.getTopStats();
     }
 
     @Override
@@ -692,13 +508,14 @@ public class ReportServiceImpl implements ReportService {
         }
 
         List<FinancialReport> financialReports = financialReportRepository.findAllByBaseReportData_Year(year);
+        Map<Integer, BigDecimal> revenueTotals = reportBucketRepository.findTotalsByMonth(Constants.ReportDimensionEnum.TOTAL_REVENUE, year);
 
         Map<Integer, BigDecimal> revenue = new HashMap<>();
         Map<Integer, Integer> contracts = new HashMap<>();
 
         for (FinancialReport report : financialReports) {
             int month = report.getBaseReportData().getMonth();
-            revenue.put(month, report.getTotalRevenue() != null ? report.getTotalRevenue() : BigDecimal.ZERO);
+            revenue.put(month, revenueTotals.getOrDefault(month, BigDecimal.ZERO));
             contracts.put(month, report.getContractCount() != null ? report.getContractCount() : 0);
         }
 
@@ -815,16 +632,12 @@ public class ReportServiceImpl implements ReportService {
             month = 12;
         }
 
-        // Get all agent performance records for this month/year
-        List<IndividualSalesAgentPerformanceMonth> agentPerformances = individualSalesAgentPerformanceMonthRepository
-                .findAllByMonthAndYear(month, year);
-
-        // Sort by ranking position and take top 5
-        List<IndividualSalesAgentPerformanceMonth> top5Agents = agentPerformances.stream()
-                .filter(a -> a.getRankingPosition() != null)
-                .sorted(Comparator.comparingInt(IndividualSalesAgentPerformanceMonth::getRankingPosition))
-                .limit(5)
-                .toList();
+        // Top 5 from the leaderboard, then only their records
+        List<LeaderboardEntry> top5 = leaderboards.top(Constants.RoleEnum.SALESAGENT, YearMonth.of(year, month), 5);
+        Map<UUID, Integer> ranks = top5.stream()
+                .collect(Collectors.toMap(LeaderboardEntry::getUserId, LeaderboardEntry::getRank));
+        List<IndividualSalesAgentPerformanceMonth> top5Agents = individualSalesAgentPerformanceMonthRepository
+                .findAllByAgentIdInAndMonthAndYear(ranks.keySet(), month, year);
 
         List<DashboardAgentRanking.AgentItem> agentItems = new ArrayList<>();
         List<CompletableFuture<Void>> futures = new ArrayList<>();
@@ -839,7 +652,7 @@ public class ReportServiceImpl implements ReportService {
                 }
             }).thenAccept(userResponse -> {
                 DashboardAgentRanking.AgentItem item = new DashboardAgentRanking.AgentItem();
-                item.setRank(agent.getRankingPosition());
+                item.setRank(ranks.get(agent.getAgentId()));
                 item.setTier(agent.getPerformanceTier() != null ? agent.getPerformanceTier().name() : null);
                 item.setRating(agent.getAvgRating() != null ? agent.getAvgRating().doubleValue() : 0.0);
                 item.setTotalAppointmentsCompleted(agent.getMonthAppointmentsCompleted() != null ? agent.getMonthAppointmentsCompleted() : 0);
@@ -880,16 +693,12 @@ public class ReportServiceImpl implements ReportService {
             month = 12;
         }
 
-        // Get all customer potential records for this month/year
-        List<IndividualCustomerPotentialMonth> customerPotentials = individualCustomerPotentialMonthRepository
-                .findAllByMonthAndYear(month, year);
-
-        // Sort by lead position and take top 5
-        List<IndividualCustomerPotentialMonth> top5Customers = customerPotentials.stream()
-                .filter(c -> c.getLeadPosition() != null)
-                .sorted(Comparator.comparingInt(IndividualCustomerPotentialMonth::getLeadPosition))
-                .limit(5)
-                .toList();
+        // Top 5 from the leaderboard, then only their records
+        List<LeaderboardEntry> top5 = leaderboards.top(Constants.RoleEnum.CUSTOMER, YearMonth.of(year, month), 5);
+        Map<UUID, Integer> ranks = top5.stream()
+                .collect(Collectors.toMap(LeaderboardEntry::getUserId, LeaderboardEntry::getRank));
+        List<IndividualCustomerPotentialMonth> top5Customers = individualCustomerPotentialMonthRepository
+                .findAllByCustomerIdInAndMonthAndYear(ranks.keySet(), month, year);
 
         List<DashboardCustomerRanking.CustomerItem> customerItems = new ArrayList<>();
         List<CompletableFuture<Void>> futures = new ArrayList<>();
@@ -904,7 +713,7 @@ public class ReportServiceImpl implements ReportService {
                 }
             }).thenAccept(userResponse -> {
                 DashboardCustomerRanking.CustomerItem item = new DashboardCustomerRanking.CustomerItem();
-                item.setRank(customer.getLeadPosition());
+                item.setRank(ranks.get(customer.getCustomerId()));
                 item.setTier(customer.getCustomerTier() != null ? customer.getCustomerTier().name() : null);
 
                 if (userResponse != null) {
@@ -930,4 +739,4 @@ public class ReportServiceImpl implements ReportService {
                 .customers(customerItems)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,16 @@
 package com.se100.bds.services.domains.report.scheduler;
 
 import com.se100.bds.mappers.SimpleMapper;
-import com.se100.bds.models.entities.contract.Payment;
 import com.se100.bds.models.schemas.ranking.IndividualSalesAgentPerformanceMonth;
 import com.se100.bds.models.schemas.report.AgentSalaryItem;
 import com.se100.bds.models.schemas.report.BaseReportData;
 import com.se100.bds.models.schemas.report.FinancialReport;
-import com.se100.bds.models.schemas.report.RankedRevenueItem;
+import com.se100.bds.models.schemas.report.ReportBucket;
 import com.se100.bds.repositories.domains.contract.ContractRepository;
 import com.se100.bds.repositories.domains.contract.PaymentRepository;
 import com.se100.bds.repositories.domains.mongo.ranking.IndividualSalesAgentPerformanceMonthRepository;
 import com.se100.bds.repositories.domains.mongo.report.FinancialReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.services.domains.user.UserService;
@@ -23,6 +23,8 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -34,6 +36,7 @@ public class FinancialReportScheduler {
 
     private final IndividualSalesAgentPerformanceMonthRepository individualSalesAgentPerformanceMonthRepository;
     private final FinancialReportRepository financialReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
     private final ContractRepository contractRepository;
     private final PaymentRepository paymentRepository;
     private final UserService userService;
@@ -116,17 +119,12 @@ public class FinancialReportScheduler {
 
                 currentMonth = new FinancialReport();
                 currentMonth.setBaseReportData(baseReportData);
-                currentMonth.setTotalRevenue(BigDecimal.ZERO);
                 currentMonth.setContractCount(0);
                 currentMonth.setTax(BigDecimal.ZERO);
                 currentMonth.setTotalSalary(BigDecimal.ZERO);
                 currentMonth.setNetProfit(BigDecimal.ZERO);
                 currentMonth.setTotalRates(0);
                 currentMonth.setAvgRating(BigDecimal.ZERO);
-                currentMonth.setRevenueCities(new ArrayList<>());
-                currentMonth.setRevenueDistricts(new ArrayList<>());
-                currentMonth.setRevenueWards(new ArrayList<>());
-                currentMonth.setRevenuePropertyTypes(new ArrayList<>());
                 currentMonth.setSaleAgentsSalaryMonth(new ArrayList<>());
                 currentMonth.setSaleAgentsSalaryCareer(new ArrayList<>());
             }
@@ -137,23 +135,23 @@ public class FinancialReportScheduler {
         currentMonth.getBaseReportData().setMonth(month);
         currentMonth.getBaseReportData().setYear(year);
 
-        // Remove items not in lists and initialize new items
-        updateRankedRevenueItems(currentMonth.getRevenueCities(), cityIds);
-        updateRankedRevenueItems(currentMonth.getRevenueDistricts(), districtIds);
-        updateRankedRevenueItems(currentMonth.getRevenueWards(), wardIds);
-        updateRankedRevenueItems(currentMonth.getRevenuePropertyTypes(), propertyTypeIds);
-
         updateAgentSalaryItems(currentMonth.getSaleAgentsSalaryMonth(), agentIds);
         updateAgentSalaryItems(currentMonth.getSaleAgentsSalaryCareer(), agentIds);
 
-        recalculateRevenueAndContracts(currentMonth, month, year);
+        // Buckets are written before a new report is saved, the real-time increments wait for the report to exist
+        recalculateRevenueAndContracts(currentMonth, month, year, Map.of(
+                Constants.ReportDimensionEnum.REVENUE_CITIES, cityIds,
+                Constants.ReportDimensionEnum.REVENUE_DISTRICTS, districtIds,
+                Constants.ReportDimensionEnum.REVENUE_WARDS, wardIds,
+                Constants.ReportDimensionEnum.REVENUE_PROPERTY_TYPES, propertyTypeIds));
 
         financialReportRepository.save(currentMonth);
 
         return CompletableFuture.completedFuture(null);
     }
 
-    private void recalculateRevenueAndContracts(FinancialReport report, int month, int year) {
+    private void recalculateRevenueAndContracts(FinancialReport report, int month, int year,
+                                                Map<Constants.ReportDimensionEnum, List<UUID>> validIds) {
         // Get contract count from signed contracts
         int contractCount = contractRepository.countSignedInMonth(month, year);
 
@@ -165,142 +163,27 @@ public class FinancialReportScheduler {
             Constants.PaymentTypeEnum.MONEY_RENTAL,
             Constants.PaymentTypeEnum.PENALTY
         );
-        List<Payment> revenuePayments = paymentRepository.findRevenuePaymentsInMonth(
-            month,
-            year,
+
+        // Summed by the database per location and property type, so no payment rows or lazy relations are loaded
+        LocalDateTime from = YearMonth.of(year, month).atDay(1).atStartOfDay();
+        RevenueBreakdown revenue = RevenueBreakdown.of(paymentRepository.sumRevenueByLocationAndPropertyType(
+            from,
+            from.plusMonths(1),
             Constants.PaymentStatusEnum.SUCCESS,
             excludedTypes
-        );
-
-        // Calculate total revenue
-        BigDecimal totalRevenue = BigDecimal.ZERO;
+        ));
 
-        // Reset revenue
-        CompletableFuture<Void> resetCitiesFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem item : report.getRevenueCities()) {
-                item.setRevenue(BigDecimal.ZERO);
-            }
-        });
-        CompletableFuture<Void> resetDistrictsFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem item : report.getRevenueDistricts()) {
-                item.setRevenue(BigDecimal.ZERO);
-            }
-        });
-        CompletableFuture<Void> resetWardsFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem item : report.getRevenueWards()) {
-                item.setRevenue(BigDecimal.ZERO);
-            }
-        });
-        CompletableFuture<Void> resetPropertyTypesFuture = CompletableFuture.runAsync(() -> {
-            for (RankedRevenueItem item : report.getRevenuePropertyTypes()) {
-                item.setRevenue(BigDecimal.ZERO);
-            }
-        });
-        CompletableFuture.allOf(resetCitiesFuture, resetDistrictsFuture, resetWardsFuture, resetPropertyTypesFuture).join();
-
-        // Process each payment
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (Payment payment : revenuePayments) {
-            BigDecimal paymentAmount = payment.getAmount();
-            if (paymentAmount == null) {
-                paymentAmount = BigDecimal.ZERO;
-            }
-            totalRevenue = totalRevenue.add(paymentAmount);
-
-            if (payment.getProperty() != null
-                && payment.getProperty().getPropertyType() != null
-                && payment.getProperty().getWard() != null
-                && payment.getProperty().getWard().getDistrict() != null
-                && payment.getProperty().getWard().getDistrict().getCity() != null) {
-
-                UUID propertyTypeId = payment.getProperty().getPropertyType().getId();
-                UUID wardId = payment.getProperty().getWard().getId();
-                UUID districtId = payment.getProperty().getWard().getDistrict().getId();
-                UUID cityId = payment.getProperty().getWard().getDistrict().getCity().getId();
-                final BigDecimal finalPaymentAmount = paymentAmount;
-
-                // Update city revenue in parallel
-                futures.add(CompletableFuture.runAsync(() -> {
-                    synchronized (report.getRevenueCities()) {
-                        for (RankedRevenueItem city : report.getRevenueCities()) {
-                            if (cityId.equals(city.getId())) {
-                                city.setRevenue(city.getRevenue().add(finalPaymentAmount));
-                                break;
-                            }
-                        }
-                    }
-                }));
-
-                // Update district revenue in parallel
-                futures.add(CompletableFuture.runAsync(() -> {
-                    synchronized (report.getRevenueDistricts()) {
-                        for (RankedRevenueItem district : report.getRevenueDistricts()) {
-                            if (districtId.equals(district.getId())) {
-                                district.setRevenue(district.getRevenue().add(finalPaymentAmount));
-                                break;
-                            }
-                        }
-                    }
-                }));
-
-                // Update ward revenue in parallel
-                futures.add(CompletableFuture.runAsync(() -> {
-                    synchronized (report.getRevenueWards()) {
-                        for (RankedRevenueItem ward : report.getRevenueWards()) {
-                            if (wardId.equals(ward.getId())) {
-                                ward.setRevenue(ward.getRevenue().add(finalPaymentAmount));
-                                break;
-                            }
-                        }
-                    }
-                }));
-
-                // Update property type revenue in parallel
-                futures.add(CompletableFuture.runAsync(() -> {
-                    synchronized (report.getRevenuePropertyTypes()) {
-                        for (RankedRevenueItem propertyType : report.getRevenuePropertyTypes()) {
-                            if (propertyTypeId.equals(propertyType.getId())) {
-                                propertyType.setRevenue(propertyType.getRevenue().add(finalPaymentAmount));
-                                break;
-                            }
-                        }
-                    }
-                }));
-            }
-        }
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        // Every valid id gets a bucket, ids of removed locations and types are dropped
+        validIds.forEach((dimension, ids) -> reportBucketRepository.replaceValues(
+                dimension, month, year, RevenueBreakdown.valuesFor(ids, revenue.byDimension(dimension))));
 
-        report.setTotalRevenue(totalRevenue);
+        // Includes the payments of properties with an incomplete location, which are in no dimension
+        reportBucketRepository.replaceValues(Constants.ReportDimensionEnum.TOTAL_REVENUE, month, year,
+                Map.of(ReportBucket.TOTAL_ITEM_ID, revenue.totalRevenue()));
         report.setContractCount(contractCount);
 
         log.info("Recalculated financial report for {}/{}: {} contracts, {} payments, revenue = {}",
-                month, year, contractCount, revenuePayments.size(), totalRevenue);
-    }
-
-    // Helper method for RankedRevenueItem lists
-    private void updateRankedRevenueItems(List<RankedRevenueItem> items, List<UUID> validIds) {
-        if (items == null) {
-            items = new ArrayList<>();
-        }
-
-        // Remove items not in validIds list
-        items.removeIf(item -> item != null && item.getId() != null && !validIds.contains(item.getId()));
-
-        // Initialize new items that are in validIds but not in current list
-        Set<UUID> existingIds = items.stream()
-                .map(RankedRevenueItem::getId)
-                .collect(Collectors.toSet());
-
-        for (UUID validId : validIds) {
-            if (!existingIds.contains(validId)) {
-                RankedRevenueItem newItem = RankedRevenueItem.builder()
-                        .id(validId)
-                        .revenue(BigDecimal.ZERO)
-                        .build();
-                items.add(newItem);
-            }
-        }
+                month, year, contractCount, revenue.paymentCount(), revenue.totalRevenue());
     }
 
     // Helper method for AgentSalaryItem lists
@@ -4,6 +4,7 @@ import com.se100.bds.mappers.SimpleMapper;
 import com.se100.bds.models.schemas.report.BaseReportData;
 import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
 import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
 import com.se100.bds.services.domains.location.LocationService;
 import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.utils.Constants;
@@ -22,7 +23,20 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class PropertyStatisticsReportScheduler {
 
+    // Copied over to a new month, the views are counted per month
+    private static final List<Constants.ReportDimensionEnum> CUMULATIVE_DIMENSIONS = List.of(
+            Constants.ReportDimensionEnum.SEARCHED_CITIES,
+            Constants.ReportDimensionEnum.FAVORITE_CITIES,
+            Constants.ReportDimensionEnum.SEARCHED_DISTRICTS,
+            Constants.ReportDimensionEnum.FAVORITE_DISTRICTS,
+            Constants.ReportDimensionEnum.SEARCHED_WARDS,
+            Constants.ReportDimensionEnum.FAVORITE_WARDS,
+            Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES,
+            Constants.ReportDimensionEnum.FAVORITE_PROPERTY_TYPES,
+            Constants.ReportDimensionEnum.SEARCHED_PROPERTIES);
+
     private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
     private final PropertyService propertyService;
     private final LocationService locationService;
     private final SimpleMapper simpleMapper;
@@ -41,6 +55,17 @@ public class PropertyStatisticsReportScheduler {
         List<UUID> wardIds = locationService.getAllWardIds();
         List<UUID> districtIds = locationService.getAllDistrictIds();
 
+        // Buckets kept in line with the current locations and property types
+        Map<Constants.ReportDimensionEnum, List<UUID>> validIds = new EnumMap<>(Constants.ReportDimensionEnum.class);
+        validIds.put(Constants.ReportDimensionEnum.SEARCHED_CITIES, cityIds);
+        validIds.put(Constants.ReportDimensionEnum.FAVORITE_CITIES, cityIds);
+        validIds.put(Constants.ReportDimensionEnum.SEARCHED_DISTRICTS, districtIds);
+        validIds.put(Constants.ReportDimensionEnum.FAVORITE_DISTRICTS, districtIds);
+        validIds.put(Constants.ReportDimensionEnum.SEARCHED_WARDS, wardIds);
+        validIds.put(Constants.ReportDimensionEnum.FAVORITE_WARDS, wardIds);
+        validIds.put(Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES, propertyTypeIds);
+        validIds.put(Constants.ReportDimensionEnum.FAVORITE_PROPERTY_TYPES, propertyTypeIds);
+
         // Check if report for this month already exists
         PropertyStatisticsReport existingReport = propertyStatisticsReportRepository.findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(
                 month, year
@@ -49,27 +74,33 @@ public class PropertyStatisticsReportScheduler {
         PropertyStatisticsReport currentMonth;
 
         if (existingReport != null) {
-            // Report exists - UPDATE with latest data
-            log.info("PropertyStatisticsReport for month {} year {} exists. Recalculating with latest data.", month, year);
-            currentMonth = existingReport;
+            // Report exists - align its buckets in place, the counters keep being incremented
+            // concurrently so they must not be written back as a whole
+            log.info("PropertyStatisticsReport for month {} year {} exists. Aligning with latest locations and types.", month, year);
+            reportBucketRepository.alignItems(month, year, validIds);
+            return CompletableFuture.completedFuture(null);
         } else {
             // Report doesn't exist - CREATE from previous month
             log.info("PropertyStatisticsReport for month {} year {} not found. Creating new report.", month, year);
 
-            PropertyStatisticsReport previousMonth;
-            if (month - 1 == 0) {
-                previousMonth = propertyStatisticsReportRepository.findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(
-                        12, year - 1
-                );
-            } else {
-                previousMonth = propertyStatisticsReportRepository.findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(
-                        month - 1, year
-                );
-            }
+            int previousMonthValue = month - 1 == 0 ? 12 : month - 1;
+            int previousYear = month - 1 == 0 ? year - 1 : year;
+            PropertyStatisticsReport previousMonth = propertyStatisticsReportRepository.findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(
+                    previousMonthValue, previousYear
+            );
 
             if (previousMonth != null) {
                 currentMonth = simpleMapper.mapTo(previousMonth, PropertyStatisticsReport.class);
                 currentMonth.setId(null);
+                // Views are counted per month, unlike the cumulative search and favorite buckets
+                currentMonth.setDailyViews(new HashMap<>());
+
+                // Search and favorite counts are cumulative, the new month starts from the previous month's values.
+                // Only missing buckets are seeded, an overlapping init must not reset counts already incremented
+                for (Constants.ReportDimensionEnum dimension : CUMULATIVE_DIMENSIONS) {
+                    reportBucketRepository.seedValues(dimension, month, year,
+                            reportBucketRepository.findValues(dimension, previousMonthValue, previousYear));
+                }
             } else {
                 BaseReportData baseReportData = new BaseReportData();
                 baseReportData.setMonth(month);
@@ -82,15 +113,7 @@ public class PropertyStatisticsReportScheduler {
                 currentMonth.setTotalActiveProperties(0);
                 currentMonth.setTotalSoldProperties(0);
                 currentMonth.setTotalRentedProperties(0);
-                currentMonth.setSearchedCities(new HashMap<>());
-                currentMonth.setFavoriteCities(new HashMap<>());
-                currentMonth.setSearchedDistricts(new HashMap<>());
-                currentMonth.setFavoriteDistricts(new HashMap<>());
-                currentMonth.setSearchedWards(new HashMap<>());
-                currentMonth.setFavoriteWards(new HashMap<>());
-                currentMonth.setSearchedPropertyTypes(new HashMap<>());
-                currentMonth.setFavoritePropertyTypes(new HashMap<>());
-                currentMonth.setSearchedProperties(new HashMap<>());
+                currentMonth.setDailyViews(new HashMap<>());
             }
         }
 
@@ -98,40 +121,12 @@ public class PropertyStatisticsReportScheduler {
         currentMonth.getBaseReportData().setMonth(month);
         currentMonth.getBaseReportData().setYear(year);
 
-        // Update maps with valid IDs, keeping cumulative data from previous month
-        updateLocationMap(currentMonth.getSearchedCities(), cityIds);
-        updateLocationMap(currentMonth.getFavoriteCities(), cityIds);
-        updateLocationMap(currentMonth.getSearchedDistricts(), districtIds);
-        updateLocationMap(currentMonth.getFavoriteDistricts(), districtIds);
-        updateLocationMap(currentMonth.getSearchedWards(), wardIds);
-        updateLocationMap(currentMonth.getFavoriteWards(), wardIds);
-        updateLocationMap(currentMonth.getSearchedPropertyTypes(), propertyTypeIds);
-        updateLocationMap(currentMonth.getFavoritePropertyTypes(), propertyTypeIds);
+        // Drop ids that are no longer valid and start new ones at 0, keeping the cumulative counts
+        reportBucketRepository.alignItems(month, year, validIds);
 
+        // Saved last, the counters only increment the buckets once the report exists
         propertyStatisticsReportRepository.save(currentMonth);
 
         return CompletableFuture.completedFuture(null);
     }
-
-    /**
-     * Helper method to update Map<UUID, Integer> with valid IDs.
-     * Removes items not in validIds list and initializes new items with 0.
-     * Keeps cumulative data from previous month for existing items.
-     */
-    private void updateLocationMap(Map<UUID, Integer> map, List<UUID> validIds) {
-        if (map == null) {
-            map = new HashMap<>();
-        }
-
-        // Remove items not in validIds list
-        map.keySet().removeIf(id -> !validIds.contains(id));
-
-        // Initialize new items that are in validIds but not in current map
-        for (UUID validId : validIds) {
-            if (!map.containsKey(validId)) {
-                map.put(validId, 0);
-            }
-        }
-    }
 }
-
@@ -0,0 +1,30 @@
+package com.se100.bds.services.domains.report.scheduler;
+
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves the totals and per id values of reports saved before they were split into buckets. Runs on startup
+ * before the application reports ready, so no revenue increment lands in a bucket the migration then replaces
+ * and no reader sees an empty bucket. A cut short run resumes on the next start since migrated fields are unset.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportBucketMigrationJob {
+    private final ReportBucketRepository reportBucketRepository;
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void migrateReportBuckets() {
+        try {
+            reportBucketRepository.ensureIndexes();
+            reportBucketRepository.migrateEmbeddedDimensions();
+        } catch (RuntimeException e) {
+            log.error("Could not move the embedded report dimensions to buckets: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.se100.bds.services.domains.report.scheduler;
+
+import com.se100.bds.repositories.dtos.RevenueBucketProjection;
+import com.se100.bds.utils.Constants;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Month revenue folded from the grouped payment buckets into one total per city, district, ward and property type.
+ * Buckets without a complete location only count towards the total, like payments without a property did before.
+ */
+final class RevenueBreakdown {
+    private final Map<UUID, BigDecimal> cities = new HashMap<>();
+    private final Map<UUID, BigDecimal> districts = new HashMap<>();
+    private final Map<UUID, BigDecimal> wards = new HashMap<>();
+    private final Map<UUID, BigDecimal> propertyTypes = new HashMap<>();
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+    private long paymentCount = 0;
+
+    static RevenueBreakdown of(List<RevenueBucketProjection> buckets) {
+        RevenueBreakdown breakdown = new RevenueBreakdown();
+        for (RevenueBucketProjection bucket : buckets) {
+            breakdown.add(bucket);
+        }
+        return breakdown;
+    }
+
+    void add(RevenueBucketProjection bucket) {
+        BigDecimal revenue = bucket.revenue() != null ? bucket.revenue() : BigDecimal.ZERO;
+        totalRevenue = totalRevenue.add(revenue);
+        paymentCount += bucket.paymentCount() != null ? bucket.paymentCount() : 0;
+
+        if (bucket.cityId() == null || bucket.districtId() == null
+                || bucket.wardId() == null || bucket.propertyTypeId() == null) {
+            return;
+        }
+        cities.merge(bucket.cityId(), revenue, BigDecimal::add);
+        districts.merge(bucket.districtId(), revenue, BigDecimal::add);
+        wards.merge(bucket.wardId(), revenue, BigDecimal::add);
+        propertyTypes.merge(bucket.propertyTypeId(), revenue, BigDecimal::add);
+    }
+
+    BigDecimal totalRevenue() {
+        return totalRevenue;
+    }
+
+    long paymentCount() {
+        return paymentCount;
+    }
+
+    Map<UUID, BigDecimal> cities() {
+        return cities;
+    }
+
+    Map<UUID, BigDecimal> districts() {
+        return districts;
+    }
+
+    Map<UUID, BigDecimal> wards() {
+        return wards;
+    }
+
+    Map<UUID, BigDecimal> propertyTypes() {
+        return propertyTypes;
+    }
+
+    Map<UUID, BigDecimal> byDimension(Constants.ReportDimensionEnum dimension) {
+        return switch (dimension) {
+            case REVENUE_CITIES -> cities;
+            case REVENUE_DISTRICTS -> districts;
+            case REVENUE_WARDS -> wards;
+            case REVENUE_PROPERTY_TYPES -> propertyTypes;
+            default -> throw new IllegalArgumentException("Not a revenue dimension: " + dimension);
+        };
+    }
+
+    /// Revenue of every given id, ids without payments this month are zero
+    static Map<UUID, BigDecimal> valuesFor(Collection<UUID> ids, Map<UUID, BigDecimal> revenues) {
+        Map<UUID, BigDecimal> values = new HashMap<>();
+        for (UUID id : ids) {
+            values.put(id, revenues.getOrDefault(id, BigDecimal.ZERO));
+        }
+        return values;
+    }
+}
@@ -2,7 +2,9 @@ package com.se100.bds.services.domains.search;
 
 import com.se100.bds.utils.Constants;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface SearchService {
@@ -10,4 +12,5 @@ public interface SearchService {
     void addSearchList(UUID userId, List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds, List<UUID> propertyTypeIds);
     List<UUID> topMostSearchByUser(UUID userId, int offset, int limit, Constants.SearchTypeEnum searchType, int year, int month);
     List<UUID> getMostSearchedPropertyIds(int limit, int year, int month);
+    Map<UUID, Integer> countSearches(Constants.SearchTypeEnum searchType, LocalDate from, LocalDate to);
 }
\ No newline at end of file
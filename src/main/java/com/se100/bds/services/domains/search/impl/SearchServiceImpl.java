@@ -1,75 +1,57 @@
 package com.se100.bds.services.domains.search.impl;
 
-import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
 import com.se100.bds.models.schemas.search.SearchLog;
-import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
-import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogDailyRollupRepository;
 import com.se100.bds.services.domains.search.SearchService;
+import com.se100.bds.services.domains.search.ingest.SearchLogIngestor;
+import com.se100.bds.services.domains.search.sketch.SearchHeavyHitters;
 import com.se100.bds.utils.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchServiceImpl implements SearchService {
 
-    private final SearchLogRepository searchLogRepository;
-    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final SearchLogIngestor searchLogIngestor;
+    private final ReportBucketRepository reportBucketRepository;
+    private final SearchHeavyHitters searchHeavyHitters;
+    private final SearchLogDailyRollupRepository searchLogDailyRollupRepository;
 
     @Override
     public void addSearch(UUID userId, UUID cityId, UUID districtId, UUID wardId, UUID propertyId, UUID propertyTypeId) {
-        searchLogRepository.save(new SearchLog(userId, cityId, districtId, wardId, propertyId, propertyTypeId));
+        searchLogIngestor.offer(new SearchLog(userId, cityId, districtId, wardId, propertyId, propertyTypeId));
     }
 
-    @Async
     @Override
     public void addSearchList(UUID userId, List<UUID> cityIds, List<UUID> districtIds, List<UUID> wardIds, List<UUID> propertyTypeIds) {
-        try {
-            UUID cityId = (cityIds != null && !cityIds.isEmpty()) ? cityIds.get(0) : null;
-            UUID districtId = (districtIds != null && !districtIds.isEmpty()) ? districtIds.get(0) : null;
-            UUID wardId = (wardIds != null && !wardIds.isEmpty()) ? wardIds.get(0) : null;
-            UUID propertyTypeId = (propertyTypeIds != null && !propertyTypeIds.isEmpty()) ? propertyTypeIds.get(0) : null;
-
-            searchLogRepository.save(new SearchLog(userId, cityId, districtId, wardId, null, propertyTypeId));
-
-            log.debug("Search log saved asynchronously for user: {}", userId);
-        } catch (Exception e) {
-            log.error("Error saving search log asynchronously: {}", e.getMessage());
+        UUID cityId = (cityIds != null && !cityIds.isEmpty()) ? cityIds.get(0) : null;
+        UUID districtId = (districtIds != null && !districtIds.isEmpty()) ? districtIds.get(0) : null;
+        UUID wardId = (wardIds != null && !wardIds.isEmpty()) ? wardIds.get(0) : null;
+        UUID propertyTypeId = (propertyTypeIds != null && !propertyTypeIds.isEmpty()) ? propertyTypeIds.get(0) : null;
+
+        // Queued for the batched writer, cheap enough to stay on the request thread
+        if (!searchLogIngestor.offer(new SearchLog(userId, cityId, districtId, wardId, null, propertyTypeId))) {
+            log.debug("Search log queue full, dropped search of user: {}", userId);
         }
     }
 
     @Override
     public List<UUID> topMostSearchByUser(UUID userId, int offset, int limit, Constants.SearchTypeEnum searchType, int year, int month) {
-        try {
-            // Tìm PropertyStatisticsReport theo year và month
-            Optional<PropertyStatisticsReport> reportOpt = propertyStatisticsReportRepository.findByYearAndMonth(year, month);
-
-            if (reportOpt.isEmpty()) {
-                log.warn("No PropertyStatisticsReport found for year {} and month {}", year, month);
-                return List.of();
-            }
-
-            PropertyStatisticsReport report = reportOpt.get();
-
-            Map<UUID, Integer> rankedMap = getRankedListByType(report, searchType);
-
-            if (rankedMap == null || rankedMap.isEmpty()) {
-                return List.of();
-            }
-
-            return rankedMap.entrySet().stream()
-                    .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed())
-                    .skip(offset)
-                    .limit(limit)
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+        Optional<List<UUID>> sketched = searchHeavyHitters.top(searchType, year, month, offset, limit);
+        if (sketched.isPresent()) {
+            return sketched.get();
+        }
 
+        try {
+            // Sorted and paged by Mongo on the buckets of the one dimension asked for
+            return reportBucketRepository.findTopItemIds(searchedDimension(searchType), month, year, offset, limit);
         } catch (Exception e) {
             log.error("Error finding top searches with offset {} limit {} for user {} with type {} in {}-{}: {}",
                     offset, limit, userId, searchType, year, month, e.getMessage());
@@ -79,28 +61,13 @@ public class SearchServiceImpl implements SearchService {
 
     @Override
     public List<UUID> getMostSearchedPropertyIds(int limit, int year, int month) {
-        try {
-            // Tìm PropertyStatisticsReport theo year và month
-            Optional<PropertyStatisticsReport> reportOpt = propertyStatisticsReportRepository.findByYearAndMonth(year, month);
-
-            if (reportOpt.isEmpty()) {
-                log.warn("No PropertyStatisticsReport found for year {} and month {}", year, month);
-                return List.of();
-            }
-
-            PropertyStatisticsReport report = reportOpt.get();
-            Map<UUID, Integer> searchedProperties = report.getSearchedProperties();
-
-            if (searchedProperties == null || searchedProperties.isEmpty()) {
-                return List.of();
-            }
-
-            return searchedProperties.entrySet().stream()
-                    .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed())
-                    .limit(limit)
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+        Optional<List<UUID>> sketched = searchHeavyHitters.top(Constants.SearchTypeEnum.PROPERTY, year, month, 0, limit);
+        if (sketched.isPresent()) {
+            return sketched.get();
+        }
 
+        try {
+            return reportBucketRepository.findTopItemIds(Constants.ReportDimensionEnum.SEARCHED_PROPERTIES, month, year, 0, limit);
         } catch (Exception e) {
             log.error("Error getting most searched property IDs with limit {} in {}-{}: {}",
                     limit, year, month, e.getMessage());
@@ -108,20 +75,27 @@ public class SearchServiceImpl implements SearchService {
         }
     }
 
+    @Override
+    public Map<UUID, Integer> countSearches(Constants.SearchTypeEnum searchType, LocalDate from, LocalDate to) {
+        // Summed from the daily rollups, the raw logs expire and scanning them grows with every search
+        Map<UUID, Integer> counts = new HashMap<>();
+        searchLogDailyRollupRepository.findAllBySearchTypeAndDateBetween(searchType, from.minusDays(1), to.plusDays(1))
+                .forEach(rollup -> rollup.getCounts().forEach((id, count) -> counts.merge(id, count, Integer::sum)));
+        return counts;
+    }
+
     /**
-     * Lấy Map dữ liệu search tương ứng với SearchTypeEnum
-     * @param report PropertyStatisticsReport
+     * Dimension của report chứa số lượt search tương ứng với SearchTypeEnum
      * @param searchType Loại search (CITY, DISTRICT, WARD, PROPERTY, PROPERTY_TYPE)
-     * @return Map<UUID, Integer> với key là id, value là count
+     * @return dimension searched_* tương ứng
      */
-    private Map<UUID, Integer> getRankedListByType(PropertyStatisticsReport report,
-                                                  Constants.SearchTypeEnum searchType) {
+    private Constants.ReportDimensionEnum searchedDimension(Constants.SearchTypeEnum searchType) {
         return switch (searchType) {
-            case CITY -> report.getSearchedCities();
-            case DISTRICT -> report.getSearchedDistricts();
-            case WARD -> report.getSearchedWards();
-            case PROPERTY -> report.getSearchedProperties();
-            case PROPERTY_TYPE -> report.getSearchedPropertyTypes();
+            case CITY -> Constants.ReportDimensionEnum.SEARCHED_CITIES;
+            case DISTRICT -> Constants.ReportDimensionEnum.SEARCHED_DISTRICTS;
+            case WARD -> Constants.ReportDimensionEnum.SEARCHED_WARDS;
+            case PROPERTY -> Constants.ReportDimensionEnum.SEARCHED_PROPERTIES;
+            case PROPERTY_TYPE -> Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES;
         };
     }
 }
@@ -0,0 +1,91 @@
+package com.se100.bds.services.domains.search.ingest;
+
+import com.se100.bds.models.schemas.search.SearchLog;
+import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.services.domains.report.scheduler.PropertyStatisticsReportScheduler;
+import com.se100.bds.services.domains.search.sketch.SearchHeavyHitters;
+import com.se100.bds.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Folds search logs into the searched_* counters of the monthly PropertyStatisticsReport.
+ * Counts are summed in memory over a flush window and applied with one $inc per month,
+ * so the report and the top searched endpoints are live without rescanning search_logs.
+ * The same counts feed the most searched sketches.
+ * Only used from the single ingestion thread.
+ */
+@Slf4j
+@Component
+public class SearchCounterAggregator {
+    private static final Map<String, Function<SearchLog, UUID>> FIELDS = Map.of(
+            "searched_cities", SearchLog::getCityId,
+            "searched_districts", SearchLog::getDistrictId,
+            "searched_wards", SearchLog::getWardId,
+            "searched_property_types", SearchLog::getPropertyTypeId,
+            "searched_properties", SearchLog::getPropertyId
+    );
+    private static final Map<String, Constants.SearchTypeEnum> SEARCH_TYPES = Map.of(
+            "searched_cities", Constants.SearchTypeEnum.CITY,
+            "searched_districts", Constants.SearchTypeEnum.DISTRICT,
+            "searched_wards", Constants.SearchTypeEnum.WARD,
+            "searched_property_types", Constants.SearchTypeEnum.PROPERTY_TYPE,
+            "searched_properties", Constants.SearchTypeEnum.PROPERTY
+    );
+
+    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final PropertyStatisticsReportScheduler propertyStatisticsReportScheduler;
+    private final SearchHeavyHitters searchHeavyHitters;
+
+    private final Map<YearMonth, Map<String, Map<UUID, Long>>> pending = new HashMap<>();
+
+    // The report scheduler depends on the property service, which logs searches through this pipeline
+    public SearchCounterAggregator(PropertyStatisticsReportRepository propertyStatisticsReportRepository,
+                                   @Lazy PropertyStatisticsReportScheduler propertyStatisticsReportScheduler,
+                                   SearchHeavyHitters searchHeavyHitters) {
+        this.propertyStatisticsReportRepository = propertyStatisticsReportRepository;
+        this.propertyStatisticsReportScheduler = propertyStatisticsReportScheduler;
+        this.searchHeavyHitters = searchHeavyHitters;
+    }
+
+    public void add(List<SearchLog> searchLogs) {
+        for (SearchLog searchLog : searchLogs) {
+            LocalDateTime searchedAt = searchLog.getCreatedAt() != null ? searchLog.getCreatedAt() : LocalDateTime.now();
+            Map<String, Map<UUID, Long>> counts = pending.computeIfAbsent(YearMonth.from(searchedAt), month -> new HashMap<>());
+            FIELDS.forEach((field, id) -> {
+                UUID value = id.apply(searchLog);
+                if (value != null) {
+                    counts.computeIfAbsent(field, f -> new HashMap<>()).merge(value, 1L, Long::sum);
+                }
+            });
+        }
+    }
+
+    public void flush() {
+        pending.forEach((month, counts) -> {
+            if (counts.isEmpty()) {
+                return;
+            }
+            counts.forEach((field, ids) -> searchHeavyHitters.add(month, SEARCH_TYPES.get(field), ids));
+            try {
+                if (!propertyStatisticsReportRepository.incrementSearches(month.getMonthValue(), month.getYear(), counts)) {
+                    // First searches of a month can arrive before the monthly report is created
+                    propertyStatisticsReportScheduler.initPropertyStatisticsReportData(month.getMonthValue(), month.getYear()).join();
+                    propertyStatisticsReportRepository.incrementSearches(month.getMonthValue(), month.getYear(), counts);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to add search counts for {} to the statistics report: {}", month, e.getMessage());
+            }
+        });
+        pending.clear();
+    }
+}
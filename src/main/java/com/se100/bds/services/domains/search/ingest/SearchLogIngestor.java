@@ -0,0 +1,145 @@
+package com.se100.bds.services.domains.search.ingest;
+
+import com.se100.bds.models.schemas.search.SearchLog;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffers search logs in a bounded lock-free queue and writes them with insertMany from a dedicated thread,
+ * every flush interval or as soon as a full batch is waiting. Request threads never block: when the
+ * queue is full the log is dropped and counted instead. Each drained batch is also folded into the
+ * monthly search counters by {@link SearchCounterAggregator}.
+ */
+@Slf4j
+@Component
+public class SearchLogIngestor {
+    private final SearchLogRepository searchLogRepository;
+    private final SearchCounterAggregator searchCounterAggregator;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    private final ConcurrentLinkedQueue<SearchLog> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue, so the bound is tracked separately
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-log-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+
+    public SearchLogIngestor(SearchLogRepository searchLogRepository,
+                             SearchCounterAggregator searchCounterAggregator,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.search-log.queue-capacity:10000}") int capacity,
+                             @Value("${app.search-log.batch-size:500}") int batchSize,
+                             @Value("${app.search-log.flush-interval-ms:1000}") long flushIntervalMs) {
+        this.searchLogRepository = searchLogRepository;
+        this.searchCounterAggregator = searchCounterAggregator;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+
+        this.accepted = meterRegistry.counter("search_log.ingest.accepted");
+        this.dropped = meterRegistry.counter("search_log.ingest.dropped");
+        this.written = meterRegistry.counter("search_log.ingest.written");
+        this.failed = meterRegistry.counter("search_log.ingest.failed");
+        Gauge.builder("search_log.ingest.queued", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        drainer.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a search log for writing, false when it was dropped because the queue is full
+     */
+    public boolean offer(SearchLog searchLog) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+
+        // Stamped here, the write happens up to one flush interval later
+        searchLog.setCreatedAt(LocalDateTime.now());
+        queue.offer(searchLog);
+        accepted.increment();
+
+        if (size.get() >= batchSize && !drainer.isShutdown() && drainRequested.compareAndSet(false, true)) {
+            try {
+                drainer.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the final drain picks it up
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        drainer.shutdown();
+        if (!drainer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Search log drainer did not stop in time");
+        }
+        // Whatever arrived after the last run
+        drain();
+    }
+
+    private void drain() {
+        drainRequested.set(false);
+        List<SearchLog> batch;
+        while (!(batch = poll()).isEmpty()) {
+            write(batch);
+            // Counted even when the insert failed, the search still happened
+            searchCounterAggregator.add(batch);
+        }
+        searchCounterAggregator.flush();
+    }
+
+    private List<SearchLog> poll() {
+        List<SearchLog> batch = new ArrayList<>(batchSize);
+        SearchLog searchLog;
+        while (batch.size() < batchSize && (searchLog = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(searchLog);
+        }
+        return batch;
+    }
+
+    private void write(List<SearchLog> batch) {
+        try {
+            searchLogRepository.insert(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            // Not retried, a failing Mongo would otherwise keep the queue full and drop everything new
+            failed.increment(batch.size());
+            log.error("Failed to write {} search logs: {}", batch.size(), e.getMessage());
+        }
+    }
+}
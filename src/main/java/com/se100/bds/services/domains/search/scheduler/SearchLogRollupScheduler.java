@@ -0,0 +1,93 @@
+package com.se100.bds.services.domains.search.scheduler;
+
+import com.se100.bds.models.schemas.search.SearchLogDailyRollup;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogDailyRollupRepository;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import com.se100.bds.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Compacts raw search logs into one count document per day and search type. Raw logs expire after
+ * the retention, every day still within it that has no rollup yet is rolled up, so missed runs catch up.
+ */
+@Slf4j
+@Service
+public class SearchLogRollupScheduler {
+    private static final Map<Constants.SearchTypeEnum, String> FIELDS = Map.of(
+            Constants.SearchTypeEnum.CITY, "city_id",
+            Constants.SearchTypeEnum.DISTRICT, "district_id",
+            Constants.SearchTypeEnum.WARD, "ward_id",
+            Constants.SearchTypeEnum.PROPERTY, "property_id",
+            Constants.SearchTypeEnum.PROPERTY_TYPE, "property_type_id"
+    );
+
+    private final SearchLogRepository searchLogRepository;
+    private final SearchLogDailyRollupRepository searchLogDailyRollupRepository;
+    private final int retentionDays;
+
+    public SearchLogRollupScheduler(SearchLogRepository searchLogRepository,
+                                    SearchLogDailyRollupRepository searchLogDailyRollupRepository,
+                                    @Value("${app.search-log.retention-days:90}") int retentionDays) {
+        this.searchLogRepository = searchLogRepository;
+        this.searchLogDailyRollupRepository = searchLogDailyRollupRepository;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyRetention() {
+        try {
+            searchLogRepository.expireAfter(Duration.ofDays(retentionDays));
+        } catch (RuntimeException e) {
+            log.error("Failed to set search log retention of {} days: {}", retentionDays, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 30 0 * * ?")
+    protected void rollUpPendingDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        // The TTL index has already removed part of the day retentionDays ago, only days fully inside retention are rolled up
+        LocalDate oldest = LocalDate.now().minusDays(retentionDays - 1L);
+
+        Set<LocalDate> rolledUp = searchLogDailyRollupRepository.findAllByDateBetween(oldest.minusDays(1), yesterday.plusDays(1)).stream()
+                .map(SearchLogDailyRollup::getDate)
+                .collect(Collectors.toSet());
+
+        for (LocalDate day = oldest; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            if (!rolledUp.contains(day)) {
+                rollUp(day);
+            }
+        }
+    }
+
+    /**
+     * Count the searches of one day, replacing any earlier rollup of that day
+     */
+    public void rollUp(LocalDate day) {
+        for (Map.Entry<Constants.SearchTypeEnum, String> field : FIELDS.entrySet()) {
+            Map<UUID, Integer> counts = searchLogRepository.countByField(
+                    field.getValue(), day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+
+            SearchLogDailyRollup rollup = new SearchLogDailyRollup();
+            // Keyed by day and type so rolling up a day again replaces it
+            rollup.setId(day + ":" + field.getKey().name());
+            rollup.setDate(day);
+            rollup.setSearchType(field.getKey());
+            rollup.setCounts(counts);
+            rollup.setTotal(counts.values().stream().mapToInt(Integer::intValue).sum());
+            searchLogDailyRollupRepository.save(rollup);
+        }
+        log.info("Rolled up search logs of {}", day);
+    }
+}
@@ -0,0 +1,211 @@
+package com.se100.bds.services.domains.search.sketch;
+
+import com.se100.bds.models.schemas.report.PropertyStatisticsReport;
+import com.se100.bds.models.schemas.search.SearchHeavyHitterCheckpoint;
+import com.se100.bds.repositories.domains.mongo.report.PropertyStatisticsReportRepository;
+import com.se100.bds.repositories.domains.mongo.report.ReportBucketRepository;
+import com.se100.bds.repositories.domains.mongo.search.SearchHeavyHitterCheckpointRepository;
+import com.se100.bds.utils.Constants;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Most searched ids of the current month per search type, kept in Space-Saving sketches fed by the search log
+ * pipeline. Answers top-N without loading and sorting the report buckets. The sketches follow the report in
+ * carrying counts over into a new month, and are checkpointed to Mongo so a restart does not reseed them.
+ */
+@Slf4j
+@Component
+public class SearchHeavyHitters {
+    private final PropertyStatisticsReportRepository propertyStatisticsReportRepository;
+    private final ReportBucketRepository reportBucketRepository;
+    private final SearchHeavyHitterCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+
+    private final Map<Constants.SearchTypeEnum, SpaceSavingSketch> sketches = new EnumMap<>(Constants.SearchTypeEnum.class);
+    private YearMonth month;
+    private boolean loaded = false;
+
+    public SearchHeavyHitters(PropertyStatisticsReportRepository propertyStatisticsReportRepository,
+                              ReportBucketRepository reportBucketRepository,
+                              SearchHeavyHitterCheckpointRepository checkpointRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.search-heavy-hitters.enabled:true}") boolean enabled,
+                              @Value("${app.search-heavy-hitters.error-rate:0.0005}") double errorRate) {
+        this.propertyStatisticsReportRepository = propertyStatisticsReportRepository;
+        this.reportBucketRepository = reportBucketRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+
+        // Space-Saving with 1 / e counters overestimates any count by at most e times the total
+        int capacity = (int) Math.ceil(1 / errorRate);
+        for (Constants.SearchTypeEnum searchType : Constants.SearchTypeEnum.values()) {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+            sketches.put(searchType, sketch);
+            Gauge.builder("search.heavy_hitters.max_error", this, self -> self.read(sketch::maxError))
+                    .tag("type", searchType.name())
+                    .register(meterRegistry);
+            Gauge.builder("search.heavy_hitters.total", this, self -> self.read(sketch::total))
+                    .tag("type", searchType.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("search.heavy_hitters.error_rate", () -> errorRate).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        try {
+            synchronized (this) {
+                if (!restoreCheckpoints(current)) {
+                    seedFromReport(current);
+                }
+                month = current;
+                loaded = true;
+            }
+            log.info("Search heavy hitters loaded for {}", current);
+        } catch (RuntimeException e) {
+            log.error("Failed to load search heavy hitters, top searches fall back to the report: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Count searches of one search type made in the given month
+     */
+    public synchronized void add(YearMonth searchMonth, Constants.SearchTypeEnum searchType, Map<UUID, Long> counts) {
+        // Ignored until loaded, the seed already contains whatever was flushed to the report before
+        if (!loaded || searchMonth.isBefore(month)) {
+            return;
+        }
+        // Like the report, a new month starts from the counts of the previous one
+        month = searchMonth;
+        SpaceSavingSketch sketch = sketches.get(searchType);
+        counts.forEach(sketch::offer);
+    }
+
+    /**
+     * Most searched ids, empty when the sketch cannot answer for that month or range and the report must be read instead
+     */
+    public synchronized Optional<List<UUID>> top(Constants.SearchTypeEnum searchType, int year, int month, int offset, int limit) {
+        SpaceSavingSketch sketch = sketches.get(searchType);
+        if (!loaded || !this.month.equals(YearMonth.of(year, month)) || offset + limit > sketch.capacity()) {
+            return Optional.empty();
+        }
+        return Optional.of(sketch.top(offset, limit));
+    }
+
+    @Scheduled(fixedDelayString = "${app.search-heavy-hitters.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        List<SearchHeavyHitterCheckpoint> checkpoints;
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            checkpoints = sketches.entrySet().stream()
+                    .map(entry -> toCheckpoint(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+        try {
+            checkpointRepository.saveAll(checkpoints);
+        } catch (RuntimeException e) {
+            log.error("Failed to checkpoint search heavy hitters: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        checkpoint();
+    }
+
+    private boolean restoreCheckpoints(YearMonth current) {
+        Map<Constants.SearchTypeEnum, SearchHeavyHitterCheckpoint> checkpoints = new EnumMap<>(Constants.SearchTypeEnum.class);
+        for (Constants.SearchTypeEnum searchType : Constants.SearchTypeEnum.values()) {
+            Optional<SearchHeavyHitterCheckpoint> checkpoint = checkpointRepository.findBySearchType(searchType)
+                    .filter(saved -> saved.getYear() == current.getYear() && saved.getMonth() == current.getMonthValue());
+            if (checkpoint.isEmpty()) {
+                return false;
+            }
+            checkpoints.put(searchType, checkpoint.get());
+        }
+
+        checkpoints.forEach((searchType, checkpoint) -> sketches.get(searchType).restore(
+                checkpoint.getCounters().stream()
+                        .map(counter -> new SpaceSavingSketch.Counter(counter.getId(), counter.getCount(), counter.getError()))
+                        .toList(),
+                checkpoint.getTotal()));
+        return true;
+    }
+
+    private void seedFromReport(YearMonth current) {
+        // The month's report may not be created yet, it will start from the previous month's counts
+        YearMonth seedMonth = current;
+        PropertyStatisticsReport report = propertyStatisticsReportRepository
+                .findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(current.getMonthValue(), current.getYear());
+        if (report == null) {
+            seedMonth = current.minusMonths(1);
+            report = propertyStatisticsReportRepository
+                    .findFirstByBaseReportData_MonthAndBaseReportData_YearOrderByCreatedAtDesc(seedMonth.getMonthValue(), seedMonth.getYear());
+        }
+
+        for (Constants.SearchTypeEnum searchType : Constants.SearchTypeEnum.values()) {
+            if (report == null) {
+                sketches.get(searchType).clear();
+                continue;
+            }
+            Map<UUID, Integer> counts = reportBucketRepository.findCounts(
+                    searchedDimension(searchType), seedMonth.getMonthValue(), seedMonth.getYear());
+            // Exact counts, only the largest ones are kept when there are more ids than counters
+            sketches.get(searchType).restore(
+                    counts.entrySet().stream()
+                            .map(entry -> new SpaceSavingSketch.Counter(entry.getKey(), entry.getValue(), 0))
+                            .toList(),
+                    counts.values().stream().mapToLong(Integer::longValue).sum());
+        }
+    }
+
+    private Constants.ReportDimensionEnum searchedDimension(Constants.SearchTypeEnum searchType) {
+        return switch (searchType) {
+            case CITY -> Constants.ReportDimensionEnum.SEARCHED_CITIES;
+            case DISTRICT -> Constants.ReportDimensionEnum.SEARCHED_DISTRICTS;
+            case WARD -> Constants.ReportDimensionEnum.SEARCHED_WARDS;
+            case PROPERTY -> Constants.ReportDimensionEnum.SEARCHED_PROPERTIES;
+            case PROPERTY_TYPE -> Constants.ReportDimensionEnum.SEARCHED_PROPERTY_TYPES;
+        };
+    }
+
+    private SearchHeavyHitterCheckpoint toCheckpoint(Constants.SearchTypeEnum searchType, SpaceSavingSketch sketch) {
+        SearchHeavyHitterCheckpoint checkpoint = new SearchHeavyHitterCheckpoint();
+        // One document per search type, replaced on every checkpoint
+        checkpoint.setId(searchType.name());
+        checkpoint.setSearchType(searchType);
+        checkpoint.setMonth(month.getMonthValue());
+        checkpoint.setYear(month.getYear());
+        checkpoint.setTotal(sketch.total());
+        checkpoint.setCounters(sketch.counters().stream()
+                .map(counter -> new SearchHeavyHitterCheckpoint.Counter(counter.id(), counter.count(), counter.error()))
+                .toList());
+        return checkpoint;
+    }
+
+    private synchronized double read(LongSupplier value) {
+        return value.getAsLong();
+    }
+}
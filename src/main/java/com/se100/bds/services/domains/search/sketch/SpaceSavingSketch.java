@@ -0,0 +1,112 @@
+package com.se100.bds.services.domains.search.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Space-Saving heavy hitter summary keeping at most {@code capacity} counters.
+ * Every id counted more than total / capacity times is guaranteed to be tracked, and a tracked count
+ * overestimates the true one by at most its error, which never exceeds the smallest tracked count.
+ * Not thread safe.
+ */
+public class SpaceSavingSketch {
+    private static final Comparator<Counter> BY_COUNT = Comparator.comparingLong(Counter::count).thenComparing(Counter::id);
+
+    private final int capacity;
+    private final Map<UUID, Counter> counters = new HashMap<>();
+    // Smallest count first, so eviction takes the head and top-N walks from the tail
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+    private long total = 0;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sketch capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(UUID id, long weight) {
+        total += weight;
+        Counter current = counters.get(id);
+        if (current != null) {
+            ordered.remove(current);
+            put(new Counter(id, current.count() + weight, current.error()));
+        } else if (counters.size() < capacity) {
+            put(new Counter(id, weight, 0));
+        } else {
+            // Take over the smallest counter, its count becomes the error of the new id
+            Counter evicted = ordered.pollFirst();
+            counters.remove(evicted.id());
+            put(new Counter(id, evicted.count() + weight, evicted.count()));
+        }
+    }
+
+    /**
+     * Ids by estimated count descending, touching only offset + limit counters
+     */
+    public List<UUID> top(int offset, int limit) {
+        List<UUID> ids = new ArrayList<>(Math.max(0, Math.min(limit, counters.size() - offset)));
+        Iterator<Counter> descending = ordered.descendingIterator();
+        for (int i = 0; i < offset && descending.hasNext(); i++) {
+            descending.next();
+        }
+        while (ids.size() < limit && descending.hasNext()) {
+            ids.add(descending.next().id());
+        }
+        return ids;
+    }
+
+    /**
+     * Largest possible overestimate of any tracked count, 0 while the sketch still tracks every id exactly
+     */
+    public long maxError() {
+        return counters.size() < capacity ? 0 : ordered.first().count();
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public List<Counter> counters() {
+        return new ArrayList<>(ordered.descendingSet());
+    }
+
+    public void clear() {
+        counters.clear();
+        ordered.clear();
+        total = 0;
+    }
+
+    /**
+     * Replace the content with saved counters, keeping the largest ones if there are more than fit
+     */
+    public void restore(List<Counter> saved, long savedTotal) {
+        clear();
+        saved.stream()
+                .sorted(BY_COUNT.reversed())
+                .limit(capacity)
+                .forEach(this::put);
+        total = savedTotal;
+    }
+
+    private void put(Counter counter) {
+        counters.put(counter.id(), counter);
+        ordered.add(counter);
+    }
+
+    public record Counter(UUID id, long count, long error) {}
+}
@@ -31,6 +31,7 @@ import com.se100.bds.repositories.domains.user.UserRepository;
 import com.se100.bds.securities.JwtUserDetails;
 import com.se100.bds.services.MessageSourceService;
 import com.se100.bds.services.domains.appointment.AppointmentService;
+import com.se100.bds.services.domains.property.PropertyCardSyncService;
 import com.se100.bds.services.domains.property.PropertyService;
 import com.se100.bds.services.domains.ranking.RankingService;
 import com.se100.bds.services.domains.user.UserService;
@@ -76,6 +77,7 @@ public class UserServiceImpl implements UserService {
     private final RankingService rankingService;
     private final WardRepository wardRepository;
     private final CloudinaryService cloudinaryService;
+    private final PropertyCardSyncService propertyCardSyncService;
 
     public UserServiceImpl(
             UserRepository userRepository,
@@ -88,7 +90,8 @@ public class UserServiceImpl implements UserService {
             @Lazy AppointmentService appointmentService,
             @Lazy RankingService rankingService,
             CloudinaryService cloudinaryService,
-            WardRepository wardRepository
+            WardRepository wardRepository,
+            PropertyCardSyncService propertyCardSyncService
     ) {
         this.userRepository = userRepository;
         this.saleAgentRepository = saleAgentRepository;
@@ -101,6 +104,7 @@ public class UserServiceImpl implements UserService {
         this.cloudinaryService = cloudinaryService;
         this.rankingService = rankingService;
         this.wardRepository = wardRepository;
+        this.propertyCardSyncService = propertyCardSyncService;
     }
 
     public Authentication getAuthentication() {
@@ -364,6 +368,9 @@ public class UserServiceImpl implements UserService {
 
         // Save updated user
         userRepository.save(user);
+        if (updateAccountDto.getFirstName() != null || updateAccountDto.getLastName() != null) {
+            propertyCardSyncService.syncUserName(user);
+        }
 
         // Return updated MeResponse
         return getUserById(userId);
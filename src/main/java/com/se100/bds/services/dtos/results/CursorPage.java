@@ -0,0 +1,20 @@
+package com.se100.bds.services.dtos.results;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset paginated listing
+ */
+public record CursorPage<T>(
+    List<T> content,
+    int limit,
+    String nextCursor,
+    boolean hasNext,
+    Long total
+) {
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new CursorPage<>(mapped, limit, nextCursor, hasNext, total);
+    }
+}
@@ -0,0 +1,11 @@
+package com.se100.bds.services.dtos.results;
+
+import com.se100.bds.dtos.responses.property.PropertyDetails;
+
+/**
+ * Assembled property details with the ETag of their content, shared between requests so it must not be modified
+ */
+public record PropertyDetailsSnapshot(
+    PropertyDetails details,
+    String etag
+) {}
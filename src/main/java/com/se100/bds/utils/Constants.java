@@ -503,6 +503,36 @@ public final class Constants {
         }
     }
 
+    @Getter
+    @AllArgsConstructor
+    public enum ReportDimensionEnum { // Per id breakdown of a monthly report, the value is the field it was embedded in
+        TOTAL_REVENUE("total_revenue"), // Single bucket under ReportBucket.TOTAL_ITEM_ID
+        REVENUE_CITIES("revenue_cities"),
+        REVENUE_DISTRICTS("revenue_districts"),
+        REVENUE_WARDS("revenue_wards"),
+        REVENUE_PROPERTY_TYPES("revenue_property_types"),
+        SEARCHED_CITIES("searched_cities"),
+        FAVORITE_CITIES("favorite_cities"),
+        SEARCHED_DISTRICTS("searched_districts"),
+        FAVORITE_DISTRICTS("favorite_districts"),
+        SEARCHED_WARDS("searched_wards"),
+        FAVORITE_WARDS("favorite_wards"),
+        SEARCHED_PROPERTY_TYPES("searched_property_types"),
+        FAVORITE_PROPERTY_TYPES("favorite_property_types"),
+        SEARCHED_PROPERTIES("searched_properties"),
+        VIEWED_PROPERTIES("viewed_properties"),
+        TOTAL_VIEWS("total_views"); // Single bucket under ReportBucket.TOTAL_ITEM_ID
+
+        private final String value;
+
+        public static ReportDimensionEnum get(final String name) {
+            return Stream.of(ReportDimensionEnum.values())
+                    .filter(p -> p.name().equals(name.toUpperCase()) || p.getValue().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid report dimension name: %s", name)));
+        }
+    }
+
     @Getter
     @AllArgsConstructor
     public enum PropertyStatusEnum {
@@ -0,0 +1,262 @@
+package com.se100.bds.repositories.domains.contract;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.se100.bds.models.entities.contract.Payment;
+import com.se100.bds.models.entities.location.City;
+import com.se100.bds.models.entities.location.District;
+import com.se100.bds.models.entities.location.Ward;
+import com.se100.bds.models.entities.property.Property;
+import com.se100.bds.models.entities.property.PropertyType;
+import com.se100.bds.models.entities.user.PropertyOwner;
+import com.se100.bds.models.entities.user.User;
+import com.se100.bds.repositories.dtos.RevenueBucketProjection;
+import com.se100.bds.utils.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs the revenue GROUP BY against a real Postgres, skipped when Docker is not available.
+ * The schema is built with ddl-auto=update, the only mode that creates idx_payments_paid_time_status.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=update")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PaymentRepositoryTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusMonths(1);
+    private static final List<Constants.PaymentTypeEnum> EXCLUDED_TYPES = List.of(
+            Constants.PaymentTypeEnum.SALARY,
+            Constants.PaymentTypeEnum.BONUS,
+            Constants.PaymentTypeEnum.MONEY_SALE,
+            Constants.PaymentTypeEnum.MONEY_RENTAL,
+            Constants.PaymentTypeEnum.PENALTY);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private City hanoi;
+    private District baDinh;
+    private Ward doiCan;
+    private Ward kimMa;
+    private PropertyType apartment;
+    private PropertyType house;
+    private Property doiCanApartment;
+    private Property doiCanHouse;
+    private Property kimMaApartment;
+
+    @BeforeEach
+    void seedLocations() {
+        hanoi = entityManager.persist(City.builder().cityName("Ha Noi").build());
+        baDinh = entityManager.persist(District.builder().city(hanoi).districtName("Ba Dinh").build());
+        doiCan = entityManager.persist(ward("Doi Can"));
+        kimMa = entityManager.persist(ward("Kim Ma"));
+        apartment = entityManager.persist(PropertyType.builder().typeName("Apartment").build());
+        house = entityManager.persist(PropertyType.builder().typeName("House").build());
+
+        User user = entityManager.persist(User.builder()
+                .role(Constants.RoleEnum.PROPERTY_OWNER)
+                .email("owner@example.com")
+                .phoneNumber("0900000000")
+                .ward(doiCan)
+                .password("password")
+                .firstName("Owner")
+                .lastName("Test")
+                .status(Constants.StatusProfileEnum.ACTIVE)
+                .build());
+        PropertyOwner owner = entityManager.persist(PropertyOwner.builder().user(user).build());
+
+        doiCanApartment = entityManager.persist(property(owner, doiCan, apartment));
+        doiCanHouse = entityManager.persist(property(owner, doiCan, house));
+        kimMaApartment = entityManager.persist(property(owner, kimMa, apartment));
+    }
+
+    @Test
+    void shouldSumRevenuePerLocationAndPropertyType() {
+        payment(doiCanApartment, "100", FROM, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanApartment, "50", FROM.plusDays(10), Constants.PaymentTypeEnum.INSTALLMENT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanHouse, "25", TO.minusSeconds(1), Constants.PaymentTypeEnum.FULL_PAY, Constants.PaymentStatusEnum.SUCCESS);
+        payment(kimMaApartment, "10", FROM.plusDays(3), Constants.PaymentTypeEnum.MONTHLY, Constants.PaymentStatusEnum.SUCCESS);
+        entityManager.flush();
+
+        Map<UUID, RevenueBucketProjection> buckets = byWard(sum());
+
+        assertEquals(2, buckets.size());
+        RevenueBucketProjection doiCanBucket = buckets.get(doiCan.getId());
+        assertEquals(hanoi.getId(), doiCanBucket.cityId());
+        assertEquals(baDinh.getId(), doiCanBucket.districtId());
+        assertEquals(0, new BigDecimal("175").compareTo(doiCanBucket.revenue()));
+        assertEquals(3L, doiCanBucket.paymentCount());
+        assertEquals(0, new BigDecimal("10").compareTo(buckets.get(kimMa.getId()).revenue()));
+    }
+
+    @Test
+    void shouldGroupByPropertyTypeWithinAWard() {
+        payment(doiCanApartment, "100", FROM, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanHouse, "25", FROM, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        entityManager.flush();
+
+        Map<UUID, RevenueBucketProjection> buckets = sum().stream()
+                .collect(Collectors.toMap(RevenueBucketProjection::propertyTypeId, Function.identity()));
+
+        assertEquals(2, buckets.size());
+        assertEquals(0, new BigDecimal("100").compareTo(buckets.get(apartment.getId()).revenue()));
+        assertEquals(0, new BigDecimal("25").compareTo(buckets.get(house.getId()).revenue()));
+    }
+
+    @Test
+    void shouldPutPaymentsWithoutPropertyInANullBucket() {
+        payment(null, "40", FROM.plusDays(1), Constants.PaymentTypeEnum.ADVANCE, Constants.PaymentStatusEnum.SUCCESS);
+        payment(null, "2", FROM.plusDays(2), Constants.PaymentTypeEnum.ADVANCE, Constants.PaymentStatusEnum.SUCCESS);
+        entityManager.flush();
+
+        List<RevenueBucketProjection> buckets = sum();
+
+        assertEquals(1, buckets.size());
+        RevenueBucketProjection bucket = buckets.get(0);
+        assertNull(bucket.cityId());
+        assertNull(bucket.districtId());
+        assertNull(bucket.wardId());
+        assertNull(bucket.propertyTypeId());
+        assertEquals(0, new BigDecimal("42").compareTo(bucket.revenue()));
+        assertEquals(2L, bucket.paymentCount());
+    }
+
+    @Test
+    void shouldOnlyCountSuccessfulRevenuePaidWithinTheHalfOpenMonth() {
+        payment(doiCanApartment, "1", FROM, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanApartment, "10", TO, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanApartment, "100", FROM.minusSeconds(1), Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanApartment, "1000", null, Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.SUCCESS);
+        payment(doiCanApartment, "10000", FROM.plusDays(1), Constants.PaymentTypeEnum.DEPOSIT, Constants.PaymentStatusEnum.FAILED);
+        payment(doiCanApartment, "100000", FROM.plusDays(1), Constants.PaymentTypeEnum.PENALTY, Constants.PaymentStatusEnum.SUCCESS);
+        entityManager.flush();
+
+        List<RevenueBucketProjection> buckets = sum();
+
+        assertEquals(1, buckets.size());
+        assertEquals(0, BigDecimal.ONE.compareTo(buckets.get(0).revenue()));
+        assertEquals(1L, buckets.get(0).paymentCount());
+    }
+
+    /**
+     * Times the GROUP BY over 1M payments spread across the seeded properties and two months.
+     * Run with {@code mvn test -Dtest=PaymentRepositoryTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkOneMillionPayments() {
+        int payments = 1_000_000;
+        jdbcTemplate.update("""
+                        INSERT INTO payments (payment_id, property_id, payment_type, amount, due_date, paid_time, status)
+                        SELECT gen_random_uuid(),
+                               (ARRAY[?, ?, ?, NULL]::uuid[])[1 + i % 4],
+                               (ARRAY['DEPOSIT', 'INSTALLMENT', 'PENALTY'])[1 + i % 3],
+                               (i % 500000) / 100.0,
+                               ?::date,
+                               ?::timestamp + (i % 59 || ' days')::interval,
+                               CASE WHEN i % 10 = 0 THEN ? ELSE ? END
+                        FROM generate_series(1, ?) AS i
+                        """,
+                doiCanApartment.getId(), doiCanHouse.getId(), kimMaApartment.getId(),
+                FROM.toLocalDate(), FROM,
+                Constants.PaymentStatusEnum.FAILED.ordinal(), Constants.PaymentStatusEnum.SUCCESS.ordinal(),
+                payments);
+        jdbcTemplate.execute("ANALYZE payments");
+
+        // First call warms up the connection and the plan cache
+        sum();
+        long start = System.nanoTime();
+        List<RevenueBucketProjection> buckets = sum();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long counted = buckets.stream().mapToLong(RevenueBucketProjection::paymentCount).sum();
+        Long expected = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) FROM payments
+                        WHERE paid_time >= ? AND paid_time < ? AND status = ? AND payment_type <> 'PENALTY'
+                        """, Long.class, FROM, TO, Constants.PaymentStatusEnum.SUCCESS.ordinal());
+        assertEquals(expected, counted);
+        assertEquals(4, buckets.size());
+        List<String> plan = jdbcTemplate.queryForList("""
+                        EXPLAIN SELECT COUNT(*) FROM payments
+                        WHERE paid_time >= ? AND paid_time < ? AND status = ?
+                        """, String.class, FROM, TO, Constants.PaymentStatusEnum.SUCCESS.ordinal());
+        System.out.printf("1M payments: %d paid in the month summed into %d buckets in %d ms%n%s%n",
+                counted, buckets.size(), elapsedMs, String.join(System.lineSeparator(), plan));
+    }
+
+    private List<RevenueBucketProjection> sum() {
+        return paymentRepository.sumRevenueByLocationAndPropertyType(FROM, TO, Constants.PaymentStatusEnum.SUCCESS, EXCLUDED_TYPES);
+    }
+
+    private Map<UUID, RevenueBucketProjection> byWard(List<RevenueBucketProjection> buckets) {
+        return buckets.stream().collect(Collectors.toMap(RevenueBucketProjection::wardId, Function.identity()));
+    }
+
+    private Ward ward(String name) {
+        return Ward.builder()
+                .district(baDinh)
+                .wardName(name)
+                .description(name)
+                .totalArea(BigDecimal.ONE)
+                .population(1)
+                .build();
+    }
+
+    private Property property(PropertyOwner owner, Ward ward, PropertyType propertyType) {
+        return Property.builder()
+                .owner(owner)
+                .ward(ward)
+                .propertyType(propertyType)
+                .title(propertyType.getTypeName() + " in " + ward.getWardName())
+                .description("Test property")
+                .transactionType(Constants.TransactionTypeEnum.SALE)
+                .area(new BigDecimal("50"))
+                .priceAmount(new BigDecimal("1000000000"))
+                .commissionRate(new BigDecimal("0.0200"))
+                .serviceFeeAmount(BigDecimal.ZERO)
+                .serviceFeeCollectedAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    private void payment(Property property, String amount, LocalDateTime paidTime,
+                         Constants.PaymentTypeEnum paymentType, Constants.PaymentStatusEnum status) {
+        entityManager.persist(Payment.builder()
+                .property(property)
+                .amount(new BigDecimal(amount))
+                .dueDate(LocalDate.from(FROM))
+                .paidTime(paidTime)
+                .paymentType(paymentType)
+                .status(status)
+                .build());
+    }
+}
@@ -0,0 +1,131 @@
+package com.se100.bds.repositories.domains.property;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Checks the plans of the SQL Hibernate generates for the card search, skipped when Docker is not available.
+ * The statements are captured as sent and explained as generic plans, so a change to the Criteria query that
+ * stops the predicates from using their index fails here instead of turning into a sequential scan in production.
+ * Sequential scans are switched off since the seeded table is small: the plans show which indexes the
+ * predicates can use, not the planner's cost choice.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=update")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class PropertyCardQueryRepositoryTest {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @TestConfiguration
+    static class CaptureStatements {
+        @Bean
+        HibernatePropertiesCustomizer statementInspector() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            });
+        }
+    }
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private PropertyCardEntryRepository propertyCardEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seedCards() {
+        // Installed on ApplicationStartedEvent in the application, which a JPA slice does not publish
+        propertyCardEntryRepository.createSearchVectorFunction();
+        propertyCardEntryRepository.createSearchQueryFunction();
+        propertyCardEntryRepository.createSearchMatchFunction();
+        propertyCardEntryRepository.createSearchIndex();
+
+        jdbcTemplate.update("""
+                        INSERT INTO property_cards (property_id, created_at, updated_at, title, status, number_of_images, search_vector)
+                        SELECT gen_random_uuid(),
+                               ?::timestamp + (i || ' minutes')::interval,
+                               ?::timestamp + (i || ' minutes')::interval,
+                               'Nhà phố ' || i,
+                               'AVAILABLE',
+                               0,
+                               property_card_search_vector('Nhà phố ' || i || CASE WHEN i % 100 = 0 THEN ' Quận 1' ELSE ' Thủ Đức' END)
+                        FROM generate_series(1, 5000) AS i
+                        """,
+                CREATED_AT, CREATED_AT);
+        jdbcTemplate.execute("ANALYZE property_cards");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void shouldMatchKeywordsThroughTheSearchIndex() {
+        propertyRepository.findPropertyCards(PropertyCardFilter.builder().keyword("quan 1").build(), PageRequest.of(0, 20));
+
+        String plan = explain(STATEMENTS.get(0));
+
+        assertTrue(plan.contains("idx_property_cards_search_vector"), plan);
+    }
+
+    @Test
+    void shouldSeekTheCursorThroughTheCreatedAtIndex() {
+        PropertyCardCursor after = new PropertyCardCursor(PropertyCardCursor.DEFAULT_SORT_FIELD, false,
+                CREATED_AT.plusMinutes(2500), UUID.randomUUID());
+
+        propertyRepository.findPropertyCardsAfter(PropertyCardFilter.builder().build(),
+                PropertyCardCursor.DEFAULT_SORT_FIELD, false, after, 20);
+
+        String plan = explain(STATEMENTS.get(0));
+
+        assertTrue(plan.contains("idx_property_cards_created_at"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    /**
+     * EXPLAIN (GENERIC_PLAN) plans the statement without values, Hibernate's ? markers become $1, $2, ...
+     */
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return String.join(System.lineSeparator(),
+                jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + numbered, String.class));
+    }
+}
@@ -0,0 +1,42 @@
+package com.se100.bds.repositories.dtos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.se100.bds.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+class PropertyCardCursorTest {
+    @Test
+    void shouldRoundTripCreatedAtCursor() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+        PropertyCardCursor cursor = new PropertyCardCursor("createdAt", false, createdAt, id);
+
+        PropertyCardCursor decoded = PropertyCardCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void shouldRoundTripPriceCursor() {
+        UUID id = UUID.randomUUID();
+        PropertyCardCursor cursor = new PropertyCardCursor("priceAmount", true, new BigDecimal("1250000000.50"), id);
+
+        PropertyCardCursor decoded = PropertyCardCursor.decode(cursor.encode());
+
+        assertEquals("priceAmount", decoded.sortField());
+        assertTrue(decoded.ascending());
+        assertEquals(new BigDecimal("1250000000.50"), decoded.sortValue());
+        assertEquals(id, decoded.id());
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        assertThrows(BadRequestException.class, () -> PropertyCardCursor.decode("not-a-cursor"));
+        assertThrows(BadRequestException.class, () -> PropertyCardCursor.resolveSortField("description"));
+    }
+}
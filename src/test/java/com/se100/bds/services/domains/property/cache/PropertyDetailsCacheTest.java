@@ -0,0 +1,84 @@
+package com.se100.bds.services.domains.property.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.se100.bds.dtos.responses.property.PropertyDetails;
+import com.se100.bds.services.dtos.results.PropertyDetailsSnapshot;
+import org.junit.jupiter.api.Test;
+
+class PropertyDetailsCacheTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        PropertyDetailsCache cache = new PropertyDetailsCache(1_000_000, objectMapper);
+        UUID id = UUID.randomUUID();
+
+        PropertyDetailsSnapshot first = cache.get(id, this::load);
+        PropertyDetailsSnapshot second = cache.get(id, this::load);
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertTrue(first.etag().startsWith("\""));
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        PropertyDetailsCache cache = new PropertyDetailsCache(1_000_000, objectMapper);
+        UUID id = UUID.randomUUID();
+        cache.get(id, this::load);
+
+        cache.invalidate(id);
+        cache.get(id, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotKeepLoadThatRacedWithInvalidation() {
+        PropertyDetailsCache cache = new PropertyDetailsCache(1_000_000, objectMapper);
+        UUID id = UUID.randomUUID();
+
+        cache.get(id, propertyId -> {
+            cache.invalidate(propertyId);
+            return load(propertyId);
+        });
+        cache.get(id, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedWhenOverBudget() throws Exception {
+        UUID first = UUID.randomUUID();
+        int entryBytes = objectMapper.writeValueAsBytes(load(first)).length;
+        PropertyDetailsCache cache = new PropertyDetailsCache(entryBytes * 2L, objectMapper);
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.get(first, this::load);
+        cache.get(second, this::load);
+        cache.get(first, this::load);
+        loads.set(0);
+
+        cache.get(third, this::load);
+        cache.get(first, this::load);
+        cache.get(second, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private PropertyDetails load(UUID propertyId) {
+        loads.incrementAndGet();
+        return PropertyDetails.builder()
+                .id(propertyId)
+                .title("Nhà phố Quận 1")
+                .description("x".repeat(200))
+                .build();
+    }
+}
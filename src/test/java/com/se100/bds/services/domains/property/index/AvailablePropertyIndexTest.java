@@ -0,0 +1,124 @@
+package com.se100.bds.services.domains.property.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import com.se100.bds.models.entities.property.PropertyCardEntry;
+import com.se100.bds.repositories.dtos.PropertyCardCursor;
+import com.se100.bds.repositories.dtos.PropertyCardFilter;
+import com.se100.bds.repositories.dtos.PropertyCardProtection;
+import com.se100.bds.utils.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+class AvailablePropertyIndexTest {
+    private static final UUID HANOI = UUID.randomUUID();
+    private static final UUID SAIGON = UUID.randomUUID();
+    private static final List<Constants.PropertyStatusEnum> AVAILABLE = List.of(Constants.PropertyStatusEnum.AVAILABLE);
+
+    private AvailablePropertyIndex index;
+    private PropertyCardEntry cheapHanoi;
+    private PropertyCardEntry priceyHanoi;
+    private PropertyCardEntry saigon;
+    private PropertyCardEntry soldHanoi;
+
+    @BeforeEach
+    void setUp() {
+        cheapHanoi = entry(HANOI, "1000000000", Constants.PropertyStatusEnum.AVAILABLE, 1);
+        priceyHanoi = entry(HANOI, "5000000000", Constants.PropertyStatusEnum.AVAILABLE, 2);
+        saigon = entry(SAIGON, "3000000000", Constants.PropertyStatusEnum.AVAILABLE, 3);
+        soldHanoi = entry(HANOI, "2000000000", Constants.PropertyStatusEnum.SOLD, 4);
+
+        index = new AvailablePropertyIndex(true);
+        index.load(List.of(cheapHanoi, priceyHanoi, saigon, soldHanoi));
+    }
+
+    @Test
+    void shouldOnlyAnswerAvailableSearches() {
+        assertTrue(index.canAnswer(PropertyCardFilter.builder().statuses(AVAILABLE).build(), Sort.by("priceAmount")));
+        assertFalse(index.canAnswer(PropertyCardFilter.builder().build(), Sort.unsorted()));
+        assertFalse(index.canAnswer(PropertyCardFilter.builder().statuses(AVAILABLE).build(), Sort.by("title")));
+        assertFalse(new AvailablePropertyIndex(false).canAnswer(PropertyCardFilter.builder().statuses(AVAILABLE).build(), Sort.unsorted()));
+    }
+
+    @Test
+    void shouldIntersectCityAndPriceRange() {
+        PropertyCardFilter filter = PropertyCardFilter.builder()
+                .cityIds(List.of(HANOI))
+                .minPrice(new BigDecimal("1000000000"))
+                .maxPrice(new BigDecimal("4000000000"))
+                .statuses(AVAILABLE)
+                .build();
+
+        Page<PropertyCardProtection> page = index.findPropertyCards(filter, PageRequest.of(0, 10));
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals(cheapHanoi.getId(), page.getContent().get(0).id());
+    }
+
+    @Test
+    void shouldSortAndPageByPrice() {
+        PropertyCardFilter filter = PropertyCardFilter.builder().statuses(AVAILABLE).build();
+
+        Page<PropertyCardProtection> page = index.findPropertyCards(filter, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "priceAmount")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(priceyHanoi.getId(), saigon.getId()), page.getContent().stream().map(PropertyCardProtection::id).toList());
+    }
+
+    @Test
+    void shouldContinueAfterCursor() {
+        PropertyCardFilter filter = PropertyCardFilter.builder().statuses(AVAILABLE).build();
+        List<PropertyCardProtection> first = index.findPropertyCardsAfter(filter, "priceAmount", true, null, 1);
+        PropertyCardCursor cursor = PropertyCardCursor.of("priceAmount", true, first.get(0));
+
+        List<PropertyCardProtection> next = index.findPropertyCardsAfter(filter, "priceAmount", true, cursor, 10);
+
+        assertEquals(cheapHanoi.getId(), first.get(0).id());
+        assertEquals(List.of(saigon.getId(), priceyHanoi.getId()), next.stream().map(PropertyCardProtection::id).toList());
+    }
+
+    @Test
+    void shouldDropCardThatIsNoLongerAvailable() {
+        PropertyCardFilter filter = PropertyCardFilter.builder().cityIds(List.of(HANOI)).statuses(AVAILABLE).build();
+        priceyHanoi.setStatus(Constants.PropertyStatusEnum.RENTED);
+
+        index.upsert(priceyHanoi);
+
+        assertEquals(1, index.countPropertyCards(filter));
+    }
+
+    @Test
+    void shouldReorderChangedPriceWithoutReload() {
+        PropertyCardFilter filter = PropertyCardFilter.builder().statuses(AVAILABLE).build();
+        PropertyCardEntry repriced = entry(HANOI, "9000000000", Constants.PropertyStatusEnum.AVAILABLE, 1);
+        repriced.setId(cheapHanoi.getId());
+
+        index.upsert(repriced);
+        List<PropertyCardProtection> first = index.findPropertyCardsAfter(filter, "priceAmount", false, null, 2);
+        PropertyCardCursor cursor = PropertyCardCursor.of("priceAmount", false, first.get(1));
+        List<PropertyCardProtection> next = index.findPropertyCardsAfter(filter, "priceAmount", false, cursor, 10);
+
+        assertEquals(List.of(cheapHanoi.getId(), priceyHanoi.getId()), first.stream().map(PropertyCardProtection::id).toList());
+        assertEquals(List.of(saigon.getId()), next.stream().map(PropertyCardProtection::id).toList());
+        assertEquals(1, index.countPropertyCards(PropertyCardFilter.builder().minPrice(new BigDecimal("6000000000")).statuses(AVAILABLE).build()));
+    }
+
+    private PropertyCardEntry entry(UUID cityId, String price, Constants.PropertyStatusEnum status, int day) {
+        return PropertyCardEntry.builder()
+                .id(UUID.randomUUID())
+                .createdAt(LocalDateTime.of(2025, 1, day, 0, 0))
+                .cityId(cityId)
+                .priceAmount(new BigDecimal(price))
+                .status(status)
+                .transactionType(Constants.TransactionTypeEnum.SALE)
+                .build();
+    }
+}
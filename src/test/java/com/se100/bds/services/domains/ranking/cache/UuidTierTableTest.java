@@ -0,0 +1,41 @@
+package com.se100.bds.services.domains.ranking.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class UuidTierTableTest {
+
+    @Test
+    void shouldFindEveryLoadedTier() {
+        Map<UUID, String> tiers = new HashMap<>();
+        String[] names = {"BRONZE", "SILVER", "GOLD", "PLATINUM"};
+        for (int i = 0; i < 10_000; i++) {
+            tiers.put(UUID.randomUUID(), names[i % names.length]);
+        }
+
+        UuidTierTable table = UuidTierTable.of(tiers);
+
+        assertEquals(tiers.size(), table.size());
+        tiers.forEach((userId, tier) -> assertEquals(tier, table.get(userId)));
+    }
+
+    @Test
+    void shouldMissUnknownAndSkipNullTiers() {
+        UUID unranked = UUID.randomUUID();
+        Map<UUID, String> tiers = new HashMap<>();
+        tiers.put(UUID.randomUUID(), "GOLD");
+        tiers.put(unranked, null);
+
+        UuidTierTable table = UuidTierTable.of(tiers);
+
+        assertEquals(1, table.size());
+        assertNull(table.get(unranked));
+        assertNull(table.get(UUID.randomUUID()));
+        assertNull(UuidTierTable.empty().get(UUID.randomUUID()));
+    }
+}
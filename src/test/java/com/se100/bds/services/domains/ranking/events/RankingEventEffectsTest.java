@@ -0,0 +1,58 @@
+package com.se100.bds.services.domains.ranking.events;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.se100.bds.models.schemas.ranking.RankingEvent;
+import com.se100.bds.utils.Constants;
+import org.junit.jupiter.api.Test;
+
+class RankingEventEffectsTest {
+
+    @Test
+    void shouldFoldRatingsIntoSumAndCounts() {
+        Map<String, Number> counters = new LinkedHashMap<>(RankingEventEffects.zeros(Constants.RoleEnum.SALESAGENT));
+
+        fold(counters, Constants.RoleEnum.SALESAGENT, Constants.AgentActionEnum.RATED, "5");
+        fold(counters, Constants.RoleEnum.SALESAGENT, Constants.AgentActionEnum.RATED, "2");
+
+        assertEquals(2, counters.get("month_rates"));
+        assertEquals(0, new BigDecimal("7").compareTo((BigDecimal) counters.get("rating_sum")));
+        assertEquals(1, counters.get("satisfied_rates"));
+    }
+
+    @Test
+    void shouldNotDecrementBelowZero() {
+        Map<String, Number> counters = new LinkedHashMap<>(RankingEventEffects.zeros(Constants.RoleEnum.CUSTOMER));
+
+        fold(counters, Constants.RoleEnum.CUSTOMER, Constants.CustomerActionEnum.VIEWING_REQUESTED, null);
+        fold(counters, Constants.RoleEnum.CUSTOMER, Constants.CustomerActionEnum.VIEWING_CANCELLED, null);
+        fold(counters, Constants.RoleEnum.CUSTOMER, Constants.CustomerActionEnum.VIEWING_CANCELLED, null);
+
+        assertEquals(0, counters.get("month_viewings_requested"));
+    }
+
+    @Test
+    void shouldAddMoneyAmounts() {
+        Map<String, Number> counters = new LinkedHashMap<>(RankingEventEffects.zeros(Constants.RoleEnum.PROPERTY_OWNER));
+
+        fold(counters, Constants.RoleEnum.PROPERTY_OWNER, Constants.PropertyOwnerActionEnum.MONEY_RECEIVED, "1500000.50");
+        fold(counters, Constants.RoleEnum.PROPERTY_OWNER, Constants.PropertyOwnerActionEnum.MONEY_RECEIVED, "500000");
+
+        assertEquals(0, new BigDecimal("2000000.50").compareTo((BigDecimal) counters.get("month_contribution_value")));
+    }
+
+    private void fold(Map<String, Number> counters, Constants.RoleEnum role, Enum<?> action, String amount) {
+        RankingEvent event = RankingEvent.builder()
+                .role(role)
+                .userId(UUID.randomUUID())
+                .action(action.name())
+                .amount(amount != null ? new BigDecimal(amount) : null)
+                .build();
+        RankingEventEffects.apply(RankingEventEffects.of(event), counters);
+    }
+}
@@ -0,0 +1,82 @@
+package com.se100.bds.services.domains.ranking.leaderboard;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class OrderStatisticSkipListTest {
+
+    @Test
+    void shouldShareRanksBetweenTiedUsers() {
+        OrderStatisticSkipList leaderboard = new OrderStatisticSkipList();
+        UUID first = UUID.randomUUID();
+        UUID tiedA = UUID.randomUUID();
+        UUID tiedB = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+        leaderboard.put(first, 90);
+        leaderboard.put(tiedA, 50);
+        leaderboard.put(tiedB, 50);
+        leaderboard.put(last, 10);
+
+        List<OrderStatisticSkipList.Entry> entries = leaderboard.range(0, 10);
+
+        assertEquals(List.of(1, 2, 2, 4), entries.stream().map(OrderStatisticSkipList.Entry::rank).toList());
+        assertEquals(4, leaderboard.rankOf(last));
+        assertEquals(2, leaderboard.rankOf(tiedB));
+    }
+
+    @Test
+    void shouldMoveUserWhenPointsChange() {
+        OrderStatisticSkipList leaderboard = new OrderStatisticSkipList();
+        UUID climber = UUID.randomUUID();
+        leaderboard.put(UUID.randomUUID(), 30);
+        leaderboard.put(UUID.randomUUID(), 20);
+        leaderboard.put(climber, 10);
+
+        leaderboard.put(climber, 40);
+
+        assertEquals(3, leaderboard.size());
+        assertEquals(0, leaderboard.indexOf(climber));
+        assertEquals(1, leaderboard.rankOf(climber));
+    }
+
+    @Test
+    void shouldMatchSortedListUnderRandomUpdates() {
+        Random random = new Random(42);
+        OrderStatisticSkipList leaderboard = new OrderStatisticSkipList();
+        Map<UUID, Long> expected = new HashMap<>();
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            users.add(UUID.randomUUID());
+        }
+
+        for (int step = 0; step < 5_000; step++) {
+            UUID user = users.get(random.nextInt(users.size()));
+            if (random.nextInt(5) == 0) {
+                leaderboard.remove(user);
+                expected.remove(user);
+            } else {
+                long points = random.nextInt(50);
+                leaderboard.put(user, points);
+                expected.put(user, points);
+            }
+        }
+
+        List<UUID> sorted = new ArrayList<>(expected.keySet());
+        sorted.sort(Comparator.<UUID>comparingLong(expected::get).reversed().thenComparing(Comparator.naturalOrder()));
+        assertEquals(sorted.size(), leaderboard.size());
+        for (int i = 0; i < sorted.size(); i += 7) {
+            OrderStatisticSkipList.Entry entry = leaderboard.range(i, 1).get(0);
+            assertEquals(sorted.get(i), entry.userId());
+            assertEquals(i, leaderboard.indexOf(sorted.get(i)));
+        }
+    }
+}
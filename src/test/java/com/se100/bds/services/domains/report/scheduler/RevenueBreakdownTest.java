@@ -0,0 +1,154 @@
+package com.se100.bds.services.domains.report.scheduler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import com.se100.bds.repositories.dtos.RevenueBucketProjection;
+import com.se100.bds.utils.Constants;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class RevenueBreakdownTest {
+    private static final UUID HANOI = UUID.randomUUID();
+    private static final UUID BA_DINH = UUID.randomUUID();
+    private static final UUID DOI_CAN = UUID.randomUUID();
+    private static final UUID KIM_MA = UUID.randomUUID();
+    private static final UUID APARTMENT = UUID.randomUUID();
+    private static final UUID HOUSE = UUID.randomUUID();
+
+    @Test
+    void shouldRollBucketsUpToEveryDimension() {
+        RevenueBreakdown breakdown = RevenueBreakdown.of(List.of(
+                new RevenueBucketProjection(HANOI, BA_DINH, DOI_CAN, APARTMENT, new BigDecimal("100"), 2L),
+                new RevenueBucketProjection(HANOI, BA_DINH, KIM_MA, APARTMENT, new BigDecimal("50"), 1L),
+                new RevenueBucketProjection(HANOI, BA_DINH, KIM_MA, HOUSE, new BigDecimal("25"), 1L)
+        ));
+
+        assertEquals(new BigDecimal("175"), breakdown.totalRevenue());
+        assertEquals(4, breakdown.paymentCount());
+        assertEquals(new BigDecimal("175"), breakdown.cities().get(HANOI));
+        assertEquals(new BigDecimal("75"), breakdown.wards().get(KIM_MA));
+        assertEquals(new BigDecimal("150"), breakdown.propertyTypes().get(APARTMENT));
+    }
+
+    @Test
+    void shouldCountPaymentsWithoutPropertyOnlyInTotal() {
+        RevenueBreakdown breakdown = RevenueBreakdown.of(List.of(
+                new RevenueBucketProjection(null, null, null, null, new BigDecimal("40"), 3L),
+                new RevenueBucketProjection(HANOI, BA_DINH, DOI_CAN, HOUSE, null, 1L)
+        ));
+
+        assertEquals(new BigDecimal("40"), breakdown.totalRevenue());
+        assertEquals(BigDecimal.ZERO, breakdown.cities().get(HANOI));
+        assertEquals(1, breakdown.cities().size());
+    }
+
+    @Test
+    void shouldGiveZeroToIdsWithoutRevenue() {
+        Map<UUID, BigDecimal> values = RevenueBreakdown.valuesFor(List.of(DOI_CAN, KIM_MA), Map.of(KIM_MA, new BigDecimal("10")));
+
+        assertEquals(BigDecimal.ZERO, values.get(DOI_CAN));
+        assertEquals(new BigDecimal("10"), values.get(KIM_MA));
+    }
+
+    @Test
+    void shouldLookUpRevenueByDimension() {
+        RevenueBreakdown breakdown = RevenueBreakdown.of(List.of(
+                new RevenueBucketProjection(HANOI, BA_DINH, DOI_CAN, APARTMENT, new BigDecimal("100"), 1L)));
+
+        assertSame(breakdown.wards(), breakdown.byDimension(Constants.ReportDimensionEnum.REVENUE_WARDS));
+        assertThrows(IllegalArgumentException.class, () -> breakdown.byDimension(Constants.ReportDimensionEnum.SEARCHED_WARDS));
+    }
+
+    /**
+     * Compares the old per payment list scan with folding grouped buckets over 1M synthetic payments.
+     * The GROUP BY is stood in for by a hash map here, so this only measures the Java side of both paths.
+     * Run with {@code mvn test -Dtest=RevenueBreakdownTest -Dbenchmark=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkOneMillionPayments() {
+        Random random = new Random(42);
+        int payments = 1_000_000;
+        List<UUID> cities = ids(63);
+        List<UUID> districts = ids(700);
+        List<UUID> wards = ids(10_000);
+        List<UUID> propertyTypes = ids(10);
+        UUID[][] locations = new UUID[payments][];
+        BigDecimal[] amounts = new BigDecimal[payments];
+        for (int i = 0; i < payments; i++) {
+            int ward = random.nextInt(wards.size());
+            int district = ward % districts.size();
+            locations[i] = new UUID[]{cities.get(district % cities.size()), districts.get(district),
+                    wards.get(ward), propertyTypes.get(random.nextInt(propertyTypes.size()))};
+            amounts[i] = BigDecimal.valueOf(random.nextInt(50_000_000), 2);
+        }
+
+        long legacyStart = System.nanoTime();
+        List<List<UUID>> dimensions = List.of(cities, districts, wards, propertyTypes);
+        List<BigDecimal[]> legacy = new ArrayList<>();
+        for (List<UUID> ids : dimensions) {
+            BigDecimal[] revenues = new BigDecimal[ids.size()];
+            Arrays.fill(revenues, BigDecimal.ZERO);
+            legacy.add(revenues);
+        }
+        for (int i = 0; i < payments; i++) {
+            for (int dimension = 0; dimension < 4; dimension++) {
+                List<UUID> ids = dimensions.get(dimension);
+                for (int item = 0; item < ids.size(); item++) {
+                    if (locations[i][dimension].equals(ids.get(item))) {
+                        legacy.get(dimension)[item] = legacy.get(dimension)[item].add(amounts[i]);
+                        break;
+                    }
+                }
+            }
+        }
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long groupedStart = System.nanoTime();
+        Map<List<UUID>, BigDecimal> grouped = new HashMap<>();
+        Map<List<UUID>, Long> counts = new HashMap<>();
+        for (int i = 0; i < payments; i++) {
+            List<UUID> key = List.of(locations[i]);
+            grouped.merge(key, amounts[i], BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+        }
+        List<RevenueBucketProjection> buckets = new ArrayList<>(grouped.size());
+        grouped.forEach((key, revenue) -> buckets.add(
+                new RevenueBucketProjection(key.get(0), key.get(1), key.get(2), key.get(3), revenue, counts.get(key))));
+        long foldStart = System.nanoTime();
+        RevenueBreakdown breakdown = RevenueBreakdown.of(buckets);
+        List<Map<UUID, BigDecimal>> rebuilt = List.of(
+                RevenueBreakdown.valuesFor(cities, breakdown.cities()),
+                RevenueBreakdown.valuesFor(districts, breakdown.districts()),
+                RevenueBreakdown.valuesFor(wards, breakdown.wards()),
+                RevenueBreakdown.valuesFor(propertyTypes, breakdown.propertyTypes()));
+        long end = System.nanoTime();
+
+        for (int dimension = 0; dimension < 4; dimension++) {
+            List<UUID> ids = dimensions.get(dimension);
+            for (int item = 0; item < ids.size(); item++) {
+                assertEquals(0, legacy.get(dimension)[item].compareTo(rebuilt.get(dimension).get(ids.get(item))));
+            }
+        }
+        assertEquals(payments, breakdown.paymentCount());
+        System.out.printf("1M payments: list scan %d ms, group %d ms + fold %d buckets %d ms%n",
+                legacyNanos / 1_000_000, (foldStart - groupedStart) / 1_000_000, buckets.size(), (end - foldStart) / 1_000_000);
+    }
+
+    private static List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+}
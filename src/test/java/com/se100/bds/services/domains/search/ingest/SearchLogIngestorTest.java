@@ -0,0 +1,66 @@
+package com.se100.bds.services.domains.search.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import com.se100.bds.models.schemas.search.SearchLog;
+import com.se100.bds.repositories.domains.mongo.search.SearchLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class SearchLogIngestorTest {
+    private final SearchLogRepository repository = mock(SearchLogRepository.class);
+    private final SearchCounterAggregator aggregator = mock(SearchCounterAggregator.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldDropWhenQueueIsFull() throws Exception {
+        SearchLogIngestor ingestor = new SearchLogIngestor(repository, aggregator, meterRegistry, 2, 10, 60_000);
+
+        assertTrue(ingestor.offer(searchLog()));
+        assertTrue(ingestor.offer(searchLog()));
+        assertFalse(ingestor.offer(searchLog()));
+
+        assertEquals(1, meterRegistry.counter("search_log.ingest.dropped").count());
+        ingestor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldWriteQueuedLogsInBatchesOnShutdown() throws Exception {
+        SearchLogIngestor ingestor = new SearchLogIngestor(repository, aggregator, meterRegistry, 100, 2, 60_000);
+        for (int i = 0; i < 3; i++) {
+            ingestor.offer(searchLog());
+        }
+
+        ingestor.shutdown();
+
+        ArgumentCaptor<List<SearchLog>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, atLeastOnce()).insert(batches.capture());
+        assertEquals(3, batches.getAllValues().stream().mapToInt(List::size).sum());
+        assertTrue(batches.getAllValues().stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(3, meterRegistry.counter("search_log.ingest.written").count());
+    }
+
+    @Test
+    void shouldCountFailedBatches() throws Exception {
+        when(repository.insert(anyList())).thenThrow(new IllegalStateException("mongo down"));
+        SearchLogIngestor ingestor = new SearchLogIngestor(repository, aggregator, meterRegistry, 100, 10, 60_000);
+        ingestor.offer(searchLog());
+
+        ingestor.shutdown();
+
+        assertEquals(1, meterRegistry.counter("search_log.ingest.failed").count());
+        verify(aggregator).add(argThat(batch -> batch.size() == 1));
+        verify(aggregator, atLeastOnce()).flush();
+    }
+
+    private SearchLog searchLog() {
+        return new SearchLog(UUID.randomUUID(), UUID.randomUUID(), null, null, null, null);
+    }
+}
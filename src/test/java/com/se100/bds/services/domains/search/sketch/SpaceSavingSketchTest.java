@@ -0,0 +1,54 @@
+package com.se100.bds.services.domains.search.sketch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingSketchTest {
+    private final UUID popular = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+
+    @Test
+    void shouldCountExactlyWhileUnderCapacity() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.offer(second, 2);
+        sketch.offer(popular, 5);
+        sketch.offer(second, 1);
+
+        assertEquals(List.of(popular, second), sketch.top(0, 10));
+        assertEquals(0, sketch.maxError());
+        assertEquals(8, sketch.total());
+    }
+
+    @Test
+    void shouldKeepHeavyHittersWhenEvicting() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        for (int i = 0; i < 100; i++) {
+            sketch.offer(popular, 3);
+            sketch.offer(second, 2);
+            sketch.offer(UUID.randomUUID(), 1);
+        }
+
+        assertEquals(List.of(popular, second), sketch.top(0, 2));
+        assertEquals(3, sketch.size());
+        assertTrue(sketch.maxError() <= sketch.total() / sketch.capacity());
+    }
+
+    @Test
+    void shouldPageAndRestore() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        UUID third = UUID.randomUUID();
+
+        sketch.restore(List.of(
+                new SpaceSavingSketch.Counter(third, 1, 0),
+                new SpaceSavingSketch.Counter(popular, 9, 0),
+                new SpaceSavingSketch.Counter(second, 4, 0)), 14);
+
+        assertEquals(List.of(second), sketch.top(1, 5));
+        assertEquals(14, sketch.total());
+        assertEquals(4, sketch.maxError());
+    }
+}